@@ -16,6 +16,7 @@
 
 package stroom.startup;
 
+import com.codahale.metrics.SharedMetricRegistries;
 import com.google.inject.Guice;
 import com.google.inject.Injector;
 import io.dropwizard.Application;
@@ -46,6 +47,7 @@ import stroom.importexport.ImportExportActionHandler;
 import stroom.index.StroomIndexQueryResource;
 import stroom.lifecycle.LifecycleService;
 import stroom.persist.PersistLifecycle;
+import stroom.pipeline.metrics.PipelineMetrics;
 import stroom.proxy.guice.ProxyModule;
 import stroom.proxy.repo.ProxyLifecycle;
 import stroom.proxy.servlet.ConfigServlet;
@@ -62,7 +64,9 @@ import stroom.ruleset.RuleSetResource2;
 import stroom.ruleset.RuleSetService;
 import stroom.ruleset.shared.RuleSet;
 import stroom.script.ScriptServlet;
+import stroom.search.SharedSearchRegistry;
 import stroom.security.AuthorisationResource;
+import stroom.security.JWTService;
 import stroom.security.SecurityFilter;
 import stroom.security.SessionResource;
 import stroom.servicediscovery.ResourcePaths;
@@ -188,6 +192,9 @@ public class App extends Application<Config> {
     }
 
     private void startApp(final Config configuration, final Environment environment) {
+        // Make the Dropwizard metric registry available to pipelines so that their metrics are reported by the app.
+        SharedMetricRegistries.add(PipelineMetrics.METRIC_REGISTRY_NAME, environment.metrics());
+
         final AppModule appModule = new AppModule();
         final Injector injector = Guice.createInjector(appModule);
 
@@ -201,11 +208,13 @@ public class App extends Application<Config> {
         GuiceUtil.addHealthCheck(environment.healthChecks(), injector, ServiceDiscovererImpl.class);
         GuiceUtil.addHealthCheck(environment.healthChecks(), injector, SqlStatisticsQueryResource.class);
         GuiceUtil.addHealthCheck(environment.healthChecks(), injector, StroomIndexQueryResource.class);
+        GuiceUtil.addHealthCheck(environment.healthChecks(), injector, SharedSearchRegistry.class);
         GuiceUtil.addHealthCheck(environment.healthChecks(), injector, DictionaryResource.class);
         GuiceUtil.addHealthCheck(environment.healthChecks(), injector, DictionaryResource2.class);
         GuiceUtil.addHealthCheck(environment.healthChecks(), injector, RuleSetResource.class);
         GuiceUtil.addHealthCheck(environment.healthChecks(), injector, RuleSetResource2.class);
         GuiceUtil.addHealthCheck(environment.healthChecks(), injector, RefDataStore.class);
+        GuiceUtil.addHealthCheck(environment.healthChecks(), injector, JWTService.class);
 
         // Add filters
         GuiceUtil.addFilter(servletContextHandler, injector, HttpServletRequestFilter.class, "/*");
@@ -0,0 +1,171 @@
+/*
+ * Copyright 2018 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package stroom.datafeed;
+
+import stroom.feed.MetaMap;
+import stroom.feed.StroomStatusCode;
+import stroom.feed.StroomStreamException;
+import stroom.proxy.repo.StroomHeaderStreamHandler;
+import stroom.proxy.repo.StroomStreamHandler;
+import stroom.proxy.repo.StroomZipEntry;
+import stroom.streamtask.StreamTargetStroomStreamHandler;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Buffers the entries of a small POST in memory so that they can be written to a stream later on along with the
+ * entries of other POSTs.
+ * <p>
+ * The size of a POST is only known up front from its content length, which for compressed data is the compressed
+ * size, so the buffer is limited to a maximum size. If the data turns out to be bigger than that then the buffered
+ * data and the rest of the POST are written straight to a stream of its own by an overflow handler instead.
+ */
+class BufferedStroomStreamHandler implements StroomStreamHandler, StroomHeaderStreamHandler {
+    private final long maxSize;
+    private final Supplier<StreamTargetStroomStreamHandler> overflowHandlerFactory;
+    private final List<Entry> entries = new ArrayList<>();
+    private MetaMap metaMap;
+    private Entry currentEntry;
+    private long size;
+    private StreamTargetStroomStreamHandler overflowHandler;
+
+    /**
+     * @param maxSize                The most data to buffer in memory.
+     * @param overflowHandlerFactory Creates the handler to write the POST to if it is bigger than maxSize.
+     */
+    BufferedStroomStreamHandler(final long maxSize,
+                                final Supplier<StreamTargetStroomStreamHandler> overflowHandlerFactory) {
+        this.maxSize = maxSize;
+        this.overflowHandlerFactory = overflowHandlerFactory;
+    }
+
+    @Override
+    public void handleHeader(final MetaMap metaMap) {
+        this.metaMap = metaMap;
+    }
+
+    @Override
+    public void handleEntryStart(final StroomZipEntry stroomZipEntry) {
+        if (overflowHandler != null) {
+            forward(() -> overflowHandler.handleEntryStart(stroomZipEntry));
+        } else {
+            currentEntry = new Entry(stroomZipEntry);
+            entries.add(currentEntry);
+        }
+    }
+
+    @Override
+    public void handleEntryData(final byte[] data, final int off, final int len) {
+        if (overflowHandler == null && size + len > maxSize) {
+            overflow();
+        }
+
+        if (overflowHandler != null) {
+            forward(() -> overflowHandler.handleEntryData(data, off, len));
+        } else {
+            currentEntry.outputStream.write(data, off, len);
+        }
+        size += len;
+    }
+
+    @Override
+    public void handleEntryEnd() {
+        if (overflowHandler != null) {
+            forward(() -> overflowHandler.handleEntryEnd());
+        } else {
+            currentEntry = null;
+        }
+    }
+
+    /**
+     * Send everything buffered so far to a new overflow handler, leaving the current entry open so that the rest of
+     * the POST can follow it, and stop buffering.
+     */
+    private void overflow() {
+        overflowHandler = overflowHandlerFactory.get();
+        forward(() -> {
+            overflowHandler.handleHeader(metaMap);
+            for (final Entry entry : entries) {
+                overflowHandler.handleEntryStart(entry.stroomZipEntry);
+                final byte[] bytes = entry.outputStream.toByteArray();
+                overflowHandler.handleEntryData(bytes, 0, bytes.length);
+                if (entry != currentEntry) {
+                    overflowHandler.handleEntryEnd();
+                }
+            }
+        });
+        entries.clear();
+        currentEntry = null;
+    }
+
+    private void forward(final HandlerCall handlerCall) {
+        try {
+            handlerCall.call();
+        } catch (final IOException e) {
+            throw new StroomStreamException(StroomStatusCode.UNKNOWN_ERROR, e.getMessage());
+        }
+    }
+
+    MetaMap getMetaMap() {
+        return metaMap;
+    }
+
+    long getSize() {
+        return size;
+    }
+
+    /**
+     * @return The handler that the POST was written to because it was too big to buffer, or null if it was buffered.
+     */
+    StreamTargetStroomStreamHandler getOverflowHandler() {
+        return overflowHandler;
+    }
+
+    /**
+     * Send the buffered entries to another handler. The entries are given a new base name so that the entries of
+     * several POSTs can be sent to the same handler.
+     */
+    void replay(final StroomStreamHandler handler, final String baseName) throws IOException {
+        if (handler instanceof StroomHeaderStreamHandler) {
+            ((StroomHeaderStreamHandler) handler).handleHeader(metaMap);
+        }
+
+        for (final Entry entry : entries) {
+            handler.handleEntryStart(new StroomZipEntry(null, baseName, entry.stroomZipEntry.getStroomZipFileType()));
+            final byte[] bytes = entry.outputStream.toByteArray();
+            handler.handleEntryData(bytes, 0, bytes.length);
+            handler.handleEntryEnd();
+        }
+    }
+
+    private interface HandlerCall {
+        void call() throws IOException;
+    }
+
+    private static class Entry {
+        private final StroomZipEntry stroomZipEntry;
+        private final ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+
+        Entry(final StroomZipEntry stroomZipEntry) {
+            this.stroomZipEntry = stroomZipEntry;
+        }
+    }
+}
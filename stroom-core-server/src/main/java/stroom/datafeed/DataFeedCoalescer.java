@@ -0,0 +1,311 @@
+/*
+ * Copyright 2018 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package stroom.datafeed;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import stroom.feed.FeedService;
+import stroom.feed.MetaMap;
+import stroom.feed.StroomHeaderArguments;
+import stroom.feed.StroomStatusCode;
+import stroom.feed.StroomStreamException;
+import stroom.feed.shared.Feed;
+import stroom.properties.StroomPropertyService;
+import stroom.streamstore.StreamFactory;
+import stroom.streamstore.StreamStore;
+import stroom.streamtask.StreamTargetStroomStreamHandler;
+import stroom.streamtask.statistic.MetaDataStatistic;
+import stroom.util.shared.ModelStringUtil;
+
+import javax.inject.Inject;
+import javax.inject.Named;
+import javax.inject.Singleton;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Coalesces small POSTs for the same feed and effective time into a single stream so that clients that only send a
+ * few events at a time do not create a stream, a set of files and a processing task for every POST. Each POST keeps
+ * its own headers as the meta data for its own segment of the stream.
+ * <p>
+ * The first POST for a feed starts a batch and waits for the batch to reach the maximum size or number of POSTs, or
+ * the maximum age, before writing the batch as a single stream. Every POST in a batch waits until the stream has been
+ * written and closed so that a POST is only acknowledged once its data is in the stream store.
+ */
+@Singleton
+class DataFeedCoalescer {
+    private static final Logger LOGGER = LoggerFactory.getLogger(DataFeedCoalescer.class);
+
+    private static final String ENABLED_PROPERTY = "stroom.feed.coalesce.enabled";
+    private static final String MAX_POST_SIZE_PROPERTY = "stroom.feed.coalesce.maxPostSize";
+    private static final String MAX_STREAM_SIZE_PROPERTY = "stroom.feed.coalesce.maxStreamSize";
+    private static final String MAX_POST_COUNT_PROPERTY = "stroom.feed.coalesce.maxPostCount";
+    private static final String MAX_AGE_PROPERTY = "stroom.feed.coalesce.maxAge";
+
+    private static final long DEFAULT_MAX_POST_SIZE = 64 * 1024;
+    private static final long DEFAULT_MAX_STREAM_SIZE = 10 * 1024 * 1024;
+    private static final int DEFAULT_MAX_POST_COUNT = 1000;
+    private static final long DEFAULT_MAX_AGE_MS = 1000;
+
+    private final StreamStore streamStore;
+    private final FeedService feedService;
+    private final MetaDataStatistic metaDataStatistics;
+    private final StroomPropertyService stroomPropertyService;
+
+    private final Map<BatchKey, Batch> openBatches = new HashMap<>();
+
+    @Inject
+    DataFeedCoalescer(final StreamStore streamStore,
+                      @Named("cachedFeedService") final FeedService feedService,
+                      final MetaDataStatistic metaDataStatistics,
+                      final StroomPropertyService stroomPropertyService) {
+        this.streamStore = streamStore;
+        this.feedService = feedService;
+        this.metaDataStatistics = metaDataStatistics;
+        this.stroomPropertyService = stroomPropertyService;
+    }
+
+    /**
+     * @return True if the POST described by the supplied headers can be coalesced with others.
+     */
+    boolean canCoalesce(final Feed feed, final MetaMap metaMap) {
+        if (!stroomPropertyService.getBooleanProperty(ENABLED_PROPERTY, false)) {
+            return false;
+        }
+
+        // We don't want to aggregate reference feeds and zip files can hold data for several feeds.
+        if (feed.isReference() ||
+                StroomHeaderArguments.COMPRESSION_ZIP.equalsIgnoreCase(metaMap.get(StroomHeaderArguments.COMPRESSION))) {
+            return false;
+        }
+
+        // Only buffer POSTs that tell us they are small. For compressed POSTs this is the compressed size so the
+        // buffered size is also checked against the maximum as the data is received.
+        final String contentLength = metaMap.get(StroomHeaderArguments.CONTENT_LENGTH);
+        if (contentLength == null) {
+            return false;
+        }
+        try {
+            return Long.parseLong(contentLength.trim()) <= getMaxPostSize();
+        } catch (final NumberFormatException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Add a buffered POST to the open batch for its feed and effective time and wait for the batch to be written.
+     */
+    void add(final Feed feed, final BufferedStroomStreamHandler post) {
+        final BatchKey key = new BatchKey(feed.getName(),
+                StreamFactory.getReferenceEffectiveTime(post.getMetaMap(), false));
+
+        final Batch batch;
+        final boolean first;
+        synchronized (openBatches) {
+            final Batch openBatch = openBatches.get(key);
+            first = openBatch == null;
+            if (first) {
+                batch = new Batch(feed);
+                openBatches.put(key, batch);
+            } else {
+                batch = openBatch;
+            }
+
+            batch.add(post);
+            if (batch.getPostCount() >= stroomPropertyService.getIntProperty(MAX_POST_COUNT_PROPERTY, DEFAULT_MAX_POST_COUNT) ||
+                    batch.getSize() >= getByteSize(MAX_STREAM_SIZE_PROPERTY, DEFAULT_MAX_STREAM_SIZE)) {
+                openBatches.remove(key);
+                batch.seal();
+            }
+        }
+
+        // The first POST in a batch is responsible for writing it.
+        if (first) {
+            boolean interrupted = false;
+            try {
+                batch.awaitSealed(getMaxAgeMs());
+            } catch (final InterruptedException e) {
+                // Other POSTs are relying on this batch being written so carry on.
+                interrupted = true;
+            }
+
+            synchronized (openBatches) {
+                openBatches.remove(key, batch);
+                batch.seal();
+            }
+
+            try {
+                write(batch.getFeed(), batch.getPosts());
+                batch.getWritten().complete(null);
+            } catch (final IOException | RuntimeException e) {
+                LOGGER.error("add() - Unable to write {} POSTs for feed {}", batch.getPostCount(), feed.getName(), e);
+                batch.getWritten().completeExceptionally(e);
+            }
+
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        awaitWritten(batch);
+    }
+
+    private void awaitWritten(final Batch batch) {
+        try {
+            batch.getWritten().get();
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new StroomStreamException(StroomStatusCode.UNKNOWN_ERROR, "Interrupted waiting for data to be written");
+        } catch (final ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new StroomStreamException(StroomStatusCode.UNKNOWN_ERROR, e.getCause().getMessage());
+        }
+    }
+
+    /**
+     * Write a batch of POSTs as a single stream.
+     */
+    void write(final Feed feed, final List<BufferedStroomStreamHandler> posts) throws IOException {
+        StreamTargetStroomStreamHandler handler = new StreamTargetStroomStreamHandler(streamStore, feedService,
+                metaDataStatistics, feed, feed.getStreamType());
+        try {
+            int postNo = 0;
+            for (final BufferedStroomStreamHandler post : posts) {
+                postNo++;
+                post.replay(handler, String.format("%03d", postNo));
+            }
+            handler.close();
+            handler = null;
+            LOGGER.debug("write() - Wrote {} POSTs for feed {} as a single stream", postNo, feed.getName());
+        } finally {
+            // some kind of error
+            if (handler != null) {
+                handler.closeDelete();
+            }
+        }
+    }
+
+    /**
+     * @return The most data that a single POST can have for it to be buffered and coalesced.
+     */
+    long getMaxPostSize() {
+        return getByteSize(MAX_POST_SIZE_PROPERTY, DEFAULT_MAX_POST_SIZE);
+    }
+
+    private long getMaxAgeMs() {
+        Long value = null;
+        try {
+            value = ModelStringUtil.parseDurationString(stroomPropertyService.getProperty(MAX_AGE_PROPERTY));
+        } catch (final RuntimeException e) {
+            LOGGER.error(e.getMessage(), e);
+        }
+        return value != null ? value : DEFAULT_MAX_AGE_MS;
+    }
+
+    private long getByteSize(final String propertyName, final long defaultValue) {
+        Long value = null;
+        try {
+            value = ModelStringUtil.parseIECByteSizeString(stroomPropertyService.getProperty(propertyName));
+        } catch (final RuntimeException e) {
+            LOGGER.error(e.getMessage(), e);
+        }
+        return value != null ? value : defaultValue;
+    }
+
+    private static class Batch {
+        private final Feed feed;
+        private final List<BufferedStroomStreamHandler> posts = new ArrayList<>();
+        private final CompletableFuture<Void> written = new CompletableFuture<>();
+        private long size;
+        private boolean sealed;
+
+        Batch(final Feed feed) {
+            this.feed = feed;
+        }
+
+        void add(final BufferedStroomStreamHandler post) {
+            posts.add(post);
+            size += post.getSize();
+        }
+
+        synchronized void seal() {
+            sealed = true;
+            notifyAll();
+        }
+
+        synchronized void awaitSealed(final long maxAgeMs) throws InterruptedException {
+            final long deadline = System.currentTimeMillis() + maxAgeMs;
+            long remaining = maxAgeMs;
+            while (!sealed && remaining > 0) {
+                wait(remaining);
+                remaining = deadline - System.currentTimeMillis();
+            }
+        }
+
+        Feed getFeed() {
+            return feed;
+        }
+
+        List<BufferedStroomStreamHandler> getPosts() {
+            return posts;
+        }
+
+        int getPostCount() {
+            return posts.size();
+        }
+
+        long getSize() {
+            return size;
+        }
+
+        CompletableFuture<Void> getWritten() {
+            return written;
+        }
+    }
+
+    private static class BatchKey {
+        private final String feedName;
+        private final Long effectiveMs;
+
+        BatchKey(final String feedName, final Long effectiveMs) {
+            this.feedName = feedName;
+            this.effectiveMs = effectiveMs;
+        }
+
+        @Override
+        public boolean equals(final Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            final BatchKey batchKey = (BatchKey) o;
+            return Objects.equals(feedName, batchKey.feedName) &&
+                    Objects.equals(effectiveMs, batchKey.effectiveMs);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(feedName, effectiveMs);
+        }
+    }
+}
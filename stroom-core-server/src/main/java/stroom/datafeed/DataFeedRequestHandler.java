@@ -29,8 +29,13 @@ import stroom.feed.shared.Feed;
 import stroom.properties.StroomPropertyService;
 import stroom.proxy.repo.StroomStreamProcessor;
 import stroom.docref.DocRef;
+import stroom.io.GzipPassThroughOutputStream;
 import stroom.security.Security;
+import stroom.streamstore.StreamFactory;
 import stroom.streamstore.StreamStore;
+import stroom.streamstore.StreamTarget;
+import stroom.streamstore.shared.Stream;
+import stroom.streamstore.shared.StreamType;
 import stroom.streamtask.StreamTargetStroomStreamHandler;
 import stroom.streamtask.statistic.MetaDataStatistic;
 import stroom.util.thread.BufferFactory;
@@ -41,6 +46,8 @@ import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Collections;
 import java.util.List;
 import java.util.stream.Collectors;
 
@@ -58,6 +65,7 @@ class DataFeedRequestHandler implements RequestHandler {
     private final MetaDataStatistic metaDataStatistics;
     private final MetaMapFilterFactory metaMapFilterFactory;
     private final StroomPropertyService stroomPropertyService;
+    private final DataFeedCoalescer dataFeedCoalescer;
 
     private volatile MetaMapFilter metaMapFilter;
 
@@ -67,13 +75,15 @@ class DataFeedRequestHandler implements RequestHandler {
                                   @Named("cachedFeedService") final FeedService feedService,
                                   final MetaDataStatistic metaDataStatistics,
                                   final MetaMapFilterFactory metaMapFilterFactory,
-                                  final StroomPropertyService stroomPropertyService) {
+                                  final StroomPropertyService stroomPropertyService,
+                                  final DataFeedCoalescer dataFeedCoalescer) {
         this.security = security;
         this.streamStore = streamStore;
         this.feedService = feedService;
         this.metaDataStatistics = metaDataStatistics;
         this.metaMapFilterFactory = metaMapFilterFactory;
         this.stroomPropertyService = stroomPropertyService;
+        this.dataFeedCoalescer = dataFeedCoalescer;
     }
 
     @Override
@@ -105,22 +115,12 @@ class DataFeedRequestHandler implements RequestHandler {
                     throw new StroomStreamException(StroomStatusCode.FEED_IS_NOT_SET_TO_RECEIVED_DATA);
                 }
 
-                List<StreamTargetStroomStreamHandler> handlers = StreamTargetStroomStreamHandler.buildSingleHandlerList(streamStore,
-                        feedService, metaDataStatistics, feed, feed.getStreamType());
-
-                final byte[] buffer = BufferFactory.create();
-                final StroomStreamProcessor stroomStreamProcessor = new StroomStreamProcessor(metaMap, handlers, buffer, "DataFeedRequestHandler-" + metaMap.get(StroomHeaderArguments.GUID));
-
-                try {
-                    stroomStreamProcessor.processRequestHeader(request);
-                    stroomStreamProcessor.process(getInputStream(request), "");
-                    stroomStreamProcessor.closeHandlers();
-                    handlers = null;
-                } finally {
-                    // some kind of error
-                    if (handlers != null) {
-                        handlers.get(0).closeDelete();
-                    }
+                if (dataFeedCoalescer.canCoalesce(feed, metaMap)) {
+                    receiveCoalesced(request, metaMap, feed);
+                } else if (canPassThrough(metaMap)) {
+                    receivePassThrough(request, metaMap, feed);
+                } else {
+                    receive(request, metaMap, feed);
                 }
             } else {
                 // Drop the data.
@@ -133,6 +133,109 @@ class DataFeedRequestHandler implements RequestHandler {
         });
     }
 
+    private void receive(final HttpServletRequest request, final MetaMap metaMap, final Feed feed) {
+        List<StreamTargetStroomStreamHandler> handlers = StreamTargetStroomStreamHandler.buildSingleHandlerList(streamStore,
+                feedService, metaDataStatistics, feed, feed.getStreamType());
+
+        final byte[] buffer = BufferFactory.create();
+        final StroomStreamProcessor stroomStreamProcessor = new StroomStreamProcessor(metaMap, handlers, buffer, "DataFeedRequestHandler-" + metaMap.get(StroomHeaderArguments.GUID));
+
+        try {
+            stroomStreamProcessor.processRequestHeader(request);
+            stroomStreamProcessor.process(getInputStream(request), "");
+            stroomStreamProcessor.closeHandlers();
+            handlers = null;
+        } finally {
+            // some kind of error
+            if (handlers != null) {
+                handlers.get(0).closeDelete();
+            }
+        }
+    }
+
+    private void receiveCoalesced(final HttpServletRequest request, final MetaMap metaMap, final Feed feed) {
+        // Buffer the POST so it can be written to a stream along with other small POSTs for the same feed. If it
+        // turns out to be too big to buffer then it is written to a stream of its own.
+        final BufferedStroomStreamHandler bufferedHandler = new BufferedStroomStreamHandler(
+                dataFeedCoalescer.getMaxPostSize(),
+                () -> new StreamTargetStroomStreamHandler(streamStore, feedService, metaDataStatistics, feed,
+                        feed.getStreamType()));
+
+        final byte[] buffer = BufferFactory.create();
+        final StroomStreamProcessor stroomStreamProcessor = new StroomStreamProcessor(metaMap, Collections.singletonList(bufferedHandler), buffer, "DataFeedRequestHandler-" + metaMap.get(StroomHeaderArguments.GUID));
+
+        boolean success = false;
+        try {
+            stroomStreamProcessor.processRequestHeader(request);
+            stroomStreamProcessor.process(getInputStream(request), "");
+            success = true;
+        } finally {
+            final StreamTargetStroomStreamHandler overflowHandler = bufferedHandler.getOverflowHandler();
+            if (overflowHandler != null) {
+                if (success) {
+                    overflowHandler.close();
+                } else {
+                    // some kind of error
+                    overflowHandler.closeDelete();
+                }
+            }
+        }
+
+        if (bufferedHandler.getOverflowHandler() == null) {
+            // Only returns once the data has been written.
+            dataFeedCoalescer.add(feed, bufferedHandler);
+        } else {
+            LOGGER.debug("receiveCoalesced() - POST for feed {} was too big to buffer so was written on its own",
+                    feed.getName());
+        }
+    }
+
+    private boolean canPassThrough(final MetaMap metaMap) {
+        return stroomPropertyService.getBooleanProperty("stroom.feed.passThroughGzip", false)
+                && StroomHeaderArguments.COMPRESSION_GZIP.equalsIgnoreCase(metaMap.get(StroomHeaderArguments.COMPRESSION))
+                && !"0".equals(metaMap.get(StroomHeaderArguments.CONTENT_LENGTH));
+    }
+
+    private void receivePassThrough(final HttpServletRequest request, final MetaMap metaMap, final Feed feed) {
+        // Store the GZIP data as is rather than decompressing it and compressing it again.
+        final byte[] buffer = BufferFactory.create();
+        final StroomStreamProcessor stroomStreamProcessor = new StroomStreamProcessor(metaMap, Collections.emptyList(), buffer, "DataFeedRequestHandler-" + metaMap.get(StroomHeaderArguments.GUID));
+        stroomStreamProcessor.processRequestHeader(request);
+
+        final Long effectiveMs = StreamFactory.getReferenceEffectiveTime(metaMap, true);
+        final Stream stream = Stream.createStream(feed.getStreamType(), feed, effectiveMs);
+        StreamTarget streamTarget = streamStore.openStreamTarget(stream);
+        try {
+            final OutputStream outputStream = streamTarget.getOutputStream();
+            final long streamSize;
+            if (outputStream instanceof GzipPassThroughOutputStream
+                    && ((GzipPassThroughOutputStream) outputStream).canPassThrough()) {
+                streamSize = GzipPassThroughUtil.copy(getInputStream(request),
+                        (GzipPassThroughOutputStream) outputStream, buffer);
+            } else {
+                streamSize = GzipPassThroughUtil.decompress(getInputStream(request), outputStream, buffer);
+            }
+
+            // Write the meta data for the single entry in the same way that the stream processor would.
+            final MetaMap entryMetaMap = MetaMapFactory.cloneAllowable(metaMap);
+            entryMetaMap.put(StroomHeaderArguments.STREAM_SIZE, String.valueOf(streamSize));
+            if (metaDataStatistics != null) {
+                metaDataStatistics.recordStatistics(entryMetaMap);
+            }
+            entryMetaMap.write(streamTarget.addChildStream(StreamType.META).getOutputStream(), false);
+
+            streamStore.closeStreamTarget(streamTarget);
+            streamTarget = null;
+        } catch (final IOException ioEx) {
+            throw new StroomStreamException(StroomStatusCode.UNKNOWN_ERROR, ioEx.getMessage());
+        } finally {
+            // some kind of error
+            if (streamTarget != null) {
+                streamStore.deleteStreamTarget(streamTarget);
+            }
+        }
+    }
+
     private void debug(final String message, final MetaMap metaMap) {
         if (LOGGER.isDebugEnabled()) {
             final List<String> keys = metaMap.keySet().stream().sorted().collect(Collectors.toList());
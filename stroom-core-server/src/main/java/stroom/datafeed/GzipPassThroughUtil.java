@@ -0,0 +1,127 @@
+/*
+ * Copyright 2018 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package stroom.datafeed;
+
+import org.apache.commons.compress.compressors.gzip.GzipCompressorInputStream;
+import org.apache.commons.io.input.TeeInputStream;
+import stroom.feed.StroomStatusCode;
+import stroom.feed.StroomStreamException;
+import stroom.io.GzipPassThroughOutputStream;
+import stroom.util.io.StreamUtil;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+
+/**
+ * Copies GZIP data to a {@link GzipPassThroughOutputStream} as is. The data is still decompressed as it is copied but
+ * only to check that it is valid and to find out how long it is, which is a lot cheaper than compressing it again.
+ */
+final class GzipPassThroughUtil {
+    private GzipPassThroughUtil() {
+        // Utility class.
+    }
+
+    /**
+     * @return The uncompressed length of the data.
+     */
+    static long copy(final InputStream inputStream,
+                     final GzipPassThroughOutputStream outputStream,
+                     final byte[] buffer) throws IOException {
+        // Everything read from the input stream, including anything the GZIP stream reads ahead, is written as is.
+        final InputStream teeInputStream = new TeeInputStream(inputStream, new GzipOutputStreamAdaptor(outputStream));
+
+        long uncompressedLength = 0;
+        try {
+            // Use the APACHE GZIP de-compressor as it handles nested compressed streams and rejects anything after
+            // the last member that isn't GZIP.
+            final InputStream gzipInputStream = new GzipCompressorInputStream(teeInputStream, true);
+            int read;
+            while ((read = StreamUtil.eagerRead(gzipInputStream, buffer)) != -1) {
+                uncompressedLength += read;
+            }
+
+            // Make sure nothing has been left behind.
+            if (teeInputStream.read() != -1) {
+                throw new IOException("Unexpected data after GZIP stream");
+            }
+        } catch (final IOException ioEx) {
+            throw new StroomStreamException(StroomStatusCode.COMPRESSED_STREAM_INVALID, ioEx.getMessage());
+        }
+
+        outputStream.endGzip(uncompressedLength);
+        return uncompressedLength;
+    }
+
+    /**
+     * Decompress GZIP data to a stream that is unable to take the data as is.
+     *
+     * @return The uncompressed length of the data.
+     */
+    static long decompress(final InputStream inputStream,
+                           final OutputStream outputStream,
+                           final byte[] buffer) throws IOException {
+        long uncompressedLength = 0;
+        final InputStream gzipInputStream;
+        try {
+            gzipInputStream = new GzipCompressorInputStream(inputStream, true);
+        } catch (final IOException ioEx) {
+            throw new StroomStreamException(StroomStatusCode.COMPRESSED_STREAM_INVALID, ioEx.getMessage());
+        }
+
+        while (true) {
+            final int read;
+            try {
+                read = StreamUtil.eagerRead(gzipInputStream, buffer);
+            } catch (final IOException ioEx) {
+                throw new StroomStreamException(StroomStatusCode.COMPRESSED_STREAM_INVALID, ioEx.getMessage());
+            }
+            if (read == -1) {
+                break;
+            }
+            outputStream.write(buffer, 0, read);
+            uncompressedLength += read;
+        }
+        return uncompressedLength;
+    }
+
+    /**
+     * Failures to write are unchecked so that they aren't mistaken for invalid GZIP data.
+     */
+    private static class GzipOutputStreamAdaptor extends OutputStream {
+        private final GzipPassThroughOutputStream outputStream;
+
+        GzipOutputStreamAdaptor(final GzipPassThroughOutputStream outputStream) {
+            this.outputStream = outputStream;
+        }
+
+        @Override
+        public void write(final int b) {
+            write(new byte[]{(byte) b}, 0, 1);
+        }
+
+        @Override
+        public void write(final byte[] b, final int off, final int len) {
+            try {
+                outputStream.writeGzip(b, off, len);
+            } catch (final IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+}
@@ -58,6 +58,27 @@ public class PipelineScope implements Scope {
         deque.offerLast(Maps.newHashMap());
     }
 
+    /**
+     * Enter a scoping block that provides the scoped objects captured from an earlier block by
+     * {@link #getScopedObjects()} rather than creating new ones. This allows objects built within
+     * one block, e.g. a pipeline, to be used again in a later block along with the scoped state they
+     * were built with.
+     */
+    public void enter(final Map<Key<?>, Object> scopedObjects) {
+        final Deque<Map<Key<?>, Object>> deque = threadLocal.get();
+        deque.offerLast(scopedObjects);
+    }
+
+    /**
+     * @return The scoped objects of the current scoping block.
+     */
+    public Map<Key<?>, Object> getScopedObjects() {
+        final Deque<Map<Key<?>, Object>> deque = threadLocal.get();
+        final Map<Key<?>, Object> map = deque.peekLast();
+        checkState(map != null, "No scoping block in progress");
+        return map;
+    }
+
     public void exit() {
         final Deque<Map<Key<?>, Object>> deque = threadLocal.get();
         checkState(deque != null, "No scoping block in progress");
@@ -0,0 +1,42 @@
+/*
+ * Copyright 2018 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package stroom.io;
+
+import java.io.IOException;
+
+/**
+ * An output stream that is able to store data that is already GZIP compressed as is rather than decompressing and
+ * compressing it again.
+ */
+public interface GzipPassThroughOutputStream {
+    /**
+     * @return True if GZIP data can be passed through, i.e. nothing has been written to this stream yet.
+     */
+    boolean canPassThrough();
+
+    /**
+     * Write some of the GZIP data. The data must be valid GZIP data, possibly made up of several members.
+     */
+    void writeGzip(byte[] b, int off, int len) throws IOException;
+
+    /**
+     * Finish writing the GZIP data. Nothing else can be written to this stream afterwards.
+     *
+     * @param uncompressedLength The number of bytes that the GZIP data decompresses to.
+     */
+    void endGzip(long uncompressedLength) throws IOException;
+}
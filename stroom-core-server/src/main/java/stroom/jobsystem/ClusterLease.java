@@ -0,0 +1,65 @@
+/*
+ * Copyright 2018 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package stroom.jobsystem;
+
+/**
+ * A time limited hold on a named cluster lock. Each time a lease is granted for a lock the lock's
+ * token is incremented so the token identifies this particular hold on the lock and can be used to
+ * fence off work done by a holder that has lost its lease.
+ */
+public class ClusterLease {
+    private final String name;
+    private final String holder;
+    private final long token;
+    private volatile long expiryMs;
+
+    ClusterLease(final String name, final String holder, final long token, final long expiryMs) {
+        this.name = name;
+        this.holder = holder;
+        this.token = token;
+        this.expiryMs = expiryMs;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getHolder() {
+        return holder;
+    }
+
+    public long getToken() {
+        return token;
+    }
+
+    public long getExpiryMs() {
+        return expiryMs;
+    }
+
+    void setExpiryMs(final long expiryMs) {
+        this.expiryMs = expiryMs;
+    }
+
+    @Override
+    public String toString() {
+        return "ClusterLease{" +
+                "name='" + name + '\'' +
+                ", holder='" + holder + '\'' +
+                ", token=" + token +
+                '}';
+    }
+}
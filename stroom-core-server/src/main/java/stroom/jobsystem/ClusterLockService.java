@@ -20,7 +20,12 @@ package stroom.jobsystem;
  * tryLock and release lock utilises the cluster but the master node must be up
  * to work
  * <p>
- * lock uses the database
+ * lock uses the database and holds a row lock until the surrounding transaction
+ * completes
+ * <p>
+ * leases use the database but are granted and released in their own short
+ * transactions so a lease can be held across long running work without pinning
+ * a database transaction
  */
 public interface ClusterLockService {
     boolean tryLock(final String lockName);
@@ -28,4 +33,21 @@ public interface ClusterLockService {
     void releaseLock(final String lockName);
 
     void lock(final String lockName);
+
+    /**
+     * Wait until a lease can be acquired for the named lock. The lease is renewed
+     * periodically until it is released.
+     */
+    ClusterLease acquireLease(final String lockName);
+
+    /**
+     * Make the current transaction conditional on the lease still being held. This
+     * renews the lease within the current transaction and throws a
+     * {@link ClusterLeaseLostException} if the lease has been lost, e.g. because renewal failed and another node acquired it,
+     * so the transaction is rolled back. Call it as the last step of a transaction
+     * so that the lease row is only locked while the transaction commits.
+     */
+    void checkLease(final ClusterLease lease);
+
+    void releaseLease(final ClusterLease lease);
 }
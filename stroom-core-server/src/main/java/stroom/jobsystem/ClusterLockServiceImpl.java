@@ -32,14 +32,45 @@ import stroom.util.lifecycle.StroomFrequencySchedule;
 
 import javax.inject.Inject;
 import javax.inject.Singleton;
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
 import java.util.List;
 import java.util.Map.Entry;
+import java.util.Set;
+import java.util.UUID;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
 
 @Singleton
 class ClusterLockServiceImpl implements ClusterLockService {
     private static final Logger LOGGER = LoggerFactory.getLogger(ClusterLockServiceImpl.class);
+
+    // Leases are renewed by the keep alive every minute so this allows a couple of renewals to be missed.
+    private static final long LEASE_DURATION_MS = TimeUnit.MINUTES.toMillis(3);
+    private static final long MIN_ACQUIRE_WAIT_MS = 50;
+    private static final long MAX_ACQUIRE_WAIT_MS = 1000;
+
+    private static final String ACQUIRE_LEASE_SQL = "UPDATE " + ClusterLock.TABLE_NAME + " SET "
+            + ClusterLock.LEASE_HOLDER + " = ?, " + ClusterLock.LEASE_EXPIRY_MS + " = ?, "
+            + ClusterLock.LEASE_TOKEN + " = " + ClusterLock.LEASE_TOKEN + " + 1 WHERE "
+            + SQLNameConstants.NAME + " = ? AND (" + ClusterLock.LEASE_HOLDER + " IS NULL OR "
+            + ClusterLock.LEASE_EXPIRY_MS + " < ?)";
+    private static final String SELECT_LEASE_TOKEN_SQL = "SELECT " + ClusterLock.LEASE_TOKEN + " FROM "
+            + ClusterLock.TABLE_NAME + " WHERE " + SQLNameConstants.NAME + " = ? AND "
+            + ClusterLock.LEASE_HOLDER + " = ?";
+    private static final String RENEW_LEASE_SQL = "UPDATE " + ClusterLock.TABLE_NAME + " SET "
+            + ClusterLock.LEASE_EXPIRY_MS + " = ? WHERE " + SQLNameConstants.NAME + " = ? AND "
+            + ClusterLock.LEASE_HOLDER + " = ? AND " + ClusterLock.LEASE_TOKEN + " = ?";
+    private static final String RELEASE_LEASE_SQL = "UPDATE " + ClusterLock.TABLE_NAME + " SET "
+            + ClusterLock.LEASE_HOLDER + " = NULL, " + ClusterLock.LEASE_EXPIRY_MS + " = NULL WHERE "
+            + SQLNameConstants.NAME + " = ? AND " + ClusterLock.LEASE_HOLDER + " = ? AND "
+            + ClusterLock.LEASE_TOKEN + " = ?";
+
     private final ConcurrentHashMap<String, ClusterLockKey> lockMap = new ConcurrentHashMap<>();
+    private final Set<ClusterLease> leases = ConcurrentHashMap.newKeySet();
 
     private final StroomEntityManager stroomEntityManager;
     private final EntityManagerSupport entityManagerSupport;
@@ -47,6 +78,7 @@ class ClusterLockServiceImpl implements ClusterLockService {
     private final ClusterLockServiceTransactionHelper clusterLockServiceTransactionHelper;
     private final TaskManager taskManager;
     private final NodeCache nodeCache;
+    private final DataSource dataSource;
 
     @Inject
     ClusterLockServiceImpl(final StroomEntityManager stroomEntityManager,
@@ -54,13 +86,15 @@ class ClusterLockServiceImpl implements ClusterLockService {
                            final StroomDatabaseInfo stroomDatabaseInfo,
                            final ClusterLockServiceTransactionHelper clusterLockServiceTransactionHelper,
                            final TaskManager taskManager,
-                           final NodeCache nodeCache) {
+                           final NodeCache nodeCache,
+                           final DataSource dataSource) {
         this.stroomEntityManager = stroomEntityManager;
         this.entityManagerSupport = entityManagerSupport;
         this.stroomDatabaseInfo = stroomDatabaseInfo;
         this.clusterLockServiceTransactionHelper = clusterLockServiceTransactionHelper;
         this.taskManager = taskManager;
         this.nodeCache = nodeCache;
+        this.dataSource = dataSource;
     }
 
     @Override
@@ -141,10 +175,168 @@ class ClusterLockServiceImpl implements ClusterLockService {
         LOGGER.debug("releaseLock({}) - <<< {}", lockName, success);
     }
 
+    @Override
+    public ClusterLease acquireLease(final String lockName) {
+        LOGGER.debug("acquireLease({}) - >>>", lockName);
+        final LogExecutionTime logExecutionTime = new LogExecutionTime();
+
+        clusterLockServiceTransactionHelper.checkLockCreated(lockName);
+
+        // Identify this particular hold on the lock so that other threads on this node can't use it.
+        final String holder = nodeCache.getDefaultNode().getName() + ":" + UUID.randomUUID().toString();
+
+        ClusterLease lease = tryAcquireLease(lockName, holder);
+        long waitMs = MIN_ACQUIRE_WAIT_MS;
+        while (lease == null) {
+            try {
+                Thread.sleep(waitMs);
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException("Interrupted while waiting for cluster lease: " + lockName, e);
+            }
+            waitMs = Math.min(waitMs * 2, MAX_ACQUIRE_WAIT_MS);
+            lease = tryAcquireLease(lockName, holder);
+        }
+
+        leases.add(lease);
+
+        LOGGER.debug("acquireLease({}) - <<< {} {}", lockName, lease, logExecutionTime);
+        return lease;
+    }
+
+    private ClusterLease tryAcquireLease(final String lockName, final String holder) {
+        final long now = System.currentTimeMillis();
+        final long expiryMs = now + LEASE_DURATION_MS;
+
+        try (final Connection connection = dataSource.getConnection()) {
+            // Each statement commits on its own so the lock row is never held beyond the statement.
+            connection.setAutoCommit(true);
+
+            try (final PreparedStatement ps = connection.prepareStatement(ACQUIRE_LEASE_SQL)) {
+                ps.setString(1, holder);
+                ps.setLong(2, expiryMs);
+                ps.setString(3, lockName);
+                ps.setLong(4, now);
+                if (ps.executeUpdate() == 0) {
+                    return null;
+                }
+            }
+
+            try (final PreparedStatement ps = connection.prepareStatement(SELECT_LEASE_TOKEN_SQL)) {
+                ps.setString(1, lockName);
+                ps.setString(2, holder);
+                try (final ResultSet resultSet = ps.executeQuery()) {
+                    if (!resultSet.next()) {
+                        throw new ClusterLeaseLostException("Acquired cluster lease has been lost: " + lockName);
+                    }
+                    return new ClusterLease(lockName, holder, resultSet.getLong(1), expiryMs);
+                }
+            }
+        } catch (final SQLException e) {
+            throw new RuntimeException(e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public void checkLease(final ClusterLease lease) {
+        LOGGER.debug("checkLease({}) - >>>", lease);
+
+        final long expiryMs = System.currentTimeMillis() + LEASE_DURATION_MS;
+
+        // Renew the lease within the current transaction. This locks the lease row until the
+        // transaction commits so nobody else can take the lease before our work is committed.
+        final SqlBuilder sql = new SqlBuilder();
+        sql.append("UPDATE ");
+        sql.append(ClusterLock.TABLE_NAME);
+        sql.append(" SET ");
+        sql.append(ClusterLock.LEASE_EXPIRY_MS);
+        sql.append(" = ");
+        sql.arg(expiryMs);
+        sql.append(" WHERE ");
+        sql.append(SQLNameConstants.NAME);
+        sql.append(" = ");
+        sql.arg(lease.getName());
+        sql.append(" AND ");
+        sql.append(ClusterLock.LEASE_HOLDER);
+        sql.append(" = ");
+        sql.arg(lease.getHolder());
+        sql.append(" AND ");
+        sql.append(ClusterLock.LEASE_TOKEN);
+        sql.append(" = ");
+        sql.arg(lease.getToken());
+
+        final Long count = stroomEntityManager.executeNativeUpdate(sql);
+        if (count == null || count != 1) {
+            throw new ClusterLeaseLostException("Cluster lease has been lost: " + lease);
+        }
+        lease.setExpiryMs(expiryMs);
+
+        LOGGER.debug("checkLease({}) - <<<", lease);
+    }
+
+    @Override
+    public void releaseLease(final ClusterLease lease) {
+        LOGGER.debug("releaseLease({}) - >>>", lease);
+        leases.remove(lease);
+
+        boolean success = false;
+        try (final Connection connection = dataSource.getConnection()) {
+            connection.setAutoCommit(true);
+            try (final PreparedStatement ps = connection.prepareStatement(RELEASE_LEASE_SQL)) {
+                ps.setString(1, lease.getName());
+                ps.setString(2, lease.getHolder());
+                ps.setLong(3, lease.getToken());
+                success = ps.executeUpdate() == 1;
+            }
+        } catch (final SQLException e) {
+            // The lease will expire anyway.
+            LOGGER.error("releaseLease() - {}", lease, e);
+        }
+
+        if (!success) {
+            LOGGER.warn("releaseLease() - Lease was no longer held - {}", lease);
+        }
+
+        LOGGER.debug("releaseLease({}) - <<< {}", lease, success);
+    }
+
+    private boolean renewLease(final ClusterLease lease) {
+        final long expiryMs = System.currentTimeMillis() + LEASE_DURATION_MS;
+        try (final Connection connection = dataSource.getConnection()) {
+            connection.setAutoCommit(true);
+            try (final PreparedStatement ps = connection.prepareStatement(RENEW_LEASE_SQL)) {
+                ps.setLong(1, expiryMs);
+                ps.setString(2, lease.getName());
+                ps.setString(3, lease.getHolder());
+                ps.setLong(4, lease.getToken());
+                if (ps.executeUpdate() == 1) {
+                    lease.setExpiryMs(expiryMs);
+                    return true;
+                }
+            }
+        } catch (final SQLException e) {
+            LOGGER.error("renewLease() - {}", lease, e);
+            // We might still hold the lease so try again next time.
+            return true;
+        }
+        return false;
+    }
+
     @StroomFrequencySchedule("1m")
     public void keepAlive() {
         LOGGER.debug("keepAlive() - >>>");
 
+        for (final ClusterLease lease : leases) {
+            LOGGER.debug("keepAlive({}) - >>>", lease);
+            final boolean success = renewLease(lease);
+            LOGGER.debug("keepAlive({}) - <<< {}", lease, success);
+
+            // Only complain if the lease wasn't released while we were trying to renew it.
+            if (!success && leases.remove(lease)) {
+                LOGGER.error("keepAlive() - Lease no longer held - {}", lease);
+            }
+        }
+
         for (final Entry<String, ClusterLockKey> entry : lockMap.entrySet()) {
             final String lockName = entry.getKey();
             final ClusterLockKey clusterLockKey = entry.getValue();
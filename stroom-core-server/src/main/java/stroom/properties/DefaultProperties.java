@@ -42,6 +42,42 @@ public class DefaultProperties {
                 .description("The UUID of the data receipt policy to use")
                 .editable(true)
                 .build());
+        list.add(new GlobalProperty.Builder()
+                .name("stroom.feed.coalesce.enabled")
+                .value("false")
+                .description("Should small POSTs for the same feed and effective time be written to the stream store together as a single stream?")
+                .editable(true)
+                .build());
+        list.add(new GlobalProperty.Builder()
+                .name("stroom.feed.coalesce.maxPostSize")
+                .value("64K")
+                .description("The maximum content length of a POST for it to be coalesced with others")
+                .editable(true)
+                .build());
+        list.add(new GlobalProperty.Builder()
+                .name("stroom.feed.coalesce.maxStreamSize")
+                .value("10M")
+                .description("The amount of coalesced data that causes a stream to be written")
+                .editable(true)
+                .build());
+        list.add(new GlobalProperty.Builder()
+                .name("stroom.feed.coalesce.maxPostCount")
+                .value("1000")
+                .description("The number of coalesced POSTs that causes a stream to be written")
+                .editable(true)
+                .build());
+        list.add(new GlobalProperty.Builder()
+                .name("stroom.feed.coalesce.maxAge")
+                .value("1s")
+                .description("How long the first POST in a batch of coalesced POSTs waits for others before the stream is written. Every POST in the batch waits until the stream is written before it is acknowledged")
+                .editable(true)
+                .build());
+        list.add(new GlobalProperty.Builder()
+                .name("stroom.feed.passThroughGzip")
+                .value("false")
+                .description("Should GZIP compressed POSTs be stored as they are received rather than being decompressed and compressed again? The data is still decompressed to check it is valid but it is not compressed again")
+                .editable(true)
+                .build());
         list.add(new GlobalProperty.Builder()
                 .name("stroom.proxyDir")
                 .value("${stroom.temp}/proxy")
@@ -90,7 +126,19 @@ public class DefaultProperties {
         list.add(new GlobalProperty.Builder()
                 .name("stroom.streamstore.volumeSelector")
                 .value("RoundRobin")
-                .description("How should volumes be selected for use? Possible volume selectors include ('MostFreePercent', 'MostFree', 'Random', 'RoundRobinIgnoreLeastFreePercent', 'RoundRobinIgnoreLeastFree', 'RoundRobin', 'WeightedFreePercentRandom', 'WeightedFreeRandom') default is 'RoundRobin'")
+                .description("How should volumes be selected for use? Possible volume selectors include ('MostFreePercent', 'MostFree', 'Random', 'RoundRobinIgnoreLeastFreePercent', 'RoundRobinIgnoreLeastFree', 'RoundRobin', 'WeightedFreePercentRandom', 'WeightedFreeRandom', 'WeightedLatencyRandom') default is 'RoundRobin'")
+                .editable(true)
+                .build());
+        list.add(new GlobalProperty.Builder()
+                .name("stroom.streamstore.packSmallStreams")
+                .value("false")
+                .description("Should small streams be packed into a container file per feed and hour rather than being stored as individual files?")
+                .editable(true)
+                .build());
+        list.add(new GlobalProperty.Builder()
+                .name("stroom.streamstore.packedStreamMaxSize")
+                .value("64K")
+                .description("The maximum size of the files of a stream for it to be packed into a container file when 'stroom.streamstore.packSmallStreams' is enabled")
                 .editable(true)
                 .build());
         list.add(new GlobalProperty.Builder()
@@ -174,6 +222,12 @@ public class DefaultProperties {
                 .description("Maximum number of tasks to cache ready for processing per processor filter")
                 .editable(true)
                 .build());
+        list.add(new GlobalProperty.Builder()
+                .name("stroom.streamTask.pipelinePoolSize")
+                .value("10")
+                .description("The maximum number of built pipelines that each processing thread will keep so that later stream tasks for the same pipeline don't have to build it again. Set to 0 to build a new pipeline for every stream task.")
+                .editable(true)
+                .build());
 
         // BENCHMARK
         list.add(new GlobalProperty.Builder()
@@ -351,12 +405,42 @@ public class DefaultProperties {
                 .description("The maximum number of search results to keep in memory at each level.")
                 .editable(true)
                 .build());
+        list.add(new GlobalProperty.Builder()
+                .name("stroom.search.shared.enabled")
+                .value("true")
+                .description("Set to true to attach identical concurrent searches to a single cluster search rather than running the same search once per requester.")
+                .editable(true)
+                .build());
+        list.add(new GlobalProperty.Builder()
+                .name("stroom.search.shared.timeBucket")
+                .value("1m")
+                .description("Identical searches are only shared if they are started within the same time bucket, e.g. '1m'. Relative dates in shared searches are resolved against the time the first search started.")
+                .editable(true)
+                .build());
+        list.add(new GlobalProperty.Builder()
+                .name("stroom.search.shared.retainCompleted")
+                .value("1m")
+                .description("How long a completed shared search is kept after the last requester has finished with it so that new identical requests can reuse the results, e.g. '1m'.")
+                .editable(true)
+                .build());
         list.add(new GlobalProperty.Builder()
                 .name("stroom.dashboard.defaultMaxResults")
                 .value("1000000,100,10,1")
                 .description("The default maximum number of search results to return to the dashboard, unless the user requests lower values")
                 .editable(true)
                 .build());
+        list.add(new GlobalProperty.Builder()
+                .name("stroom.dashboard.download.pageSize")
+                .value("10000")
+                .description("The number of rows to fetch from the search result store at a time when downloading search results")
+                .editable(true)
+                .build());
+        list.add(new GlobalProperty.Builder()
+                .name("stroom.dashboard.download.compressDelimited")
+                .value("false")
+                .description("Set to true to gzip CSV and TSV search result downloads")
+                .editable(true)
+                .build());
 
         // SEARCH BASED PROCESSING
         list.add(new GlobalProperty.Builder()
@@ -385,6 +469,12 @@ public class DefaultProperties {
                 .description("The maximum number active destinations that Stroom will allow rolling appenders to be writing to at any one time.")
                 .editable(true)
                 .build());
+        list.add(new GlobalProperty.Builder()
+                .name("stroom.pipeline.metrics.enabled")
+                .value("false")
+                .description("Set to true to record the number of events in and out, errors and time taken for each pipeline element. The metrics are reported per node, pipeline and element on the admin metrics page.")
+                .editable(true)
+                .build());
 
         // MAIN DATA SOURCE
         list.add(new GlobalProperty.Builder()
@@ -1273,6 +1363,31 @@ public class DefaultProperties {
 
         // ========================================END=========================================== 
 
+        list.add(new GlobalProperty.Builder()
+                .name("stroom.internalstatistics.async")
+                .value("true")
+                .description("If true internal statistic events are buffered and aggregated in memory and written to the statistics services in batches on a background thread, rather than on the thread that created them")
+                .editable(true)
+                .build());
+        list.add(new GlobalProperty.Builder()
+                .name("stroom.internalstatistics.maxBufferedEvents")
+                .value("100000")
+                .description("The maximum number of aggregated internal statistic events to hold in memory between writes")
+                .editable(true)
+                .build());
+        list.add(new GlobalProperty.Builder()
+                .name("stroom.internalstatistics.aggregationPeriod")
+                .value("1s")
+                .description("The time bucket that buffered internal count statistics are aggregated into, e.g. '1s'. This should not be coarser than the precision of any internal statistic")
+                .editable(true)
+                .build());
+        list.add(new GlobalProperty.Builder()
+                .name("stroom.internalstatistics.dropWhenFull")
+                .value("true")
+                .description("If true new internal statistic events are dropped when the buffer is full, otherwise the thread creating the event writes the buffered events before continuing")
+                .editable(true)
+                .build());
+
         // Stroom Proxy Store for Pipeline Use 
         list.add(new GlobalProperty.Builder()
                 .name("stroom.proxy.store.dir")
@@ -1328,6 +1443,48 @@ public class DefaultProperties {
                 .description("The maximum number of puts into the store before the transaction is committed. There is only one write transaction available long running transactions are not desirable.")
                 .editable(false)
                 .build());
+        list.add(new GlobalProperty.Builder()
+                .name("stroom.refloader.offheapstore.bulkLoadBatchSize")
+                .value("10000")
+                .description("The number of reference data entries to hold in memory, sorted by key, before writing them to the offheapstore in a single transaction. Sorted entries can be appended which is much faster than inserting them one at a time. Set to 0 to write each entry as it is loaded.")
+                .editable(true)
+                .build());
+        list.add(new GlobalProperty.Builder()
+                .name("stroom.refloader.offheapstore.purgeBatchSize")
+                .value("1000")
+                .description("The maximum number of reference data entries to delete in each transaction when purging old data from the offheapstore. Smaller batches hold up loads of other reference data for less time.")
+                .editable(true)
+                .build());
+        list.add(new GlobalProperty.Builder()
+                .name("stroom.refloader.snapshot.enabled")
+                .value("false")
+                .description("If true, before running a reference loader pipeline a node will ask the other active nodes for a snapshot of the same reference data that they have already loaded and import that instead. Off by default as each reference load then waits on calls to the other nodes, for up to the fetch timeout, before loading the data locally.")
+                .editable(true)
+                .build());
+        list.add(new GlobalProperty.Builder()
+                .name("stroom.refloader.snapshot.fetchTimeout")
+                .value("30s")
+                .description("The maximum time to spend fetching a reference data snapshot from the other nodes before loading the data locally.")
+                .editable(true)
+                .build());
+        list.add(new GlobalProperty.Builder()
+                .name("stroom.refloader.snapshot.maxSize")
+                .value("64M")
+                .description("The largest reference data snapshot, e.g. 64M, that a node will build for another node. Snapshots are held in memory on both nodes so anything larger is loaded locally by the node that needs it.")
+                .editable(true)
+                .build());
+        list.add(new GlobalProperty.Builder()
+                .name("stroom.refloader.snapshot.warmUpAge")
+                .value("1d")
+                .description("On startup a node will fetch snapshots of reference data that the other nodes have used within this time.")
+                .editable(true)
+                .build());
+        list.add(new GlobalProperty.Builder()
+                .name("stroom.refloader.snapshot.warmUpMaxCount")
+                .value("100")
+                .description("The maximum number of reference data snapshots a node will fetch from the other nodes on startup.")
+                .editable(true)
+                .build());
         list.add(new GlobalProperty.Builder()
                 .name("stroom.refloader.offheapstore.valueBufferCapacity")
                 .value("500000")
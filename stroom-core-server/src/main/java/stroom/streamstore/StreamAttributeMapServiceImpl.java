@@ -36,6 +36,7 @@ import stroom.docref.DocRef;
 import stroom.ruleset.shared.DataRetentionPolicy;
 import stroom.ruleset.shared.DataRetentionRule;
 import stroom.security.Security;
+import stroom.streamstore.fs.FileSystemStreamPacker;
 import stroom.streamstore.fs.FileSystemStreamTypeUtil;
 import stroom.streamstore.shared.FindStreamAttributeMapCriteria;
 import stroom.streamstore.shared.FindStreamCriteria;
@@ -54,7 +55,7 @@ import javax.inject.Inject;
 import javax.inject.Named;
 import javax.inject.Provider;
 import java.io.IOException;
-import java.nio.file.Files;
+import java.io.InputStream;
 import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.Collections;
@@ -79,6 +80,7 @@ public class StreamAttributeMapServiceImpl implements StreamAttributeMapService
     private final StroomEntityManager entityManager;
     private final StreamAttributeKeyService streamAttributeKeyService;
     private final StreamMaintenanceService streamMaintenanceService;
+    private final FileSystemStreamPacker fileSystemStreamPacker;
     private final Security security;
 
     @Inject
@@ -92,6 +94,7 @@ public class StreamAttributeMapServiceImpl implements StreamAttributeMapService
                                   final StroomEntityManager entityManager,
                                   final StreamAttributeKeyService streamAttributeKeyService,
                                   final StreamMaintenanceService streamMaintenanceService,
+                                  final FileSystemStreamPacker fileSystemStreamPacker,
                                   final Security security) {
         this.feedService = feedService;
         this.pipelineStore = pipelineStore;
@@ -103,6 +106,7 @@ public class StreamAttributeMapServiceImpl implements StreamAttributeMapService
         this.entityManager = entityManager;
         this.streamAttributeKeyService = streamAttributeKeyService;
         this.streamMaintenanceService = streamMaintenanceService;
+        this.fileSystemStreamPacker = fileSystemStreamPacker;
         this.security = security;
     }
 
@@ -329,32 +333,35 @@ public class StreamAttributeMapServiceImpl implements StreamAttributeMapService
             if (streamAttributeMap != null) {
                 final Path manifest = FileSystemStreamTypeUtil.createChildStreamFile(streamVolume, StreamType.MANIFEST);
 
-                if (Files.isRegularFile(manifest)) {
-                    final MetaMap metaMap = new MetaMap();
-                    try {
-                        metaMap.read(Files.newInputStream(manifest), true);
-                    } catch (final IOException ioException) {
-                        LOGGER.error("loadAttributeMapFromFileSystem() {}", manifest, ioException);
+                // Small streams may have been packed into a container so the manifest might not be a loose file.
+                final MetaMap metaMap = new MetaMap();
+                try (final InputStream inputStream = fileSystemStreamPacker.openFile(manifest, streamVolume.getStream())) {
+                    if (inputStream != null) {
+                        metaMap.read(inputStream, true);
                     }
-
-                    for (final String name : metaMap.keySet()) {
-                        final StreamAttributeKey key = keyMap.get(name);
-                        final String value = metaMap.get(name);
-                        if (key == null) {
-                            streamAttributeMap.addAttribute(name, value);
-                        } else {
-                            streamAttributeMap.addAttribute(key, value);
-                        }
+                } catch (final IOException ioException) {
+                    LOGGER.error("loadAttributeMapFromFileSystem() {}", manifest, ioException);
+                }
+                for (final String name : metaMap.keySet()) {
+                    final StreamAttributeKey key = keyMap.get(name);
+                    final String value = metaMap.get(name);
+                    if (key == null) {
+                        streamAttributeMap.addAttribute(name, value);
+                    } else {
+                        streamAttributeMap.addAttribute(key, value);
                     }
                 }
+
                 if (criteria.getFetchSet().contains(Volume.ENTITY_TYPE)) {
                     try {
                         final Path rootFile = FileSystemStreamTypeUtil.createRootStreamFile(streamVolume.getVolume(),
                                 streamVolume.getStream(), streamVolume.getStream().getStreamType());
 
-                        final List<Path> allFiles = FileSystemStreamTypeUtil.findAllDescendantStreamFileList(rootFile);
+                        List<Path> allFiles = fileSystemStreamPacker.findStreamFiles(rootFile, streamVolume.getStream());
+                        if (allFiles.isEmpty()) {
+                            allFiles = Collections.singletonList(rootFile);
+                        }
                         streamAttributeMap.setFileNameList(new ArrayList<>());
-                        streamAttributeMap.getFileNameList().add(FileUtil.getCanonicalPath(rootFile));
                         for (final Path file : allFiles) {
                             streamAttributeMap.getFileNameList().add(FileUtil.getCanonicalPath(file));
                         }
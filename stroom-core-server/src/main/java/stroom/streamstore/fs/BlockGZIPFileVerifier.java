@@ -41,7 +41,7 @@ public class BlockGZIPFileVerifier {
     private byte[] magicMarkerRawBufffer = new byte[BlockGZIPConstants.MAGIC_MARKER.length];
     private byte[] headerMarkerRawBuffer = new byte[BlockGZIPConstants.BLOCK_GZIP_V1_IDENTIFIER.length];
 
-    private int blockSize;
+    private long blockSize;
     private long idxStart;
     private long dataLength;
     private long eof;
@@ -71,7 +71,7 @@ public class BlockGZIPFileVerifier {
         readHeaderMarker();
 
         // Read Header
-        blockSize = (int) readLong();
+        blockSize = readLong();
         dataLength = readLong();
         idxStart = readLong();
         eof = readLong();
@@ -47,7 +47,7 @@ public abstract class BlockGZIPInput extends InputStream implements SeekableInpu
     /**
      * Header info
      */
-    protected int blockSize;
+    protected long blockSize;
     protected int blockCount = 0;
     protected long idxStart;
     protected long dataLength;
@@ -93,8 +93,8 @@ public abstract class BlockGZIPInput extends InputStream implements SeekableInpu
     /**
      * @return for our inner classes
      */
-    int getCurrentBlockRawGzipSize() {
-        return (int) currentBlockRawGzipSize;
+    long getCurrentBlockRawGzipSize() {
+        return currentBlockRawGzipSize;
     }
 
     /**
@@ -108,7 +108,7 @@ public abstract class BlockGZIPInput extends InputStream implements SeekableInpu
         readHeaderMarker();
 
         // Read Header
-        blockSize = (int) readLong();
+        blockSize = readLong();
         dataLength = readLong();
         idxStart = readLong();
         eof = readLong();
@@ -285,7 +285,7 @@ public abstract class BlockGZIPInput extends InputStream implements SeekableInpu
         }
 
         // How many bytes can we read from this block.
-        final int bytesLeftInBlock = (blockSize - (int) (position % blockSize));
+        final long bytesLeftInBlock = blockSize - (position % blockSize);
 
         // Start a BGZIP block
         if (currentStream == null) {
@@ -298,7 +298,7 @@ public abstract class BlockGZIPInput extends InputStream implements SeekableInpu
 
         // Only ever read from one block (make the caller do another read())
         // So don't read more bytes than we have left
-        realLen = Math.min(bytesLeftInBlock, realLen);
+        realLen = (int) Math.min(bytesLeftInBlock, realLen);
 
         // Read the GZIP strip
         realLen = currentStream.read(bytes, off, realLen);
@@ -380,7 +380,7 @@ public abstract class BlockGZIPInput extends InputStream implements SeekableInpu
      * read more than we are allowed to (for the gzip stream)
      */
     class GzipInputStreamAdaptor extends InputStream {
-        private int bytesRead;
+        private long bytesRead;
 
         // Start a new adaptor.
         public GzipInputStreamAdaptor() {
@@ -415,5 +415,13 @@ public abstract class BlockGZIPInput extends InputStream implements SeekableInpu
             bytesRead += realBytesRead;
             return realBytesRead;
         }
+
+        /**
+         * GZIP will only look for another member (e.g. in passed through GZIP data) if it knows there is more data.
+         */
+        @Override
+        public int available() {
+            return (int) Math.min(Integer.MAX_VALUE, getCurrentBlockRawGzipSize() - bytesRead);
+        }
     }
 }
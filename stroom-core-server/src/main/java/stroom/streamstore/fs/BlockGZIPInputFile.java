@@ -22,6 +22,7 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.nio.channels.Channels;
 import java.nio.channels.FileChannel;
+import java.nio.channels.SeekableByteChannel;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.nio.file.StandardOpenOption;
@@ -31,7 +32,7 @@ import java.nio.file.StandardOpenOption;
  */
 public class BlockGZIPInputFile extends BlockGZIPInput {
     // File being read
-    private final FileChannel raFile;
+    private final SeekableByteChannel raFile;
 
     // File pointer
     private final Path file;
@@ -52,6 +53,20 @@ public class BlockGZIPInputFile extends BlockGZIPInput {
         streamCloser.add(raFile);
     }
 
+    /**
+     * Constructor to read a Block GZIP File from a channel, e.g. a region of a packed stream file.
+     */
+    public BlockGZIPInputFile(final SeekableByteChannel channel, final Path bgz) throws IOException {
+        this.raFile = channel;
+        this.file = bgz;
+
+        raFile.position(0);
+        init();
+
+        // Make sure the streams are closed.
+        streamCloser.add(raFile);
+    }
+
     /**
      * Constructor to open a Block GZIP File with a internal buffer size.
      */
@@ -16,6 +16,7 @@
 
 package stroom.streamstore.fs;
 
+import stroom.io.GzipPassThroughOutputStream;
 import stroom.io.SeekableOutputStream;
 import stroom.io.StreamCloser;
 import stroom.util.io.FileUtil;
@@ -33,7 +34,7 @@ import java.util.zip.GZIPOutputStream;
 /**
  * @see BlockGZIPConstants
  */
-public class BlockGZIPOutputFile extends OutputStream implements SeekableOutputStream {
+public class BlockGZIPOutputFile extends OutputStream implements SeekableOutputStream, GzipPassThroughOutputStream {
     // We have in built locking while open
     private final Path finalFile;
     private final Path lockFile;
@@ -53,13 +54,15 @@ public class BlockGZIPOutputFile extends OutputStream implements SeekableOutputS
     private BufferedOutputStream currentStreamBuffer;
     private GZIPOutputStream currentStreamGzip;
     // The block size we are using
-    private int blockSize;
+    private long blockSize;
     // The current 'logical' uncompressed data item we have written
     private long position = 0;
     // The current block number we are on
     private long blockCount = 0;
     // ((blockCount+1) * blockSize)
     private long currentBlockEndPos = 0;
+    // Where the block of passed through GZIP data starts (-1 if there isn't one)
+    private long passThroughBlockStartPos = -1;
     private boolean closed;
 
     /**
@@ -164,8 +167,68 @@ public class BlockGZIPOutputFile extends OutputStream implements SeekableOutputS
         currentStreamBuffer = new BufferedOutputStream(currentStreamGzip, FileSystemUtil.STREAM_BUFFER_SIZE);
     }
 
+    /**
+     * GZIP data is passed through as a single block with a block size based on the uncompressed length of the data so
+     * that random access via the index still works.
+     */
+    @Override
+    public boolean canPassThrough() {
+        return !closed && position == 0 && blockCount == 0 && currentStreamBuffer == null
+                && passThroughBlockStartPos == -1;
+    }
+
+    @Override
+    public void writeGzip(final byte[] bytes, final int offset, final int length) throws IOException {
+        if (passThroughBlockStartPos == -1) {
+            if (!canPassThrough()) {
+                throw new IOException("Unable to pass through GZIP data once other data has been written");
+            }
+
+            // Record the start Pos
+            passThroughBlockStartPos = raFile.position();
+
+            // Record the index
+            indexBuffer.writeLong(passThroughBlockStartPos);
+
+            // Marker and some bytes for the block size we will write later
+            mainBuffer.write(BlockGZIPConstants.MAGIC_MARKER);
+            mainBuffer.writeLong(0);
+            flushMainBuffer();
+        }
+
+        raFile.write(ByteBuffer.wrap(bytes, offset, length));
+    }
+
+    @Override
+    public void endGzip(final long uncompressedLength) throws IOException {
+        if (passThroughBlockStartPos == -1 || blockCount > 0) {
+            throw new IOException("No GZIP data has been passed through");
+        }
+
+        // Go back and write the compressed size of the block after the marker.
+        final long sizePos = passThroughBlockStartPos + BlockGZIPConstants.MAGIC_MARKER.length;
+        final long rawBlockSize = raFile.position() - sizePos - BlockGZIPConstants.LONG_BYTES;
+        mainBuffer.writeLong(rawBlockSize);
+        raFile.write(ByteBuffer.wrap(mainBuffer.getRawBuffer(), 0, mainBuffer.size()), sizePos);
+        mainBuffer.reset();
+
+        // The whole of the data is in one block. Make the block bigger than the data so that seeking to the end of the
+        // data doesn't look for another block.
+        blockCount = 1;
+        position = uncompressedLength;
+        blockSize = uncompressedLength + 1;
+        currentBlockEndPos = blockSize;
+    }
+
+    private void checkNotPassThrough() throws IOException {
+        if (passThroughBlockStartPos != -1) {
+            throw new IOException("Unable to write once GZIP data has been passed through");
+        }
+    }
+
     @Override
     public void write(final int b) throws IOException {
+        checkNotPassThrough();
         if (currentStreamBuffer == null) {
             startGzipBlock();
         }
@@ -187,6 +250,7 @@ public class BlockGZIPOutputFile extends OutputStream implements SeekableOutputS
 
     @Override
     public void write(final byte[] bytes, final int offset, final int length) throws IOException {
+        checkNotPassThrough();
         if (currentStreamBuffer == null) {
             startGzipBlock();
         }
@@ -236,10 +300,12 @@ public class BlockGZIPOutputFile extends OutputStream implements SeekableOutputS
 
                 // Seek back to the start to write the above stats.
                 // Write the Index Post back in the header
-                raFile.position(BlockGZIPConstants.BLOCK_GZIP_V1_IDENTIFIER.length + BlockGZIPConstants.LONG_BYTES);
+                raFile.position(BlockGZIPConstants.BLOCK_GZIP_V1_IDENTIFIER.length);
                 // Write the uncompressed stream size
 
                 mainBuffer.reset();
+                // Block size (changes if GZIP data has been passed through)
+                mainBuffer.writeLong(blockSize);
                 // Size of Uncompressed Data
                 mainBuffer.writeLong(position);
                 // And the Index Start POS
@@ -0,0 +1,109 @@
+/*
+ * Copyright 2018 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package stroom.streamstore.fs;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.NonWritableChannelException;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * A read only channel onto a region of a file. Positions and sizes are relative to the start of the region so the
+ * region can be read as if it were a file in its own right.
+ */
+class FileRegionChannel implements SeekableByteChannel {
+    private final FileChannel fileChannel;
+    private final long offset;
+    private final long length;
+    private long position;
+
+    FileRegionChannel(final Path file, final long offset, final long length) throws IOException {
+        this.fileChannel = FileChannel.open(file, StandardOpenOption.READ);
+        this.offset = offset;
+        this.length = length;
+    }
+
+    @Override
+    public int read(final ByteBuffer dst) throws IOException {
+        if (!isOpen()) {
+            throw new ClosedChannelException();
+        }
+
+        final long available = length - position;
+        if (available <= 0) {
+            return -1;
+        }
+
+        final int limit = dst.limit();
+        if (dst.remaining() > available) {
+            dst.limit(dst.position() + (int) available);
+        }
+
+        try {
+            final int read = fileChannel.read(dst, offset + position);
+            if (read > 0) {
+                position += read;
+            }
+            return read;
+        } finally {
+            dst.limit(limit);
+        }
+    }
+
+    @Override
+    public int write(final ByteBuffer src) {
+        throw new NonWritableChannelException();
+    }
+
+    @Override
+    public long position() {
+        return position;
+    }
+
+    @Override
+    public SeekableByteChannel position(final long newPosition) {
+        if (newPosition < 0) {
+            throw new IllegalArgumentException("Negative position");
+        }
+        position = newPosition;
+        return this;
+    }
+
+    @Override
+    public long size() {
+        return length;
+    }
+
+    @Override
+    public SeekableByteChannel truncate(final long size) {
+        throw new NonWritableChannelException();
+    }
+
+    @Override
+    public boolean isOpen() {
+        return fileChannel.isOpen();
+    }
+
+    @Override
+    public void close() throws IOException {
+        fileChannel.close();
+    }
+}
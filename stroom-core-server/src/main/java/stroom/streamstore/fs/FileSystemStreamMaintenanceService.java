@@ -47,9 +47,11 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.Set;
 
 /**
  * API used by the tasks to interface to the stream store under the bonnet.
@@ -74,14 +76,17 @@ public class FileSystemStreamMaintenanceService
     private final StroomEntityManager entityManager;
     private final StreamTypeService streamTypeService;
     private final Security security;
+    private final FileSystemStreamPacker fileSystemStreamPacker;
 
     @Inject
     public FileSystemStreamMaintenanceService(final StroomEntityManager entityManager,
                                               @Named("cachedStreamTypeService") final StreamTypeService streamTypeService,
-                                              final Security security) {
+                                              final Security security,
+                                              final FileSystemStreamPacker fileSystemStreamPacker) {
         this.entityManager = entityManager;
         this.streamTypeService = streamTypeService;
         this.security = security;
+        this.fileSystemStreamPacker = fileSystemStreamPacker;
     }
 
 //    @Override
@@ -197,10 +202,7 @@ public class FileSystemStreamMaintenanceService
         for (final StreamVolume volumeMatch : volumeMatches) {
             final Path rootFile = FileSystemStreamTypeUtil.createRootStreamFile(volumeMatch.getVolume(),
                     volumeMatch.getStream(), streamTypeService.load(volumeMatch.getStream().getStreamType()));
-            if (Files.isRegularFile(rootFile)) {
-                results.add(rootFile);
-                results.addAll(FileSystemStreamTypeUtil.findAllDescendantStreamFileList(rootFile));
-            }
+            results.addAll(fileSystemStreamPacker.findStreamFiles(rootFile, volumeMatch.getStream()));
         }
 
         return results;
@@ -348,6 +350,18 @@ public class FileSystemStreamMaintenanceService
     private void deleteUnknownFiles(final ScanVolumePathResult result, final boolean doDelete, final Path directory,
                                     final long oldFileTime, final Map<String, List<String>> filesKeyedByBaseName,
                                     final Map<String, StreamVolume> streamsKeyedByBaseName) {
+        // Find out which streams have been packed into containers in this directory
+        final Map<String, Set<String>> packedBaseNamesByPack = new HashMap<>();
+        final Set<String> packedBaseNames = new HashSet<>();
+        for (final Entry<String, List<String>> entry : filesKeyedByBaseName.entrySet()) {
+            if (entry.getValue().stream().anyMatch(FileSystemStreamPacker::isPackFile)) {
+                final Path packFile = directory.resolve(entry.getKey() + "." + FileSystemStreamPacker.PACK_EXTENSION);
+                final Set<String> baseNames = fileSystemStreamPacker.getPackedBaseNames(packFile);
+                packedBaseNamesByPack.put(entry.getKey(), baseNames);
+                packedBaseNames.addAll(baseNames);
+            }
+        }
+
         // OK now we can go through all the files that exist on the file
         // system and delete out as required
         for (final Entry<String, List<String>> entry : filesKeyedByBaseName.entrySet()) {
@@ -355,8 +369,16 @@ public class FileSystemStreamMaintenanceService
             final List<String> files = entry.getValue();
 
             final StreamVolume md = streamsKeyedByBaseName.get(fsBaseName);
-            // Case 1 - No stream volume found !
-            if (md == null) {
+            final Set<String> packed = packedBaseNamesByPack.get(fsBaseName);
+            if (packed != null) {
+                // Case 3 - A container is only deleted once none of the streams it holds exist
+                if (packed.stream().noneMatch(streamsKeyedByBaseName::containsKey)) {
+                    for (final String file : files) {
+                        tryDelete(result, doDelete, directory.resolve(file), oldFileTime);
+                    }
+                }
+            } else if (md == null) {
+                // Case 1 - No stream volume found !
                 for (final String file : files) {
                     tryDelete(result, doDelete, directory.resolve(file), oldFileTime);
                 }
@@ -374,7 +396,8 @@ public class FileSystemStreamMaintenanceService
 
         // Update any streams that don't have a matching file
         streamsKeyedByBaseName.keySet().stream()
-                .filter(streamBaseName -> !filesKeyedByBaseName.containsKey(streamBaseName))
+                .filter(streamBaseName -> !filesKeyedByBaseName.containsKey(streamBaseName) &&
+                        !packedBaseNames.contains(streamBaseName))
                 .forEach(streamBaseName -> LOGGER.error("processDirectory() - Missing Files for {}/{}", directory,
                         streamBaseName));
     }
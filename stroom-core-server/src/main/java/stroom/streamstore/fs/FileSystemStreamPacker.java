@@ -0,0 +1,390 @@
+/*
+ * Copyright 2018 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package stroom.streamstore.fs;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.util.concurrent.Striped;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import stroom.properties.StroomPropertyService;
+import stroom.streamstore.shared.Stream;
+import stroom.util.cache.CacheManager;
+import stroom.util.shared.ModelStringUtil;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
+
+/**
+ * Packs the files of small streams into container files so that feeds that receive lots of small streams do not
+ * create huge numbers of small files. A container holds the streams for a single feed that were created in the same
+ * hour and lives in the directory that the stream files would otherwise have been written to, so it only ever holds
+ * streams of one type, on one volume, within one id range. Every container has an index file that records the offset
+ * and length of each file that has been appended to it.
+ * <p>
+ * Streams are written in the usual way and packed when they are closed if they are small enough. Loose files always
+ * take precedence over packed ones so a stream can be unpacked, e.g. to append to it, without rewriting the
+ * container. The space used by a container is only reclaimed when none of the streams it holds exist any more, at
+ * which point the file system clean task deletes the container.
+ */
+@Singleton
+public class FileSystemStreamPacker {
+    static final String PACK_EXTENSION = "pak";
+    static final String INDEX_EXTENSION = "idx";
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(FileSystemStreamPacker.class);
+
+    private static final String PACK_SMALL_STREAMS_PROPERTY = "stroom.streamstore.packSmallStreams";
+    private static final String PACKED_STREAM_MAX_SIZE_PROPERTY = "stroom.streamstore.packedStreamMaxSize";
+    private static final long DEFAULT_PACKED_STREAM_MAX_SIZE = 64 * 1024;
+    private static final String INDEX_SEPARATOR = "\t";
+    private static final int MAX_CACHE_ENTRIES = 1000;
+
+    private final StroomPropertyService propertyService;
+    private final Striped<Lock> packLocks = Striped.lock(64);
+    private final Cache<Path, PackIndex> indexCache;
+
+    @Inject
+    @SuppressWarnings("unchecked")
+    FileSystemStreamPacker(final StroomPropertyService propertyService,
+                           final CacheManager cacheManager) {
+        this.propertyService = propertyService;
+
+        final CacheBuilder cacheBuilder = CacheBuilder.newBuilder()
+                .maximumSize(MAX_CACHE_ENTRIES)
+                .expireAfterAccess(10, TimeUnit.MINUTES);
+        indexCache = cacheBuilder.build();
+        cacheManager.registerCache("Packed Stream Index Cache", cacheBuilder, indexCache);
+    }
+
+    /**
+     * @return True if a stream whose files add up to the supplied size should be packed.
+     */
+    boolean shouldPack(final long totalFileSize) {
+        return propertyService.getBooleanProperty(PACK_SMALL_STREAMS_PROPERTY, false) &&
+                totalFileSize <= getPackedStreamMaxSize();
+    }
+
+    private long getPackedStreamMaxSize() {
+        Long value = null;
+        try {
+            value = ModelStringUtil.parseIECByteSizeString(propertyService.getProperty(PACKED_STREAM_MAX_SIZE_PROPERTY));
+        } catch (final RuntimeException e) {
+            LOGGER.error(e.getMessage(), e);
+        }
+
+        if (value == null) {
+            value = DEFAULT_PACKED_STREAM_MAX_SIZE;
+        }
+
+        return value;
+    }
+
+    /**
+     * Append the files of a stream to the container for the stream and then delete the loose files.
+     *
+     * @param stream    The stream to pack.
+     * @param rootFiles The root file of the stream on each volume the stream is stored on.
+     * @return True if the stream was packed on every volume.
+     */
+    boolean pack(final Stream stream, final Set<Path> rootFiles) {
+        boolean allPacked = true;
+        for (final Path rootFile : rootFiles) {
+            if (Files.isRegularFile(rootFile)) {
+                final List<Path> files = new ArrayList<>();
+                files.add(rootFile);
+                files.addAll(FileSystemStreamTypeUtil.findAllDescendantStreamFileList(rootFile));
+                allPacked &= pack(getPackFile(rootFile, stream), files);
+            }
+        }
+        return allPacked;
+    }
+
+    private boolean pack(final Path packFile, final List<Path> files) {
+        final Lock lock = packLocks.get(packFile);
+        lock.lock();
+        try {
+            final StringBuilder index = new StringBuilder();
+            try (final FileChannel packChannel = FileChannel.open(packFile, StandardOpenOption.CREATE,
+                    StandardOpenOption.WRITE)) {
+                final long start = packChannel.size();
+                try {
+                    long offset = start;
+                    for (final Path file : files) {
+                        final long length = append(file, packChannel, offset);
+                        index.append(file.getFileName().toString())
+                                .append(INDEX_SEPARATOR)
+                                .append(offset)
+                                .append(INDEX_SEPARATOR)
+                                .append(length)
+                                .append("\n");
+                        offset += length;
+                    }
+                    packChannel.force(false);
+
+                    // Only index the files once all of their data is safely in the container.
+                    try (final FileChannel indexChannel = FileChannel.open(getIndexFile(packFile),
+                            StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+                        indexChannel.write(ByteBuffer.wrap(index.toString().getBytes(StandardCharsets.UTF_8)));
+                        indexChannel.force(false);
+                    }
+                } catch (final IOException | RuntimeException e) {
+                    // Remove any data that we failed to index.
+                    packChannel.truncate(start);
+                    throw e;
+                }
+            }
+        } catch (final IOException | RuntimeException e) {
+            LOGGER.error("pack() - Unable to pack {} into {}", files, packFile, e);
+            return false;
+        } finally {
+            lock.unlock();
+        }
+
+        // The packed copies are now indexed so the loose files can go.
+        if (!FileSystemUtil.deleteAnyPath(files)) {
+            LOGGER.warn("pack() - Unable to delete loose files {} after packing them into {}", files, packFile);
+        }
+        return true;
+    }
+
+    private long append(final Path file, final FileChannel packChannel, final long offset) throws IOException {
+        try (final FileChannel fileChannel = FileChannel.open(file, StandardOpenOption.READ)) {
+            final long length = fileChannel.size();
+            long transferred = 0;
+            while (transferred < length) {
+                final long count = packChannel.transferFrom(fileChannel, offset + transferred, length - transferred);
+                if (count <= 0) {
+                    throw new IOException("Unable to append " + file + " to pack file");
+                }
+                transferred += count;
+            }
+            return length;
+        }
+    }
+
+    /**
+     * Restore the loose files of a packed stream so that the stream can be modified. The packed copies are left in
+     * the container as the loose files take precedence over them.
+     *
+     * @param stream    The stream to unpack.
+     * @param rootFiles The root file of the stream on each volume the stream is stored on.
+     */
+    void unpack(final Stream stream, final Set<Path> rootFiles) throws IOException {
+        final String prefix = FileSystemStreamTypeUtil.getBaseName(stream) + ".";
+        for (final Path rootFile : rootFiles) {
+            if (!Files.isRegularFile(rootFile)) {
+                final Path packFile = getPackFile(rootFile, stream);
+                for (final Map.Entry<String, PackIndex.Entry> entry : getIndex(packFile).getEntries().entrySet()) {
+                    if (entry.getKey().startsWith(prefix)) {
+                        final PackIndex.Entry indexEntry = entry.getValue();
+                        try (final InputStream inputStream = Channels.newInputStream(
+                                new FileRegionChannel(packFile, indexEntry.getOffset(), indexEntry.getLength()))) {
+                            Files.copy(inputStream, rootFile.resolveSibling(entry.getKey()),
+                                    StandardCopyOption.REPLACE_EXISTING);
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * @return True if the file has been packed into a container.
+     */
+    boolean isPacked(final Path file, final Stream stream) {
+        return getIndex(getPackFile(file, stream)).getEntries().containsKey(file.getFileName().toString());
+    }
+
+    /**
+     * Open a channel to read a file from the container it has been packed into.
+     *
+     * @return A channel onto the packed copy of the file or null if the file has not been packed.
+     */
+    SeekableByteChannel openPackedFile(final Path file, final Stream stream) throws IOException {
+        final Path packFile = getPackFile(file, stream);
+        final PackIndex.Entry entry = getIndex(packFile).getEntries().get(file.getFileName().toString());
+        if (entry == null) {
+            return null;
+        }
+        return new FileRegionChannel(packFile, entry.getOffset(), entry.getLength());
+    }
+
+    /**
+     * Open a file of a stream for reading, using the packed copy if there is no loose file.
+     *
+     * @return A stream onto the file or null if the file does not exist, loose or packed.
+     */
+    public InputStream openFile(final Path file, final Stream stream) throws IOException {
+        if (Files.isRegularFile(file)) {
+            return Files.newInputStream(file);
+        }
+        final SeekableByteChannel packedChannel = openPackedFile(file, stream);
+        if (packedChannel == null) {
+            return null;
+        }
+        return Channels.newInputStream(packedChannel);
+    }
+
+    /**
+     * @return The loose files of a stream or, if the stream has been packed, the container that holds it. The list
+     * is empty if the stream has no files at all.
+     */
+    public List<Path> findStreamFiles(final Path rootFile, final Stream stream) {
+        final List<Path> files = new ArrayList<>();
+        if (Files.isRegularFile(rootFile)) {
+            files.add(rootFile);
+            files.addAll(FileSystemStreamTypeUtil.findAllDescendantStreamFileList(rootFile));
+        } else if (isPacked(rootFile, stream)) {
+            files.add(getPackFile(rootFile, stream));
+        }
+        return files;
+    }
+
+    /**
+     * @return The base names of all of the streams that have been packed into a container.
+     */
+    Set<String> getPackedBaseNames(final Path packFile) {
+        final Set<String> baseNames = new HashSet<>();
+        for (final String fileName : getIndex(packFile).getEntries().keySet()) {
+            final int baseNameSplit = fileName.indexOf(".");
+            if (baseNameSplit != -1) {
+                baseNames.add(fileName.substring(0, baseNameSplit));
+            }
+        }
+        return baseNames;
+    }
+
+    private PackIndex getIndex(final Path packFile) {
+        final Path indexFile = getIndexFile(packFile);
+        try {
+            if (!Files.isRegularFile(indexFile)) {
+                return PackIndex.EMPTY;
+            }
+
+            // The index is only ever appended to so it will only have changed if it is a different size.
+            PackIndex index = indexCache.getIfPresent(packFile);
+            if (index == null || index.getSize() != Files.size(indexFile)) {
+                index = PackIndex.read(indexFile);
+                indexCache.put(packFile, index);
+            }
+            return index;
+        } catch (final IOException e) {
+            LOGGER.error("getIndex() - Unable to read {}", indexFile, e);
+            return PackIndex.EMPTY;
+        }
+    }
+
+    /**
+     * @return The container that the files of a stream are packed into.
+     */
+    static Path getPackFile(final Path file, final Stream stream) {
+        return file.resolveSibling(FileSystemStreamTypeUtil.getPackBaseName(stream) + "." + PACK_EXTENSION);
+    }
+
+    static Path getIndexFile(final Path packFile) {
+        return packFile.resolveSibling(packFile.getFileName().toString() + "." + INDEX_EXTENSION);
+    }
+
+    /**
+     * @return True if the file name is that of a container or container index.
+     */
+    static boolean isPackFile(final String fileName) {
+        return fileName.endsWith("." + PACK_EXTENSION) ||
+                fileName.endsWith("." + PACK_EXTENSION + "." + INDEX_EXTENSION);
+    }
+
+    static class PackIndex {
+        static final PackIndex EMPTY = new PackIndex(Collections.emptyMap(), 0);
+
+        private final Map<String, Entry> entries;
+        private final long size;
+
+        private PackIndex(final Map<String, Entry> entries, final long size) {
+            this.entries = entries;
+            this.size = size;
+        }
+
+        static PackIndex read(final Path indexFile) throws IOException {
+            final byte[] bytes = Files.readAllBytes(indexFile);
+
+            // Ignore any line that is still being written.
+            int size = bytes.length;
+            while (size > 0 && bytes[size - 1] != '\n') {
+                size--;
+            }
+
+            // Later entries for the same file replace earlier ones as a stream is packed again if it is unpacked.
+            final Map<String, Entry> entries = new LinkedHashMap<>();
+            final String text = new String(bytes, 0, size, StandardCharsets.UTF_8);
+            for (final String line : text.split("\n")) {
+                final String[] parts = line.split(INDEX_SEPARATOR);
+                if (parts.length == 3) {
+                    entries.put(parts[0], new Entry(Long.parseLong(parts[1]), Long.parseLong(parts[2])));
+                }
+            }
+
+            return new PackIndex(entries, size);
+        }
+
+        Map<String, Entry> getEntries() {
+            return entries;
+        }
+
+        long getSize() {
+            return size;
+        }
+
+        static class Entry {
+            private final long offset;
+            private final long length;
+
+            Entry(final long offset, final long length) {
+                this.offset = offset;
+                this.length = length;
+            }
+
+            long getOffset() {
+                return offset;
+            }
+
+            long getLength() {
+                return length;
+            }
+        }
+    }
+}
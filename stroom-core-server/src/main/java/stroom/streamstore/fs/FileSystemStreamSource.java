@@ -28,6 +28,7 @@ import stroom.streamstore.shared.StreamVolume;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.channels.SeekableByteChannel;
 import java.nio.file.Files;
 import java.nio.file.Path;
 
@@ -37,6 +38,7 @@ import java.nio.file.Path;
 public final class FileSystemStreamSource implements StreamSource {
     private static final Logger LOGGER = LoggerFactory.getLogger(FileSystemStreamSource.class);
     private final StreamCloser streamCloser = new StreamCloser();
+    private final FileSystemStreamPacker packer;
     private Stream stream;
     private StreamVolume volume;
     private StreamType streamType;
@@ -45,10 +47,12 @@ public final class FileSystemStreamSource implements StreamSource {
     private Path file;
     private FileSystemStreamSource parent;
 
-    private FileSystemStreamSource(final Stream stream, final StreamVolume volume, final StreamType streamType) {
+    private FileSystemStreamSource(final Stream stream, final StreamVolume volume, final StreamType streamType,
+                                   final FileSystemStreamPacker packer) {
         this.stream = stream;
         this.volume = volume;
         this.streamType = streamType;
+        this.packer = packer;
 
         validate();
     }
@@ -57,6 +61,7 @@ public final class FileSystemStreamSource implements StreamSource {
         this.stream = parent.stream;
         this.volume = parent.volume;
         this.parent = parent;
+        this.packer = parent.packer;
         this.streamType = streamType;
         this.file = file;
         validate();
@@ -70,7 +75,15 @@ public final class FileSystemStreamSource implements StreamSource {
      */
     public static FileSystemStreamSource create(final Stream stream, final StreamVolume volume,
                                                 final StreamType streamType) {
-        return new FileSystemStreamSource(stream, volume, streamType);
+        return new FileSystemStreamSource(stream, volume, streamType, null);
+    }
+
+    /**
+     * Creates a new file system stream source that can also read streams that have been packed into containers.
+     */
+    static FileSystemStreamSource create(final Stream stream, final StreamVolume volume,
+                                         final StreamType streamType, final FileSystemStreamPacker packer) {
+        return new FileSystemStreamSource(stream, volume, streamType, packer);
     }
 
     private void validate() {
@@ -100,7 +113,15 @@ public final class FileSystemStreamSource implements StreamSource {
         // First Call?
         if (inputStream == null) {
             try {
-                inputStream = FileSystemStreamTypeUtil.getInputStream(streamType, getFile());
+                final Path file = getFile();
+                final SeekableByteChannel packedChannel = packer != null && !Files.isRegularFile(file)
+                        ? packer.openPackedFile(file, stream)
+                        : null;
+                if (packedChannel != null) {
+                    inputStream = FileSystemStreamTypeUtil.getInputStream(streamType, packedChannel, file);
+                } else {
+                    inputStream = FileSystemStreamTypeUtil.getInputStream(streamType, file);
+                }
                 streamCloser.add(inputStream);
             } catch (IOException ioEx) {
                 // Don't log this as an error if we expect this stream to have been deleted or be locked.
@@ -127,7 +148,7 @@ public final class FileSystemStreamSource implements StreamSource {
     public StreamSource getChildStream(final StreamType type) {
         Path childFile = FileSystemStreamTypeUtil.createChildStreamFile(getFile(), type);
         boolean lazy = type.isStreamTypeLazy();
-        boolean isFile = Files.isRegularFile(childFile);
+        boolean isFile = Files.isRegularFile(childFile) || (packer != null && packer.isPacked(childFile, stream));
         if (lazy || isFile) {
             final FileSystemStreamSource child = new FileSystemStreamSource(this, type, childFile);
             streamCloser.add(child);
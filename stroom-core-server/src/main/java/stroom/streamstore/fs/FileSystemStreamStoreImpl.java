@@ -74,6 +74,7 @@ import stroom.streamstore.shared.StreamVolume;
 import stroom.streamtask.StreamProcessorService;
 import stroom.streamtask.shared.StreamProcessor;
 import stroom.util.logging.LogExecutionTime;
+import stroom.volume.VolumeWriteStatistics;
 
 import javax.inject.Inject;
 import javax.inject.Named;
@@ -131,6 +132,8 @@ public class FileSystemStreamStoreImpl implements FileSystemStreamStore {
     private final ExpressionToFindCriteria expressionToFindCriteria;
     private final SecurityContext securityContext;
     private final Security security;
+    private final VolumeWriteStatistics volumeWriteStatistics;
+    private final FileSystemStreamPacker fileSystemStreamPacker;
 
     // /**
     // * Convenience method to use the id from a pre-existing stream object to
@@ -181,7 +184,9 @@ public class FileSystemStreamStoreImpl implements FileSystemStreamStore {
                               final StreamAttributeValueFlush streamAttributeValueFlush,
                               final ExpressionToFindCriteria expressionToFindCriteria,
                               final SecurityContext securityContext,
-                              final Security security) {
+                              final Security security,
+                              final VolumeWriteStatistics volumeWriteStatistics,
+                              final FileSystemStreamPacker fileSystemStreamPacker) {
         this.entityManager = entityManager;
         this.entityManagerSupport = entityManagerSupport;
         this.stroomDatabaseInfo = stroomDatabaseInfo;
@@ -195,6 +200,8 @@ public class FileSystemStreamStoreImpl implements FileSystemStreamStore {
         this.expressionToFindCriteria = expressionToFindCriteria;
         this.securityContext = securityContext;
         this.security = security;
+        this.volumeWriteStatistics = volumeWriteStatistics;
+        this.fileSystemStreamPacker = fileSystemStreamPacker;
     }
 
     public static void main(final String[] args) {
@@ -203,7 +210,7 @@ public class FileSystemStreamStoreImpl implements FileSystemStreamStore {
         outerCriteria.obtainPageRequest().setLength(1000);
         outerCriteria.setSort(StreamDataSource.CREATE_TIME, Direction.DESCENDING, false);
         final FileSystemStreamStoreImpl fileSystemStreamStore = new FileSystemStreamStoreImpl(null, null, null, null, null,
-                null, null, null, null, null, null, null);
+                null, null, null, null, null, null, null, null, null);
         final SqlBuilder sql = new SqlBuilder();
 
         sql.append("SELECT U.* FROM ( ");
@@ -379,7 +386,8 @@ public class FileSystemStreamStoreImpl implements FileSystemStreamStore {
                 LOGGER.warn(message);
                 throw new StreamException(message);
             }
-            streamSource = FileSystemStreamSource.create(stream, volumeToUse, stream.getStreamType());
+            streamSource = FileSystemStreamSource.create(stream, volumeToUse, stream.getStreamType(),
+                    fileSystemStreamPacker);
         }
 
         return streamSource;
@@ -493,6 +501,12 @@ public class FileSystemStreamStoreImpl implements FileSystemStreamStore {
             if (lock != null) {
                 final Stream dbStream = lock.iterator().next().getStream();
                 final StreamType streamType = streamTypeService.load(dbStream.getStreamType());
+
+                // Packed streams must be restored to loose files before we can append to them.
+                if (append && fileSystemStreamPacker != null) {
+                    unpack(dbStream, lock, streamType);
+                }
+
                 final FileSystemStreamTarget target = FileSystemStreamTarget.create(dbStream, lock,
                         streamType, append);
 
@@ -512,6 +526,20 @@ public class FileSystemStreamStoreImpl implements FileSystemStreamStore {
         });
     }
 
+    private void unpack(final Stream stream, final Set<StreamVolume> streamVolumes, final StreamType streamType) {
+        final Set<Path> rootFiles = new HashSet<>();
+        for (final StreamVolume streamVolume : streamVolumes) {
+            rootFiles.add(FileSystemStreamTypeUtil.createRootStreamFile(streamVolume.getVolume(), stream, streamType));
+        }
+
+        try {
+            fileSystemStreamPacker.unpack(stream, rootFiles);
+        } catch (final IOException e) {
+            LOGGER.error("unpack() - Unable to unpack stream {}", stream, e);
+            throw new StreamException(e);
+        }
+    }
+
     private void syncAttributes(final Stream stream, final Stream dbStream, final FileSystemStreamTarget target) {
         updateAttribute(target, StreamAttributeConstants.STREAM_ID, String.valueOf(dbStream.getId()));
 
@@ -628,6 +656,7 @@ public class FileSystemStreamStoreImpl implements FileSystemStreamStore {
             // If we get error on closing the stream we must return it to the caller
             IOException streamCloseException = null;
 
+            final long closeStartNs = System.nanoTime();
             try {
                 // Close the stream target.
                 streamTarget.close();
@@ -635,12 +664,20 @@ public class FileSystemStreamStoreImpl implements FileSystemStreamStore {
                 LOGGER.error("closeStreamTarget() - Error on closing stream {}", streamTarget, e);
                 streamCloseException = e;
             }
+            final long closeDurationNs = System.nanoTime() - closeStartNs;
 
             updateAttribute(streamTarget, StreamAttributeConstants.STREAM_SIZE,
                     String.valueOf(((FileSystemStreamTarget) streamTarget).getStreamSize()));
 
-            updateAttribute(streamTarget, StreamAttributeConstants.FILE_SIZE,
-                    String.valueOf(((FileSystemStreamTarget) streamTarget).getTotalFileSize()));
+            final Long totalFileSize = ((FileSystemStreamTarget) streamTarget).getTotalFileSize();
+            updateAttribute(streamTarget, StreamAttributeConstants.FILE_SIZE, String.valueOf(totalFileSize));
+
+            // Record how long it took to write the remaining data to each volume so that busy volumes can be avoided.
+            if (volumeWriteStatistics != null && streamCloseException == null) {
+                for (final StreamVolume streamVolume : ((FileSystemStreamTarget) streamTarget).getStreamVolumes()) {
+                    volumeWriteStatistics.record(streamVolume.getVolume(), totalFileSize, closeDurationNs);
+                }
+            }
 
             try {
                 boolean doneManifest = false;
@@ -672,6 +709,13 @@ public class FileSystemStreamStoreImpl implements FileSystemStreamStore {
                 LOGGER.error("closeStreamTarget() - Error on writing Manifest {}", streamTarget, e);
             }
 
+            // Pack small streams into containers rather than leaving lots of small files on the volumes.
+            if (streamCloseException == null && fileSystemStreamPacker != null &&
+                    fileSystemStreamPacker.shouldPack(totalFileSize)) {
+                fileSystemStreamPacker.pack(streamTarget.getStream(),
+                        ((FileSystemStreamTarget) streamTarget).getFiles(false));
+            }
+
             if (streamCloseException == null) {
                 // Unlock will update the meta data so set it back on the stream
                 // target so the client has the up to date copy
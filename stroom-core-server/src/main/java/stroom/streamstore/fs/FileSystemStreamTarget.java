@@ -138,6 +138,10 @@ public final class FileSystemStreamTarget implements StreamTarget {
         return stream;
     }
 
+    Set<StreamVolume> getStreamVolumes() {
+        return metaDataVolume;
+    }
+
     Set<Path> getFiles(final boolean createPath) {
         if (files == null) {
             files = new HashSet<>();
@@ -27,6 +27,7 @@ import stroom.util.io.FileUtil;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.channels.SeekableByteChannel;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
@@ -44,6 +45,7 @@ public class FileSystemStreamTypeUtil {
     private static final String SEPERATOR_CHAR = "/";
     private static final String FILE_SEPERATOR_CHAR = "=";
     private static final String STORE_NAME = "store";
+    private static final String PACK_NAME_PREFIX = "pack";
 
     private static String createFilePathBase(final Volume volume, final Stream stream, final StreamType streamType) {
         return volume.getPath() +
@@ -68,6 +70,21 @@ public class FileSystemStreamTypeUtil {
         return new UncompressedInputStream(file, streamType.isStreamTypeLazy());
     }
 
+    /**
+     * Return back a input stream for a given stream type that reads from a channel rather than a file, e.g. when a
+     * stream has been packed into a container file.
+     */
+    static InputStream getInputStream(final StreamType streamType, final SeekableByteChannel channel,
+                                      final Path file) throws IOException {
+        if (streamType == null) {
+            throw new IllegalArgumentException("Must Have a non-null stream type");
+        }
+        if (FileStoreType.bgz.equals(streamType.getFileStoreType())) {
+            return new BlockGZIPInputFile(channel, file);
+        }
+        return new UncompressedInputStream(channel);
+    }
+
     /**
      * <p>
      * Find all existing child files of this parent.
@@ -152,6 +169,22 @@ public class FileSystemStreamTypeUtil {
                 FileSystemPrefixUtil.padId(stream.getId());
     }
 
+    /**
+     * <p>
+     * Build the base name of the container that small streams are packed into.
+     * </p>
+     * <p>
+     * [feedid]=pack[hour]
+     * </p>
+     */
+    static String getPackBaseName(final Stream stream) {
+        final String utcDate = DateUtil.createNormalDateTimeString(stream.getCreateMs());
+        return stream.getFeed().getId() +
+                FILE_SEPERATOR_CHAR +
+                PACK_NAME_PREFIX +
+                utcDate.substring(11, 13);
+    }
+
     public static String getDirectory(Stream stream, StreamType streamType) {
         StringBuilder builder = new StringBuilder();
         builder.append(streamType.getPath());
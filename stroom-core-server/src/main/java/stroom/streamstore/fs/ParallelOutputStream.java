@@ -16,6 +16,7 @@
 
 package stroom.streamstore.fs;
 
+import stroom.io.GzipPassThroughOutputStream;
 import stroom.io.SeekableOutputStream;
 
 import java.io.IOException;
@@ -30,7 +31,7 @@ import java.util.Set;
 /**
  * Class to write the same data to a number of streams.
  */
-public class ParallelOutputStream extends OutputStream implements SeekableOutputStream {
+public class ParallelOutputStream extends OutputStream implements SeekableOutputStream, GzipPassThroughOutputStream {
     private List<OutputStream> outputStreamList;
     private int outputStreamListSize = 0;
 
@@ -84,6 +85,32 @@ public class ParallelOutputStream extends OutputStream implements SeekableOutput
         }
     }
 
+    @Override
+    public boolean canPassThrough() {
+        for (int i = 0; i < outputStreamListSize; i++) {
+            final OutputStream outputStream = outputStreamList.get(i);
+            if (!(outputStream instanceof GzipPassThroughOutputStream)
+                    || !((GzipPassThroughOutputStream) outputStream).canPassThrough()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public void writeGzip(final byte[] b, final int off, final int len) throws IOException {
+        for (int i = 0; i < outputStreamListSize; i++) {
+            ((GzipPassThroughOutputStream) outputStreamList.get(i)).writeGzip(b, off, len);
+        }
+    }
+
+    @Override
+    public void endGzip(final long uncompressedLength) throws IOException {
+        for (int i = 0; i < outputStreamListSize; i++) {
+            ((GzipPassThroughOutputStream) outputStreamList.get(i)).endGzip(uncompressedLength);
+        }
+    }
+
     @Override
     public void close() throws IOException {
         IOException ioEx = null;
@@ -23,6 +23,7 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.nio.channels.Channels;
 import java.nio.channels.FileChannel;
+import java.nio.channels.SeekableByteChannel;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.StandardOpenOption;
@@ -33,7 +34,7 @@ import java.nio.file.StandardOpenOption;
  * if lazy it is assumed that a missing file means a blank stream.
  */
 public class UncompressedInputStream extends InputStream implements SeekableInputStream {
-    private final FileChannel raFile;
+    private final SeekableByteChannel raFile;
     private final BlockBufferedInputStream streamAdaptor;
     private long position;
     private long lastMarkPosition;
@@ -52,6 +53,12 @@ public class UncompressedInputStream extends InputStream implements SeekableInpu
         }
     }
 
+    public UncompressedInputStream(final SeekableByteChannel channel) {
+        raFile = channel;
+        streamAdaptor = new BlockBufferedInputStream(Channels.newInputStream(raFile));
+        streamCloser.add(raFile).add(streamAdaptor);
+    }
+
     /**
      * @return byte or -1
      */
@@ -696,6 +696,19 @@ public class RASegmentInputStream extends InputStream implements SegmentInputStr
         return windowByteEnd - windowByteStart;
     }
 
+    /**
+     * Move to a byte position relative to the start of the window so that the next read starts from
+     * there. This is only supported when all segments are included.
+     */
+    public void seek(final long pos) throws IOException {
+        if (!includeAll || (excluded != null && excluded.size() > 0)) {
+            throw new IllegalStateException("Seek is only supported when all segments are included");
+        }
+
+        windowPos = Math.min(windowByteStart + pos, windowByteEnd);
+        doSeek(windowPos);
+    }
+
     private static class ByteRange {
         private final long start;
         private final long end;
@@ -24,4 +24,14 @@ import stroom.streamtask.shared.StreamTask;
 public interface StreamProcessorTaskExecutor {
     void exec(StreamProcessor streamProcessor, StreamProcessorFilter streamProcessorFilter, StreamTask streamTask,
               StreamSource streamSource);
+
+    /**
+     * @return True if this executor, along with the pipeline scoped objects it was created with, can be
+     * kept by the processing thread and used again to execute later tasks for the same pipeline. An
+     * executor that returns true must reset any per task state at the start of each call to
+     * {@link #exec(StreamProcessor, StreamProcessorFilter, StreamTask, StreamSource)}.
+     */
+    default boolean isReusable() {
+        return false;
+    }
 }
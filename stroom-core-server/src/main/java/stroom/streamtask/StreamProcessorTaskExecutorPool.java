@@ -0,0 +1,131 @@
+/*
+ * Copyright 2018 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package stroom.streamtask;
+
+import com.google.inject.Key;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import stroom.guice.PipelineScope;
+import stroom.guice.StroomBeanStore;
+import stroom.properties.StroomPropertyService;
+
+import javax.inject.Inject;
+import javax.inject.Named;
+import javax.inject.Singleton;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Keeps stream processor task executors, along with the pipeline scoped objects that they and the
+ * pipelines they build were created with, for each processing thread so that a thread that executes
+ * many tasks for the same pipeline only has to build the pipeline once. Executors are keyed by task
+ * type and pipeline and are only kept if they declare themselves reusable. Each thread keeps at most
+ * 'stroom.streamTask.pipelinePoolSize' executors, discarding the least recently used ones first.
+ */
+@Singleton
+public class StreamProcessorTaskExecutorPool {
+    private static final Logger LOGGER = LoggerFactory.getLogger(StreamProcessorTaskExecutorPool.class);
+
+    static final String POOL_SIZE_PROPERTY = "stroom.streamTask.pipelinePoolSize";
+    private static final int DEFAULT_POOL_SIZE = 10;
+
+    private final StroomBeanStore beanStore;
+    private final PipelineScope pipelineScope;
+    private final StroomPropertyService propertyService;
+
+    private final ThreadLocal<Map<String, PooledExecutor>> threadLocal =
+            ThreadLocal.withInitial(() -> new LinkedHashMap<>(16, 0.75F, true));
+
+    @Inject
+    StreamProcessorTaskExecutorPool(final StroomBeanStore beanStore,
+                                    @Named("pipelineScope") final PipelineScope pipelineScope,
+                                    final StroomPropertyService propertyService) {
+        this.beanStore = beanStore;
+        this.pipelineScope = pipelineScope;
+        this.propertyService = propertyService;
+    }
+
+    /**
+     * Supply an executor for the task type and pipeline to the consumer, reusing one kept by the
+     * current thread if there is one. The consumer is called within the pipeline scope the executor was
+     * created in. The executor is only kept for reuse if the consumer completes without error and the
+     * thread has not been interrupted.
+     */
+    public void exec(final String taskType,
+                     final String pipelineUuid,
+                     final Consumer<StreamProcessorTaskExecutor> consumer) {
+        final String key = taskType + ":" + pipelineUuid;
+        final Map<String, PooledExecutor> pool = threadLocal.get();
+
+        // Remove the executor while it is in use so a nested task on this thread can't use it too.
+        PooledExecutor pooledExecutor = pool.remove(key);
+        if (pooledExecutor != null) {
+            LOGGER.debug("Reusing executor for {}", key);
+            pipelineScope.enter(pooledExecutor.scopedObjects);
+        } else {
+            pipelineScope.enter();
+        }
+
+        boolean reusable = false;
+        try {
+            if (pooledExecutor == null) {
+                final StreamProcessorTaskExecutor executor = (StreamProcessorTaskExecutor) beanStore.getInstance(taskType);
+                pooledExecutor = new PooledExecutor(executor, pipelineScope.getScopedObjects());
+            }
+
+            consumer.accept(pooledExecutor.executor);
+
+            reusable = pooledExecutor.executor.isReusable() && !Thread.currentThread().isInterrupted();
+        } finally {
+            pipelineScope.exit();
+
+            if (reusable) {
+                release(pool, key, pooledExecutor);
+            }
+        }
+    }
+
+    private void release(final Map<String, PooledExecutor> pool, final String key, final PooledExecutor pooledExecutor) {
+        final int maxSize = propertyService.getIntProperty(POOL_SIZE_PROPERTY, DEFAULT_POOL_SIZE);
+        if (maxSize > 0) {
+            pool.put(key, pooledExecutor);
+
+            // Discard the least recently used executors if we are over size.
+            final Iterator<String> iterator = pool.keySet().iterator();
+            while (pool.size() > maxSize && iterator.hasNext()) {
+                final String eldest = iterator.next();
+                LOGGER.debug("Discarding executor for {}", eldest);
+                iterator.remove();
+            }
+        } else {
+            pool.clear();
+        }
+    }
+
+    private static class PooledExecutor {
+        private final StreamProcessorTaskExecutor executor;
+        private final Map<Key<?>, Object> scopedObjects;
+
+        PooledExecutor(final StreamProcessorTaskExecutor executor, final Map<Key<?>, Object> scopedObjects) {
+            this.executor = executor;
+            this.scopedObjects = scopedObjects;
+        }
+    }
+}
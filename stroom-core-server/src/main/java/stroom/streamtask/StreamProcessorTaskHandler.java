@@ -19,7 +19,6 @@ package stroom.streamtask;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import stroom.guice.StroomBeanStore;
 import stroom.node.NodeCache;
 import stroom.security.Security;
 import stroom.streamstore.StreamSource;
@@ -46,7 +45,7 @@ class StreamProcessorTaskHandler extends AbstractTaskHandler<StreamProcessorTask
     private static final Logger LOGGER = LoggerFactory.getLogger(StreamProcessorTaskHandler.class);
     private static final Set<String> FETCH_SET = new HashSet<>(
             Arrays.asList(StreamProcessor.ENTITY_TYPE, StreamProcessorFilter.ENTITY_TYPE));
-    private final StroomBeanStore beanStore;
+    private final StreamProcessorTaskExecutorPool executorPool;
     private final StreamProcessorService streamProcessorService;
     private final StreamProcessorFilterService streamProcessorFilterService;
     private final StreamTaskHelper streamTaskHelper;
@@ -56,7 +55,7 @@ class StreamProcessorTaskHandler extends AbstractTaskHandler<StreamProcessorTask
     private final Security security;
 
     @Inject
-    StreamProcessorTaskHandler(final StroomBeanStore beanStore,
+    StreamProcessorTaskHandler(final StreamProcessorTaskExecutorPool executorPool,
                                @Named("cachedStreamProcessorService") final StreamProcessorService streamProcessorService,
                                @Named("cachedStreamProcessorFilterService") final StreamProcessorFilterService streamProcessorFilterService,
                                final StreamTaskHelper streamTaskHelper,
@@ -64,7 +63,7 @@ class StreamProcessorTaskHandler extends AbstractTaskHandler<StreamProcessorTask
                                final NodeCache nodeCache,
                                final TaskContext taskContext,
                                final Security security) {
-        this.beanStore = beanStore;
+        this.executorPool = executorPool;
         this.streamProcessorService = streamProcessorService;
         this.streamProcessorFilterService = streamProcessorFilterService;
         this.streamTaskHelper = streamTaskHelper;
@@ -131,16 +130,21 @@ class StreamProcessorTaskHandler extends AbstractTaskHandler<StreamProcessorTask
                         streamTask.setStreamProcessorFilter(destStreamProcessorFilter);
 
                         final String taskType = destStreamProcessor.getTaskType();
-
-                        final StreamProcessorTaskExecutor streamProcessorTaskExecutor = (StreamProcessorTaskExecutor) beanStore
-                                .getInstance(taskType);
-
-                        // Used as a hook for the test code
-                        task.setStreamProcessorTaskExecutor(streamProcessorTaskExecutor);
+                        final StreamProcessor streamProcessor = destStreamProcessor;
+                        final StreamProcessorFilter streamProcessorFilter = destStreamProcessorFilter;
+                        final StreamTask processingStreamTask = streamTask;
+                        final StreamSource processingStreamSource = streamSource;
 
                         try {
-                            streamProcessorTaskExecutor.exec(destStreamProcessor, destStreamProcessorFilter, streamTask,
-                                    streamSource);
+                            // Get an executor for this pipeline, reusing one that this thread has already built if
+                            // possible.
+                            executorPool.exec(taskType, destStreamProcessor.getPipelineUuid(), streamProcessorTaskExecutor -> {
+                                // Used as a hook for the test code
+                                task.setStreamProcessorTaskExecutor(streamProcessorTaskExecutor);
+
+                                streamProcessorTaskExecutor.exec(streamProcessor, streamProcessorFilter,
+                                        processingStreamTask, processingStreamSource);
+                            });
                             // Only record completion for this task if it was not
                             // terminated.
                             if (!Thread.currentThread().isInterrupted()) {
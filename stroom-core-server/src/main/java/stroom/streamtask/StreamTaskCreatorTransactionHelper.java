@@ -29,6 +29,8 @@ import stroom.entity.shared.Sort.Direction;
 import stroom.entity.util.ConnectionUtil;
 import stroom.entity.util.SqlBuilder;
 import stroom.feed.shared.Feed;
+import stroom.jobsystem.ClusterLease;
+import stroom.jobsystem.ClusterLeaseLostException;
 import stroom.jobsystem.ClusterLockService;
 import stroom.node.NodeCache;
 import stroom.node.shared.Node;
@@ -223,6 +225,31 @@ class StreamTaskCreatorTransactionHelper {
                                        final Node thisNode,
                                        final StreamTaskCreatorRecentStreamDetails recentStreamInfo,
                                        final boolean reachedLimit) {
+        // Lease the cluster lock so that only this node can create tasks at this time.
+        // The lease is acquired and released outside of the transaction so the lock
+        // row is only locked in the database while the transaction commits.
+        final ClusterLease lease = clusterLockService.acquireLease(LOCK_NAME);
+        try {
+            return createNewTasksInTransaction(filter, tracker, streamQueryTime, streams, thisNode,
+                    recentStreamInfo, reachedLimit, lease);
+        } catch (final ClusterLeaseLostException e) {
+            // Another node has taken the lease so our work has been rolled back and
+            // no tasks were created.
+            LOGGER.warn("createNewTasks() - {}", e.getMessage());
+            return new CreatedTasks(Collections.emptyList(), 0, 0, 0);
+        } finally {
+            clusterLockService.releaseLease(lease);
+        }
+    }
+
+    private CreatedTasks createNewTasksInTransaction(final StreamProcessorFilter filter,
+                                                     final StreamProcessorFilterTracker tracker,
+                                                     final long streamQueryTime,
+                                                     final Map<Stream, InclusiveRanges> streams,
+                                                     final Node thisNode,
+                                                     final StreamTaskCreatorRecentStreamDetails recentStreamInfo,
+                                                     final boolean reachedLimit,
+                                                     final ClusterLease lease) {
         return entityManagerSupport.transactionResult(em -> {
             List<StreamTask> availableTaskList = Collections.emptyList();
             int availableTasksCreated = 0;
@@ -230,10 +257,6 @@ class StreamTaskCreatorTransactionHelper {
             long eventCount = 0;
 
             try {
-                // Lock the cluster so that only this node can create tasks for this
-                // filter at this time.
-                lockCluster();
-
                 // Get the current time.
                 final long streamTaskCreateMs = System.currentTimeMillis();
 
@@ -417,6 +440,10 @@ class StreamTaskCreatorTransactionHelper {
                 LOGGER.error("createNewTasks", e);
             }
 
+            // Only commit if we still hold the lease. This rolls the transaction
+            // back if another node has taken the lease from us.
+            clusterLockService.checkLease(lease);
+
             return new CreatedTasks(availableTaskList, availableTasksCreated, totalTasksCreated, eventCount);
         });
     }
@@ -425,10 +452,6 @@ class StreamTaskCreatorTransactionHelper {
         return stroomEntityManager.saveEntity(tracker);
     }
 
-    private void lockCluster() {
-        clusterLockService.lock(LOCK_NAME);
-    }
-
     public StreamTaskCreatorRecentStreamDetails getRecentStreamInfo(
             final StreamTaskCreatorRecentStreamDetails lastRecent) {
         StreamTaskCreatorRecentStreamDetails recentStreamInfo = new StreamTaskCreatorRecentStreamDetails(lastRecent,
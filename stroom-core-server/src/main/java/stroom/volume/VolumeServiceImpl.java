@@ -126,6 +126,8 @@ public class VolumeServiceImpl extends SystemEntityServiceImpl<Volume, FindVolum
     private final NodeCache nodeCache;
     private final StroomPropertyService stroomPropertyService;
     private final Provider<InternalStatisticsReceiver> internalStatisticsReceiverProvider;
+    private final VolumeWriteStatistics volumeWriteStatistics;
+    private final VolumeSelector weightedLatencyRandomVolumeSelector;
     private final AtomicReference<List<Volume>> currentVolumeState = new AtomicReference<>();
 
     @Inject
@@ -134,7 +136,8 @@ public class VolumeServiceImpl extends SystemEntityServiceImpl<Volume, FindVolum
                       final EntityManagerSupport entityManagerSupport,
                       final NodeCache nodeCache,
                       final StroomPropertyService stroomPropertyService,
-                      final Provider<InternalStatisticsReceiver> internalStatisticsReceiverProvider) {
+                      final Provider<InternalStatisticsReceiver> internalStatisticsReceiverProvider,
+                      final VolumeWriteStatistics volumeWriteStatistics) {
         super(stroomEntityManager, security);
         this.stroomEntityManager = stroomEntityManager;
         this.security = security;
@@ -142,6 +145,10 @@ public class VolumeServiceImpl extends SystemEntityServiceImpl<Volume, FindVolum
         this.nodeCache = nodeCache;
         this.stroomPropertyService = stroomPropertyService;
         this.internalStatisticsReceiverProvider = internalStatisticsReceiverProvider;
+        this.volumeWriteStatistics = volumeWriteStatistics;
+
+        // This selector depends on the write statistics for this node so isn't registered with the others.
+        this.weightedLatencyRandomVolumeSelector = new WeightedLatencyRandomVolumeSelector(volumeWriteStatistics);
     }
 
     private static void registerVolumeSelector(final VolumeSelector volumeSelector) {
@@ -362,6 +369,14 @@ public class VolumeServiceImpl extends SystemEntityServiceImpl<Volume, FindVolum
                     addStatisticEvent(events, now, volume, "Used", volumeState.getBytesUsed());
                     addStatisticEvent(events, now, volume, "Free", volumeState.getBytesFree());
                     addStatisticEvent(events, now, volume, "Total", volumeState.getBytesTotal());
+
+                    // Add the write performance recently observed for this volume if we have any.
+                    final double latencyMs = volumeWriteStatistics.getLatencyMs(volume);
+                    if (latencyMs >= 0) {
+                        addStatisticEvent(events, now, volume, "Write Latency Ms", Math.round(latencyMs));
+                        addStatisticEvent(events, now, volume, "Write Bytes Per Second",
+                                Math.round(volumeWriteStatistics.getBytesPerSecond(volume)));
+                    }
                     receiver.putEvents(events);
                 } catch (final RuntimeException e) {
                     LOGGER.warn(e.getMessage());
@@ -375,8 +390,8 @@ public class VolumeServiceImpl extends SystemEntityServiceImpl<Volume, FindVolum
                                    final long timeMs,
                                    final Volume volume,
                                    final String type,
-                                   final Long bytes) {
-        if (bytes != null) {
+                                   final Long value) {
+        if (value != null) {
             Map<String, String> tags = ImmutableMap.<String, String>builder()
                     .put("Id", String.valueOf(volume.getId()))
                     .put("Node", volume.getNode().getName())
@@ -385,7 +400,7 @@ public class VolumeServiceImpl extends SystemEntityServiceImpl<Volume, FindVolum
                     .build();
 
             InternalStatisticEvent event = InternalStatisticEvent.createValueStat(
-                    INTERNAL_STAT_KEY_VOLUMES, timeMs, tags, bytes.doubleValue());
+                    INTERNAL_STAT_KEY_VOLUMES, timeMs, tags, value.doubleValue());
             events.add(event);
         }
     }
@@ -497,7 +512,9 @@ public class VolumeServiceImpl extends SystemEntityServiceImpl<Volume, FindVolum
 
         try {
             final String value = stroomPropertyService.getProperty(PROP_VOLUME_SELECTOR);
-            if (value != null) {
+            if (WeightedLatencyRandomVolumeSelector.NAME.equals(value)) {
+                volumeSelector = weightedLatencyRandomVolumeSelector;
+            } else if (value != null) {
                 volumeSelector = volumeSelectorMap.get(value);
             }
         } catch (final RuntimeException e) {
@@ -0,0 +1,120 @@
+/*
+ * Copyright 2018 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package stroom.volume;
+
+import stroom.node.shared.Volume;
+
+import javax.inject.Singleton;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps a moving average of the write latency and throughput observed for each volume on this node. Writers record
+ * how long it took to complete a write, e.g. closing a stream or committing an index shard, and how many bytes were
+ * written so that volume selection can steer new writes away from volumes that are busy.
+ */
+@Singleton
+public class VolumeWriteStatistics {
+    // The weight given to each new sample in the moving averages.
+    private static final double ALPHA = 0.2;
+    // Samples older than this no longer tell us anything about the current load on a volume.
+    private static final long MAX_SAMPLE_AGE_MS = TimeUnit.MINUTES.toMillis(10);
+
+    private final Map<Long, VolumeWriteStats> statsMap = new ConcurrentHashMap<>();
+
+    /**
+     * Record a write to a volume.
+     *
+     * @param volume     The volume that was written to.
+     * @param bytes      The number of bytes written.
+     * @param durationNs The time taken to complete the write.
+     */
+    public void record(final Volume volume, final long bytes, final long durationNs) {
+        if (volume != null && volume.isPersistent()) {
+            statsMap.computeIfAbsent(volume.getId(), k -> new VolumeWriteStats())
+                    .add(bytes, durationNs, System.currentTimeMillis());
+        }
+    }
+
+    /**
+     * @return The average write latency for the volume in milliseconds or -1 if there are no recent samples.
+     */
+    public double getLatencyMs(final Volume volume) {
+        final VolumeWriteStats stats = getRecentStats(volume);
+        if (stats == null) {
+            return -1;
+        }
+        return stats.getLatencyMs();
+    }
+
+    /**
+     * @return The average write throughput for the volume in bytes per second or -1 if there are no recent samples.
+     */
+    public double getBytesPerSecond(final Volume volume) {
+        final VolumeWriteStats stats = getRecentStats(volume);
+        if (stats == null) {
+            return -1;
+        }
+        return stats.getBytesPerSecond();
+    }
+
+    private VolumeWriteStats getRecentStats(final Volume volume) {
+        if (volume == null) {
+            return null;
+        }
+        final VolumeWriteStats stats = statsMap.get(volume.getId());
+        if (stats == null || stats.getLastSampleMs() < System.currentTimeMillis() - MAX_SAMPLE_AGE_MS) {
+            return null;
+        }
+        return stats;
+    }
+
+    private static class VolumeWriteStats {
+        private double latencyMs;
+        private double bytesPerSecond;
+        private long lastSampleMs;
+        private boolean hasSamples;
+
+        synchronized void add(final long bytes, final long durationNs, final long nowMs) {
+            final double sampleLatencyMs = durationNs / 1000000D;
+            final double sampleBytesPerSecond = durationNs > 0 ? (bytes * 1000000000D) / durationNs : 0;
+
+            if (hasSamples) {
+                latencyMs += ALPHA * (sampleLatencyMs - latencyMs);
+                bytesPerSecond += ALPHA * (sampleBytesPerSecond - bytesPerSecond);
+            } else {
+                latencyMs = sampleLatencyMs;
+                bytesPerSecond = sampleBytesPerSecond;
+                hasSamples = true;
+            }
+            lastSampleMs = nowMs;
+        }
+
+        synchronized double getLatencyMs() {
+            return latencyMs;
+        }
+
+        synchronized double getBytesPerSecond() {
+            return bytesPerSecond;
+        }
+
+        synchronized long getLastSampleMs() {
+            return lastSampleMs;
+        }
+    }
+}
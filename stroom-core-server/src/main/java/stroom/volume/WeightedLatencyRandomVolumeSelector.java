@@ -0,0 +1,102 @@
+/*
+ * Copyright 2018 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package stroom.volume;
+
+import stroom.node.shared.Volume;
+
+import java.util.List;
+
+/**
+ * Selects volumes at random weighted by the inverse of the write latency recently observed on each volume so that
+ * busy volumes receive fewer new writes. Busy volumes are still selected occasionally so that their latency continues
+ * to be measured. Volumes without any recent measurements, e.g. volumes on other nodes, are given the average latency
+ * of the volumes that do have measurements.
+ */
+public class WeightedLatencyRandomVolumeSelector implements VolumeSelector {
+    public static final String NAME = "WeightedLatencyRandom";
+
+    // Added to every latency so that very fast volumes do not take all of the writes.
+    private static final double BASE_LATENCY_MS = 1;
+
+    private final VolumeWriteStatistics volumeWriteStatistics;
+    private final RandomVolumeSelector randomVolumeSelector = new RandomVolumeSelector();
+
+    public WeightedLatencyRandomVolumeSelector(final VolumeWriteStatistics volumeWriteStatistics) {
+        this.volumeWriteStatistics = volumeWriteStatistics;
+    }
+
+    @Override
+    public Volume select(final List<Volume> list) {
+        final List<Volume> filtered = VolumeListUtil.removeVolumesWithoutValidState(list);
+        if (filtered.size() == 0) {
+            return randomVolumeSelector.select(list);
+        }
+        if (filtered.size() == 1) {
+            return filtered.get(0);
+        }
+
+        final double[] thresholds = getWeightingThresholds(filtered);
+        final double random = Math.random();
+
+        int index = thresholds.length - 1;
+        for (int i = 0; i < thresholds.length; i++) {
+            if (thresholds[i] >= random) {
+                index = i;
+                break;
+            }
+        }
+
+        return filtered.get(index);
+    }
+
+    private double[] getWeightingThresholds(final List<Volume> list) {
+        final double[] latencies = new double[list.size()];
+        double totalKnown = 0;
+        int known = 0;
+        for (int i = 0; i < list.size(); i++) {
+            latencies[i] = volumeWriteStatistics.getLatencyMs(list.get(i));
+            if (latencies[i] >= 0) {
+                totalKnown += latencies[i];
+                known++;
+            }
+        }
+        final double averageLatency = known > 0 ? totalKnown / known : 0;
+
+        double totalWeight = 0;
+        final double[] weights = new double[list.size()];
+        for (int i = 0; i < latencies.length; i++) {
+            final double latency = latencies[i] >= 0 ? latencies[i] : averageLatency;
+            weights[i] = 1D / (BASE_LATENCY_MS + latency);
+            totalWeight += weights[i];
+        }
+
+        final double[] thresholds = new double[list.size()];
+        for (int i = 0; i < weights.length; i++) {
+            thresholds[i] = weights[i] / totalWeight;
+            if (i > 0) {
+                thresholds[i] += thresholds[i - 1];
+            }
+        }
+
+        return thresholds;
+    }
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+}
@@ -0,0 +1,2 @@
+ALTER TABLE IDX_SHRD ADD COLUMN MIN_TIME_MS bigint(20) default NULL;
+ALTER TABLE IDX_SHRD ADD COLUMN MAX_TIME_MS bigint(20) default NULL;
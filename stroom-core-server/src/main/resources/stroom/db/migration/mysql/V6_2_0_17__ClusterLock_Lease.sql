@@ -0,0 +1,3 @@
+ALTER TABLE CLSTR_LK ADD COLUMN LEASE_HOLDER varchar(255) default NULL;
+ALTER TABLE CLSTR_LK ADD COLUMN LEASE_EXPIRY_MS bigint(20) default NULL;
+ALTER TABLE CLSTR_LK ADD COLUMN LEASE_TOKEN bigint(20) NOT NULL default 0;
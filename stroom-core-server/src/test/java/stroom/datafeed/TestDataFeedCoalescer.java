@@ -0,0 +1,165 @@
+/*
+ * Copyright 2018 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package stroom.datafeed;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+import stroom.feed.MetaMap;
+import stroom.feed.StroomHeaderArguments;
+import stroom.feed.StroomStreamException;
+import stroom.feed.shared.Feed;
+import stroom.properties.MockStroomPropertyService;
+import stroom.proxy.repo.StroomZipFile;
+import stroom.streamtask.StreamTargetStroomStreamHandler;
+import stroom.util.test.StroomUnitTest;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+public class TestDataFeedCoalescer extends StroomUnitTest {
+    private final MockStroomPropertyService propertyService = new MockStroomPropertyService();
+    private final List<List<BufferedStroomStreamHandler>> written = new ArrayList<>();
+    private final Feed feed = new Feed("TEST_FEED");
+    private volatile boolean failWrites;
+
+    private DataFeedCoalescer coalescer;
+
+    @Before
+    public void setup() {
+        propertyService.setProperty("stroom.feed.coalesce.enabled", "true");
+        coalescer = new DataFeedCoalescer(null, null, null, propertyService) {
+            @Override
+            void write(final Feed feed, final List<BufferedStroomStreamHandler> posts) throws IOException {
+                if (failWrites) {
+                    throw new IOException("Unable to write");
+                }
+                synchronized (written) {
+                    written.add(new ArrayList<>(posts));
+                }
+            }
+        };
+    }
+
+    @Test
+    public void testCanCoalesce() {
+        final MetaMap metaMap = new MetaMap();
+        Assert.assertFalse("Unknown content length", coalescer.canCoalesce(feed, metaMap));
+
+        metaMap.put(StroomHeaderArguments.CONTENT_LENGTH, "100");
+        Assert.assertTrue(coalescer.canCoalesce(feed, metaMap));
+
+        metaMap.put(StroomHeaderArguments.CONTENT_LENGTH, String.valueOf(1024 * 1024));
+        Assert.assertFalse("Too big", coalescer.canCoalesce(feed, metaMap));
+
+        metaMap.put(StroomHeaderArguments.CONTENT_LENGTH, "100");
+        metaMap.put(StroomHeaderArguments.COMPRESSION, "zip");
+        Assert.assertFalse("Zip", coalescer.canCoalesce(feed, metaMap));
+
+        metaMap.remove(StroomHeaderArguments.COMPRESSION);
+        final Feed referenceFeed = new Feed("TEST_REFERENCE_FEED");
+        referenceFeed.setReference(true);
+        Assert.assertFalse("Reference", coalescer.canCoalesce(referenceFeed, metaMap));
+
+        propertyService.setProperty("stroom.feed.coalesce.enabled", "false");
+        Assert.assertFalse("Disabled", coalescer.canCoalesce(feed, metaMap));
+    }
+
+    @Test
+    public void testWrittenWhenFull() throws Exception {
+        propertyService.setProperty("stroom.feed.coalesce.maxPostCount", "3");
+        propertyService.setProperty("stroom.feed.coalesce.maxAge", "10s");
+
+        final ExecutorService executorService = Executors.newFixedThreadPool(3);
+        try {
+            final List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < 3; i++) {
+                futures.add(executorService.submit(() -> coalescer.add(feed, createPost("data"))));
+            }
+            for (final Future<?> future : futures) {
+                future.get(10, TimeUnit.SECONDS);
+            }
+        } finally {
+            executorService.shutdownNow();
+        }
+
+        Assert.assertEquals(1, written.size());
+        Assert.assertEquals(3, written.get(0).size());
+    }
+
+    @Test
+    public void testWrittenWhenOld() {
+        propertyService.setProperty("stroom.feed.coalesce.maxAge", "10ms");
+
+        coalescer.add(feed, createPost("data 1"));
+        coalescer.add(feed, createPost("data 2"));
+
+        Assert.assertEquals(2, written.size());
+        Assert.assertEquals(1, written.get(0).size());
+    }
+
+    @Test(expected = StroomStreamException.class)
+    public void testWriteFailure() {
+        propertyService.setProperty("stroom.feed.coalesce.maxAge", "10ms");
+        failWrites = true;
+
+        coalescer.add(feed, createPost("data"));
+    }
+
+    @Test
+    public void testOverflow() throws IOException {
+        // A compressed POST can be much bigger than its content length says once it is inflated.
+        final StreamTargetStroomStreamHandler overflowHandler = Mockito.mock(StreamTargetStroomStreamHandler.class);
+        final BufferedStroomStreamHandler post = new BufferedStroomStreamHandler(10, () -> overflowHandler);
+        final MetaMap metaMap = new MetaMap();
+        post.handleHeader(metaMap);
+        post.handleEntryStart(StroomZipFile.SINGLE_DATA_ENTRY);
+        post.handleEntryData("0123456789".getBytes(), 0, 10);
+        Assert.assertNull("Still fits in the buffer", post.getOverflowHandler());
+
+        post.handleEntryData("0123456789".getBytes(), 0, 10);
+        post.handleEntryEnd();
+        Assert.assertSame(overflowHandler, post.getOverflowHandler());
+
+        // Everything that was buffered is sent on followed by the rest of the POST.
+        Mockito.verify(overflowHandler).handleHeader(metaMap);
+        Mockito.verify(overflowHandler).handleEntryStart(StroomZipFile.SINGLE_DATA_ENTRY);
+        Mockito.verify(overflowHandler, Mockito.times(2))
+                .handleEntryData(Mockito.any(byte[].class), Mockito.eq(0), Mockito.eq(10));
+        Mockito.verify(overflowHandler).handleEntryEnd();
+    }
+
+    private BufferedStroomStreamHandler createPost(final String data) {
+        final BufferedStroomStreamHandler post = new BufferedStroomStreamHandler(coalescer.getMaxPostSize(), () -> {
+            throw new AssertionError("Unexpected overflow");
+        });
+        final MetaMap metaMap = new MetaMap();
+        metaMap.put(StroomHeaderArguments.FEED, feed.getName());
+        post.handleHeader(metaMap);
+        post.handleEntryStart(StroomZipFile.SINGLE_DATA_ENTRY);
+        final byte[] bytes = data.getBytes();
+        post.handleEntryData(bytes, 0, bytes.length);
+        post.handleEntryEnd();
+        return post;
+    }
+}
@@ -0,0 +1,86 @@
+/*
+ * Copyright 2018 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package stroom.datafeed;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import stroom.feed.StroomStreamException;
+import stroom.streamstore.fs.BlockGZIPInputFile;
+import stroom.streamstore.fs.BlockGZIPOutputFile;
+import stroom.util.io.StreamUtil;
+import stroom.util.test.StroomJUnit4ClassRunner;
+import stroom.util.test.StroomUnitTest;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.zip.GZIPOutputStream;
+
+@RunWith(StroomJUnit4ClassRunner.class)
+public class TestGzipPassThroughUtil extends StroomUnitTest {
+    private static final String DATA = "some data\nsome more data\n";
+
+    @Test
+    public void testCopy() throws IOException {
+        final Path file = getCurrentTestDir().resolve("testCopy.bgz");
+
+        try (final BlockGZIPOutputFile outputStream = new BlockGZIPOutputFile(file)) {
+            final long length = GzipPassThroughUtil.copy(new ByteArrayInputStream(gzip(DATA)), outputStream,
+                    new byte[10]);
+            Assert.assertEquals(DATA.length(), length);
+        }
+
+        try (final BlockGZIPInputFile inputStream = new BlockGZIPInputFile(file)) {
+            Assert.assertEquals(DATA, StreamUtil.streamToString(inputStream));
+        }
+    }
+
+    @Test(expected = StroomStreamException.class)
+    public void testCopyCorrupt() throws IOException {
+        final Path file = getCurrentTestDir().resolve("testCopyCorrupt.bgz");
+        final byte[] gzip = gzip(DATA);
+
+        try (final BlockGZIPOutputFile outputStream = new BlockGZIPOutputFile(file)) {
+            GzipPassThroughUtil.copy(new ByteArrayInputStream(Arrays.copyOf(gzip, gzip.length - 4)), outputStream,
+                    new byte[10]);
+        }
+    }
+
+    @Test(expected = StroomStreamException.class)
+    public void testCopyTrailingData() throws IOException {
+        final Path file = getCurrentTestDir().resolve("testCopyTrailingData.bgz");
+        final ByteArrayOutputStream data = new ByteArrayOutputStream();
+        data.write(gzip(DATA));
+        data.write("not gzip".getBytes(StreamUtil.DEFAULT_CHARSET));
+
+        try (final BlockGZIPOutputFile outputStream = new BlockGZIPOutputFile(file)) {
+            GzipPassThroughUtil.copy(new ByteArrayInputStream(data.toByteArray()), outputStream, new byte[10]);
+        }
+    }
+
+    private byte[] gzip(final String data) throws IOException {
+        final ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream();
+        try (final OutputStream outputStream = new GZIPOutputStream(byteArrayOutputStream)) {
+            outputStream.write(data.getBytes(StreamUtil.DEFAULT_CHARSET));
+        }
+        return byteArrayOutputStream.toByteArray();
+    }
+}
@@ -20,17 +20,20 @@ import org.junit.Assert;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import stroom.util.io.FileUtil;
+import stroom.util.io.IgnoreCloseOutputStream;
 import stroom.util.io.StreamUtil;
 import stroom.util.test.StroomJUnit4ClassRunner;
 import stroom.util.test.StroomUnitTest;
 
 import java.io.BufferedInputStream;
 import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.zip.GZIPOutputStream;
 
 @RunWith(StroomJUnit4ClassRunner.class)
 public class TestBlockGZIPFiles extends StroomUnitTest {
@@ -243,4 +246,61 @@ public class TestBlockGZIPFiles extends StroomUnitTest {
 
     }
 
+    @Test
+    public void testPassThroughGzip() throws IOException {
+        final Path file = getCurrentTestDir().resolve("testPassThrough.bgz");
+        FileUtil.deleteFile(file);
+
+        // Make GZIP data with several members as some clients do.
+        final ByteArrayOutputStream expected = new ByteArrayOutputStream();
+        final ByteArrayOutputStream gzip = new ByteArrayOutputStream();
+        for (int member = 0; member < 3; member++) {
+            try (final OutputStream os = new GZIPOutputStream(IgnoreCloseOutputStream.wrap(gzip))) {
+                for (int i = 0; i < 1000; i++) {
+                    final byte[] line = ("member " + member + " line " + i + "\n").getBytes(StreamUtil.DEFAULT_CHARSET);
+                    os.write(line);
+                    expected.write(line);
+                }
+            }
+        }
+        final byte[] expectedBytes = expected.toByteArray();
+        final byte[] gzipBytes = gzip.toByteArray();
+
+        final BlockGZIPOutputFile outStream = new BlockGZIPOutputFile(file);
+        Assert.assertTrue(outStream.canPassThrough());
+        for (int off = 0; off < gzipBytes.length; off += 100) {
+            outStream.writeGzip(gzipBytes, off, Math.min(100, gzipBytes.length - off));
+        }
+        outStream.endGzip(expectedBytes.length);
+        Assert.assertFalse(outStream.canPassThrough());
+        Assert.assertEquals(expectedBytes.length, outStream.getSize());
+        outStream.close();
+
+        try (final BlockGZIPInputFile inStream = new BlockGZIPInputFile(file)) {
+            Assert.assertEquals(expectedBytes.length, inStream.getSize());
+            Assert.assertArrayEquals(expectedBytes, StreamUtil.streamToBytes(inStream));
+        }
+
+        // Random access still works.
+        try (final BlockGZIPInputFile inStream = new BlockGZIPInputFile(file)) {
+            inStream.seek(expectedBytes.length / 2);
+            Assert.assertEquals(expectedBytes[expectedBytes.length / 2], (byte) inStream.read());
+            inStream.seek(10);
+            Assert.assertEquals(expectedBytes[10], (byte) inStream.read());
+            inStream.seek(expectedBytes.length);
+            Assert.assertEquals(-1, inStream.read());
+        }
+    }
+
+    @Test(expected = IOException.class)
+    public void testNoPassThroughAfterWrite() throws IOException {
+        final Path file = getCurrentTestDir().resolve("testNoPassThrough.bgz");
+        FileUtil.deleteFile(file);
+
+        try (final BlockGZIPOutputFile outStream = new BlockGZIPOutputFile(file)) {
+            outStream.write(1);
+            Assert.assertFalse(outStream.canPassThrough());
+            outStream.writeGzip(new byte[1], 0, 1);
+        }
+    }
 }
@@ -0,0 +1,182 @@
+/*
+ * Copyright 2018 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package stroom.streamstore.fs;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import stroom.feed.shared.Feed;
+import stroom.node.shared.Node;
+import stroom.node.shared.Volume;
+import stroom.properties.MockStroomPropertyService;
+import stroom.streamstore.shared.Stream;
+import stroom.streamstore.shared.StreamType;
+import stroom.util.cache.CacheManager;
+import stroom.util.date.DateUtil;
+import stroom.util.io.FileUtil;
+import stroom.util.io.StreamUtil;
+import stroom.util.test.StroomJUnit4ClassRunner;
+import stroom.util.test.StroomUnitTest;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.Set;
+
+@RunWith(StroomJUnit4ClassRunner.class)
+public class TestFileSystemStreamPacker extends StroomUnitTest {
+    private final MockStroomPropertyService propertyService = new MockStroomPropertyService();
+    private FileSystemStreamPacker packer;
+    private Volume volume;
+
+    @Before
+    public void setup() throws IOException {
+        propertyService.setProperty("stroom.streamstore.packSmallStreams", "true");
+        packer = new FileSystemStreamPacker(propertyService, new CacheManager());
+
+        volume = new Volume();
+        volume.setPath(FileUtil.getCanonicalPath(Files.createTempDirectory(getCurrentTestDir(), "packer")));
+        final Node node = new Node();
+        node.setName("Test");
+        volume.setNode(node);
+    }
+
+    @Test
+    public void testShouldPack() {
+        Assert.assertTrue(packer.shouldPack(1024));
+        Assert.assertFalse(packer.shouldPack(1024 * 1024));
+
+        propertyService.setProperty("stroom.streamstore.packSmallStreams", "false");
+        Assert.assertFalse(packer.shouldPack(1024));
+    }
+
+    @Test
+    public void testPackAndRead() throws IOException {
+        final Stream stream1 = createStream(1001001L);
+        final Stream stream2 = createStream(1001002L);
+
+        final Path rootFile1 = write(stream1, "stream 1 data", "stream 1 context");
+        final Path rootFile2 = write(stream2, "stream 2 data", "stream 2 context");
+
+        Assert.assertTrue(packer.pack(stream1, Collections.singleton(rootFile1)));
+        Assert.assertTrue(packer.pack(stream2, Collections.singleton(rootFile2)));
+
+        // Both streams should share a container and the loose files should have gone.
+        final Path packFile = FileSystemStreamPacker.getPackFile(rootFile1, stream1);
+        Assert.assertEquals(packFile, FileSystemStreamPacker.getPackFile(rootFile2, stream2));
+        Assert.assertTrue(Files.isRegularFile(packFile));
+        Assert.assertFalse(Files.isRegularFile(rootFile1));
+        Assert.assertFalse(Files.isRegularFile(rootFile2));
+        Assert.assertEquals(2, packer.getPackedBaseNames(packFile).size());
+
+        Assert.assertEquals("stream 1 data", read(stream1, rootFile1, StreamType.RAW_EVENTS));
+        Assert.assertEquals("stream 2 data", read(stream2, rootFile2, StreamType.RAW_EVENTS));
+        Assert.assertEquals("stream 2 context", read(stream2,
+                FileSystemStreamTypeUtil.createChildStreamFile(rootFile2, StreamType.CONTEXT), StreamType.CONTEXT));
+        Assert.assertEquals("stream 1 manifest", read(stream1,
+                FileSystemStreamTypeUtil.createChildStreamFile(rootFile1, StreamType.MANIFEST), StreamType.MANIFEST));
+
+        // Files that were never written are not packed.
+        final Path segmentFile = FileSystemStreamTypeUtil.createChildStreamFile(rootFile1, StreamType.SEGMENT_INDEX);
+        Assert.assertFalse(packer.isPacked(segmentFile, stream1));
+        Assert.assertNull(packer.openPackedFile(segmentFile, stream1));
+    }
+
+    @Test
+    public void testUnpack() throws IOException {
+        final Stream stream = createStream(1001003L);
+        final Path rootFile = write(stream, "stream 3 data", "stream 3 context");
+        final Set<Path> rootFiles = Collections.singleton(rootFile);
+
+        Assert.assertTrue(packer.pack(stream, rootFiles));
+        Assert.assertFalse(Files.isRegularFile(rootFile));
+
+        packer.unpack(stream, rootFiles);
+        Assert.assertTrue(Files.isRegularFile(rootFile));
+        Assert.assertEquals(2, FileSystemStreamTypeUtil.findAllDescendantStreamFileList(rootFile).size());
+
+        try (final InputStream inputStream = FileSystemStreamTypeUtil.getInputStream(StreamType.RAW_EVENTS, rootFile)) {
+            Assert.assertEquals("stream 3 data", StreamUtil.streamToString(inputStream));
+        }
+    }
+
+    @Test
+    public void testFindStreamFilesAndOpenFile() throws IOException {
+        final Stream stream = createStream(1001004L);
+        final Path rootFile = write(stream, "stream 4 data", "stream 4 context");
+        final Path manifest = FileSystemStreamTypeUtil.createChildStreamFile(rootFile, StreamType.MANIFEST);
+
+        Assert.assertEquals(3, packer.findStreamFiles(rootFile, stream).size());
+        try (final InputStream inputStream = packer.openFile(manifest, stream)) {
+            Assert.assertEquals("stream 4 manifest", StreamUtil.streamToString(inputStream));
+        }
+
+        Assert.assertTrue(packer.pack(stream, Collections.singleton(rootFile)));
+
+        // Once packed the container is the only file and the manifest is read from it.
+        Assert.assertEquals(Collections.singletonList(FileSystemStreamPacker.getPackFile(rootFile, stream)),
+                packer.findStreamFiles(rootFile, stream));
+        try (final InputStream inputStream = packer.openFile(manifest, stream)) {
+            Assert.assertEquals("stream 4 manifest", StreamUtil.streamToString(inputStream));
+        }
+
+        final Stream unknownStream = createStream(1001005L);
+        final Path unknownRootFile = FileSystemStreamTypeUtil.createRootStreamFile(volume, unknownStream,
+                StreamType.RAW_EVENTS);
+        Assert.assertTrue(packer.findStreamFiles(unknownRootFile, unknownStream).isEmpty());
+        Assert.assertNull(packer.openFile(unknownRootFile, unknownStream));
+    }
+
+    private Stream createStream(final long id) {
+        final Stream stream = Stream.createStreamForTesting(StreamType.RAW_EVENTS, Feed.createStub(1), null,
+                DateUtil.parseNormalDateTimeString("2010-01-01T12:00:00.000Z"));
+        stream.setId(id);
+        return stream;
+    }
+
+    private Path write(final Stream stream, final String data, final String context) throws IOException {
+        final Path rootFile = FileSystemStreamTypeUtil.createRootStreamFile(volume, stream, StreamType.RAW_EVENTS);
+        Files.createDirectories(rootFile.getParent());
+
+        write(rootFile, StreamType.RAW_EVENTS, data);
+        write(FileSystemStreamTypeUtil.createChildStreamFile(rootFile, StreamType.CONTEXT), StreamType.CONTEXT,
+                context);
+        write(FileSystemStreamTypeUtil.createChildStreamFile(rootFile, StreamType.MANIFEST), StreamType.MANIFEST,
+                data.replace("data", "manifest"));
+        return rootFile;
+    }
+
+    private void write(final Path file, final StreamType streamType, final String data) throws IOException {
+        try (final OutputStream outputStream = FileSystemStreamTypeUtil.getOutputStream(streamType,
+                Collections.singleton(file))) {
+            outputStream.write(data.getBytes(StreamUtil.DEFAULT_CHARSET));
+        }
+    }
+
+    private String read(final Stream stream, final Path file, final StreamType streamType) throws IOException {
+        Assert.assertTrue(packer.isPacked(file, stream));
+        final SeekableByteChannel channel = packer.openPackedFile(file, stream);
+        try (final InputStream inputStream = FileSystemStreamTypeUtil.getInputStream(streamType, channel, file)) {
+            return StreamUtil.streamToString(inputStream);
+        }
+    }
+}
@@ -98,5 +98,12 @@ public class TestRASegmentStreamsByteSeeking extends StroomUnitTest {
         is.include(1);
         Assert.assertEquals("LINE ONE\nLINE", StreamUtil.streamToString(is));
         is.close();
+
+        is = new RASegmentInputStream(new BlockGZIPInputFile(dir.resolve("test.dat")),
+                new UncompressedInputStream(dir.resolve("test.idx"), true), 9, 39);
+
+        is.seek(9);
+        Assert.assertEquals("LINE THREE\nLINE FOUR\n", StreamUtil.streamToString(is));
+        is.close();
     }
 }
@@ -0,0 +1,151 @@
+/*
+ * Copyright 2018 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package stroom.streamtask;
+
+import com.google.inject.Key;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.MockitoAnnotations;
+import stroom.guice.PipelineScope;
+import stroom.guice.StroomBeanStore;
+import stroom.properties.MockStroomPropertyService;
+import stroom.streamstore.StreamSource;
+import stroom.streamtask.shared.StreamProcessor;
+import stroom.streamtask.shared.StreamProcessorFilter;
+import stroom.streamtask.shared.StreamTask;
+import stroom.util.test.StroomJUnit4ClassRunner;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+@RunWith(StroomJUnit4ClassRunner.class)
+public class TestStreamProcessorTaskExecutorPool {
+    private static final String REUSABLE_TYPE = "reusable";
+    private static final String NON_REUSABLE_TYPE = "nonReusable";
+
+    @Mock
+    private StroomBeanStore beanStore;
+
+    private final PipelineScope pipelineScope = new PipelineScope();
+    private final MockStroomPropertyService propertyService = new MockStroomPropertyService();
+    private StreamProcessorTaskExecutorPool pool;
+
+    @Before
+    public void setup() {
+        MockitoAnnotations.initMocks(this);
+        Mockito.when(beanStore.getInstance(REUSABLE_TYPE)).thenAnswer(invocation -> new TestExecutor(true));
+        Mockito.when(beanStore.getInstance(NON_REUSABLE_TYPE)).thenAnswer(invocation -> new TestExecutor(false));
+        pool = new StreamProcessorTaskExecutorPool(beanStore, pipelineScope, propertyService);
+    }
+
+    @Test
+    public void testReuse() {
+        final List<StreamProcessorTaskExecutor> executors = new ArrayList<>();
+        final List<Map<Key<?>, Object>> scopes = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            pool.exec(REUSABLE_TYPE, "pipe1", executor -> {
+                executors.add(executor);
+                scopes.add(pipelineScope.getScopedObjects());
+            });
+        }
+
+        Assert.assertSame(executors.get(0), executors.get(1));
+        Assert.assertSame(executors.get(0), executors.get(2));
+        Assert.assertSame(scopes.get(0), scopes.get(1));
+        Assert.assertSame(scopes.get(0), scopes.get(2));
+        Mockito.verify(beanStore, Mockito.times(1)).getInstance(REUSABLE_TYPE);
+
+        // A different pipeline must get a different executor.
+        final List<StreamProcessorTaskExecutor> otherExecutors = new ArrayList<>();
+        pool.exec(REUSABLE_TYPE, "pipe2", otherExecutors::add);
+        Assert.assertNotSame(executors.get(0), otherExecutors.get(0));
+    }
+
+    @Test
+    public void testNonReusable() {
+        final List<StreamProcessorTaskExecutor> executors = new ArrayList<>();
+        pool.exec(NON_REUSABLE_TYPE, "pipe1", executors::add);
+        pool.exec(NON_REUSABLE_TYPE, "pipe1", executors::add);
+
+        Assert.assertNotSame(executors.get(0), executors.get(1));
+    }
+
+    @Test
+    public void testPoolDisabled() {
+        propertyService.setProperty(StreamProcessorTaskExecutorPool.POOL_SIZE_PROPERTY, "0");
+
+        final List<StreamProcessorTaskExecutor> executors = new ArrayList<>();
+        pool.exec(REUSABLE_TYPE, "pipe1", executors::add);
+        pool.exec(REUSABLE_TYPE, "pipe1", executors::add);
+
+        Assert.assertNotSame(executors.get(0), executors.get(1));
+    }
+
+    @Test
+    public void testEviction() {
+        propertyService.setProperty(StreamProcessorTaskExecutorPool.POOL_SIZE_PROPERTY, "1");
+
+        final List<StreamProcessorTaskExecutor> executors = new ArrayList<>();
+        pool.exec(REUSABLE_TYPE, "pipe1", executors::add);
+        pool.exec(REUSABLE_TYPE, "pipe2", executors::add);
+        pool.exec(REUSABLE_TYPE, "pipe1", executors::add);
+
+        // The executor for the first pipeline should have been discarded to make room for the second.
+        Assert.assertNotSame(executors.get(0), executors.get(2));
+    }
+
+    @Test
+    public void testNotReusedAfterFailure() {
+        final List<StreamProcessorTaskExecutor> executors = new ArrayList<>();
+        try {
+            pool.exec(REUSABLE_TYPE, "pipe1", executor -> {
+                executors.add(executor);
+                throw new RuntimeException("Failed");
+            });
+            Assert.fail("Expected exception");
+        } catch (final RuntimeException e) {
+            // Expected.
+        }
+        pool.exec(REUSABLE_TYPE, "pipe1", executors::add);
+
+        Assert.assertNotSame(executors.get(0), executors.get(1));
+    }
+
+    private static class TestExecutor implements StreamProcessorTaskExecutor {
+        private final boolean reusable;
+
+        TestExecutor(final boolean reusable) {
+            this.reusable = reusable;
+        }
+
+        @Override
+        public void exec(final StreamProcessor streamProcessor, final StreamProcessorFilter streamProcessorFilter,
+                         final StreamTask streamTask, final StreamSource streamSource) {
+        }
+
+        @Override
+        public boolean isReusable() {
+            return reusable;
+        }
+    }
+}
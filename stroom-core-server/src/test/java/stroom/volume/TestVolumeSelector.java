@@ -27,6 +27,7 @@ import stroom.util.test.StroomUnitTest;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
 
 public class TestVolumeSelector extends StroomUnitTest {
     @Test
@@ -69,6 +70,42 @@ public class TestVolumeSelector extends StroomUnitTest {
         test(new RoundRobinIgnoreLeastFreePercentVolumeSelector());
     }
 
+    @Test
+    public void testWeightedLatencyRandom() {
+        test(new WeightedLatencyRandomVolumeSelector(new VolumeWriteStatistics()));
+    }
+
+    @Test
+    public void testWeightedLatencyRandomPrefersFastVolumes() {
+        final List<Volume> volumes = createVolumeList();
+        final Volume fast = volumes.get(0);
+        final Volume slow = volumes.get(1);
+        fast.setId(1);
+        slow.setId(2);
+
+        final VolumeWriteStatistics volumeWriteStatistics = new VolumeWriteStatistics();
+        volumeWriteStatistics.record(fast, 1000, TimeUnit.MILLISECONDS.toNanos(10));
+        volumeWriteStatistics.record(slow, 1000, TimeUnit.MILLISECONDS.toNanos(90));
+
+        // With these latencies the fast volume should get roughly 90% of writes.
+        final VolumeSelector volumeSelector = new WeightedLatencyRandomVolumeSelector(volumeWriteStatistics);
+        int fastCount = 0;
+        int slowCount = 0;
+        for (int i = 0; i < 10000; i++) {
+            final Volume volume = volumeSelector.select(volumes);
+            if (volume == fast) {
+                fastCount++;
+            } else if (volume == slow) {
+                slowCount++;
+            }
+        }
+
+        Assert.assertEquals(10000, fastCount + slowCount);
+        Assert.assertTrue("Fast volume selected " + fastCount + " times", fastCount > 8000);
+        // The slow volume must still be written to so that we keep measuring its latency.
+        Assert.assertTrue("Slow volume selected " + slowCount + " times", slowCount > 500);
+    }
+
     private void test(final VolumeSelector volumeSelector) {
         final List<Volume> volumes = createVolumeList();
         for (int i = 0; i < 100; i++) {
@@ -34,8 +34,14 @@ public class ClusterLock extends BaseEntitySmall {
     public static final String TABLE_NAME = SQLNameConstants.CLUSTER + SEP + SQLNameConstants.LOCK;
     public static final String FOREIGN_KEY = FK_PREFIX + TABLE_NAME + ID_SUFFIX;
     public static final String ENTITY_TYPE = "ClusterLock";
+    public static final String LEASE_HOLDER = "LEASE_HOLDER";
+    public static final String LEASE_EXPIRY_MS = "LEASE_EXPIRY_MS";
+    public static final String LEASE_TOKEN = "LEASE_TOKEN";
     private static final long serialVersionUID = -2692414627588961565L;
     private String name;
+    private String leaseHolder;
+    private Long leaseExpiryMs;
+    private long leaseToken;
 
     @Column(name = SQLNameConstants.NAME, nullable = false)
     public String getName() {
@@ -46,6 +52,36 @@ public class ClusterLock extends BaseEntitySmall {
         this.name = name;
     }
 
+    // The lease columns are only ever changed with native SQL by the cluster lock service. They
+    // are mapped so that the schema generated from the entities includes them.
+
+    @Column(name = LEASE_HOLDER)
+    public String getLeaseHolder() {
+        return leaseHolder;
+    }
+
+    public void setLeaseHolder(final String leaseHolder) {
+        this.leaseHolder = leaseHolder;
+    }
+
+    @Column(name = LEASE_EXPIRY_MS)
+    public Long getLeaseExpiryMs() {
+        return leaseExpiryMs;
+    }
+
+    public void setLeaseExpiryMs(final Long leaseExpiryMs) {
+        this.leaseExpiryMs = leaseExpiryMs;
+    }
+
+    @Column(name = LEASE_TOKEN, nullable = false)
+    public long getLeaseToken() {
+        return leaseToken;
+    }
+
+    public void setLeaseToken(final long leaseToken) {
+        this.leaseToken = leaseToken;
+    }
+
     @Transient
     @Override
     public final String getType() {
@@ -31,17 +31,20 @@ import stroom.datasource.DataSourceProviderRegistry;
 import stroom.entity.shared.EntityServiceException;
 import stroom.entity.util.EntityServiceExceptionUtil;
 import stroom.docref.DocRef;
+import stroom.properties.StroomPropertyService;
 import stroom.query.api.v2.Result;
-import stroom.query.api.v2.Row;
+import stroom.query.api.v2.ResultRequest;
 import stroom.resource.ResourceStore;
 import stroom.security.Security;
 import stroom.security.shared.PermissionNames;
 import stroom.task.AbstractTaskHandler;
+import stroom.task.TaskContext;
 import stroom.task.TaskHandlerBean;
 import stroom.util.shared.ResourceGeneration;
 import stroom.util.shared.ResourceKey;
 
 import javax.inject.Inject;
+import java.io.BufferedOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
 import java.nio.file.Files;
@@ -49,18 +52,27 @@ import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.zip.GZIPOutputStream;
 
 @TaskHandlerBean(task = DownloadSearchResultsAction.class)
 class DownloadSearchResultsHandler extends AbstractTaskHandler<DownloadSearchResultsAction, ResourceGeneration> {
     private static final Pattern NON_BASIC_CHARS = Pattern.compile("[^A-Za-z0-9-_ ]");
     private static final Pattern MULTIPLE_SPACE = Pattern.compile(" +");
 
+    private static final String PROP_KEY_PAGE_SIZE = "stroom.dashboard.download.pageSize";
+    private static final String PROP_KEY_COMPRESS_DELIMITED = "stroom.dashboard.download.compressDelimited";
+    private static final int DEFAULT_PAGE_SIZE = 10000;
+    private static final int BUFFER_SIZE = 65536;
+
     private final ResourceStore resourceStore;
     private final SearchEventLog searchEventLog;
     private final ActiveQueriesManager activeQueriesManager;
     private final DataSourceProviderRegistry searchDataSourceProviderRegistry;
     private final SearchRequestMapper searchRequestMapper;
     private final Security security;
+    private final StroomPropertyService stroomPropertyService;
+    private final TaskContext taskContext;
 
     @Inject
     DownloadSearchResultsHandler(final ResourceStore resourceStore,
@@ -68,13 +80,17 @@ class DownloadSearchResultsHandler extends AbstractTaskHandler<DownloadSearchRes
                                  final ActiveQueriesManager activeQueriesManager,
                                  final DataSourceProviderRegistry searchDataSourceProviderRegistry,
                                  final SearchRequestMapper searchRequestMapper,
-                                 final Security security) {
+                                 final Security security,
+                                 final StroomPropertyService stroomPropertyService,
+                                 final TaskContext taskContext) {
         this.resourceStore = resourceStore;
         this.searchEventLog = searchEventLog;
         this.activeQueriesManager = activeQueriesManager;
         this.searchDataSourceProviderRegistry = searchDataSourceProviderRegistry;
         this.searchRequestMapper = searchRequestMapper;
         this.security = security;
+        this.stroomPropertyService = stroomPropertyService;
+        this.taskContext = taskContext;
     }
 
     @Override
@@ -110,54 +126,37 @@ class DownloadSearchResultsHandler extends AbstractTaskHandler<DownloadSearchRes
                         .orElseThrow(() ->
                                 new RuntimeException("No search provider found for '" + dataSourceRef.getType() + "' data source"));
 
-                stroom.query.api.v2.SearchRequest mappedRequest = searchRequestMapper.mapRequest(queryKey, searchRequest);
-                stroom.query.api.v2.SearchResponse searchResponse = dataSourceProvider.search(mappedRequest);
-
-                if (searchResponse == null || searchResponse.getResults() == null) {
-                    throw new EntityServiceException("No results can be found");
-                }
-
-                Result result = null;
-                for (final Result res : searchResponse.getResults()) {
-                    if (res.getComponentId().equals(action.getComponentId())) {
-                        result = res;
-                        break;
-                    }
+                final ComponentResultRequest componentResultRequest = searchRequest.getComponentResultRequests().get(action.getComponentId());
+                if (componentResultRequest == null) {
+                    throw new EntityServiceException("No component result request found");
                 }
 
-                if (result == null) {
-                    throw new EntityServiceException("No result for component can be found");
+                if (!(componentResultRequest instanceof TableResultRequest)) {
+                    throw new EntityServiceException("Component result request is not a table");
                 }
 
-                if (!(result instanceof stroom.query.api.v2.TableResult)) {
-                    throw new EntityServiceException("Result is not a table");
-                }
+                final TableResultRequest tableResultRequest = (TableResultRequest) componentResultRequest;
+                final List<stroom.dashboard.shared.Field> fields = tableResultRequest.getTableSettings().getFields();
 
-                final stroom.query.api.v2.TableResult tableResult = (stroom.query.api.v2.TableResult) result;
+                // Compress delimited output if required. Excel files are already compressed.
+                final DownloadSearchResultFileType fileType = action.getFileType();
+                final boolean compress = fileType != DownloadSearchResultFileType.EXCEL &&
+                        stroomPropertyService.getBooleanProperty(PROP_KEY_COMPRESS_DELIMITED, false);
 
                 // Import file.
                 String fileName = action.getQueryKey().toString();
                 fileName = NON_BASIC_CHARS.matcher(fileName).replaceAll("");
                 fileName = MULTIPLE_SPACE.matcher(fileName).replaceAll(" ");
-                fileName = fileName + "." + action.getFileType().getExtension();
+                fileName = fileName + "." + fileType.getExtension();
+                if (compress) {
+                    fileName = fileName + ".gz";
+                }
 
                 resourceKey = resourceStore.createTempFile(fileName);
                 final Path file = resourceStore.getTempFile(resourceKey);
 
-                final ComponentResultRequest componentResultRequest = searchRequest.getComponentResultRequests().get(action.getComponentId());
-                if (componentResultRequest == null) {
-                    throw new EntityServiceException("No component result request found");
-                }
-
-                if (!(componentResultRequest instanceof TableResultRequest)) {
-                    throw new EntityServiceException("Component result request is not a table");
-                }
-
-                final TableResultRequest tableResultRequest = (TableResultRequest) componentResultRequest;
-                final List<stroom.dashboard.shared.Field> fields = tableResultRequest.getTableSettings().getFields();
-                final List<Row> rows = tableResult.getRows();
-
-                download(fields, rows, file, action.getFileType(), action.isSample(), action.getPercent());
+                download(queryKey, searchRequest, tableResultRequest, dataSourceProvider, action.getComponentId(),
+                        fields, file, fileType, compress, action.isSample(), action.getPercent());
 
                 searchEventLog.downloadResults(search.getDataSourceRef(), search.getExpression(), search.getQueryInfo());
             } catch (final RuntimeException e) {
@@ -169,10 +168,20 @@ class DownloadSearchResultsHandler extends AbstractTaskHandler<DownloadSearchRes
         });
     }
 
-    private void download(final List<stroom.dashboard.shared.Field> fields, final List<Row> rows, final Path file,
-                          final DownloadSearchResultFileType fileType, final boolean sample, final int percent) {
-        try {
-            final OutputStream outputStream = Files.newOutputStream(file);
+    private void download(final DashboardQueryKey queryKey,
+                          final stroom.dashboard.shared.SearchRequest searchRequest,
+                          final TableResultRequest tableResultRequest,
+                          final DataSourceProvider dataSourceProvider,
+                          final String componentId,
+                          final List<stroom.dashboard.shared.Field> fields,
+                          final Path file,
+                          final DownloadSearchResultFileType fileType,
+                          final boolean compress,
+                          final boolean sample,
+                          final int percent) {
+        final int pageSize = Math.max(1, stroomPropertyService.getIntProperty(PROP_KEY_PAGE_SIZE, DEFAULT_PAGE_SIZE));
+
+        try (final OutputStream outputStream = createOutputStream(file, compress)) {
             SearchResultWriter.Target target = null;
 
             // Write delimited file.
@@ -189,11 +198,78 @@ class DownloadSearchResultsHandler extends AbstractTaskHandler<DownloadSearchRes
             }
 
             final SampleGenerator sampleGenerator = new SampleGenerator(sample, percent);
-            final SearchResultWriter searchResultWriter = new SearchResultWriter(fields, rows, sampleGenerator);
-            searchResultWriter.write(target);
+            final SearchResultWriter searchResultWriter = new SearchResultWriter(fields, sampleGenerator, target);
+            searchResultWriter.start();
+
+            // Fetch the results a page at a time from the result store so that we never hold more than a single page
+            // of rows in memory.
+            final TableResultPager pager = new TableResultPager((offset, length) -> {
+                tableResultRequest.setRange(offset, length);
+                return getPage(queryKey, searchRequest, dataSourceProvider, componentId);
+            }, pageSize);
+            pager.read(rows -> {
+                searchResultWriter.write(rows);
+                taskContext.info("Downloading search results - " + searchResultWriter.getRowCount() + " rows written");
+            });
+
+            searchResultWriter.end();
 
         } catch (final IOException e) {
             throw EntityServiceExceptionUtil.create(e);
         }
     }
+
+    private TableResultPager.Page getPage(final DashboardQueryKey queryKey,
+                                          final stroom.dashboard.shared.SearchRequest searchRequest,
+                                          final DataSourceProvider dataSourceProvider,
+                                          final String componentId) {
+        final stroom.query.api.v2.SearchRequest mappedRequest = searchRequestMapper.mapRequest(queryKey, searchRequest);
+
+        // Only ask for the table being downloaded and ask for it non incrementally so that the request waits for the
+        // search to complete.
+        final List<ResultRequest> resultRequests = mappedRequest.getResultRequests()
+                .stream()
+                .filter(resultRequest -> componentId.equals(resultRequest.getComponentId()))
+                .collect(Collectors.toList());
+        final stroom.query.api.v2.SearchRequest downloadRequest = new stroom.query.api.v2.SearchRequest(
+                mappedRequest.getKey(),
+                mappedRequest.getQuery(),
+                resultRequests,
+                mappedRequest.getDateTimeLocale(),
+                false);
+
+        final stroom.query.api.v2.SearchResponse searchResponse = dataSourceProvider.search(downloadRequest);
+
+        if (searchResponse == null || searchResponse.getResults() == null) {
+            throw new EntityServiceException("No results can be found");
+        }
+
+        Result result = null;
+        for (final Result res : searchResponse.getResults()) {
+            if (res.getComponentId().equals(componentId)) {
+                result = res;
+                break;
+            }
+        }
+
+        if (result == null) {
+            throw new EntityServiceException("No result for component can be found");
+        }
+
+        if (!(result instanceof stroom.query.api.v2.TableResult)) {
+            throw new EntityServiceException("Result is not a table");
+        }
+
+        final stroom.query.api.v2.TableResult tableResult = (stroom.query.api.v2.TableResult) result;
+        return new TableResultPager.Page(tableResult.getRows(), tableResult.getTotalResults(),
+                Boolean.TRUE.equals(searchResponse.complete()));
+    }
+
+    private OutputStream createOutputStream(final Path file, final boolean compress) throws IOException {
+        final OutputStream outputStream = new BufferedOutputStream(Files.newOutputStream(file), BUFFER_SIZE);
+        if (compress) {
+            return new GZIPOutputStream(outputStream, BUFFER_SIZE);
+        }
+        return outputStream;
+    }
 }
@@ -0,0 +1,117 @@
+/*
+ * Copyright 2018 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package stroom.dashboard;
+
+import stroom.entity.shared.EntityServiceException;
+import stroom.query.api.v2.Row;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Reads all of the rows of a table result a page at a time. Rows are only read once the search is complete so that
+ * every page is taken from the same set of results and rows can't move between pages while they are being read.
+ */
+class TableResultPager {
+    private static final long POLL_INTERVAL_MS = 1000;
+
+    private final PageFetcher pageFetcher;
+    private final int pageSize;
+    private final long pollIntervalMs;
+
+    TableResultPager(final PageFetcher pageFetcher, final int pageSize) {
+        this(pageFetcher, pageSize, POLL_INTERVAL_MS);
+    }
+
+    TableResultPager(final PageFetcher pageFetcher, final int pageSize, final long pollIntervalMs) {
+        this.pageFetcher = pageFetcher;
+        this.pageSize = Math.max(1, pageSize);
+        this.pollIntervalMs = pollIntervalMs;
+    }
+
+    /**
+     * Supply each page of rows to the consumer in order.
+     */
+    void read(final Consumer<List<Row>> consumer) {
+        // Wait for the search to complete.
+        Page page = fetch(0);
+        while (!page.isComplete()) {
+            try {
+                Thread.sleep(pollIntervalMs);
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new EntityServiceException("Download of search results was terminated");
+            }
+            page = fetch(0);
+        }
+
+        int offset = 0;
+        while (true) {
+            final List<Row> rows = page.getRows();
+            if (rows.size() > 0) {
+                consumer.accept(rows);
+            }
+            offset += rows.size();
+
+            // Stop if this was the last page. Use the total if we have it so we don't have to fetch an empty page
+            // when the number of rows is an exact multiple of the page size.
+            final Integer totalResults = page.getTotalResults();
+            if (rows.size() < pageSize || (totalResults != null && offset >= totalResults)) {
+                break;
+            }
+
+            page = fetch(offset);
+        }
+    }
+
+    private Page fetch(final int offset) {
+        if (Thread.currentThread().isInterrupted()) {
+            throw new EntityServiceException("Download of search results was terminated");
+        }
+        return pageFetcher.fetch(offset, pageSize);
+    }
+
+    interface PageFetcher {
+        Page fetch(int offset, int length);
+    }
+
+    static class Page {
+        private final List<Row> rows;
+        private final Integer totalResults;
+        private final boolean complete;
+
+        Page(final List<Row> rows, final Integer totalResults, final boolean complete) {
+            this.rows = rows == null ? Collections.emptyList() : rows;
+            this.totalResults = totalResults;
+            this.complete = complete;
+        }
+
+        List<Row> getRows() {
+            return rows;
+        }
+
+        Integer getTotalResults() {
+            return totalResults;
+        }
+
+        boolean isComplete() {
+            return complete;
+        }
+    }
+}
@@ -33,6 +33,8 @@ import stroom.dashboard.shared.NumberFormatSettings;
 import java.io.IOException;
 import java.io.OutputStream;
 import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.Optional;
 
 public class ExcelTarget implements SearchResultWriter.Target {
@@ -43,9 +45,14 @@ public class ExcelTarget implements SearchResultWriter.Target {
 
     private final OutputStream outputStream;
 
+    // Cell styles are held by the workbook for the life of the download so share a single style per format pattern
+    // rather than creating one for every cell.
+    private final Map<String, CellStyle> cellStyles = new HashMap<>();
+
     private SXSSFWorkbook wb;
     private Sheet sh;
     private Row row;
+    private CellStyle headingStyle;
 
     private int colNum = 0;
     private int rowNum = 0;
@@ -59,6 +66,8 @@ public class ExcelTarget implements SearchResultWriter.Target {
         // Create a workbook with 100 rows in memory. Exceeding rows will be
         // flushed to disk.
         wb = new SXSSFWorkbook(100);
+        // Compress the temporary files so that large downloads use less disk.
+        wb.setCompressTempFiles(true);
         sh = wb.createSheet();
     }
 
@@ -89,10 +98,12 @@ public class ExcelTarget implements SearchResultWriter.Target {
     @Override
     public void writeHeading(final Field field, final String heading) {
         // Create a style for headings.
-        final Font headingFont = wb.createFont();
-        headingFont.setBold(true);
-        final CellStyle headingStyle = wb.createCellStyle();
-        headingStyle.setFont(headingFont);
+        if (headingStyle == null) {
+            final Font headingFont = wb.createFont();
+            headingFont.setBold(true);
+            headingStyle = wb.createCellStyle();
+            headingStyle.setFont(headingFont);
+        }
 
         final Cell cell = row.createCell(colNum++);
         cell.setCellType(CellType.STRING);
@@ -169,10 +180,7 @@ public class ExcelTarget implements SearchResultWriter.Target {
                 }
             }
 
-            final DataFormat df = wb.createDataFormat();
-            final CellStyle cs = wb.createCellStyle();
-            cs.setDataFormat(df.getFormat(pattern));
-            cell.setCellStyle(cs);
+            cell.setCellStyle(getCellStyle(wb, pattern));
 
         } else {
             getText(value).ifPresent(cell::setCellValue);
@@ -203,16 +211,22 @@ public class ExcelTarget implements SearchResultWriter.Target {
 
                 final String pattern = sb.toString();
 
-                final DataFormat df = wb.createDataFormat();
-                final CellStyle cs = wb.createCellStyle();
-                cs.setDataFormat(df.getFormat(pattern));
-                cell.setCellStyle(cs);
+                cell.setCellStyle(getCellStyle(wb, pattern));
             }
         } else {
             getText(value).ifPresent(cell::setCellValue);
         }
     }
 
+    private CellStyle getCellStyle(final SXSSFWorkbook wb, final String pattern) {
+        return cellStyles.computeIfAbsent(pattern, k -> {
+            final DataFormat df = wb.createDataFormat();
+            final CellStyle cs = wb.createCellStyle();
+            cs.setDataFormat(df.getFormat(k));
+            return cs;
+        });
+    }
+
     private Optional<String> getText(final String value) {
         return Optional.ofNullable(value)
                 .map(text -> {
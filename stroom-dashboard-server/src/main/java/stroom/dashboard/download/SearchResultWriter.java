@@ -23,33 +23,50 @@ import stroom.query.api.v2.Row;
 import java.io.IOException;
 import java.util.List;
 
+/**
+ * Writes search results to a target a page of rows at a time so that the whole result table never needs to be held
+ * in memory.
+ */
 public class SearchResultWriter {
     private final List<Field> fields;
-    private final List<Row> rows;
     private final SampleGenerator sampleGenerator;
+    private final Target target;
+
+    private long rowCount;
 
     public SearchResultWriter(final List<Field> fields,
-                              final List<Row> rows,
-                              final SampleGenerator sampleGenerator) {
+                              final SampleGenerator sampleGenerator,
+                              final Target target) {
         this.fields = fields;
-        this.rows = rows;
         this.sampleGenerator = sampleGenerator;
+        this.target = target;
     }
 
-    public void write(final Target target) throws IOException {
+    public void start() throws IOException {
         // Start writing.
         target.start();
 
         // Write heading.
         writeHeadings(fields, target);
+    }
 
+    public void write(final List<Row> rows) throws IOException {
         // Write content.
         writeContent(rows, fields, sampleGenerator, target);
+    }
 
+    public void end() throws IOException {
         // End writing.
         target.end();
     }
 
+    /**
+     * @return The number of rows written so far excluding the heading.
+     */
+    public long getRowCount() {
+        return rowCount;
+    }
+
     private void writeHeadings(final List<Field> fields, final Target target) throws IOException {
         target.startLine();
         for (final Field field : fields) {
@@ -74,6 +91,7 @@ public class SearchResultWriter {
                         }
                     }
                     target.endLine();
+                    rowCount++;
                 }
             }
         }
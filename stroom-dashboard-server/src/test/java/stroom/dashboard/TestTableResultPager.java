@@ -0,0 +1,126 @@
+/*
+ * Copyright 2018 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package stroom.dashboard;
+
+import org.junit.Assert;
+import org.junit.Test;
+import stroom.query.api.v2.Row;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+public class TestTableResultPager {
+    @Test
+    public void testPartialLastPage() {
+        final Fetcher fetcher = new Fetcher(25, true);
+        final List<Row> rows = read(fetcher, 10);
+
+        assertRows(25, rows);
+        Assert.assertEquals(3, fetcher.fetches);
+    }
+
+    @Test
+    public void testExactMultipleOfPageSize() {
+        final Fetcher fetcher = new Fetcher(30, true);
+        final List<Row> rows = read(fetcher, 10);
+
+        assertRows(30, rows);
+        // The total tells us we have all of the rows so no empty page should be fetched.
+        Assert.assertEquals(3, fetcher.fetches);
+    }
+
+    @Test
+    public void testExactMultipleOfPageSizeWithoutTotal() {
+        final Fetcher fetcher = new Fetcher(30, false);
+        final List<Row> rows = read(fetcher, 10);
+
+        assertRows(30, rows);
+        Assert.assertEquals(4, fetcher.fetches);
+    }
+
+    @Test
+    public void testEmptyTable() {
+        final Fetcher fetcher = new Fetcher(0, true);
+        final List<Row> rows = read(fetcher, 10);
+
+        assertRows(0, rows);
+        Assert.assertEquals(1, fetcher.fetches);
+    }
+
+    @Test
+    public void testWaitsForCompletion() {
+        final Fetcher fetcher = new Fetcher(15, true);
+        fetcher.incompleteFetches = 2;
+        final List<Row> rows = read(fetcher, 10);
+
+        // Rows must only be read once the search is complete.
+        assertRows(15, rows);
+        Assert.assertEquals(4, fetcher.fetches);
+    }
+
+    private List<Row> read(final Fetcher fetcher, final int pageSize) {
+        final List<Row> rows = new ArrayList<>();
+        new TableResultPager(fetcher, pageSize, 0).read(page -> {
+            Assert.assertFalse(page.isEmpty());
+            rows.addAll(page);
+        });
+        return rows;
+    }
+
+    private void assertRows(final int expected, final List<Row> rows) {
+        Assert.assertEquals(expected, rows.size());
+        for (int i = 0; i < rows.size(); i++) {
+            Assert.assertEquals(String.valueOf(i), rows.get(i).getValues().get(0));
+        }
+    }
+
+    private static class Fetcher implements TableResultPager.PageFetcher {
+        private final int rowCount;
+        private final boolean includeTotal;
+        private int incompleteFetches;
+        private int fetches;
+
+        Fetcher(final int rowCount, final boolean includeTotal) {
+            this.rowCount = rowCount;
+            this.includeTotal = includeTotal;
+        }
+
+        @Override
+        public TableResultPager.Page fetch(final int offset, final int length) {
+            fetches++;
+            final Integer total = includeTotal ? rowCount : null;
+
+            if (incompleteFetches > 0) {
+                incompleteFetches--;
+                // An incomplete search has fewer rows.
+                return new TableResultPager.Page(createRows(0, Math.min(length, rowCount / 2)), total, false);
+            }
+
+            return new TableResultPager.Page(createRows(offset, Math.min(length, rowCount - offset)), total, true);
+        }
+
+        private List<Row> createRows(final int offset, final int length) {
+            final List<Row> rows = new ArrayList<>();
+            for (int i = offset; i < offset + length; i++) {
+                rows.add(new Row(null, Collections.singletonList(String.valueOf(i)), 0));
+            }
+            return rows;
+        }
+    }
+}
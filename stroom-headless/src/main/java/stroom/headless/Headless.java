@@ -58,7 +58,11 @@ import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.Comparator;
 import java.util.List;
-import java.util.stream.Stream;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
 
 /**
  * Command line tool to process some files from a proxy stroom.
@@ -66,11 +70,14 @@ import java.util.stream.Stream;
 public class Headless extends AbstractCommandLineTool {
     private static final Logger LOGGER = LoggerFactory.getLogger(Headless.class);
 
+    private static final String ZIP_EXTENSION = ".zip";
+
     private String input;
     private String output;
     private String config;
     private String content;
     private String tmp;
+    private int threads = 1;
 
     private Path inputDir;
     private Path outputFile;
@@ -109,6 +116,14 @@ public class Headless extends AbstractCommandLineTool {
         FileUtil.forgetTempDir();
     }
 
+    /**
+     * Set the number of zip files to process concurrently. If more than one thread is used then the output for each
+     * zip file is written to a separate file.
+     */
+    public void setThreads(final int threads) {
+        this.threads = threads;
+    }
+
     @Override
     protected void checkArgs() {
         if (input == null) {
@@ -126,6 +141,9 @@ public class Headless extends AbstractCommandLineTool {
         if (tmp == null) {
             failArg("tmp", "required");
         }
+        if (threads < 1) {
+            failArg("threads", "must be greater than 0");
+        }
     }
 
     private void init() {
@@ -218,10 +236,89 @@ public class Headless extends AbstractCommandLineTool {
         // Read the configuration.
         readConfig(injector);
 
+        final long startTime = System.currentTimeMillis();
+        try {
+            final TaskManager taskManager = injector.getInstance(TaskManager.class);
+
+            // Loop over all of the data files in the repository.
+            final StroomZipRepository repo = new StroomZipRepository(FileUtil.getCanonicalPath(inputDir));
+            final List<Path> zipFiles = repo.listAllZipFiles();
+            zipFiles.sort(Comparator.naturalOrder());
+
+            final long streamCount;
+            if (threads > 1) {
+                streamCount = processRepositoryInParallel(taskManager, zipFiles);
+            } else {
+                streamCount = processRepository(taskManager, zipFiles);
+            }
+
+            logThroughput(zipFiles, streamCount, System.currentTimeMillis() - startTime);
+        } catch (final RuntimeException e) {
+            LOGGER.error("Unable to process repository!", e);
+        }
+    }
+
+    /**
+     * Process all zip files one at a time writing all output to a single output file.
+     */
+    private long processRepository(final TaskManager taskManager, final List<Path> zipFiles) {
+        final AtomicLong streamCount = new AtomicLong();
+        writeOutput(outputFile, headlessFilter -> {
+            for (final Path zipFile : zipFiles) {
+                streamCount.addAndGet(processZipFile(taskManager, zipFile, headlessFilter));
+            }
+        });
+        return streamCount.get();
+    }
+
+    /**
+     * Process zip files concurrently. Each zip file is processed by a single worker with its own error writer and
+     * pipelines and is written to its own output file named after the zip file so the output does not depend on the
+     * order in which the workers complete.
+     */
+    private long processRepositoryInParallel(final TaskManager taskManager, final List<Path> zipFiles) {
+        LOGGER.info("Processing {} zip files using {} threads", zipFiles.size(), threads);
+
+        final AtomicLong streamCount = new AtomicLong();
+        final ExecutorService executorService = Executors.newFixedThreadPool(threads);
+        try {
+            final CompletableFuture<?>[] futures = zipFiles.stream()
+                    .map(zipFile -> CompletableFuture.runAsync(() ->
+                            writeOutput(getOutputFile(zipFile), headlessFilter ->
+                                    streamCount.addAndGet(processZipFile(taskManager, zipFile, headlessFilter))),
+                            executorService))
+                    .toArray(CompletableFuture[]::new);
+            CompletableFuture.allOf(futures).join();
+        } finally {
+            executorService.shutdown();
+        }
+        return streamCount.get();
+    }
+
+    /**
+     * Get the output file for a zip file when processing in parallel, e.g. output 'out.xml' and zip file '001.zip'
+     * gives 'out_001.xml'.
+     */
+    private Path getOutputFile(final Path zipFile) {
+        final String zipName = zipFile.getFileName().toString();
+        final String zipBaseName = zipName.endsWith(ZIP_EXTENSION)
+                ? zipName.substring(0, zipName.length() - ZIP_EXTENSION.length())
+                : zipName;
+
+        final String outputName = outputFile.getFileName().toString();
+        final int index = outputName.lastIndexOf('.');
+        if (index > 0) {
+            return outputFile.resolveSibling(outputName.substring(0, index) + "_" + zipBaseName
+                    + outputName.substring(index));
+        }
+        return outputFile.resolveSibling(outputName + "_" + zipBaseName);
+    }
+
+    private void writeOutput(final Path file, final Consumer<HeadlessFilter> consumer) {
         OutputStreamWriter outputStreamWriter = null;
         try {
             // Create the required output stream writer.
-            final OutputStream outputStream = new BufferedOutputStream(Files.newOutputStream(outputFile));
+            final OutputStream outputStream = new BufferedOutputStream(Files.newOutputStream(file));
             outputStreamWriter = new OutputStreamWriter(outputStream, StreamUtil.DEFAULT_CHARSET);
 
             // Create an XML writer.
@@ -239,7 +336,7 @@ public class Headless extends AbstractCommandLineTool {
             // Output the start root element.
             headlessFilter.beginOutput();
 
-            processRepository(injector, headlessFilter);
+            consumer.accept(headlessFilter);
 
             // Output the end root element.
             headlessFilter.endOutput();
@@ -259,44 +356,57 @@ public class Headless extends AbstractCommandLineTool {
         }
     }
 
-    private void processRepository(final Injector injector, final HeadlessFilter headlessFilter) {
+    /**
+     * @return The number of streams processed from the zip file.
+     */
+    private long processZipFile(final TaskManager taskManager, final Path zipFile, final HeadlessFilter headlessFilter) {
+        long streamCount = 0;
         try {
-            final TaskManager taskManager = injector.getInstance(TaskManager.class);
+            LOGGER.info("Processing: " + FileUtil.getCanonicalPath(zipFile));
+
+            final StroomZipFile stroomZipFile = new StroomZipFile(zipFile);
+            final StroomZipNameSet nameSet = stroomZipFile.getStroomZipNameSet();
+
+            // Process each base file in a consistent order
+            for (final String baseName : nameSet.getBaseNameList()) {
+                final InputStream dataStream = stroomZipFile.getInputStream(baseName, StroomZipFileType.Data);
+                final InputStream metaStream = stroomZipFile.getInputStream(baseName, StroomZipFileType.Meta);
+                final InputStream contextStream = stroomZipFile.getInputStream(baseName, StroomZipFileType.Context);
+
+                final HeadlessTranslationTask task = new HeadlessTranslationTask(
+                        IgnoreCloseInputStream.wrap(dataStream), IgnoreCloseInputStream.wrap(metaStream),
+                        IgnoreCloseInputStream.wrap(contextStream), headlessFilter);
+                taskManager.exec(task);
+                streamCount++;
+            }
 
-            // Loop over all of the data files in the repository.
-            final StroomZipRepository repo = new StroomZipRepository(FileUtil.getCanonicalPath(inputDir));
-            final List<Path> zipFiles = repo.listAllZipFiles();
-            zipFiles.sort(Comparator.naturalOrder());
-            try (final Stream<Path> stream = zipFiles.stream()) {
-                stream.forEach(p -> {
-                    try {
-                        LOGGER.info("Processing: " + FileUtil.getCanonicalPath(p));
-
-                        final StroomZipFile stroomZipFile = new StroomZipFile(p);
-                        final StroomZipNameSet nameSet = stroomZipFile.getStroomZipNameSet();
-
-                        // Process each base file in a consistent order
-                        for (final String baseName : nameSet.getBaseNameList()) {
-                            final InputStream dataStream = stroomZipFile.getInputStream(baseName, StroomZipFileType.Data);
-                            final InputStream metaStream = stroomZipFile.getInputStream(baseName, StroomZipFileType.Meta);
-                            final InputStream contextStream = stroomZipFile.getInputStream(baseName, StroomZipFileType.Context);
-
-                            final HeadlessTranslationTask task = new HeadlessTranslationTask(
-                                    IgnoreCloseInputStream.wrap(dataStream), IgnoreCloseInputStream.wrap(metaStream),
-                                    IgnoreCloseInputStream.wrap(contextStream), headlessFilter);
-                            taskManager.exec(task);
-                        }
-
-                        // Close the zip file.
-                        stroomZipFile.close();
-                    } catch (final IOException e) {
-                        LOGGER.error(e.getMessage(), e);
-                    }
-                });
+            // Close the zip file.
+            stroomZipFile.close();
+        } catch (final IOException e) {
+            LOGGER.error(e.getMessage(), e);
+        }
+        return streamCount;
+    }
+
+    private void logThroughput(final List<Path> zipFiles, final long streamCount, final long durationMs) {
+        long bytes = 0;
+        for (final Path zipFile : zipFiles) {
+            try {
+                bytes += Files.size(zipFile);
+            } catch (final IOException e) {
+                LOGGER.debug(e.getMessage(), e);
             }
-        } catch (final RuntimeException e) {
-            LOGGER.error("Unable to process repository!", e);
         }
+
+        final double seconds = Math.max(1, durationMs) / 1000D;
+        LOGGER.info("Processed {} streams from {} zip files ({}) in {} using {} thread(s) - {} streams/s, {}/s",
+                streamCount,
+                zipFiles.size(),
+                ModelStringUtil.formatIECByteSizeString(bytes),
+                ModelStringUtil.formatDurationString(durationMs),
+                threads,
+                String.format("%.1f", streamCount / seconds),
+                ModelStringUtil.formatIECByteSizeString((long) (bytes / seconds)));
     }
 
     private void readConfig(final Injector injector) {
@@ -47,6 +47,7 @@ public class IndexFieldEditPresenter extends MyPresenterWidget<IndexFieldEditPre
         getView().setStored(indexField.isStored());
         getView().setIndexed(indexField.isIndexed());
         getView().setTermPositions(indexField.isTermPositions());
+        getView().setDocValues(indexField.isDocValues());
         getView().setAnalyzerType(indexField.getAnalyzerType());
         getView().setCaseSensitive(indexField.isCaseSensitive());
     }
@@ -60,6 +61,7 @@ public class IndexFieldEditPresenter extends MyPresenterWidget<IndexFieldEditPre
         indexField.setStored(getView().isStored());
         indexField.setIndexed(getView().isIndexed());
         indexField.setTermPositions(getView().isTermPositions());
+        indexField.setDocValues(getView().isDocValues());
         indexField.setAnalyzerType(getView().getAnalyzerType());
         indexField.setCaseSensitive(getView().isCaseSensitive());
 
@@ -76,7 +78,7 @@ public class IndexFieldEditPresenter extends MyPresenterWidget<IndexFieldEditPre
     }
 
     public void show(final String caption, final PopupUiHandlers uiHandlers) {
-        final PopupSize popupSize = new PopupSize(305, 220, 305, 220, 800, 220, true);
+        final PopupSize popupSize = new PopupSize(305, 245, 305, 245, 800, 245, true);
         ShowPopupEvent.fire(this, this, PopupType.OK_CANCEL_DIALOG, popupSize, caption, uiHandlers);
     }
 
@@ -105,6 +107,10 @@ public class IndexFieldEditPresenter extends MyPresenterWidget<IndexFieldEditPre
 
         void setTermPositions(boolean termPositions);
 
+        boolean isDocValues();
+
+        void setDocValues(boolean docValues);
+
         AnalyzerType getAnalyzerType();
 
         void setAnalyzerType(AnalyzerType analyzerType);
@@ -341,7 +341,7 @@ public class IndexShardManagerImpl implements IndexShardManager {
     }
 
     @Override
-    public void update(final long indexShardId, final Integer documentCount, final Long commitDurationMs, final Long commitMs, final Long fileSize) {
+    public void update(final long indexShardId, final Integer documentCount, final Long commitDurationMs, final Long commitMs, final Long fileSize, final Long minTime, final Long maxTime) {
         // Allow the thing to run without a service (e.g. benchmark mode)
         if (indexShardService != null) {
             final Lock lock = shardUpdateLocks.getLockForKey(indexShardId);
@@ -369,6 +369,10 @@ public class IndexShardManagerImpl implements IndexShardManager {
                 if (fileSize != null) {
                     indexShard.setFileSize(fileSize);
                 }
+                if (minTime != null && maxTime != null) {
+                    indexShard.setMinTime(minTime);
+                    indexShard.setMaxTime(maxTime);
+                }
 
                 indexShardService.save(indexShard);
             } finally {
@@ -38,6 +38,7 @@ import stroom.util.logging.LambdaLoggerFactory;
 import stroom.util.logging.LogExecutionTime;
 import stroom.util.shared.ModelStringUtil;
 import stroom.util.shared.ThreadPool;
+import stroom.volume.VolumeWriteStatistics;
 
 import javax.inject.Inject;
 import javax.inject.Singleton;
@@ -70,6 +71,7 @@ public class IndexShardWriterCacheImpl implements IndexShardWriterCache {
     private final IndexConfigCache indexConfigCache;
     private final IndexShardManager indexShardManager;
     private final StroomPropertyService stroomPropertyService;
+    private final VolumeWriteStatistics volumeWriteStatistics;
 
     private final Map<Long, IndexShardWriter> openWritersByShardId = new ConcurrentHashMap<>();
     private final Map<IndexShardKey, IndexShardWriter> openWritersByShardKey = new ConcurrentHashMap<>();
@@ -87,12 +89,14 @@ public class IndexShardWriterCacheImpl implements IndexShardWriterCache {
                                      final IndexConfigCache indexConfigCache,
                                      final IndexShardManager indexShardManager,
                                      final ExecutorProvider executorProvider,
-                                     final TaskContext taskContext) {
+                                     final TaskContext taskContext,
+                                     final VolumeWriteStatistics volumeWriteStatistics) {
         this.nodeCache = nodeCache;
         this.indexShardService = indexShardService;
         this.stroomPropertyService = stroomPropertyService;
         this.indexConfigCache = indexConfigCache;
         this.indexShardManager = indexShardManager;
+        this.volumeWriteStatistics = volumeWriteStatistics;
 
         final ThreadPool threadPool = new ThreadPoolImpl("Index Shard Writer Cache", 3, 0, Integer.MAX_VALUE);
         final Executor executor = executorProvider.getExecutor(threadPool);
@@ -184,7 +188,7 @@ public class IndexShardWriterCacheImpl implements IndexShardWriterCache {
         indexShardManager.setStatus(indexShardId, IndexShardStatus.OPENING);
 
         try {
-            final IndexShardWriter indexShardWriter = new IndexShardWriterImpl(indexShardManager, indexConfig, indexShardKey, indexShard, ramBufferSizeMB);
+            final IndexShardWriter indexShardWriter = new IndexShardWriterImpl(indexShardManager, indexConfig, indexShardKey, indexShard, ramBufferSizeMB, volumeWriteStatistics);
 
             // We have opened the index so update the DB object.
             indexShardManager.setStatus(indexShardId, IndexShardStatus.OPEN);
@@ -21,6 +21,7 @@ import org.apache.lucene.analysis.miscellaneous.PerFieldAnalyzerWrapper;
 import org.apache.lucene.document.Document;
 import org.apache.lucene.index.IndexWriter;
 import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.IndexableField;
 import org.apache.lucene.index.LiveIndexWriterConfig;
 import org.apache.lucene.store.AlreadyClosedException;
 import org.apache.lucene.store.Directory;
@@ -30,23 +31,31 @@ import org.slf4j.LoggerFactory;
 import stroom.index.analyzer.AnalyzerFactory;
 import stroom.index.shared.IndexField;
 import stroom.index.shared.IndexField.AnalyzerType;
+import stroom.index.shared.IndexFieldType;
 import stroom.index.shared.IndexShard;
 import stroom.index.shared.IndexShardKey;
+import stroom.node.shared.Volume;
 import stroom.util.io.FileUtil;
 import stroom.util.logging.LambdaLogger;
 import stroom.util.logging.LambdaLoggerFactory;
 import stroom.util.logging.LoggerPrintStream;
 import stroom.util.shared.ModelStringUtil;
+import stroom.volume.VolumeWriteStatistics;
 
 import java.io.IOException;
 import java.nio.file.DirectoryStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAccumulator;
 
 public class IndexShardWriterImpl implements IndexShardWriter {
     private static final LambdaLogger LAMBDA_LOGGER = LambdaLoggerFactory.getLogger(IndexShardWriterImpl.class);
@@ -87,7 +96,20 @@ public class IndexShardWriterImpl implements IndexShardWriter {
      */
     private final AtomicInteger documentCount;
 
+    /**
+     * The range of date field values in this shard so that searches can skip shards that cannot contain results.
+     * If the shard already contains documents that were added before ranges were recorded then we can't know the
+     * range so don't record one.
+     */
+    private final boolean recordTimeRange;
+    private final LongAccumulator minTime = new LongAccumulator(Math::min, Long.MAX_VALUE);
+    private final LongAccumulator maxTime = new LongAccumulator(Math::max, Long.MIN_VALUE);
+    private volatile Set<String> dateFieldNames = Collections.emptySet();
+
     private final IndexShardKey indexShardKey;
+    private final Volume volume;
+    private final VolumeWriteStatistics volumeWriteStatistics;
+    private long lastFileSize;
     private final long creationTime;
     private volatile int maxDocumentCount;
 
@@ -99,12 +121,14 @@ public class IndexShardWriterImpl implements IndexShardWriter {
      * Convenience constructor used in tests.
      */
     IndexShardWriterImpl(final IndexShardManager indexShardManager, final IndexConfig indexConfig, final IndexShardKey indexShardKey, final IndexShard indexShard) throws IOException {
-        this(indexShardManager, indexConfig, indexShardKey, indexShard, DEFAULT_RAM_BUFFER_MB_SIZE);
+        this(indexShardManager, indexConfig, indexShardKey, indexShard, DEFAULT_RAM_BUFFER_MB_SIZE, null);
     }
 
-    IndexShardWriterImpl(final IndexShardManager indexShardManager, final IndexConfig indexConfig, final IndexShardKey indexShardKey, final IndexShard indexShard, final int ramBufferSizeMB) throws IOException {
+    IndexShardWriterImpl(final IndexShardManager indexShardManager, final IndexConfig indexConfig, final IndexShardKey indexShardKey, final IndexShard indexShard, final int ramBufferSizeMB, final VolumeWriteStatistics volumeWriteStatistics) throws IOException {
         this.indexShardManager = indexShardManager;
         this.indexShardKey = indexShardKey;
+        this.volume = indexShard.getVolume();
+        this.volumeWriteStatistics = volumeWriteStatistics;
         this.indexShardId = indexShard.getId();
         this.creationTime = System.currentTimeMillis();
         this.lastUsedTime = creationTime;
@@ -188,6 +212,17 @@ public class IndexShardWriterImpl implements IndexShardWriter {
         this.directory = directory;
         this.indexWriter = indexWriter;
         this.documentCount = documentCount;
+
+        this.recordTimeRange = numDocs == 0 || (indexShard.getMinTime() != null && indexShard.getMaxTime() != null);
+        if (indexShard.getMinTime() != null && indexShard.getMaxTime() != null) {
+            minTime.accumulate(indexShard.getMinTime());
+            maxTime.accumulate(indexShard.getMaxTime());
+        }
+
+        if (volumeWriteStatistics != null) {
+            final Long fileSize = calcFileSize();
+            lastFileSize = fileSize != null ? fileSize : 0;
+        }
     }
 
     @Override
@@ -205,6 +240,11 @@ public class IndexShardWriterImpl implements IndexShardWriter {
 
                 final long now = System.currentTimeMillis();
                 this.lastUsedTime = now;
+                // Widen the time range before adding the document so that the range always covers all documents
+                // that might have been committed.
+                if (recordTimeRange) {
+                    addTimeRange(document);
+                }
                 indexWriter.addDocument(document);
                 final long duration = System.currentTimeMillis() - now;
                 if (duration > 1000) {
@@ -221,17 +261,35 @@ public class IndexShardWriterImpl implements IndexShardWriter {
         }
     }
 
+    private void addTimeRange(final Document document) {
+        for (final String fieldName : dateFieldNames) {
+            for (final IndexableField field : document.getFields(fieldName)) {
+                final Number value = field.numericValue();
+                if (value != null) {
+                    minTime.accumulate(value.longValue());
+                    maxTime.accumulate(value.longValue());
+                }
+            }
+        }
+    }
+
     @Override
     public void updateIndexConfig(final IndexConfig indexConfig) {
         this.maxDocumentCount = indexConfig.getIndex().getMaxDocsPerShard();
         if (indexConfig.getIndexFields() != null) {
+            final Set<String> dateFieldNames = new HashSet<>();
             for (final IndexField indexField : indexConfig.getIndexFields()) {
+                if (IndexFieldType.DATE_FIELD.equals(indexField.getFieldType())) {
+                    dateFieldNames.add(indexField.getFieldName());
+                }
+
                 // Add the field analyser.
                 final Analyzer analyzer = AnalyzerFactory.create(indexField.getAnalyzerType(),
                         indexField.isCaseSensitive());
                 LAMBDA_LOGGER.debug(() -> "Adding field analyser for: " + indexField.getFieldName());
                 fieldAnalyzers.put(indexField.getFieldName(), analyzer);
             }
+            this.dateFieldNames = dateFieldNames;
         }
     }
 
@@ -322,7 +380,22 @@ public class IndexShardWriterImpl implements IndexShardWriter {
             // Update the size of the index.
             final Long fileSize = calcFileSize();
 
-            update(indexShardId, lastDocumentCount, lastCommitDurationMs, lastCommitMs, fileSize);
+            // Record how long the commit took for the data written so that busy volumes can be avoided.
+            if (volumeWriteStatistics != null && fileSize != null) {
+                volumeWriteStatistics.record(volume, Math.max(0, fileSize - lastFileSize),
+                        TimeUnit.MILLISECONDS.toNanos(lastCommitDurationMs));
+                lastFileSize = fileSize;
+            }
+
+            // Get the range of date field values if we have one.
+            Long lastMinTime = null;
+            Long lastMaxTime = null;
+            if (recordTimeRange && minTime.get() <= maxTime.get()) {
+                lastMinTime = minTime.get();
+                lastMaxTime = maxTime.get();
+            }
+
+            update(indexShardId, lastDocumentCount, lastCommitDurationMs, lastCommitMs, fileSize, lastMinTime, lastMaxTime);
         } catch (final RuntimeException e) {
             LAMBDA_LOGGER.error(e::getMessage, e);
         }
@@ -362,9 +435,9 @@ public class IndexShardWriterImpl implements IndexShardWriter {
         return documentCount.get();
     }
 
-    private void update(final long indexShardId, final Integer documentCount, final Long commitDurationMs, final Long commitMs, final Long fileSize) {
+    private void update(final long indexShardId, final Integer documentCount, final Long commitDurationMs, final Long commitMs, final Long fileSize, final Long minTime, final Long maxTime) {
         if (indexShardManager != null) {
-            indexShardManager.update(indexShardId, documentCount, commitDurationMs, commitMs, fileSize);
+            indexShardManager.update(indexShardId, documentCount, commitDurationMs, commitMs, fileSize, minTime, maxTime);
         }
     }
 
@@ -46,6 +46,8 @@ import stroom.util.date.DateUtil;
 import stroom.util.shared.Severity;
 
 import javax.inject.Inject;
+import java.util.HashMap;
+import java.util.Map;
 
 /**
  * The index filter... takes the index XML and builds the LUCENE documents
@@ -71,6 +73,11 @@ class IndexingFilter extends AbstractXMLFilter {
     private IndexShardKey indexShardKey;
     private Document document;
 
+    // Lucene fields are reused for every record to avoid creating new fields
+    // and field types for every value.
+    private final Map<String, ReusableIndexField> reusableFields = new HashMap<>();
+    private long recordCount;
+
     private int fieldsIndexed = 0;
 
     private Locator locator;
@@ -149,8 +156,8 @@ class IndexingFilter extends AbstractXMLFilter {
                     final IndexField indexField = indexFieldsMap.get(name);
                     if (indexField != null) {
                         // Index the current content if we are to store or index
-                        // this field.
-                        if (indexField.isIndexed() || indexField.isStored()) {
+                        // this field or keep it as a doc values column.
+                        if (indexField.isIndexed() || indexField.isStored() || indexField.isDocValues()) {
                             processIndexContent(indexField, value);
                         }
                     } else {
@@ -161,6 +168,7 @@ class IndexingFilter extends AbstractXMLFilter {
         } else if (RECORD.equals(localName)) {
             // Create a document to store fields in.
             document = new Document();
+            recordCount++;
         }
 
         super.startElement(uri, localName, qName, atts);
@@ -201,25 +209,56 @@ class IndexingFilter extends AbstractXMLFilter {
 
     private void processIndexContent(final IndexField indexField, final String value) {
         try {
+            ReusableIndexField reusableField = reusableFields.get(indexField.getFieldName());
+            if (reusableField == null || reusableField.getIndexField() != indexField) {
+                reusableField = new ReusableIndexField(indexField);
+                reusableFields.put(indexField.getFieldName(), reusableField);
+            }
+            reusableField.setRecord(recordCount);
+
             Field field = null;
+            Field docValuesField = null;
 
             if (indexField.getFieldType().isNumeric()) {
                 final long val = Long.parseLong(value);
-                field = FieldFactory.create(indexField, val);
+                if (reusableField.hasField()) {
+                    field = reusableField.getField(val);
+                }
+                if (reusableField.canAddDocValues()) {
+                    docValuesField = reusableField.getDocValuesField(val);
+                }
 
             } else if (IndexFieldType.DATE_FIELD.equals(indexField.getFieldType())) {
                 try {
                     final long val = DateUtil.parseUnknownString(value);
-                    field = FieldFactory.create(indexField, val);
+                    if (reusableField.hasField()) {
+                        field = reusableField.getField(val);
+                    }
+                    if (reusableField.canAddDocValues()) {
+                        docValuesField = reusableField.getDocValuesField(val);
+                    }
                 } catch (final RuntimeException e) {
                     LOGGER.trace(e.getMessage(), e);
                 }
             } else {
-                field = FieldFactory.create(indexField, value);
+                if (reusableField.hasField()) {
+                    field = reusableField.getField(value);
+                }
+                if (reusableField.canAddDocValues()) {
+                    docValuesField = reusableField.getDocValuesField(value);
+                    if (docValuesField == null) {
+                        log(Severity.WARNING, "Value of field '" + indexField.getFieldName() +
+                                "' is too long to be kept as a doc value", null);
+                    }
+                }
+            }
+
+            if (docValuesField != null) {
+                document.add(docValuesField);
             }
 
             // Add the current field to the document if it is not null.
-            if (field != null) {
+            if (field != null || docValuesField != null) {
                 // Output some debug.
                 if (LOGGER.isDebugEnabled()) {
                     debugBuffer.append("processIndexContent() - Adding to index indexName=");
@@ -236,7 +275,9 @@ class IndexingFilter extends AbstractXMLFilter {
                 }
 
                 fieldsIndexed++;
-                document.add(field);
+                if (field != null) {
+                    document.add(field);
+                }
             }
         } catch (final RuntimeException e) {
             log(Severity.ERROR, e.getMessage(), e);
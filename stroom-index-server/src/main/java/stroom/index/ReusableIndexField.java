@@ -0,0 +1,149 @@
+/*
+ * Copyright 2018 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package stroom.index;
+
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.FieldType;
+import org.apache.lucene.document.LongField;
+import org.apache.lucene.document.NumericDocValuesField;
+import org.apache.lucene.document.SortedDocValuesField;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.util.BytesRefBuilder;
+import stroom.index.shared.IndexField;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Holds the Lucene field instances used to index values of a single index
+ * field so that they can be reused for every record rather than creating new
+ * fields and field types for every value. A record may contain several values
+ * for the same field so one instance is kept for each value seen in a single
+ * record.
+ * <p>
+ * Lucene copies field values during {@link IndexWriter#addDocument(Iterable)}
+ * so it is safe to change the values once a document has been added.
+ */
+class ReusableIndexField {
+    private final IndexField indexField;
+    private final FieldType fieldType;
+    private final List<Field> fields = new ArrayList<>();
+    private final BytesRefBuilder bytesRefBuilder = new BytesRefBuilder();
+    private NumericDocValuesField numericDocValuesField;
+    private SortedDocValuesField sortedDocValuesField;
+
+    private long record = -1;
+    private int used;
+    private boolean docValuesUsed;
+
+    ReusableIndexField(final IndexField indexField) {
+        this.indexField = indexField;
+        if (indexField.isIndexed() || indexField.isStored()) {
+            this.fieldType = FieldTypeFactory.create(indexField);
+        } else {
+            this.fieldType = null;
+        }
+    }
+
+    /**
+     * Make all field instances available again if we have moved on to a new
+     * record.
+     */
+    void setRecord(final long record) {
+        if (this.record != record) {
+            this.record = record;
+            used = 0;
+            docValuesUsed = false;
+        }
+    }
+
+    /**
+     * @return True if this field is to be indexed or stored.
+     */
+    boolean hasField() {
+        return fieldType != null;
+    }
+
+    /**
+     * @return True if a doc value can still be added to the current record.
+     * Doc values hold a single value per document so only the first value of a
+     * field in each record is kept.
+     */
+    boolean canAddDocValues() {
+        return indexField.isDocValues() && !docValuesUsed;
+    }
+
+    Field getField(final long value) {
+        Field field;
+        if (used < fields.size()) {
+            field = fields.get(used);
+            field.setLongValue(value);
+        } else {
+            field = new LongField(indexField.getFieldName(), value, fieldType);
+            fields.add(field);
+        }
+        used++;
+        return field;
+    }
+
+    Field getField(final String value) {
+        Field field;
+        if (used < fields.size()) {
+            field = fields.get(used);
+            field.setStringValue(value);
+        } else {
+            field = new Field(indexField.getFieldName(), value, fieldType);
+            fields.add(field);
+        }
+        used++;
+        return field;
+    }
+
+    Field getDocValuesField(final long value) {
+        if (numericDocValuesField == null) {
+            numericDocValuesField = new NumericDocValuesField(indexField.getFieldName(), value);
+        } else {
+            numericDocValuesField.setLongValue(value);
+        }
+        docValuesUsed = true;
+        return numericDocValuesField;
+    }
+
+    /**
+     * @return The doc values field or null if the value is too long to be
+     * kept as a doc value.
+     */
+    Field getDocValuesField(final String value) {
+        bytesRefBuilder.copyChars(value);
+        // Lucene limits the size of sorted doc values.
+        if (bytesRefBuilder.length() > IndexWriter.MAX_TERM_LENGTH) {
+            return null;
+        }
+
+        if (sortedDocValuesField == null) {
+            sortedDocValuesField = new SortedDocValuesField(indexField.getFieldName(), bytesRefBuilder.get());
+        } else {
+            sortedDocValuesField.setBytesValue(bytesRefBuilder.get());
+        }
+        docValuesUsed = true;
+        return sortedDocValuesField;
+    }
+
+    IndexField getIndexField() {
+        return indexField;
+    }
+}
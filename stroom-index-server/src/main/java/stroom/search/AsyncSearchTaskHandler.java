@@ -25,6 +25,7 @@ import stroom.index.IndexStore;
 import stroom.index.shared.FindIndexShardCriteria;
 import stroom.index.shared.IndexDoc;
 import stroom.index.shared.IndexField;
+import stroom.index.shared.IndexFieldsMap;
 import stroom.index.shared.IndexShard;
 import stroom.index.shared.IndexShard.IndexShardStatus;
 import stroom.node.shared.Node;
@@ -107,11 +108,10 @@ class AsyncSearchTaskHandler extends AbstractTaskHandler<AsyncSearchTask, VoidRe
                     final IndexDoc index = indexStore.readDocument(query.getDataSource());
 
                     // Get an array of stored index fields that will be used for
-                    // getting stored data.
-                    // TODO : Specify stored fields based on the fields that all
-                    // coprocessors will require. Also
-                    // batch search only needs stream and event id stored fields.
-                    final IndexField[] storedFields = getStoredFields(index);
+                    // getting stored data. Only the fields that coprocessors
+                    // require are requested so batch searches and narrow tables
+                    // don't retrieve every stored field for each hit.
+                    final IndexField[] storedFields = StoredFieldUtil.getStoredFields(index, task.getCoprocessorMap());
 
                     // Get a list of search index shards to look through.
                     final FindIndexShardCriteria findIndexShardCriteria = new FindIndexShardCriteria();
@@ -124,10 +124,18 @@ class AsyncSearchTaskHandler extends AbstractTaskHandler<AsyncSearchTask, VoidRe
                     findIndexShardCriteria.getFetchSet().add(Node.ENTITY_TYPE);
                     final List<IndexShard> indexShards = indexShardService.find(findIndexShardCriteria);
 
+                    // Work out the time range that results must fall within so we can skip shards that can't
+                    // contain any results.
+                    final SearchTimeRange timeRange = SearchTimeRange.create(query.getExpression(),
+                            new IndexFieldsMap(index.getIndexFields()), task.getDateTimeLocale(), task.getNow());
+                    int prunedShardCount = 0;
+
                     // Build a map of nodes that will deal with each set of shards.
                     final Map<Node, List<Long>> shardMap = new HashMap<>();
                     for (final IndexShard indexShard : indexShards) {
-                        if (IndexShardStatus.CORRUPT.equals(indexShard.getStatus())) {
+                        if (!timeRange.mayContain(indexShard)) {
+                            prunedShardCount++;
+                        } else if (IndexShardStatus.CORRUPT.equals(indexShard.getStatus())) {
                             resultCollector.getErrorSet(indexShard.getNode()).add(
                                     "Attempt to search an index shard marked as corrupt: id=" + indexShard.getId() + ".");
                         } else {
@@ -136,6 +144,12 @@ class AsyncSearchTaskHandler extends AbstractTaskHandler<AsyncSearchTask, VoidRe
                         }
                     }
 
+                    if (prunedShardCount > 0) {
+                        LOGGER.debug("Skipped {} of {} shards outside of {}", prunedShardCount, indexShards.size(), timeRange);
+                        taskContext.info(task.getSearchName() + " - skipped " + prunedShardCount + " of " +
+                                indexShards.size() + " shards outside of the search time range");
+                    }
+
                     // Start remote cluster search execution.
                     final Map<Node, List<Long>> filteredShardNodes = shardMap.entrySet().stream()
                             .filter(entry -> {
@@ -212,15 +226,4 @@ class AsyncSearchTaskHandler extends AbstractTaskHandler<AsyncSearchTask, VoidRe
         });
         taskManager.execAsync(outerTask);
     }
-
-    private IndexField[] getStoredFields(final IndexDoc index) {
-        final List<IndexField> indexFields = index.getIndexFields();
-        final List<IndexField> list = new ArrayList<>(indexFields.size());
-        for (final IndexField indexField : indexFields) {
-            if (indexField.isStored()) {
-                list.add(indexField);
-            }
-        }
-        return list.toArray(new IndexField[0]);
-    }
 }
@@ -62,6 +62,7 @@ public class LuceneSearchStoreFactory implements StoreFactory {
     private final SecurityContext securityContext;
     private final Security security;
     private final ClusterSearchResultCollectorFactory clusterSearchResultCollectorFactory;
+    private final SharedSearchRegistry sharedSearchRegistry;
 
     @Inject
     public LuceneSearchStoreFactory(final IndexStore indexStore,
@@ -71,7 +72,8 @@ public class LuceneSearchStoreFactory implements StoreFactory {
                                     final StroomPropertyService propertyService,
                                     final SecurityContext securityContext,
                                     final Security security,
-                                    final ClusterSearchResultCollectorFactory clusterSearchResultCollectorFactory) {
+                                    final ClusterSearchResultCollectorFactory clusterSearchResultCollectorFactory,
+                                    final SharedSearchRegistry sharedSearchRegistry) {
         this.indexStore = indexStore;
         this.dictionaryStore = dictionaryStore;
         this.stroomPropertyService = stroomPropertyService;
@@ -80,6 +82,7 @@ public class LuceneSearchStoreFactory implements StoreFactory {
         this.securityContext = securityContext;
         this.security = security;
         this.clusterSearchResultCollectorFactory = clusterSearchResultCollectorFactory;
+        this.sharedSearchRegistry = sharedSearchRegistry;
     }
 
     public Store create(final SearchRequest searchRequest) {
@@ -89,9 +92,20 @@ public class LuceneSearchStoreFactory implements StoreFactory {
         // Get the search.
         final Query query = searchRequest.getQuery();
 
-        // Load the index.
+        // Load the index. This also makes sure the current user is allowed to use the index before they are given
+        // access to any existing search.
         final IndexDoc index = security.useAsReadResult(() -> indexStore.readDocument(query.getDataSource()));
 
+        // Attach to an identical search if there is one, otherwise start a new one.
+        return sharedSearchRegistry.getOrCreate(searchRequest, nowEpochMilli, () ->
+                createCollector(searchRequest, index, nowEpochMilli));
+    }
+
+    private ClusterSearchResultCollector createCollector(final SearchRequest searchRequest,
+                                                         final IndexDoc index,
+                                                         final long nowEpochMilli) {
+        final Query query = searchRequest.getQuery();
+
         // Extract highlights.
         final Set<String> highlights = getHighlights(index, query.getExpression(), searchRequest.getDateTimeLocale(), nowEpochMilli);
 
@@ -27,6 +27,7 @@ public class SearchModule extends AbstractModule {
     protected void configure() {
         final Multibinder<Clearable> clearableBinder = Multibinder.newSetBinder(binder(), Clearable.class);
         clearableBinder.addBinding().to(LuceneSearchResponseCreatorManager.class);
+        clearableBinder.addBinding().to(SharedSearchRegistry.class);
 
         final Multibinder<TaskHandler> taskHandlerBinder = Multibinder.newSetBinder(binder(), TaskHandler.class);
         taskHandlerBinder.addBinding().to(stroom.search.AsyncSearchTaskHandler.class);
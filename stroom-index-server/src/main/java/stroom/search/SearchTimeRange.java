@@ -0,0 +1,168 @@
+/*
+ * Copyright 2018 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package stroom.search;
+
+import stroom.index.shared.IndexField;
+import stroom.index.shared.IndexFieldType;
+import stroom.index.shared.IndexFieldsMap;
+import stroom.index.shared.IndexShard;
+import stroom.index.shared.IndexShard.IndexShardStatus;
+import stroom.query.api.v2.ExpressionItem;
+import stroom.query.api.v2.ExpressionOperator;
+import stroom.query.api.v2.ExpressionOperator.Op;
+import stroom.query.api.v2.ExpressionTerm;
+import stroom.query.common.v2.DateExpressionParser;
+
+/**
+ * The window of time that all results of a search must fall within, derived from the date field terms that every
+ * result must match. This is used to avoid searching index shards that cannot contain any matching documents because
+ * the range of date field values recorded for the shard lies outside of the window.
+ */
+final class SearchTimeRange {
+    private static final String DELIMITER = ",";
+
+    private final long from;
+    private final long to;
+
+    private SearchTimeRange(final long from, final long to) {
+        this.from = from;
+        this.to = to;
+    }
+
+    static SearchTimeRange create(final ExpressionOperator expression,
+                                  final IndexFieldsMap indexFieldsMap,
+                                  final String timeZoneId,
+                                  final long nowEpochMilli) {
+        final long[] range = new long[]{Long.MIN_VALUE, Long.MAX_VALUE};
+        if (expression != null && indexFieldsMap != null) {
+            addRange(expression, indexFieldsMap, timeZoneId, nowEpochMilli, range);
+        }
+        return new SearchTimeRange(range[0], range[1]);
+    }
+
+    private static void addRange(final ExpressionItem item,
+                                 final IndexFieldsMap indexFieldsMap,
+                                 final String timeZoneId,
+                                 final long nowEpochMilli,
+                                 final long[] range) {
+        if (!item.enabled()) {
+            return;
+        }
+
+        if (item instanceof ExpressionOperator) {
+            // Only the children of AND operators must all match so we can't narrow the range with terms under OR or
+            // NOT operators.
+            final ExpressionOperator operator = (ExpressionOperator) item;
+            if ((operator.getOp() == null || Op.AND.equals(operator.getOp())) && operator.getChildren() != null) {
+                for (final ExpressionItem child : operator.getChildren()) {
+                    addRange(child, indexFieldsMap, timeZoneId, nowEpochMilli, range);
+                }
+            }
+
+        } else if (item instanceof ExpressionTerm) {
+            final ExpressionTerm term = (ExpressionTerm) item;
+            final IndexField indexField = indexFieldsMap.get(term.getField());
+            if (indexField == null || !IndexFieldType.DATE_FIELD.equals(indexField.getFieldType())
+                    || term.getCondition() == null || term.getValue() == null) {
+                return;
+            }
+
+            try {
+                switch (term.getCondition()) {
+                    case EQUALS:
+                    case CONTAINS: {
+                        final long date = getDate(term.getValue(), timeZoneId, nowEpochMilli);
+                        narrow(range, date, date);
+                        break;
+                    }
+                    case GREATER_THAN:
+                    case GREATER_THAN_OR_EQUAL_TO:
+                        narrow(range, getDate(term.getValue(), timeZoneId, nowEpochMilli), Long.MAX_VALUE);
+                        break;
+                    case LESS_THAN:
+                    case LESS_THAN_OR_EQUAL_TO:
+                        narrow(range, Long.MIN_VALUE, getDate(term.getValue(), timeZoneId, nowEpochMilli));
+                        break;
+                    case BETWEEN: {
+                        final String[] values = term.getValue().split(DELIMITER);
+                        if (values.length == 2) {
+                            narrow(range,
+                                    getDate(values[0].trim(), timeZoneId, nowEpochMilli),
+                                    getDate(values[1].trim(), timeZoneId, nowEpochMilli));
+                        }
+                        break;
+                    }
+                    default:
+                        break;
+                }
+            } catch (final RuntimeException e) {
+                // The query builder will report invalid dates so just don't narrow the range.
+            }
+        }
+    }
+
+    private static long getDate(final String value, final String timeZoneId, final long nowEpochMilli) {
+        return DateExpressionParser.parse(value, timeZoneId, nowEpochMilli).get().toInstant().toEpochMilli();
+    }
+
+    private static void narrow(final long[] range, final long from, final long to) {
+        range[0] = Math.max(range[0], from);
+        range[1] = Math.min(range[1], to);
+    }
+
+    boolean isBounded() {
+        return from != Long.MIN_VALUE || to != Long.MAX_VALUE;
+    }
+
+    /**
+     * Determine if a shard might contain documents within this time range. Shards that are open for writing may
+     * contain documents that have not yet been reflected in the recorded range, as may shards written before ranges
+     * were recorded, so these are always searched.
+     */
+    boolean mayContain(final IndexShard indexShard) {
+        if (!isBounded()) {
+            return true;
+        }
+        if (IndexShardStatus.OPEN.equals(indexShard.getStatus())) {
+            return true;
+        }
+
+        final Long minTime = indexShard.getMinTime();
+        final Long maxTime = indexShard.getMaxTime();
+        if (minTime == null || maxTime == null) {
+            return true;
+        }
+        return minTime <= to && maxTime >= from;
+    }
+
+    long getFrom() {
+        return from;
+    }
+
+    long getTo() {
+        return to;
+    }
+
+    @Override
+    public String toString() {
+        return "SearchTimeRange{" +
+                "from=" + from +
+                ", to=" + to +
+                '}';
+    }
+}
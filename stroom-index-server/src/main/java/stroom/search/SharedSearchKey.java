@@ -0,0 +1,146 @@
+/*
+ * Copyright 2018 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package stroom.search;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.MapperFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import stroom.query.api.v2.Param;
+import stroom.query.api.v2.Query;
+import stroom.query.api.v2.ResultRequest;
+import stroom.query.api.v2.SearchRequest;
+
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+
+/**
+ * A canonical form of a search request that identifies cluster searches that would produce identical results. Two
+ * requests with different query keys, requested ranges or open groups will map to the same key as long as they
+ * search the same data source with the same expression, parameters, table settings and time zone within the same
+ * time bucket and permission scope.
+ */
+class SharedSearchKey {
+    private static final ObjectMapper OBJECT_MAPPER = createObjectMapper();
+
+    private final String dataSourceUuid;
+    private final String canonicalRequest;
+    private final long timeBucket;
+    private final String permissionScope;
+    private final int hashCode;
+
+    SharedSearchKey(final String dataSourceUuid,
+                    final String canonicalRequest,
+                    final long timeBucket,
+                    final String permissionScope) {
+        this.dataSourceUuid = dataSourceUuid;
+        this.canonicalRequest = canonicalRequest;
+        this.timeBucket = timeBucket;
+        this.permissionScope = permissionScope;
+        this.hashCode = Objects.hash(dataSourceUuid, canonicalRequest, timeBucket, permissionScope);
+    }
+
+    static SharedSearchKey create(final SearchRequest searchRequest,
+                                  final long timeBucket,
+                                  final String permissionScope) {
+        final Query query = searchRequest.getQuery();
+
+        final Map<String, Object> map = new LinkedHashMap<>();
+        map.put("dataSource", query.getDataSource());
+        map.put("expression", query.getExpression());
+        map.put("params", toParamMap(query.getParams()));
+        map.put("dateTimeLocale", searchRequest.getDateTimeLocale());
+        map.put("mappings", toMappings(searchRequest.getResultRequests()));
+
+        try {
+            final String canonicalRequest = OBJECT_MAPPER.writeValueAsString(map);
+            return new SharedSearchKey(query.getDataSource().getUuid(), canonicalRequest, timeBucket, permissionScope);
+        } catch (final JsonProcessingException e) {
+            throw new SearchException("Unable to create canonical search request: " + e.getMessage(), e);
+        }
+    }
+
+    private static Map<String, String> toParamMap(final List<Param> params) {
+        final Map<String, String> map = new TreeMap<>();
+        if (params != null) {
+            params.forEach(param -> map.put(param.getKey(), param.getValue()));
+        }
+        return map;
+    }
+
+    private static Map<String, Object> toMappings(final List<ResultRequest> resultRequests) {
+        // Only the component id and table settings affect what the coprocessors collect. Ranges, open groups and
+        // fetch settings only affect how results are presented to each requester.
+        final Map<String, Object> map = new LinkedHashMap<>();
+        if (resultRequests != null) {
+            resultRequests.stream()
+                    .sorted(Comparator.comparing(ResultRequest::getComponentId))
+                    .forEach(resultRequest -> map.put(resultRequest.getComponentId(), resultRequest.getMappings()));
+        }
+        return map;
+    }
+
+    private static ObjectMapper createObjectMapper() {
+        final ObjectMapper mapper = new ObjectMapper();
+        mapper.configure(MapperFeature.SORT_PROPERTIES_ALPHABETICALLY, true);
+        mapper.configure(SerializationFeature.ORDER_MAP_ENTRIES_BY_KEYS, true);
+        mapper.configure(SerializationFeature.INDENT_OUTPUT, false);
+        return mapper;
+    }
+
+    String getDataSourceUuid() {
+        return dataSourceUuid;
+    }
+
+    long getTimeBucket() {
+        return timeBucket;
+    }
+
+    String getPermissionScope() {
+        return permissionScope;
+    }
+
+    @Override
+    public boolean equals(final Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        final SharedSearchKey that = (SharedSearchKey) o;
+        return timeBucket == that.timeBucket &&
+                Objects.equals(dataSourceUuid, that.dataSourceUuid) &&
+                Objects.equals(canonicalRequest, that.canonicalRequest) &&
+                Objects.equals(permissionScope, that.permissionScope);
+    }
+
+    @Override
+    public int hashCode() {
+        return hashCode;
+    }
+
+    @Override
+    public String toString() {
+        return "SharedSearchKey{" +
+                "dataSourceUuid='" + dataSourceUuid + '\'' +
+                ", timeBucket=" + timeBucket +
+                ", permissionScope='" + permissionScope + '\'' +
+                '}';
+    }
+}
@@ -0,0 +1,295 @@
+/*
+ * Copyright 2018 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package stroom.search;
+
+import com.codahale.metrics.health.HealthCheck;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import stroom.entity.shared.Clearable;
+import stroom.feed.FeedService;
+import stroom.feed.shared.Feed;
+import stroom.feed.shared.FindFeedCriteria;
+import stroom.properties.StroomPropertyService;
+import stroom.query.api.v2.SearchRequest;
+import stroom.query.common.v2.Store;
+import stroom.security.SecurityContext;
+import stroom.security.shared.DocumentPermissionNames;
+import stroom.util.HasHealthCheck;
+import stroom.util.lifecycle.StroomFrequencySchedule;
+import stroom.util.shared.ModelStringUtil;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * De-duplicates identical concurrent searches. When several requesters (e.g. many users looking at the same shared
+ * dashboard) ask for the same search within the same time bucket they are attached to a single running or recently
+ * completed cluster search rather than each one fanning out to every index shard in the cluster.
+ * <p>
+ * Search results are filtered by the feeds that the user that started the search can read so searches are only shared
+ * between users that can read exactly the same feeds, or between administrators. Each requester must still be able to
+ * use the index.
+ */
+@Singleton
+public class SharedSearchRegistry implements HasHealthCheck, Clearable {
+    private static final Logger LOGGER = LoggerFactory.getLogger(SharedSearchRegistry.class);
+
+    static final String PROP_KEY_ENABLED = "stroom.search.shared.enabled";
+    static final String PROP_KEY_TIME_BUCKET = "stroom.search.shared.timeBucket";
+    static final String PROP_KEY_RETAIN_COMPLETED = "stroom.search.shared.retainCompleted";
+
+    private static final String DEFAULT_TIME_BUCKET = "1m";
+    private static final String DEFAULT_RETAIN_COMPLETED = "1m";
+    private static final String ADMIN_SCOPE = "__admin__";
+
+    private final StroomPropertyService propertyService;
+    private final SecurityContext securityContext;
+    private final FeedService feedService;
+    private final Map<SharedSearchKey, SharedSearch> searches = new ConcurrentHashMap<>();
+
+    private final AtomicLong clusterSearchesStarted = new AtomicLong();
+    private final AtomicLong clusterSearchesAvoided = new AtomicLong();
+
+    @Inject
+    SharedSearchRegistry(final StroomPropertyService propertyService,
+                         final SecurityContext securityContext,
+                         final FeedService feedService) {
+        this.propertyService = propertyService;
+        this.securityContext = securityContext;
+        this.feedService = feedService;
+    }
+
+    /**
+     * Get a store for the supplied search request. If an identical search is already running, or has recently
+     * completed, the returned store will be a view onto that search, otherwise a new cluster search is started using
+     * the supplied factory.
+     */
+    Store getOrCreate(final SearchRequest searchRequest,
+                      final long nowEpochMilli,
+                      final Supplier<ClusterSearchResultCollector> collectorFactory) {
+        if (!propertyService.getBooleanProperty(PROP_KEY_ENABLED, true)) {
+            clusterSearchesStarted.incrementAndGet();
+            return collectorFactory.get();
+        }
+
+        final long timeBucketMs = getDuration(PROP_KEY_TIME_BUCKET, DEFAULT_TIME_BUCKET);
+        final long timeBucket = timeBucketMs > 0 ? nowEpochMilli / timeBucketMs : nowEpochMilli;
+        final SharedSearchKey key = SharedSearchKey.create(searchRequest, timeBucket, getPermissionScope());
+
+        // Only add a placeholder for a new search while we hold the lock on the map entry, starting the cluster
+        // search can take a while and we don't want to block access to other entries while we do it.
+        final SharedSearch newSearch = new SharedSearch();
+        final SharedSearch sharedSearch = searches.compute(key, (k, v) -> {
+            if (v == null) {
+                LOGGER.debug("Starting new shared cluster search for {}", k);
+                clusterSearchesStarted.incrementAndGet();
+                v = newSearch;
+            } else {
+                LOGGER.debug("Attaching to existing cluster search for {}", k);
+                clusterSearchesAvoided.incrementAndGet();
+            }
+            v.acquire();
+            return v;
+        });
+
+        if (sharedSearch == newSearch) {
+            try {
+                newSearch.setCollector(collectorFactory.get());
+            } catch (final RuntimeException e) {
+                // Make sure nobody else attaches to the failed search.
+                searches.remove(key, newSearch);
+                newSearch.setError(e);
+                throw e;
+            }
+        }
+
+        // Wait for the search to be started if another requester is starting it.
+        return new SharedSearchStore(this, key, sharedSearch.getCollector());
+    }
+
+    void release(final SharedSearchKey key) {
+        final long retainCompletedMs = getDuration(PROP_KEY_RETAIN_COMPLETED, DEFAULT_RETAIN_COMPLETED);
+        searches.computeIfPresent(key, (k, v) -> {
+            v.release();
+            if (v.getReferenceCount() == 0 && (retainCompletedMs <= 0 || !v.isComplete())) {
+                // Nobody is interested in this search any more so stop it.
+                LOGGER.debug("Destroying shared cluster search for {}", k);
+                v.destroy();
+                return null;
+            }
+            return v;
+        });
+    }
+
+    @StroomFrequencySchedule("10s")
+    public void evictExpiredElements() {
+        final long now = System.currentTimeMillis();
+        final long retainCompletedMs = getDuration(PROP_KEY_RETAIN_COMPLETED, DEFAULT_RETAIN_COMPLETED);
+        final long timeBucketMs = getDuration(PROP_KEY_TIME_BUCKET, DEFAULT_TIME_BUCKET);
+        final long currentTimeBucket = timeBucketMs > 0 ? now / timeBucketMs : now;
+
+        searches.keySet().forEach(key -> searches.computeIfPresent(key, (k, v) -> {
+            // Unused searches can no longer be matched once their time bucket has passed and completed searches are
+            // only retained for a limited time after the last requester has gone.
+            if (v.getReferenceCount() == 0 &&
+                    (k.getTimeBucket() != currentTimeBucket || v.getLastReleaseTime() + retainCompletedMs < now)) {
+                LOGGER.debug("Evicting shared cluster search for {}", k);
+                v.destroy();
+                return null;
+            }
+            return v;
+        }));
+    }
+
+    @Override
+    public void clear() {
+        searches.keySet().forEach(key -> searches.computeIfPresent(key, (k, v) -> {
+            if (v.getReferenceCount() == 0) {
+                v.destroy();
+                return null;
+            }
+            return v;
+        }));
+    }
+
+    /**
+     * Users that can read the same set of feeds will see the same search results so they share a permission scope.
+     */
+    private String getPermissionScope() {
+        if (securityContext.isAdmin()) {
+            return ADMIN_SCOPE;
+        }
+
+        final FindFeedCriteria findFeedCriteria = new FindFeedCriteria();
+        findFeedCriteria.setRequiredPermission(DocumentPermissionNames.READ);
+        findFeedCriteria.setPageRequest(null);
+        final List<Feed> feeds = feedService.find(findFeedCriteria);
+
+        final StringBuilder sb = new StringBuilder();
+        feeds.stream()
+                .map(Feed::getUuid)
+                .sorted()
+                .forEach(uuid -> sb.append(uuid).append(","));
+
+        // Keep the key small as users may be able to read a lot of feeds.
+        try {
+            final MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            final byte[] hash = digest.digest(sb.toString().getBytes(StandardCharsets.UTF_8));
+            return new BigInteger(1, hash).toString(16);
+        } catch (final NoSuchAlgorithmException e) {
+            throw new RuntimeException(e.getMessage(), e);
+        }
+    }
+
+    private long getDuration(final String propertyName, final String defaultValue) {
+        String value = propertyService.getProperty(propertyName);
+        if (value == null || value.trim().isEmpty()) {
+            value = defaultValue;
+        }
+        try {
+            return ModelStringUtil.parseDurationString(value);
+        } catch (final RuntimeException e) {
+            LOGGER.warn("Unable to parse property '{}' value '{}', using default {}", propertyName, value, defaultValue);
+            return ModelStringUtil.parseDurationString(defaultValue);
+        }
+    }
+
+    @Override
+    public HealthCheck.Result getHealth() {
+        final List<String> activeSearches = new ArrayList<>();
+        searches.forEach((k, v) -> activeSearches.add(k.getDataSourceUuid() +
+                " (requesters=" + v.getReferenceCount() +
+                ", complete=" + v.isComplete() + ")"));
+
+        return HealthCheck.Result.builder()
+                .healthy()
+                .withDetail("Cluster searches started", clusterSearchesStarted.get())
+                .withDetail("Cluster searches avoided", clusterSearchesAvoided.get())
+                .withDetail("Shared searches", activeSearches)
+                .build();
+    }
+
+    private static class SharedSearch {
+        private final CompletableFuture<ClusterSearchResultCollector> collector = new CompletableFuture<>();
+        private int referenceCount;
+        private long lastReleaseTime;
+
+        void setCollector(final ClusterSearchResultCollector collector) {
+            this.collector.complete(collector);
+        }
+
+        void setError(final RuntimeException e) {
+            collector.completeExceptionally(e);
+        }
+
+        /**
+         * Get the collector, waiting for it to be created if necessary.
+         */
+        ClusterSearchResultCollector getCollector() {
+            try {
+                return collector.join();
+            } catch (final CompletionException e) {
+                if (e.getCause() instanceof RuntimeException) {
+                    throw (RuntimeException) e.getCause();
+                }
+                throw e;
+            }
+        }
+
+        boolean isComplete() {
+            return collector.isDone() && !collector.isCompletedExceptionally() && collector.join().isComplete();
+        }
+
+        /**
+         * Destroy the collector now, or as soon as it has been created if it is still being created.
+         */
+        void destroy() {
+            collector.thenAccept(ClusterSearchResultCollector::destroy);
+        }
+
+        // All access to the reference count happens inside map compute functions so is already serialised per key.
+        void acquire() {
+            referenceCount++;
+        }
+
+        void release() {
+            referenceCount--;
+            lastReleaseTime = System.currentTimeMillis();
+        }
+
+        int getReferenceCount() {
+            return referenceCount;
+        }
+
+        long getLastReleaseTime() {
+            return lastReleaseTime;
+        }
+    }
+}
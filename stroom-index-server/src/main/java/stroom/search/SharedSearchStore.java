@@ -0,0 +1,102 @@
+/*
+ * Copyright 2018 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package stroom.search;
+
+import stroom.query.common.v2.Data;
+import stroom.query.common.v2.Store;
+import stroom.query.common.v2.StoreSize;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * A single requester's view of a cluster search that may be shared with other requesters. Destroying the view only
+ * releases this requester's interest in the search, the underlying search is destroyed by
+ * {@link SharedSearchRegistry} once nobody is using it.
+ */
+class SharedSearchStore implements Store {
+    private final SharedSearchRegistry registry;
+    private final SharedSearchKey key;
+    private final ClusterSearchResultCollector collector;
+    private final AtomicBoolean destroyed = new AtomicBoolean();
+
+    SharedSearchStore(final SharedSearchRegistry registry,
+                      final SharedSearchKey key,
+                      final ClusterSearchResultCollector collector) {
+        this.registry = registry;
+        this.key = key;
+        this.collector = collector;
+    }
+
+    @Override
+    public void destroy() {
+        // Only release once as the search response creator cache may destroy the store more than once.
+        if (destroyed.compareAndSet(false, true)) {
+            registry.release(key);
+        }
+    }
+
+    @Override
+    public boolean isComplete() {
+        return collector.isComplete();
+    }
+
+    @Override
+    public void awaitCompletion() throws InterruptedException {
+        collector.awaitCompletion();
+    }
+
+    @Override
+    public boolean awaitCompletion(final long timeout, final TimeUnit unit) throws InterruptedException {
+        return collector.awaitCompletion(timeout, unit);
+    }
+
+    @Override
+    public Data getData(final String componentId) {
+        return collector.getData(componentId);
+    }
+
+    @Override
+    public List<String> getErrors() {
+        return collector.getErrors();
+    }
+
+    @Override
+    public List<String> getHighlights() {
+        return collector.getHighlights();
+    }
+
+    @Override
+    public List<Integer> getDefaultMaxResultsSizes() {
+        return collector.getDefaultMaxResultsSizes();
+    }
+
+    @Override
+    public StoreSize getStoreSize() {
+        return collector.getStoreSize();
+    }
+
+    @Override
+    public String toString() {
+        return "SharedSearchStore{" +
+                "key=" + key +
+                ", collector=" + collector +
+                '}';
+    }
+}
@@ -0,0 +1,107 @@
+/*
+ * Copyright 2018 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package stroom.search;
+
+import stroom.index.shared.IndexConstants;
+import stroom.index.shared.IndexDoc;
+import stroom.index.shared.IndexField;
+import stroom.query.api.v2.Field;
+import stroom.query.api.v2.TableSettings;
+import stroom.query.common.v2.CoprocessorSettings;
+import stroom.query.common.v2.CoprocessorSettingsMap.CoprocessorKey;
+import stroom.query.common.v2.TableCoprocessorSettings;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Works out which stored or doc values index fields a search needs to retrieve for each hit. Stream and event ids are
+ * always needed to filter streams and extract data. Other fields are only needed if they are referenced by a
+ * coprocessor that takes its values directly from the index rather than from an extraction pipeline.
+ */
+public final class StoredFieldUtil {
+    private static final String PARAM_START = "${";
+    private static final char PARAM_END = '}';
+
+    private StoredFieldUtil() {
+        // Utility class.
+    }
+
+    public static IndexField[] getStoredFields(final IndexDoc index,
+                                               final Map<CoprocessorKey, CoprocessorSettings> coprocessorMap) {
+        final Set<String> requiredFieldNames = new HashSet<>();
+        requiredFieldNames.add(IndexConstants.STREAM_ID);
+        requiredFieldNames.add(IndexConstants.EVENT_ID);
+
+        if (coprocessorMap != null) {
+            for (final CoprocessorSettings coprocessorSettings : coprocessorMap.values()) {
+                if (!isExtracting(coprocessorSettings) && coprocessorSettings instanceof TableCoprocessorSettings) {
+                    final TableSettings tableSettings = ((TableCoprocessorSettings) coprocessorSettings).getTableSettings();
+                    if (tableSettings != null && tableSettings.getFields() != null) {
+                        for (final Field field : tableSettings.getFields()) {
+                            addFieldReferences(field.getExpression(), requiredFieldNames);
+                        }
+                    }
+                }
+            }
+        }
+
+        final List<IndexField> indexFields = index.getIndexFields();
+        final List<IndexField> list = new ArrayList<>(requiredFieldNames.size());
+        if (indexFields != null) {
+            for (final IndexField indexField : indexFields) {
+                if ((indexField.isStored() || indexField.isDocValues())
+                        && requiredFieldNames.contains(indexField.getFieldName())) {
+                    list.add(indexField);
+                }
+            }
+        }
+        return list.toArray(new IndexField[0]);
+    }
+
+    /**
+     * Coprocessors that extract values get them from the extraction pipeline so don't need any stored values. This
+     * must match the way the cluster search decides which field index map each coprocessor uses.
+     */
+    private static boolean isExtracting(final CoprocessorSettings coprocessorSettings) {
+        return coprocessorSettings.extractValues()
+                && coprocessorSettings.getExtractionPipeline() != null
+                && coprocessorSettings.getExtractionPipeline().getUuid() != null;
+    }
+
+    /**
+     * Add the names of all fields referenced as parameters, e.g. ${EventTime}, in a field expression.
+     */
+    static void addFieldReferences(final String expression, final Set<String> fieldNames) {
+        if (expression == null) {
+            return;
+        }
+
+        int start = expression.indexOf(PARAM_START);
+        while (start != -1) {
+            final int end = expression.indexOf(PARAM_END, start + PARAM_START.length());
+            if (end == -1) {
+                return;
+            }
+            fieldNames.add(expression.substring(start + PARAM_START.length(), end));
+            start = expression.indexOf(PARAM_START, end + 1);
+        }
+    }
+}
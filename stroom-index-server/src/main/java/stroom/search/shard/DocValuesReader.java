@@ -0,0 +1,136 @@
+/*
+ * Copyright 2018 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package stroom.search.shard;
+
+import org.apache.lucene.index.DocValuesType;
+import org.apache.lucene.index.FieldInfo;
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.LeafReader;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.index.NumericDocValues;
+import org.apache.lucene.index.ReaderUtil;
+import org.apache.lucene.index.SortedDocValues;
+import org.apache.lucene.util.Bits;
+import org.apache.lucene.util.BytesRef;
+import stroom.dashboard.expression.v1.Val;
+import stroom.dashboard.expression.v1.ValString;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Reads the values of requested fields for search hits from doc values
+ * columns wherever the segment containing the hit has them. Only fields
+ * without a doc value need to be read from stored fields so searches that only
+ * need doc values fields, e.g. counts by a field over time, avoid loading
+ * stored documents altogether.
+ * <p>
+ * Hits are collected in doc id order so the column readers for a segment are
+ * only created when the search moves on to the next segment.
+ */
+class DocValuesReader {
+    private final List<LeafReaderContext> leaves;
+    private final String[] fieldNames;
+    private final NumericDocValues[] numericValues;
+    private final Bits[] docsWithField;
+    private final SortedDocValues[] sortedValues;
+
+    private int leafIndex = -1;
+    private int docBase;
+    private int maxDoc;
+
+    DocValuesReader(final IndexReader indexReader, final String[] fieldNames) {
+        this.leaves = indexReader.leaves();
+        this.fieldNames = fieldNames;
+        this.numericValues = new NumericDocValues[fieldNames.length];
+        this.docsWithField = new Bits[fieldNames.length];
+        this.sortedValues = new SortedDocValues[fieldNames.length];
+    }
+
+    /**
+     * Read the doc values of the requested fields for the supplied doc. The
+     * names of fields that have no doc value for the doc are added to the
+     * supplied set so that they can be loaded from stored fields instead. This
+     * covers shards written before doc values were enabled for a field.
+     *
+     * @return An array of values in the order of the requested fields or null
+     * if no doc values were found.
+     */
+    Val[] read(final int docId, final Set<String> missingFieldNames) throws IOException {
+        setLeaf(docId);
+
+        final int doc = docId - docBase;
+        Val[] values = null;
+        for (int i = 0; i < fieldNames.length; i++) {
+            String value = null;
+            if (numericValues[i] != null) {
+                if (docsWithField[i].get(doc)) {
+                    value = String.valueOf(numericValues[i].get(doc));
+                }
+            } else if (sortedValues[i] != null) {
+                final int ord = sortedValues[i].getOrd(doc);
+                if (ord != -1) {
+                    final BytesRef bytesRef = sortedValues[i].lookupOrd(ord);
+                    // Trim in the same way as stored values so that sort keys match the values we display.
+                    value = bytesRef.utf8ToString().trim();
+                }
+            }
+
+            if (value == null) {
+                missingFieldNames.add(fieldNames[i]);
+            } else if (value.length() > 0) {
+                if (values == null) {
+                    values = new Val[fieldNames.length];
+                }
+                values[i] = ValString.create(value);
+            }
+        }
+        return values;
+    }
+
+    private void setLeaf(final int docId) throws IOException {
+        // Doc ids are normally in order so check the current leaf first.
+        if (leafIndex != -1 && docId >= docBase && docId < docBase + maxDoc) {
+            return;
+        }
+
+        leafIndex = ReaderUtil.subIndex(docId, leaves);
+        final LeafReaderContext context = leaves.get(leafIndex);
+        final LeafReader reader = context.reader();
+        docBase = context.docBase;
+        maxDoc = reader.maxDoc();
+
+        for (int i = 0; i < fieldNames.length; i++) {
+            final String fieldName = fieldNames[i];
+            numericValues[i] = null;
+            docsWithField[i] = null;
+            sortedValues[i] = null;
+
+            final FieldInfo fieldInfo = reader.getFieldInfos().fieldInfo(fieldName);
+            final DocValuesType docValuesType = fieldInfo == null ? DocValuesType.NONE : fieldInfo.getDocValuesType();
+            if (DocValuesType.NUMERIC.equals(docValuesType)) {
+                docsWithField[i] = reader.getDocsWithField(fieldName);
+                if (docsWithField[i] != null) {
+                    numericValues[i] = reader.getNumericDocValues(fieldName);
+                }
+            } else if (DocValuesType.SORTED.equals(docValuesType)) {
+                sortedValues[i] = reader.getSortedDocValues(fieldName);
+            }
+        }
+    }
+}
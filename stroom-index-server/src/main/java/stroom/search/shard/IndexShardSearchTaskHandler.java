@@ -41,7 +41,9 @@ import stroom.util.shared.VoidResult;
 
 import javax.inject.Inject;
 import java.io.IOException;
+import java.util.HashSet;
 import java.util.OptionalInt;
+import java.util.Set;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.Executor;
 import java.util.concurrent.LinkedBlockingQueue;
@@ -143,6 +145,12 @@ public class IndexShardSearchTaskHandler {
                 final SearcherManager searcherManager = indexShardSearcher.getSearcherManager();
                 final IndexSearcher searcher = searcherManager.acquire();
                 try {
+                    // Read values from doc values columns where we can and only
+                    // load stored fields for the rest.
+                    final DocValuesReader docValuesReader = new DocValuesReader(searcher.getIndexReader(),
+                            task.getFieldNames());
+                    final Set<String> fieldsToLoad = new HashSet<>();
+
                     final Executor executor = executorProvider.getExecutor(IndexShardSearchTaskProducer.THREAD_POOL);
                     CompletableFuture.runAsync(() -> {
                         taskContext.setName("Index Searcher");
@@ -173,7 +181,7 @@ public class IndexShardSearchTaskHandler {
                         final OptionalInt optDocId = docIdStore.take();
                         if (optDocId.isPresent()) {
                             // If we have a doc id then retrieve the stored data for it.
-                            getStoredData(task, searcher, optDocId.getAsInt());
+                            getStoredData(task, searcher, docValuesReader, fieldsToLoad, optDocId.getAsInt());
                         } else {
                             complete = true;
                         }
@@ -198,28 +206,37 @@ public class IndexShardSearchTaskHandler {
      * This method takes a list of document id's and extracts the stored fields
      * that are required for data display. In some cases such as batch search we
      * only want to get stream and event ids, in these cases no values are
-     * retrieved, only stream and event ids.
+     * retrieved, only stream and event ids. Values are taken from doc values
+     * where possible so stored fields are only loaded for fields that have no
+     * doc value.
      */
-    private void getStoredData(final IndexShardSearchTask task, final IndexSearcher searcher, final int docId) {
+    private void getStoredData(final IndexShardSearchTask task,
+                               final IndexSearcher searcher,
+                               final DocValuesReader docValuesReader,
+                               final Set<String> fieldsToLoad,
+                               final int docId) {
         final String[] fieldNames = task.getFieldNames();
         try {
-            final Document document = searcher.doc(docId);
-            Val[] values = null;
-
-            for (int i = 0; i < fieldNames.length; i++) {
-                final String storedField = fieldNames[i];
-                final IndexableField indexableField = document.getField(storedField);
-
-                // If the field is not in fact stored then it will be null here.
-                if (indexableField != null) {
-                    final String value = indexableField.stringValue();
-                    if (value != null) {
-                        final String trimmed = value.trim();
-                        if (trimmed.length() > 0) {
-                            if (values == null) {
-                                values = new Val[fieldNames.length];
+            fieldsToLoad.clear();
+            Val[] values = docValuesReader.read(docId, fieldsToLoad);
+
+            if (fieldsToLoad.size() > 0) {
+                final Document document = searcher.doc(docId, fieldsToLoad);
+                for (int i = 0; i < fieldNames.length; i++) {
+                    final String storedField = fieldNames[i];
+                    final IndexableField indexableField = document.getField(storedField);
+
+                    // If the field is not in fact stored then it will be null here.
+                    if (indexableField != null && (values == null || values[i] == null)) {
+                        final String value = indexableField.stringValue();
+                        if (value != null) {
+                            final String trimmed = value.trim();
+                            if (trimmed.length() > 0) {
+                                if (values == null) {
+                                    values = new Val[fieldNames.length];
+                                }
+                                values[i] = ValString.create(trimmed);
                             }
-                            values[i] = ValString.create(trimmed);
                         }
                     }
                 }
@@ -0,0 +1,150 @@
+/*
+ * Copyright 2018 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package stroom.index;
+
+import org.apache.lucene.analysis.core.KeywordAnalyzer;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.store.RAMDirectory;
+import org.xml.sax.SAXException;
+import org.xml.sax.helpers.AttributesImpl;
+import stroom.docref.DocRef;
+import stroom.index.shared.IndexDoc;
+import stroom.index.shared.IndexField;
+import stroom.index.shared.IndexField.AnalyzerType;
+import stroom.index.shared.IndexFieldsMap;
+import stroom.pipeline.LocationFactoryProxy;
+import stroom.pipeline.errorhandler.ErrorReceiverProxy;
+import stroom.pipeline.errorhandler.LoggingErrorReceiver;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Compares the cost of building Lucene documents for indexing by creating new
+ * fields and field types for every value against the indexing filter which
+ * reuses them. Documents are written to an in memory index so the results
+ * include the cost of indexing. This is not run as part of the normal build.
+ */
+public class IndexingFilterPerformanceTest {
+    private static final int RECORDS = 500000;
+    private static final int ITERATIONS = 5;
+    private static final String[] USERS = {"user1", "user2", "user3", "user4", "user5"};
+
+    public static void main(final String[] args) throws Exception {
+        new IndexingFilterPerformanceTest().test();
+    }
+
+    public void test() throws Exception {
+        final List<IndexField> indexFields = new ArrayList<>();
+        indexFields.add(IndexField.createIdField("StreamId"));
+        indexFields.add(IndexField.createIdField("EventId"));
+        indexFields.add(IndexField.createDateField("EventTime"));
+        indexFields.add(IndexField.createField("UserId", AnalyzerType.KEYWORD));
+        indexFields.add(IndexField.createField("Action"));
+        indexFields.add(IndexField.createNumericField("Floor"));
+        indexFields.add(IndexField.createField("Command"));
+
+        final IndexDoc index = new IndexDoc();
+        index.setName("Test");
+        index.setIndexFields(indexFields);
+        final IndexConfig indexConfig = new IndexConfig(index, indexFields, new IndexFieldsMap(indexFields));
+
+        for (int i = 0; i < ITERATIONS; i++) {
+            System.out.println("New fields = " + createFields(indexConfig) + "ms");
+            System.out.println("Indexing filter = " + indexingFilter(indexConfig) + "ms");
+        }
+    }
+
+    private long createFields(final IndexConfig indexConfig) throws IOException {
+        final IndexFieldsMap indexFieldsMap = indexConfig.getIndexFieldsMap();
+        try (final IndexWriter writer = createWriter()) {
+            final long start = System.currentTimeMillis();
+            for (int i = 0; i < RECORDS; i++) {
+                final Document document = new Document();
+                document.add(FieldFactory.create(indexFieldsMap.get("StreamId"), 1L));
+                document.add(FieldFactory.create(indexFieldsMap.get("EventId"), (long) i));
+                document.add(FieldFactory.create(indexFieldsMap.get("EventTime"), 1514764800000L + i));
+                document.add(FieldFactory.create(indexFieldsMap.get("UserId"), USERS[i % USERS.length]));
+                document.add(FieldFactory.create(indexFieldsMap.get("Action"), "Authenticate"));
+                document.add(FieldFactory.create(indexFieldsMap.get("Floor"), (long) (i % 10)));
+                document.add(FieldFactory.create(indexFieldsMap.get("Command"), "some command " + i));
+                writer.addDocument(document);
+            }
+            return System.currentTimeMillis() - start;
+        }
+    }
+
+    private long indexingFilter(final IndexConfig indexConfig) throws IOException, SAXException {
+        try (final IndexWriter writer = createWriter()) {
+            final Indexer indexer = (key, document) -> {
+                try {
+                    writer.addDocument(document);
+                } catch (final IOException e) {
+                    throw new RuntimeException(e.getMessage(), e);
+                }
+            };
+            final IndexConfigCache indexConfigCache = new IndexConfigCache() {
+                @Override
+                public IndexConfig get(final DocRef key) {
+                    return indexConfig;
+                }
+
+                @Override
+                public void remove(final DocRef key) {
+                }
+            };
+
+            final IndexingFilter filter = new IndexingFilter(null, new LocationFactoryProxy(), indexer,
+                    new ErrorReceiverProxy(new LoggingErrorReceiver()), indexConfigCache);
+            filter.setIndex(new DocRef(IndexDoc.DOCUMENT_TYPE, "test", "Test"));
+            filter.startProcessing();
+
+            final long start = System.currentTimeMillis();
+            filter.startDocument();
+            filter.startElement("", "records", "records", new AttributesImpl());
+            for (int i = 0; i < RECORDS; i++) {
+                filter.startElement("", "record", "record", new AttributesImpl());
+                data(filter, "StreamId", "1");
+                data(filter, "EventId", String.valueOf(i));
+                data(filter, "EventTime", "2018-01-01T00:00:00.000Z");
+                data(filter, "UserId", USERS[i % USERS.length]);
+                data(filter, "Action", "Authenticate");
+                data(filter, "Floor", String.valueOf(i % 10));
+                data(filter, "Command", "some command " + i);
+                filter.endElement("", "record", "record");
+            }
+            filter.endElement("", "records", "records");
+            filter.endDocument();
+            return System.currentTimeMillis() - start;
+        }
+    }
+
+    private void data(final IndexingFilter filter, final String name, final String value) throws SAXException {
+        final AttributesImpl atts = new AttributesImpl();
+        atts.addAttribute("", "name", "name", "CDATA", name);
+        atts.addAttribute("", "value", "value", "CDATA", value);
+        filter.startElement("", "data", "data", atts);
+        filter.endElement("", "data", "data");
+    }
+
+    private IndexWriter createWriter() throws IOException {
+        return new IndexWriter(new RAMDirectory(), new IndexWriterConfig(new KeywordAnalyzer()));
+    }
+}
@@ -17,8 +17,15 @@
 package stroom.index;
 
 import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.FieldType;
+import org.apache.lucene.document.LongField;
+import org.apache.lucene.document.NumericDocValuesField;
+import org.apache.lucene.document.SortedDocValuesField;
+import org.apache.lucene.index.DocValuesType;
 import org.apache.lucene.index.IndexWriter;
 import org.apache.lucene.index.IndexableField;
+import org.apache.lucene.util.BytesRef;
 import stroom.index.shared.IndexShard;
 import stroom.index.shared.IndexShardKey;
 
@@ -56,10 +63,11 @@ public class MockIndexShardWriter implements IndexShardWriter {
                 throw new IndexException("Shard is full");
             }
 
-            // Create a new document and copy the fields.
+            // Create a new document and copy the fields. The field values
+            // must be copied as the indexing filter reuses field instances.
             final Document doc = new Document();
             for (final IndexableField field : document.getFields()) {
-                doc.add(field);
+                doc.add(copy(field));
             }
             documents.add(doc);
 
@@ -69,6 +77,18 @@ public class MockIndexShardWriter implements IndexShardWriter {
         }
     }
 
+    private IndexableField copy(final IndexableField field) {
+        final FieldType fieldType = (FieldType) field.fieldType();
+        if (DocValuesType.NUMERIC.equals(fieldType.docValuesType())) {
+            return new NumericDocValuesField(field.name(), field.numericValue().longValue());
+        } else if (DocValuesType.SORTED.equals(fieldType.docValuesType())) {
+            return new SortedDocValuesField(field.name(), BytesRef.deepCopyOf(field.binaryValue()));
+        } else if (field.numericValue() != null) {
+            return new LongField(field.name(), field.numericValue().longValue(), fieldType);
+        }
+        return new Field(field.name(), field.stringValue(), fieldType);
+    }
+
     List<Document> getDocuments() {
         return documents;
     }
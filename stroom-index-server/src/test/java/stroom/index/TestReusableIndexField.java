@@ -0,0 +1,65 @@
+/*
+ * Copyright 2018 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package stroom.index;
+
+import org.apache.lucene.document.Field;
+import org.junit.Assert;
+import org.junit.Test;
+import stroom.index.shared.IndexField;
+import stroom.util.test.StroomUnitTest;
+
+public class TestReusableIndexField extends StroomUnitTest {
+    @Test
+    public void testReuse() {
+        final IndexField indexField = IndexField.createField("UserId");
+        indexField.setDocValues(true);
+        final ReusableIndexField reusableField = new ReusableIndexField(indexField);
+
+        // Several values of the same field in one record need their own fields.
+        reusableField.setRecord(1);
+        final Field field1 = reusableField.getField("user1");
+        final Field field2 = reusableField.getField("user2");
+        Assert.assertNotSame(field1, field2);
+        Assert.assertEquals("user1", field1.stringValue());
+        Assert.assertEquals("user2", field2.stringValue());
+
+        // Only one doc value is allowed per record.
+        Assert.assertTrue(reusableField.canAddDocValues());
+        final Field docValuesField = reusableField.getDocValuesField("user1");
+        Assert.assertFalse(reusableField.canAddDocValues());
+
+        // The next record reuses the same instances.
+        reusableField.setRecord(2);
+        Assert.assertTrue(reusableField.canAddDocValues());
+        Assert.assertSame(field1, reusableField.getField("user3"));
+        Assert.assertEquals("user3", field1.stringValue());
+        Assert.assertSame(docValuesField, reusableField.getDocValuesField("user3"));
+        Assert.assertEquals("user3", docValuesField.binaryValue().utf8ToString());
+    }
+
+    @Test
+    public void testDocValuesOnly() {
+        final IndexField indexField = IndexField.createField("UserId", IndexField.AnalyzerType.KEYWORD, false, false,
+                false, false);
+        indexField.setDocValues(true);
+        final ReusableIndexField reusableField = new ReusableIndexField(indexField);
+
+        Assert.assertFalse(reusableField.hasField());
+        reusableField.setRecord(1);
+        Assert.assertNotNull(reusableField.getDocValuesField("user1"));
+    }
+}
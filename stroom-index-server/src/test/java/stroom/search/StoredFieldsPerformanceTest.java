@@ -0,0 +1,94 @@
+/*
+ * Copyright 2018 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package stroom.search;
+
+import org.apache.lucene.analysis.core.KeywordAnalyzer;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field.Store;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.store.RAMDirectory;
+import stroom.index.shared.IndexConstants;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Compares the cost of retrieving every stored field of a wide index for each
+ * hit against retrieving only the handful of fields that a search needs. This
+ * is not run as part of the normal build.
+ */
+public class StoredFieldsPerformanceTest {
+    private static final int FIELD_COUNT = 60;
+    private static final int DOC_COUNT = 100000;
+    private static final int ITERATIONS = 5;
+
+    public static void main(final String[] args) throws IOException {
+        new StoredFieldsPerformanceTest().test();
+    }
+
+    public void test() throws IOException {
+        try (final Directory directory = new RAMDirectory()) {
+            createIndex(directory);
+
+            try (final DirectoryReader reader = DirectoryReader.open(directory)) {
+                final IndexSearcher searcher = new IndexSearcher(reader);
+                final Set<String> required = new HashSet<>(Arrays.asList(
+                        IndexConstants.STREAM_ID, IndexConstants.EVENT_ID, "Field1", "Field2", "Field3"));
+
+                for (int i = 0; i < ITERATIONS; i++) {
+                    long start = System.currentTimeMillis();
+                    long count = 0;
+                    for (int docId = 0; docId < DOC_COUNT; docId++) {
+                        count += searcher.doc(docId).getFields().size();
+                    }
+                    System.out.println("All stored fields (" + count + " values) = " +
+                            (System.currentTimeMillis() - start) + "ms");
+
+                    start = System.currentTimeMillis();
+                    count = 0;
+                    for (int docId = 0; docId < DOC_COUNT; docId++) {
+                        count += searcher.doc(docId, required).getFields().size();
+                    }
+                    System.out.println("Required stored fields (" + count + " values) = " +
+                            (System.currentTimeMillis() - start) + "ms");
+                }
+            }
+        }
+    }
+
+    private void createIndex(final Directory directory) throws IOException {
+        try (final IndexWriter writer = new IndexWriter(directory, new IndexWriterConfig(new KeywordAnalyzer()))) {
+            for (int i = 0; i < DOC_COUNT; i++) {
+                final Document document = new Document();
+                document.add(new StringField(IndexConstants.STREAM_ID, String.valueOf(i / 1000), Store.YES));
+                document.add(new StringField(IndexConstants.EVENT_ID, String.valueOf(i % 1000), Store.YES));
+                for (int field = 1; field <= FIELD_COUNT; field++) {
+                    document.add(new StringField("Field" + field, "value " + field + " of document " + i, Store.YES));
+                }
+                writer.addDocument(document);
+            }
+            writer.commit();
+        }
+    }
+}
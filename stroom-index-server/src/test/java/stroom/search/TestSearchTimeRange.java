@@ -0,0 +1,103 @@
+/*
+ * Copyright 2018 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package stroom.search;
+
+import org.junit.Assert;
+import org.junit.Test;
+import stroom.index.shared.IndexField;
+import stroom.index.shared.IndexFieldsMap;
+import stroom.index.shared.IndexShard;
+import stroom.index.shared.IndexShard.IndexShardStatus;
+import stroom.query.api.v2.ExpressionOperator;
+import stroom.query.api.v2.ExpressionOperator.Op;
+import stroom.query.api.v2.ExpressionTerm.Condition;
+import stroom.util.test.StroomUnitTest;
+
+import java.time.Instant;
+import java.util.Arrays;
+
+public class TestSearchTimeRange extends StroomUnitTest {
+    private static final IndexFieldsMap INDEX_FIELDS = new IndexFieldsMap(Arrays.asList(
+            IndexField.createDateField("EventTime"),
+            IndexField.createField("UserId")));
+    private static final long NOW = Instant.parse("2018-06-01T12:00:00.000Z").toEpochMilli();
+
+    @Test
+    public void testBetween() {
+        final ExpressionOperator expression = new ExpressionOperator.Builder()
+                .addTerm("UserId", Condition.EQUALS, "user5")
+                .addTerm("EventTime", Condition.BETWEEN, "2018-01-01T00:00:00.000Z,2018-02-01T00:00:00.000Z")
+                .build();
+        final SearchTimeRange timeRange = SearchTimeRange.create(expression, INDEX_FIELDS, "Z", NOW);
+
+        Assert.assertTrue(timeRange.isBounded());
+        Assert.assertTrue(timeRange.mayContain(createShard(IndexShardStatus.CLOSED, "2017-12-01T00:00:00.000Z", "2018-01-10T00:00:00.000Z")));
+        Assert.assertFalse(timeRange.mayContain(createShard(IndexShardStatus.CLOSED, "2017-01-01T00:00:00.000Z", "2017-12-31T00:00:00.000Z")));
+        Assert.assertFalse(timeRange.mayContain(createShard(IndexShardStatus.CLOSED, "2018-03-01T00:00:00.000Z", "2018-04-01T00:00:00.000Z")));
+    }
+
+    @Test
+    public void testNestedAndRelative() {
+        final ExpressionOperator expression = new ExpressionOperator.Builder()
+                .addOperator(new ExpressionOperator.Builder()
+                        .addTerm("EventTime", Condition.GREATER_THAN_OR_EQUAL_TO, "now()-1h")
+                        .build())
+                .build();
+        final SearchTimeRange timeRange = SearchTimeRange.create(expression, INDEX_FIELDS, "Z", NOW);
+
+        Assert.assertEquals(NOW - 3600000, timeRange.getFrom());
+        Assert.assertEquals(Long.MAX_VALUE, timeRange.getTo());
+        Assert.assertFalse(timeRange.mayContain(createShard(IndexShardStatus.CLOSED, "2018-05-01T00:00:00.000Z", "2018-06-01T10:00:00.000Z")));
+    }
+
+    @Test
+    public void testUnbounded() {
+        // Terms under OR operators don't restrict the range of every result.
+        final ExpressionOperator expression = new ExpressionOperator.Builder(Op.OR)
+                .addTerm("EventTime", Condition.GREATER_THAN, "2018-01-01T00:00:00.000Z")
+                .addTerm("UserId", Condition.EQUALS, "user5")
+                .build();
+        final SearchTimeRange timeRange = SearchTimeRange.create(expression, INDEX_FIELDS, "Z", NOW);
+
+        Assert.assertFalse(timeRange.isBounded());
+        Assert.assertTrue(timeRange.mayContain(createShard(IndexShardStatus.CLOSED, "2017-01-01T00:00:00.000Z", "2017-02-01T00:00:00.000Z")));
+    }
+
+    @Test
+    public void testUnknownShardRange() {
+        final ExpressionOperator expression = new ExpressionOperator.Builder()
+                .addTerm("EventTime", Condition.LESS_THAN, "2018-01-01T00:00:00.000Z")
+                .build();
+        final SearchTimeRange timeRange = SearchTimeRange.create(expression, INDEX_FIELDS, "Z", NOW);
+
+        // Open shards and shards without a recorded range must always be searched.
+        Assert.assertTrue(timeRange.mayContain(createShard(IndexShardStatus.OPEN, "2018-03-01T00:00:00.000Z", "2018-04-01T00:00:00.000Z")));
+        Assert.assertTrue(timeRange.mayContain(createShard(IndexShardStatus.CLOSED, null, null)));
+    }
+
+    private IndexShard createShard(final IndexShardStatus status, final String minTime, final String maxTime) {
+        final IndexShard indexShard = new IndexShard();
+        indexShard.setStatus(status);
+        if (minTime != null) {
+            indexShard.setMinTime(Instant.parse(minTime).toEpochMilli());
+        }
+        if (maxTime != null) {
+            indexShard.setMaxTime(Instant.parse(maxTime).toEpochMilli());
+        }
+        return indexShard;
+    }
+}
@@ -0,0 +1,90 @@
+/*
+ * Copyright 2018 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package stroom.search;
+
+import org.junit.Assert;
+import org.junit.Test;
+import stroom.docref.DocRef;
+import stroom.query.api.v2.ExpressionOperator;
+import stroom.query.api.v2.ExpressionTerm.Condition;
+import stroom.query.api.v2.Field;
+import stroom.query.api.v2.Query;
+import stroom.query.api.v2.QueryKey;
+import stroom.query.api.v2.ResultRequest;
+import stroom.query.api.v2.ResultRequest.Fetch;
+import stroom.query.api.v2.SearchRequest;
+import stroom.query.api.v2.TableSettings;
+import stroom.util.test.StroomUnitTest;
+
+import java.time.ZoneOffset;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+
+public class TestSharedSearchKey extends StroomUnitTest {
+    private static final DocRef INDEX = new DocRef("Index", "d6a6c8f8-a7d2-4a33-aa7e-1a27e4a6d1b2", "Test index");
+
+    @Test
+    public void testSameSearchFromDifferentRequesters() {
+        final SharedSearchKey key1 = SharedSearchKey.create(createRequest("user5", "table-1", null), 1, "scope");
+        final SharedSearchKey key2 = SharedSearchKey.create(createRequest("user5", "table-1", Collections.singletonList("group")), 1, "scope");
+
+        Assert.assertEquals(key1, key2);
+        Assert.assertEquals(key1.hashCode(), key2.hashCode());
+    }
+
+    @Test
+    public void testDifferentExpression() {
+        final SharedSearchKey key1 = SharedSearchKey.create(createRequest("user5", "table-1", null), 1, "scope");
+        final SharedSearchKey key2 = SharedSearchKey.create(createRequest("user6", "table-1", null), 1, "scope");
+
+        Assert.assertNotEquals(key1, key2);
+    }
+
+    @Test
+    public void testDifferentComponent() {
+        final SharedSearchKey key1 = SharedSearchKey.create(createRequest("user5", "table-1", null), 1, "scope");
+        final SharedSearchKey key2 = SharedSearchKey.create(createRequest("user5", "table-2", null), 1, "scope");
+
+        Assert.assertNotEquals(key1, key2);
+    }
+
+    @Test
+    public void testDifferentTimeBucketAndScope() {
+        final SearchRequest searchRequest = createRequest("user5", "table-1", null);
+
+        Assert.assertNotEquals(SharedSearchKey.create(searchRequest, 1, "scope"), SharedSearchKey.create(searchRequest, 2, "scope"));
+        Assert.assertNotEquals(SharedSearchKey.create(searchRequest, 1, "scope"), SharedSearchKey.create(searchRequest, 1, "other"));
+    }
+
+    private SearchRequest createRequest(final String user, final String componentId, final List<String> openGroups) {
+        final ExpressionOperator expression = new ExpressionOperator.Builder()
+                .addTerm("UserId", Condition.EQUALS, user)
+                .addTerm("EventTime", Condition.BETWEEN, "2000-01-01T00:00:00.000Z,2016-01-02T00:00:00.000Z")
+                .build();
+        final Query query = new Query(INDEX, expression, null);
+
+        final Field field = new Field.Builder()
+                .name("UserId")
+                .expression("${UserId}")
+                .build();
+        final TableSettings tableSettings = new TableSettings(null, Collections.singletonList(field), false, null, null, null);
+        final ResultRequest resultRequest = new ResultRequest(componentId, Collections.singletonList(tableSettings), null, openGroups, ResultRequest.ResultStyle.TABLE, Fetch.CHANGES);
+
+        return new SearchRequest(new QueryKey(UUID.randomUUID().toString()), query, Collections.singletonList(resultRequest), ZoneOffset.UTC.getId(), false);
+    }
+}
@@ -0,0 +1,229 @@
+/*
+ * Copyright 2018 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package stroom.search;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+import stroom.docref.DocRef;
+import stroom.entity.shared.BaseResultList;
+import stroom.feed.FeedService;
+import stroom.feed.shared.Feed;
+import stroom.feed.shared.FindFeedCriteria;
+import stroom.properties.MockStroomPropertyService;
+import stroom.query.api.v2.ExpressionOperator;
+import stroom.query.api.v2.ExpressionTerm.Condition;
+import stroom.query.api.v2.Query;
+import stroom.query.api.v2.QueryKey;
+import stroom.query.api.v2.ResultRequest;
+import stroom.query.api.v2.ResultRequest.Fetch;
+import stroom.query.api.v2.SearchRequest;
+import stroom.query.api.v2.TableSettings;
+import stroom.query.common.v2.Store;
+import stroom.security.SecurityContext;
+import stroom.util.test.StroomUnitTest;
+
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+public class TestSharedSearchRegistry extends StroomUnitTest {
+    private static final DocRef INDEX = new DocRef("Index", "d6a6c8f8-a7d2-4a33-aa7e-1a27e4a6d1b2", "Test index");
+
+    private final MockStroomPropertyService propertyService = new MockStroomPropertyService();
+    private final SecurityContext securityContext = Mockito.mock(SecurityContext.class);
+    private final FeedService feedService = Mockito.mock(FeedService.class);
+    private final List<ClusterSearchResultCollector> collectors = new ArrayList<>();
+    private SharedSearchRegistry registry;
+
+    @Before
+    public void setup() {
+        propertyService.setProperty(SharedSearchRegistry.PROP_KEY_TIME_BUCKET, "1m");
+        propertyService.setProperty(SharedSearchRegistry.PROP_KEY_RETAIN_COMPLETED, "0");
+        Mockito.when(securityContext.getUserId()).thenReturn("user1");
+        setReadableFeeds("feed1", "feed2");
+        registry = new SharedSearchRegistry(propertyService, securityContext, feedService);
+    }
+
+    @Test
+    public void testShareBetweenUsersWithSameFeeds() {
+        final SearchRequest searchRequest = createRequest("table-1");
+        final Store store1 = registry.getOrCreate(searchRequest, 0, this::createCollector);
+
+        Mockito.when(securityContext.getUserId()).thenReturn("user2");
+        setReadableFeeds("feed2", "feed1");
+        final Store store2 = registry.getOrCreate(searchRequest, 0, this::createCollector);
+
+        Assert.assertEquals(1, collectors.size());
+
+        // The search should only be destroyed once both requesters have gone.
+        store1.destroy();
+        Mockito.verify(collectors.get(0), Mockito.never()).destroy();
+        store2.destroy();
+        Mockito.verify(collectors.get(0), Mockito.times(1)).destroy();
+    }
+
+    @Test
+    public void testNoSharingBetweenUsersWithDifferentFeeds() {
+        final SearchRequest searchRequest = createRequest("table-1");
+        registry.getOrCreate(searchRequest, 0, this::createCollector);
+
+        Mockito.when(securityContext.getUserId()).thenReturn("user2");
+        setReadableFeeds("feed1");
+        registry.getOrCreate(searchRequest, 0, this::createCollector);
+
+        Assert.assertEquals(2, collectors.size());
+    }
+
+    @Test
+    public void testDestroyOnlyReleasesOnce() {
+        final SearchRequest searchRequest = createRequest("table-1");
+        final Store store1 = registry.getOrCreate(searchRequest, 0, this::createCollector);
+        registry.getOrCreate(searchRequest, 0, this::createCollector);
+
+        store1.destroy();
+        store1.destroy();
+        Mockito.verify(collectors.get(0), Mockito.never()).destroy();
+    }
+
+    @Test
+    public void testRetainCompletedAndEvict() {
+        propertyService.setProperty(SharedSearchRegistry.PROP_KEY_RETAIN_COMPLETED, "1m");
+
+        final SearchRequest searchRequest = createRequest("table-1");
+        final Store store1 = registry.getOrCreate(searchRequest, 0, this::createCollector);
+        Mockito.when(collectors.get(0).isComplete()).thenReturn(true);
+
+        // The completed search should be kept for a new requester.
+        store1.destroy();
+        Mockito.verify(collectors.get(0), Mockito.never()).destroy();
+        final Store store2 = registry.getOrCreate(searchRequest, 0, this::createCollector);
+        Assert.assertEquals(1, collectors.size());
+
+        // The search was started in a time bucket that has now passed but it must not be evicted while in use.
+        registry.evictExpiredElements();
+        Mockito.verify(collectors.get(0), Mockito.never()).destroy();
+
+        store2.destroy();
+        registry.evictExpiredElements();
+        Mockito.verify(collectors.get(0), Mockito.times(1)).destroy();
+
+        // A new search must be started now the old one has gone.
+        registry.getOrCreate(searchRequest, 0, this::createCollector);
+        Assert.assertEquals(2, collectors.size());
+    }
+
+    @Test
+    public void testCreationFailure() {
+        final SearchRequest searchRequest = createRequest("table-1");
+        try {
+            registry.getOrCreate(searchRequest, 0, () -> {
+                throw new RuntimeException("Failed");
+            });
+            Assert.fail("Expected exception");
+        } catch (final RuntimeException e) {
+            Assert.assertEquals("Failed", e.getMessage());
+        }
+
+        // The failed search must not be shared.
+        registry.getOrCreate(searchRequest, 0, this::createCollector);
+        Assert.assertEquals(1, collectors.size());
+    }
+
+    @Test
+    public void testCreationDoesNotBlockOtherSearches() throws Exception {
+        final CountDownLatch creating = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        final AtomicInteger slowCreated = new AtomicInteger();
+
+        final Supplier<ClusterSearchResultCollector> slowFactory = () -> {
+            creating.countDown();
+            try {
+                release.await();
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            slowCreated.incrementAndGet();
+            return Mockito.mock(ClusterSearchResultCollector.class);
+        };
+
+        final ExecutorService executor = Executors.newFixedThreadPool(3);
+        final CompletableFuture<Store> slow = CompletableFuture.supplyAsync(() ->
+                registry.getOrCreate(createRequest("table-1"), 0, slowFactory), executor);
+        try {
+            Assert.assertTrue(creating.await(10, TimeUnit.SECONDS));
+
+            // A different search can be started while the first is still being created.
+            final CompletableFuture<Store> other = CompletableFuture.supplyAsync(() ->
+                    registry.getOrCreate(createRequest("table-2"), 0, this::createCollector), executor);
+            Assert.assertNotNull(other.get(10, TimeUnit.SECONDS));
+
+            // An identical search waits for the first to be created and then shares it.
+            final CompletableFuture<Store> same = CompletableFuture.supplyAsync(() ->
+                    registry.getOrCreate(createRequest("table-1"), 0, slowFactory), executor);
+            Assert.assertFalse(same.isDone());
+
+            release.countDown();
+            Assert.assertNotNull(slow.get(10, TimeUnit.SECONDS));
+            Assert.assertNotNull(same.get(10, TimeUnit.SECONDS));
+            Assert.assertEquals(1, slowCreated.get());
+        } finally {
+            release.countDown();
+            executor.shutdown();
+        }
+    }
+
+    private ClusterSearchResultCollector createCollector() {
+        final ClusterSearchResultCollector collector = Mockito.mock(ClusterSearchResultCollector.class);
+        collectors.add(collector);
+        return collector;
+    }
+
+    private void setReadableFeeds(final String... uuids) {
+        final List<Feed> feeds = new ArrayList<>();
+        Arrays.stream(uuids).forEach(uuid -> {
+            final Feed feed = new Feed();
+            feed.setUuid(uuid);
+            feeds.add(feed);
+        });
+        Mockito.when(feedService.find(Mockito.any(FindFeedCriteria.class)))
+                .thenReturn(BaseResultList.createUnboundedList(feeds));
+    }
+
+    private SearchRequest createRequest(final String componentId) {
+        final ExpressionOperator expression = new ExpressionOperator.Builder()
+                .addTerm("UserId", Condition.EQUALS, "user5")
+                .build();
+        final Query query = new Query(INDEX, expression, null);
+        final TableSettings tableSettings = new TableSettings(null, Collections.emptyList(), false, null, null, null);
+        final ResultRequest resultRequest = new ResultRequest(componentId, Collections.singletonList(tableSettings), null, null, ResultRequest.ResultStyle.TABLE, Fetch.CHANGES);
+
+        return new SearchRequest(new QueryKey(UUID.randomUUID().toString()), query, Collections.singletonList(resultRequest), ZoneOffset.UTC.getId(), false);
+    }
+}
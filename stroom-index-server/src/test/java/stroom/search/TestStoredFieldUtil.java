@@ -0,0 +1,108 @@
+/*
+ * Copyright 2018 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package stroom.search;
+
+import org.junit.Assert;
+import org.junit.Test;
+import stroom.docref.DocRef;
+import stroom.index.shared.IndexConstants;
+import stroom.index.shared.IndexDoc;
+import stroom.index.shared.IndexField;
+import stroom.index.shared.IndexField.AnalyzerType;
+import stroom.query.api.v2.Field;
+import stroom.query.api.v2.TableSettings;
+import stroom.query.common.v2.CoprocessorSettings;
+import stroom.query.common.v2.CoprocessorSettingsMap.CoprocessorKey;
+import stroom.query.common.v2.TableCoprocessorSettings;
+import stroom.util.test.StroomUnitTest;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+public class TestStoredFieldUtil extends StroomUnitTest {
+    @Test
+    public void testBatchSearch() {
+        final Map<CoprocessorKey, CoprocessorSettings> coprocessorMap = new HashMap<>();
+        coprocessorMap.put(new CoprocessorKey(1, new String[]{"batch"}),
+                new EventCoprocessorSettings(null, null, 100, 100, 100));
+
+        Assert.assertEquals(Arrays.asList(IndexConstants.STREAM_ID, IndexConstants.EVENT_ID),
+                getFieldNames(StoredFieldUtil.getStoredFields(createIndex(), coprocessorMap)));
+    }
+
+    @Test
+    public void testTable() {
+        final TableSettings tableSettings = new TableSettings.Builder()
+                .addFields(new Field.Builder().name("Time").expression("${Field1}").build())
+                .addFields(new Field.Builder().name("Both").expression("concat(${Field2}, ' ', ${Field3})").build())
+                .addFields(new Field.Builder().name("Count").expression("count()").build())
+                .addFields(new Field.Builder().name("Unstored").expression("${Unstored}").build())
+                .addFields(new Field.Builder().name("Column").expression("${Column}").build())
+                .extractValues(false)
+                .build();
+        final Map<CoprocessorKey, CoprocessorSettings> coprocessorMap = new HashMap<>();
+        coprocessorMap.put(new CoprocessorKey(1, new String[]{"table"}), new TableCoprocessorSettings(tableSettings));
+
+        Assert.assertEquals(Arrays.asList(IndexConstants.STREAM_ID, IndexConstants.EVENT_ID, "Field1", "Field2", "Field3", "Column"),
+                getFieldNames(StoredFieldUtil.getStoredFields(createIndex(), coprocessorMap)));
+    }
+
+    @Test
+    public void testExtractingTable() {
+        // Tables that extract values get them from the pipeline rather than the index.
+        final TableSettings tableSettings = new TableSettings.Builder()
+                .addFields(new Field.Builder().name("Time").expression("${Field1}").build())
+                .extractValues(true)
+                .extractionPipeline(new DocRef("Pipeline", "12345", "Extraction"))
+                .build();
+        final Map<CoprocessorKey, CoprocessorSettings> coprocessorMap = new HashMap<>();
+        coprocessorMap.put(new CoprocessorKey(1, new String[]{"table"}), new TableCoprocessorSettings(tableSettings));
+
+        Assert.assertEquals(Arrays.asList(IndexConstants.STREAM_ID, IndexConstants.EVENT_ID),
+                getFieldNames(StoredFieldUtil.getStoredFields(createIndex(), coprocessorMap)));
+    }
+
+    private IndexDoc createIndex() {
+        final List<IndexField> indexFields = new ArrayList<>();
+        indexFields.add(IndexField.createIdField(IndexConstants.STREAM_ID));
+        indexFields.add(IndexField.createIdField(IndexConstants.EVENT_ID));
+        for (int i = 1; i <= 60; i++) {
+            indexFields.add(IndexField.createField("Field" + i, AnalyzerType.ALPHA_NUMERIC, false, true, true, false));
+        }
+        // Unstored fields are never requested.
+        indexFields.add(IndexField.createField("Unstored"));
+        // Doc values fields can be read without being stored.
+        final IndexField column = IndexField.createField("Column");
+        column.setDocValues(true);
+        indexFields.add(column);
+
+        final IndexDoc index = new IndexDoc();
+        index.setIndexFields(indexFields);
+        return index;
+    }
+
+    private List<String> getFieldNames(final IndexField[] indexFields) {
+        final List<String> fieldNames = new ArrayList<>();
+        for (final IndexField indexField : indexFields) {
+            fieldNames.add(indexField.getFieldName());
+        }
+        return fieldNames;
+    }
+}
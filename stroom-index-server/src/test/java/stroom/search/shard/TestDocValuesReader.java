@@ -0,0 +1,104 @@
+/*
+ * Copyright 2018 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package stroom.search.shard;
+
+import org.apache.lucene.analysis.core.KeywordAnalyzer;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field.Store;
+import org.apache.lucene.document.NumericDocValuesField;
+import org.apache.lucene.document.SortedDocValuesField;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.store.RAMDirectory;
+import org.apache.lucene.util.BytesRef;
+import org.junit.Assert;
+import org.junit.Test;
+import stroom.dashboard.expression.v1.Val;
+import stroom.util.test.StroomUnitTest;
+
+import java.io.IOException;
+import java.util.HashSet;
+import java.util.Set;
+
+public class TestDocValuesReader extends StroomUnitTest {
+    private static final String[] FIELD_NAMES = new String[]{"EventTime", "UserId"};
+
+    @Test
+    public void testRead() throws IOException {
+        try (final Directory directory = new RAMDirectory()) {
+            try (final IndexWriter writer = new IndexWriter(directory, new IndexWriterConfig(new KeywordAnalyzer()))) {
+                // The first segment was written before doc values were enabled.
+                final Document oldDocument = new Document();
+                oldDocument.add(new StringField("EventTime", "1000", Store.YES));
+                oldDocument.add(new StringField("UserId", "user1", Store.YES));
+                writer.addDocument(oldDocument);
+                writer.commit();
+
+                final Document newDocument = new Document();
+                newDocument.add(new NumericDocValuesField("EventTime", 2000));
+                newDocument.add(new SortedDocValuesField("UserId", new BytesRef("user2")));
+                writer.addDocument(newDocument);
+
+                // Sparse doc values must not be reported as present.
+                final Document sparseDocument = new Document();
+                sparseDocument.add(new NumericDocValuesField("EventTime", 3000));
+                writer.addDocument(sparseDocument);
+
+                // Padded values must be trimmed the same way as stored values.
+                final Document paddedDocument = new Document();
+                paddedDocument.add(new NumericDocValuesField("EventTime", 4000));
+                paddedDocument.add(new SortedDocValuesField("UserId", new BytesRef("  user4 ")));
+                writer.addDocument(paddedDocument);
+                writer.commit();
+            }
+
+            try (final DirectoryReader reader = DirectoryReader.open(directory)) {
+                final DocValuesReader docValuesReader = new DocValuesReader(reader, FIELD_NAMES);
+                final Set<String> missing = new HashSet<>();
+
+                Val[] values = docValuesReader.read(0, missing);
+                Assert.assertNull(values);
+                Assert.assertEquals(2, missing.size());
+
+                missing.clear();
+                values = docValuesReader.read(1, missing);
+                Assert.assertEquals("2000", values[0].toString());
+                Assert.assertEquals("user2", values[1].toString());
+                Assert.assertTrue(missing.isEmpty());
+
+                missing.clear();
+                values = docValuesReader.read(2, missing);
+                Assert.assertEquals("3000", values[0].toString());
+                Assert.assertNull(values[1]);
+                Assert.assertTrue(missing.contains("UserId"));
+
+                missing.clear();
+                values = docValuesReader.read(3, missing);
+                Assert.assertEquals("4000", values[0].toString());
+                Assert.assertEquals("user4", values[1].toString());
+                Assert.assertTrue(missing.isEmpty());
+
+                // Going back to an earlier segment must still work.
+                missing.clear();
+                Assert.assertNull(docValuesReader.read(0, missing));
+            }
+        }
+    }
+}
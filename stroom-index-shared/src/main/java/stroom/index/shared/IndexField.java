@@ -36,7 +36,7 @@ import java.util.List;
  */
 @XmlAccessorType(XmlAccessType.FIELD)
 @XmlType(name = "indexField", propOrder = {"analyzerType", "caseSensitive", "fieldName", "fieldType", "indexed",
-        "stored", "termPositions"})
+        "stored", "termPositions", "docValues"})
 public class IndexField implements HasDisplayValue, Comparable<IndexField>, Serializable {
     private static final long serialVersionUID = 3100770758821157580L;
 
@@ -59,6 +59,13 @@ public class IndexField implements HasDisplayValue, Comparable<IndexField>, Seri
     @XmlElement(name = "caseSensitive")
     private boolean caseSensitive = false;
 
+    /**
+     * Determines whether the field value is also written as a column of doc
+     * values so that searches can read it without loading stored fields.
+     */
+    @XmlElement(name = "docValues")
+    private boolean docValues = false;
+
     /**
      * Defines a list of the {@link Condition} values supported by this field,
      * can be null in which case a default set will be returned. Not persisted
@@ -197,6 +204,14 @@ public class IndexField implements HasDisplayValue, Comparable<IndexField>, Seri
         this.termPositions = termPositions;
     }
 
+    public boolean isDocValues() {
+        return docValues;
+    }
+
+    public void setDocValues(final boolean docValues) {
+        this.docValues = docValues;
+    }
+
     @JsonIgnore
     public List<Condition> getSupportedConditions() {
         if (supportedConditions == null) {
@@ -59,6 +59,8 @@ public class IndexShard extends AuditedEntity {
             + SQLNameConstants.MS_SUFFIX;
     public static final String PARTITION_TO_TIME = SQLNameConstants.PARTITION + SEP + SQLNameConstants.TO
             + SQLNameConstants.MS_SUFFIX;
+    public static final String MIN_TIME = SQLNameConstants.MIN + SEP + SQLNameConstants.TIME + SQLNameConstants.MS_SUFFIX;
+    public static final String MAX_TIME = SQLNameConstants.MAX + SEP + SQLNameConstants.TIME + SQLNameConstants.MS_SUFFIX;
     public static final String INDEX_UUID = SQLNameConstants.INDEX + SEP + SQLNameConstants.UUID;
     public static final String INDEX_VERSION = SQLNameConstants.INDEX + SEP + SQLNameConstants.VERSION;
     public static final String ENTITY_TYPE = "IndexShard";
@@ -98,6 +100,14 @@ public class IndexShard extends AuditedEntity {
      * The time that the partition that this shard belongs to ends
      */
     private Long partitionToTime;
+    /**
+     * The earliest date field value of any committed document in this shard
+     */
+    private Long minTime;
+    /**
+     * The latest date field value of any committed document in this shard
+     */
+    private Long maxTime;
     /**
      * Number of documents indexed
      */
@@ -190,6 +200,24 @@ public class IndexShard extends AuditedEntity {
         this.partitionToTime = partitionToTime;
     }
 
+    @Column(name = MIN_TIME)
+    public Long getMinTime() {
+        return minTime;
+    }
+
+    public void setMinTime(final Long minTime) {
+        this.minTime = minTime;
+    }
+
+    @Column(name = MAX_TIME)
+    public Long getMaxTime() {
+        return maxTime;
+    }
+
+    public void setMaxTime(final Long maxTime) {
+        this.maxTime = maxTime;
+    }
+
     @Column(name = SQLNameConstants.STATUS, nullable = false)
     public byte getPstatus() {
         return pstatus;
@@ -19,18 +19,36 @@ package stroom.jobsystem;
 import org.junit.Assert;
 import org.junit.Test;
 import stroom.entity.StroomDatabaseInfo;
+import stroom.entity.StroomEntityManager;
+import stroom.entity.shared.SQLNameConstants;
+import stroom.entity.util.SqlBuilder;
+import stroom.jobsystem.shared.ClusterLock;
+import stroom.persist.EntityManagerSupport;
 import stroom.test.AbstractCoreIntegrationTest;
 
 import javax.inject.Inject;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 public class TestClusterLockService extends AbstractCoreIntegrationTest {
     @Inject
     private ClusterLockServiceInnerTransactions testClusterLockServiceTransaction;
     @Inject
     private StroomDatabaseInfo stroomDatabaseInfo;
+    @Inject
+    private ClusterLockService clusterLockService;
+    @Inject
+    private ClusterLockServiceTransactionHelper clusterLockServiceTransactionHelper;
+    @Inject
+    private StroomEntityManager stroomEntityManager;
+    @Inject
+    private EntityManagerSupport entityManagerSupport;
 
     @Test
     public void test() throws InterruptedException {
@@ -67,4 +85,150 @@ public class TestClusterLockService extends AbstractCoreIntegrationTest {
             Assert.assertEquals(2, sequence.get(2).intValue());
         }
     }
+
+    @Test
+    public void testLeaseMutualExclusion() throws Exception {
+        final String lockName = "TEST_LEASE_EXCLUSION";
+        final ClusterLease lease1 = clusterLockService.acquireLease(lockName);
+
+        final ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            final Future<ClusterLease> future = executor.submit(() -> clusterLockService.acquireLease(lockName));
+
+            // The second holder has to wait until the first has released the lease.
+            try {
+                future.get(1, TimeUnit.SECONDS);
+                Assert.fail("Lease acquired while it was still held");
+            } catch (final TimeoutException e) {
+                // Expected.
+            }
+
+            clusterLockService.releaseLease(lease1);
+            final ClusterLease lease2 = future.get(10, TimeUnit.SECONDS);
+            Assert.assertNotEquals(lease1.getHolder(), lease2.getHolder());
+            Assert.assertTrue(lease2.getToken() > lease1.getToken());
+            clusterLockService.releaseLease(lease2);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testLeaseAcquiredAfterExpiry() {
+        final String lockName = "TEST_LEASE_EXPIRY";
+        final ClusterLease lease1 = clusterLockService.acquireLease(lockName);
+        expireLease(lockName);
+
+        // The lease can be taken without the first holder releasing it.
+        final ClusterLease lease2 = clusterLockService.acquireLease(lockName);
+        Assert.assertTrue(lease2.getToken() > lease1.getToken());
+
+        entityManagerSupport.transaction(entityManager -> clusterLockService.checkLease(lease2));
+        clusterLockService.releaseLease(lease2);
+    }
+
+    @Test
+    public void testCheckLeaseRollsBackAfterTokenChanges() {
+        final String lockName = "TEST_LEASE_ROLLBACK";
+        final String markerName = "TEST_LEASE_ROLLBACK_MARKER";
+        clusterLockServiceTransactionHelper.checkLockCreated(markerName);
+
+        final ClusterLease lease1 = clusterLockService.acquireLease(lockName);
+        expireLease(lockName);
+        final ClusterLease lease2 = clusterLockService.acquireLease(lockName);
+
+        // Work done by the old holder in the same transaction as its check must not be committed.
+        try {
+            entityManagerSupport.transaction(entityManager -> {
+                setLeaseToken(markerName, 42);
+                clusterLockService.checkLease(lease1);
+            });
+            Assert.fail("Expected the lease check to fail");
+        } catch (final ClusterLeaseLostException e) {
+            // Expected.
+        }
+        Assert.assertEquals(0, getLeaseToken(markerName));
+
+        // The same work is committed for the current holder.
+        entityManagerSupport.transaction(entityManager -> {
+            setLeaseToken(markerName, 42);
+            clusterLockService.checkLease(lease2);
+        });
+        Assert.assertEquals(42, getLeaseToken(markerName));
+        clusterLockService.releaseLease(lease2);
+    }
+
+    @Test
+    public void testReleaseByNonHolderIsIgnored() {
+        final String lockName = "TEST_LEASE_RELEASE";
+        final ClusterLease lease1 = clusterLockService.acquireLease(lockName);
+        expireLease(lockName);
+        final ClusterLease lease2 = clusterLockService.acquireLease(lockName);
+
+        // Neither the previous holder nor somebody who never held the lease can release it.
+        clusterLockService.releaseLease(lease1);
+        clusterLockService.releaseLease(new ClusterLease(lockName, "someone-else", lease2.getToken(), 0));
+        Assert.assertEquals(lease2.getHolder(), getLeaseHolder(lockName));
+        entityManagerSupport.transaction(entityManager -> clusterLockService.checkLease(lease2));
+
+        clusterLockService.releaseLease(lease2);
+        Assert.assertNull(getLeaseHolder(lockName));
+    }
+
+    private void expireLease(final String lockName) {
+        final SqlBuilder sql = new SqlBuilder();
+        sql.append("UPDATE ");
+        sql.append(ClusterLock.TABLE_NAME);
+        sql.append(" SET ");
+        sql.append(ClusterLock.LEASE_EXPIRY_MS);
+        sql.append(" = ");
+        sql.arg(System.currentTimeMillis() - 1);
+        sql.append(" WHERE ");
+        sql.append(SQLNameConstants.NAME);
+        sql.append(" = ");
+        sql.arg(lockName);
+        entityManagerSupport.transaction(entityManager -> stroomEntityManager.executeNativeUpdate(sql));
+    }
+
+    private void setLeaseToken(final String lockName, final long token) {
+        final SqlBuilder sql = new SqlBuilder();
+        sql.append("UPDATE ");
+        sql.append(ClusterLock.TABLE_NAME);
+        sql.append(" SET ");
+        sql.append(ClusterLock.LEASE_TOKEN);
+        sql.append(" = ");
+        sql.arg(token);
+        sql.append(" WHERE ");
+        sql.append(SQLNameConstants.NAME);
+        sql.append(" = ");
+        sql.arg(lockName);
+        stroomEntityManager.executeNativeUpdate(sql);
+    }
+
+    private long getLeaseToken(final String lockName) {
+        final SqlBuilder sql = selectLeaseColumn(ClusterLock.LEASE_TOKEN, lockName);
+        return entityManagerSupport.transactionResult(entityManager ->
+                stroomEntityManager.executeNativeQueryLongResult(sql));
+    }
+
+    private String getLeaseHolder(final String lockName) {
+        final SqlBuilder sql = selectLeaseColumn(ClusterLock.LEASE_HOLDER, lockName);
+        final List<?> result = entityManagerSupport.transactionResult(entityManager ->
+                stroomEntityManager.executeNativeQueryResultList(sql));
+        Assert.assertEquals(1, result.size());
+        return (String) result.get(0);
+    }
+
+    private SqlBuilder selectLeaseColumn(final String column, final String lockName) {
+        final SqlBuilder sql = new SqlBuilder();
+        sql.append("SELECT ");
+        sql.append(column);
+        sql.append(" FROM ");
+        sql.append(ClusterLock.TABLE_NAME);
+        sql.append(" WHERE ");
+        sql.append(SQLNameConstants.NAME);
+        sql.append(" = ");
+        sql.arg(lockName);
+        return sql;
+    }
 }
@@ -74,6 +74,16 @@ public class TestFullTranslationTaskAndStepping extends TranslationTest {
         testStepping("ZIP_TEST-DATA_SPLITTER-EVENTS");
     }
 
+    @Test
+    public void testDataSplitterEventsSkipping() {
+        testSteppingSkipsToSameRecord("DATA_SPLITTER-EVENTS");
+    }
+
+    @Test
+    public void testXMLEventsSkipping() {
+        testSteppingSkipsToSameRecord("XML-EVENTS");
+    }
+
     private void testStepping(final String feedName) throws IOException {
         final Path outDir = StroomPipelineTestFileUtil.getTestResourcesDir().resolve("TestFullTranslationTaskAndStepping");
 
@@ -18,6 +18,12 @@ package stroom.pipeline.task;
 
 import org.junit.Assert;
 import org.junit.Test;
+import stroom.docref.DocRef;
+import stroom.pipeline.PipelineStore;
+import stroom.pipeline.shared.PipelineDoc;
+import stroom.refdata.store.RefDataStoreProvider;
+import stroom.refdata.store.RefStreamDefinition;
+import stroom.refdata.store.offheapstore.RefDataOffHeapStore;
 import stroom.streamstore.MockStreamStore;
 import stroom.streamstore.shared.Stream;
 import stroom.streamstore.shared.StreamType;
@@ -32,6 +38,8 @@ import javax.inject.Inject;
 import java.io.IOException;
 import java.io.OutputStream;
 import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 public class TestTranslationTask extends AbstractProcessIntegrationTest {
@@ -44,6 +52,10 @@ public class TestTranslationTask extends AbstractProcessIntegrationTest {
     private MockStreamStore streamStore;
     @Inject
     private CommonTranslationTest commonPipelineTest;
+    @Inject
+    private PipelineStore pipelineStore;
+    @Inject
+    private RefDataStoreProvider refDataStoreProvider;
 
     /**
      * Tests Task with a valid resource and feed.
@@ -85,6 +97,94 @@ public class TestTranslationTask extends AbstractProcessIntegrationTest {
         Assert.assertEquals(26, ((PipelineStreamProcessor) results.get(N3)).getWritten());
     }
 
+    /**
+     * Tests that a pipeline reused for a second stream produces the same output as it did for the first
+     * and that nothing from the first task is carried over.
+     *
+     * @throws IOException Could be thrown.
+     */
+    @Test
+    public void testReusedPipeline() throws IOException {
+        // Both event streams are for the same feed so are processed by the same pipeline.
+        commonPipelineTest.setup(Arrays.asList(
+                CommonTranslationTest.VALID_RESOURCE_NAME,
+                CommonTranslationTest.VALID_RESOURCE_NAME));
+
+        final List<Long> written = new ArrayList<>();
+        final List<Long> markerCounts = new ArrayList<>();
+        final List<StreamProcessorTaskExecutor> results = commonPipelineTest.processAll(task -> {
+            final PipelineStreamProcessor processor = (PipelineStreamProcessor) task.getStreamProcessorTaskExecutor();
+            written.add(processor.getWritten());
+            markerCounts.add(processor.getMarkerCount(Severity.SEVERITIES));
+        });
+        Assert.assertEquals(N4 + 1, results.size());
+
+        // The event streams are processed last and the second must reuse the processor used by the first.
+        Assert.assertSame(results.get(N3), results.get(N4));
+        for (int i = N3; i <= N4; i++) {
+            // Counts must be for the task alone.
+            Assert.assertEquals(26, (long) written.get(i));
+            Assert.assertEquals(0, (long) markerCounts.get(i));
+        }
+
+        final Path inputDir = StroomPipelineTestFileUtil.getTestResourcesDir().resolve(DIR);
+        final Path outputDir = StroomPipelineTestFileUtil.getTestOutputDir().resolve(DIR);
+
+        int eventStreamCount = 0;
+        for (final Stream stream : streamStore.getFileData().keySet()) {
+            if (stream.getStreamType().equals(StreamType.EVENTS)) {
+                eventStreamCount++;
+                final byte[] data = streamStore.getFileData().get(stream).get(stream.getStreamType().getId());
+
+                // Each stream must get its own complete output.
+                final OutputStream os = StroomPipelineTestFileUtil.getOutputStream(outputDir, "TestTranslationTask.out");
+                os.write(data);
+                os.flush();
+                os.close();
+
+                ComparisonHelper.compareFiles(inputDir.resolve("TestTranslationTask.out"),
+                        outputDir.resolve("TestTranslationTask.out"));
+            }
+        }
+        Assert.assertEquals(2, eventStreamCount);
+    }
+
+    /**
+     * Tests that a pipeline reused for a second stream does not use what it learnt about the reference
+     * data while processing the first, by changing the reference loader pipeline between the two.
+     *
+     * @throws IOException Could be thrown.
+     */
+    @Test
+    public void testReusedPipelineWithChangedReferencePipeline() throws IOException {
+        commonPipelineTest.setup(Arrays.asList(
+                CommonTranslationTest.VALID_RESOURCE_NAME,
+                CommonTranslationTest.VALID_RESOURCE_NAME));
+
+        final DocRef referenceLoaderRef = pipelineStore.findByName("ReferenceLoader").get(0);
+        final List<Long> written = new ArrayList<>();
+        final List<StreamProcessorTaskExecutor> results = commonPipelineTest.processAll(task -> {
+            written.add(((PipelineStreamProcessor) task.getStreamProcessorTaskExecutor()).getWritten());
+            if (written.size() == N3 + 1) {
+                // Saving the reference loader gives it a new version so the second event stream
+                // must load the reference data again.
+                pipelineStore.writeDocument(pipelineStore.readDocument(referenceLoaderRef));
+            }
+        });
+        Assert.assertEquals(N4 + 1, results.size());
+        Assert.assertSame(results.get(N3), results.get(N4));
+        Assert.assertEquals(26, (long) written.get(N3));
+        Assert.assertEquals(26, (long) written.get(N4));
+
+        final PipelineDoc referenceLoader = pipelineStore.readDocument(referenceLoaderRef);
+        final RefDataOffHeapStore refDataStore = refDataStoreProvider.getOffHeapStore();
+        final boolean loadedWithNewVersion = streamStore.getFileData().keySet().stream()
+                .filter(stream -> stream.getStreamType().equals(StreamType.REFERENCE))
+                .anyMatch(stream -> refDataStore.isDataLoadedWithoutAccess(new RefStreamDefinition(
+                        referenceLoader.getUuid(), referenceLoader.getVersion(), stream.getId())));
+        Assert.assertTrue(loadedWithNewVersion);
+    }
+
     /**
      * Tests Task with an invalid resource and valid feed.
      *
@@ -32,8 +32,10 @@ import stroom.node.NodeCache;
 import stroom.pipeline.PipelineStore;
 import stroom.pipeline.shared.SharedElementData;
 import stroom.pipeline.shared.SharedStepData;
+import stroom.pipeline.shared.StepLocation;
 import stroom.pipeline.shared.StepType;
 import stroom.pipeline.shared.SteppingResult;
+import stroom.pipeline.stepping.RecordCountCache;
 import stroom.pipeline.stepping.SteppingTask;
 import stroom.proxy.repo.StroomStreamProcessor;
 import stroom.docref.DocRef;
@@ -87,6 +89,7 @@ import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 public abstract class TranslationTest extends AbstractCoreIntegrationTest {
     private static final Logger LOGGER = LoggerFactory.getLogger(TranslationTest.class);
@@ -113,6 +116,8 @@ public abstract class TranslationTest extends AbstractCoreIntegrationTest {
     private ImportExportSerializer importExportSerializer;
     @Inject
     private ContentImportService contentImportService;
+    @Inject
+    private RecordCountCache recordCountCache;
 
     /**
      * NOTE some of the input data for this test is buried in the following zip file so you will need
@@ -371,28 +376,9 @@ public abstract class TranslationTest extends AbstractCoreIntegrationTest {
         final BaseResultList<Feed> feeds = feedService.find(feedCriteria);
         Assert.assertTrue("No feeds found", feeds != null && feeds.size() > 0);
         Assert.assertEquals("Expected 1 feed", 1, feeds.size());
-        final List<DocRef> pipelines = pipelineStore.findByName(feedName);
-        Assert.assertTrue("No pipelines found", pipelines != null && pipelines.size() > 0);
-        Assert.assertEquals("Expected 1 pipeline", 1, pipelines.size());
-
-        final DocRef pipelineRef = pipelines.get(0);
         final Feed feed = feeds.getFirst();
 
-        final ExpressionOperator expression = new ExpressionOperator.Builder(Op.AND)
-                .addTerm(StreamDataSource.FEED_NAME, Condition.EQUALS, feedName)
-                .addOperator(new ExpressionOperator.Builder(Op.OR)
-                        .addTerm(StreamDataSource.STREAM_TYPE_NAME, Condition.EQUALS, StreamType.RAW_REFERENCE.getDisplayValue())
-                        .addTerm(StreamDataSource.STREAM_TYPE_NAME, Condition.EQUALS, StreamType.RAW_EVENTS.getDisplayValue())
-                        .build())
-                .build();
-
-        final FindStreamCriteria streamCriteria = new FindStreamCriteria();
-        streamCriteria.setExpression(expression);
-        streamCriteria.obtainSelectedIdSet().setMatchAll(Boolean.TRUE);
-
-        final SteppingTask action = new SteppingTask(UserTokenUtil.INTERNAL_PROCESSING_USER_TOKEN);
-        action.setPipeline(pipelineRef);
-        action.setCriteria(streamCriteria);
+        final SteppingTask action = createSteppingTask(feedName);
 
         SteppingResult response = new SteppingResult();
         response = step(StepType.FORWARD, 40, action, response);
@@ -447,6 +433,77 @@ public abstract class TranslationTest extends AbstractCoreIntegrationTest {
         }
     }
 
+    /**
+     * Checks that a record reached by stepping forward, where the records before it are skipped, is the same
+     * as it is when reached by stepping to the last record, where no records are skipped the first time.
+     */
+    protected void testSteppingSkipsToSameRecord(final String feedName) {
+        // Forget counts from earlier steps so that the first step to the last record sees every record.
+        recordCountCache.clear();
+
+        final SteppingTask action = createSteppingTask(feedName);
+        action.setStepType(StepType.LAST);
+        final SteppingResult last = taskManager.exec(action);
+        Assert.assertTrue("No last record found", last.isFoundRecord());
+        final StepLocation lastLocation = last.getStepLocation();
+        Assert.assertTrue("Expected more than one record", lastLocation.getRecordNo() > 1);
+
+        // Step forward through the same part of the stream one record at a time.
+        action.setStepType(StepType.FORWARD);
+        action.setStepLocation(new StepLocation(lastLocation.getStreamId(), lastLocation.getStreamNo(), 0));
+        SteppingResult forward = null;
+        for (long recordNo = 1; recordNo <= lastLocation.getRecordNo(); recordNo++) {
+            forward = taskManager.exec(action);
+            Assert.assertTrue("No record found stepping forward", forward.isFoundRecord());
+            action.setStepLocation(forward.getStepLocation());
+        }
+        assertSameStepData(last, forward);
+
+        // Now the number of records is known stepping to the last record again skips the ones before it.
+        action.setStepType(StepType.LAST);
+        action.setStepLocation(null);
+        assertSameStepData(last, taskManager.exec(action));
+    }
+
+    private SteppingTask createSteppingTask(final String feedName) {
+        final List<DocRef> pipelines = pipelineStore.findByName(feedName);
+        Assert.assertTrue("No pipelines found", pipelines != null && pipelines.size() > 0);
+        Assert.assertEquals("Expected 1 pipeline", 1, pipelines.size());
+
+        final DocRef pipelineRef = pipelines.get(0);
+
+        final ExpressionOperator expression = new ExpressionOperator.Builder(Op.AND)
+                .addTerm(StreamDataSource.FEED_NAME, Condition.EQUALS, feedName)
+                .addOperator(new ExpressionOperator.Builder(Op.OR)
+                        .addTerm(StreamDataSource.STREAM_TYPE_NAME, Condition.EQUALS, StreamType.RAW_REFERENCE.getDisplayValue())
+                        .addTerm(StreamDataSource.STREAM_TYPE_NAME, Condition.EQUALS, StreamType.RAW_EVENTS.getDisplayValue())
+                        .build())
+                .build();
+
+        final FindStreamCriteria streamCriteria = new FindStreamCriteria();
+        streamCriteria.setExpression(expression);
+        streamCriteria.obtainSelectedIdSet().setMatchAll(Boolean.TRUE);
+
+        final SteppingTask action = new SteppingTask(UserTokenUtil.INTERNAL_PROCESSING_USER_TOKEN);
+        action.setPipeline(pipelineRef);
+        action.setCriteria(streamCriteria);
+        return action;
+    }
+
+    private void assertSameStepData(final SteppingResult expected, final SteppingResult actual) {
+        Assert.assertEquals(expected.getStepLocation(), actual.getStepLocation());
+
+        // Compare everything including event ids as they must not change when earlier records are skipped.
+        final Map<String, SharedElementData> expectedElements = expected.getStepData().getElementMap();
+        final Map<String, SharedElementData> actualElements = actual.getStepData().getElementMap();
+        Assert.assertEquals(expectedElements.keySet(), actualElements.keySet());
+        expectedElements.forEach((elementId, expectedData) -> {
+            final SharedElementData actualData = actualElements.get(elementId);
+            Assert.assertEquals("Input of " + elementId, expectedData.getInput(), actualData.getInput());
+            Assert.assertEquals("Output of " + elementId, expectedData.getOutput(), actualData.getOutput());
+        });
+    }
+
     private SteppingResult step(final StepType direction, final int steps, final SteppingTask request,
                                 final SteppingResult existingResponse) {
         SteppingResult newResponse = existingResponse;
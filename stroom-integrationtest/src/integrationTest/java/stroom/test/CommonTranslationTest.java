@@ -41,12 +41,13 @@ import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
+import java.util.function.Consumer;
 
 public class CommonTranslationTest {
     private static final Logger LOGGER = LoggerFactory.getLogger(CommonTranslationTest.class);
     public static final String FEED_NAME = "TEST_FEED";
     private static final String DIR = "CommonTranslationTest/";
-    private static final Path VALID_RESOURCE_NAME = StroomPipelineTestFileUtil
+    public static final Path VALID_RESOURCE_NAME = StroomPipelineTestFileUtil
             .getTestResourcesFile(DIR + "NetworkMonitoringSample.in");
     public static final Path INVALID_RESOURCE_NAME = StroomPipelineTestFileUtil.getTestResourcesFile(DIR + "Invalid.in");
 
@@ -92,6 +93,15 @@ public class CommonTranslationTest {
     }
 
     public List<StreamProcessorTaskExecutor> processAll() {
+        return processAll(task -> {
+        });
+    }
+
+    /**
+     * @param consumer Called with each task as soon as it has been executed, e.g. to check the state of
+     *                 an executor before it is reused by a later task.
+     */
+    public List<StreamProcessorTaskExecutor> processAll(final Consumer<StreamProcessorTask> consumer) {
         // Force creation of stream tasks.
         streamTaskCreator.createTasks(new SimpleTaskContext());
 
@@ -101,6 +111,7 @@ public class CommonTranslationTest {
             for (final StreamTask streamTask : streamTasks) {
                 final StreamProcessorTask task = new StreamProcessorTask(streamTask);
                 taskManager.exec(task);
+                consumer.accept(task);
                 results.add(task.getStreamProcessorTaskExecutor());
             }
             streamTasks = streamTaskCreator.assignStreamTasks(nodeCache.getDefaultNode(), 100);
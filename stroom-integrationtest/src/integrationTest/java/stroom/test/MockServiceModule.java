@@ -6,6 +6,7 @@ public class MockServiceModule extends AbstractModule {
     @Override
     protected void configure() {
         install(new stroom.cache.PipelineCacheModule());
+        install(new stroom.cluster.MockClusterModule());
         install(new stroom.dictionary.MockDictionaryModule());
         install(new stroom.docstore.memory.MemoryPersistenceModule());
         install(new stroom.entity.MockEntityModule());
@@ -30,6 +31,7 @@ public class MockServiceModule extends AbstractModule {
         install(new stroom.statistics.internal.MockInternalStatisticsModule());
         install(new stroom.streamstore.MockStreamStoreModule());
         install(new stroom.task.MockTaskModule());
+        install(new stroom.task.cluster.ClusterTaskModule());
         install(new stroom.test.MockTestControlModule());
         install(new stroom.volume.MockVolumeModule());
         install(new stroom.xmlschema.MockXmlSchemaModule());
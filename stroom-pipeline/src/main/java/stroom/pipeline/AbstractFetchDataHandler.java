@@ -72,10 +72,12 @@ import java.io.BufferedOutputStream;
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.io.Reader;
 import java.nio.charset.Charset;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 public abstract class AbstractFetchDataHandler<A extends FetchDataAction>
@@ -83,6 +85,7 @@ public abstract class AbstractFetchDataHandler<A extends FetchDataAction>
     private static final Logger LOGGER = LoggerFactory.getLogger(AbstractFetchDataHandler.class);
 
     private static final int MAX_LINE_LENGTH = 1000;
+    private static final byte[] NEW_LINE = new byte[]{'\n'};
     private final Long streamsLength = 1L;
     private final boolean streamsTotalIsExact = true;
 
@@ -100,6 +103,7 @@ public abstract class AbstractFetchDataHandler<A extends FetchDataAction>
     private final StreamEventLog streamEventLog;
     private final Security security;
     private final PipelineScopeRunnable pipelineScopeRunnable;
+    private final LineIndexCache lineIndexCache;
 
     private Long streamsOffset = 0L;
     private Long streamsTotal = 0L;
@@ -121,7 +125,8 @@ public abstract class AbstractFetchDataHandler<A extends FetchDataAction>
                              final PipelineDataCache pipelineDataCache,
                              final StreamEventLog streamEventLog,
                              final Security security,
-                             final PipelineScopeRunnable pipelineScopeRunnable) {
+                             final PipelineScopeRunnable pipelineScopeRunnable,
+                             final LineIndexCache lineIndexCache) {
         this.streamStore = streamStore;
         this.feedService = feedService;
         this.streamProcessorService = streamProcessorService;
@@ -136,6 +141,7 @@ public abstract class AbstractFetchDataHandler<A extends FetchDataAction>
         this.streamEventLog = streamEventLog;
         this.security = security;
         this.pipelineScopeRunnable = pipelineScopeRunnable;
+        this.lineIndexCache = lineIndexCache;
     }
 
     protected AbstractFetchDataResult getData(final Long streamId, final StreamType childStreamType,
@@ -290,7 +296,7 @@ public abstract class AbstractFetchDataHandler<A extends FetchDataAction>
         if (segmentInputStream.count() > 1) {
             rawData = getSegmentedData(feed, streamType, pageRange, segmentInputStream);
         } else {
-            rawData = getNonSegmentedData(feed, streamType, pageRange, segmentInputStream);
+            rawData = getNonSegmentedData(streamSource.getStream(), feed, streamType, pageRange, segmentInputStream);
         }
 
         String output;
@@ -382,20 +388,99 @@ public abstract class AbstractFetchDataHandler<A extends FetchDataAction>
         return StreamUtil.streamToString(segmentInputStream, Charset.forName(encoding));
     }
 
-    private String getNonSegmentedData(final Feed feed, final StreamType streamType, final OffsetRange<Long> pageRange,
+    private String getNonSegmentedData(final Stream stream, final Feed feed, final StreamType streamType,
+                                       final OffsetRange<Long> pageRange,
                                        final RASegmentInputStream segmentInputStream) throws IOException {
         // Get the appropriate encoding for the stream type.
         final String encoding = EncodingSelection.select(feed, streamType);
 
+        // We can only index lines by looking for newline bytes if the encoding uses a single byte for them.
+        if (!Arrays.equals(NEW_LINE, "\n".getBytes(Charset.forName(encoding)))) {
+            return getNonSegmentedDataFromStart(encoding, pageRange, segmentInputStream);
+        }
+
+        // Get the line index for this part of the stream if it has been viewed before.
+        final LineIndexCache.Key key = new LineIndexCache.Key(stream.getId(), streamType.getName(), streamsOffset,
+                segmentInputStream.size());
+        LineIndex lineIndex = lineIndexCache.getIfPresent(key);
+        if (lineIndex == null) {
+            // The first lines are read from the start whether there is an index or not so don't create one for them.
+            if (pageRange.getOffset() < LineIndex.INTERVAL) {
+                return getNonSegmentedDataFromStart(encoding, pageRange, segmentInputStream);
+            }
+            lineIndex = lineIndexCache.get(key, LineIndex::new);
+        }
+
+        // Only index as far as the requested page so that viewing a page doesn't mean reading the whole part.
+        synchronized (lineIndex) {
+            if (!lineIndex.isComplete()) {
+                segmentInputStream.seek(lineIndex.getIndexedByteCount());
+                lineIndex.extend(segmentInputStream, pageRange.getOffset());
+            }
+        }
+
+        // Make sure we can't exceed the page total if we know it.
         pageOffset = pageRange.getOffset();
+        if (lineIndex.isComplete()) {
+            pageTotal = lineIndex.getLineCount();
+            if (pageOffset >= pageTotal) {
+                pageOffset = Math.max(0, pageTotal - 1);
+            }
+        }
+
+        // Jump to the nearest indexed line before the page and read from there.
+        final long byteOffset = lineIndex.getIndexedByteOffset(pageOffset);
+        segmentInputStream.seek(byteOffset);
+        final String data = readLines(encoding, pageRange, segmentInputStream, byteOffset == 0,
+                lineIndex.getIndexedLineNo(pageOffset));
+
+        if (lineIndex.isComplete()) {
+            // The index tells us exactly how many lines there are so don't count the line after the last line break.
+            pageTotalIsExact = true;
+            if (pageOffset + pageLength > pageTotal) {
+                pageLength = pageTotal - pageOffset;
+            }
+        } else {
+            // Until the whole part has been indexed we only know about the lines we have read.
+            pageTotal = pageOffset + pageLength;
+            if (pageOffset >= pageTotal) {
+                pageOffset = Math.max(0, pageTotal - 1);
+            }
+        }
+
+        return data;
+    }
+
+    private String getNonSegmentedDataFromStart(final String encoding, final OffsetRange<Long> pageRange,
+                                                final RASegmentInputStream segmentInputStream) throws IOException {
+        pageOffset = pageRange.getOffset();
+        final String data = readLines(encoding, pageRange, segmentInputStream, true, 0);
+
+        pageTotal = pageOffset + pageLength;
+
+        // Make sure we can't exceed the page total.
+        if (pageOffset >= pageTotal) {
+            pageOffset = pageTotal - 1;
+        }
+
+        return data;
+    }
+
+    /**
+     * Read the lines for the requested page from an input stream that is positioned at the start of
+     * the supplied line number.
+     */
+    private String readLines(final String encoding, final OffsetRange<Long> pageRange,
+                             final InputStream inputStream, final boolean removeBOM,
+                             final long startLineNo) throws IOException {
         final long minLineNo = pageOffset;
         final long maxLineNo = pageOffset + pageRange.getLength();
         final StringBuilder sb = new StringBuilder();
-        long lineNo = 0;
+        long lineNo = startLineNo;
         int len = 0;
 
-        try (BOMRemovalInputStream bomRemovalIS = new BOMRemovalInputStream(segmentInputStream, encoding);
-             final Reader reader = new InputStreamReader(bomRemovalIS, encoding)) {
+        final InputStream in = removeBOM ? new BOMRemovalInputStream(inputStream, encoding) : inputStream;
+        try (final Reader reader = new InputStreamReader(in, encoding)) {
             final char[] buffer = new char[FileSystemUtil.STREAM_BUFFER_SIZE];
 
             final long maxLength = MAX_LINE_LENGTH * pageRange.getLength();
@@ -422,15 +507,9 @@ public abstract class AbstractFetchDataHandler<A extends FetchDataAction>
             pageLength++;
         }
 
-        pageTotal = pageOffset + pageLength;
         // If there was no more content then the page total has been reached.
         pageTotalIsExact = len == -1;
 
-        // Make sure we can't exceed the page total.
-        if (pageOffset >= pageTotal) {
-            pageOffset = pageTotal - 1;
-        }
-
         return sb.toString();
     }
 
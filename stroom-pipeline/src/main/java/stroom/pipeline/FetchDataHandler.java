@@ -56,7 +56,8 @@ class FetchDataHandler extends AbstractFetchDataHandler<FetchDataAction> {
                      final PipelineDataCache pipelineDataCache,
                      final StreamEventLog streamEventLog,
                      final Security security,
-                     final PipelineScopeRunnable pipelineScopeRunnable) {
+                     final PipelineScopeRunnable pipelineScopeRunnable,
+                     final LineIndexCache lineIndexCache) {
         super(streamStore,
                 feedService,
                 streamProcessorService,
@@ -70,7 +71,8 @@ class FetchDataHandler extends AbstractFetchDataHandler<FetchDataAction> {
                 pipelineDataCache,
                 streamEventLog,
                 security,
-                pipelineScopeRunnable);
+                pipelineScopeRunnable,
+                lineIndexCache);
         this.security = security;
     }
 
@@ -57,7 +57,8 @@ class FetchDataWithPipelineHandler extends AbstractFetchDataHandler<FetchDataWit
                                  final PipelineDataCache pipelineDataCache,
                                  final StreamEventLog streamEventLog,
                                  final Security security,
-                                 final PipelineScopeRunnable pipelineScopeRunnable) {
+                                 final PipelineScopeRunnable pipelineScopeRunnable,
+                                 final LineIndexCache lineIndexCache) {
         super(streamStore,
                 feedService,
                 streamProcessorService,
@@ -71,7 +72,8 @@ class FetchDataWithPipelineHandler extends AbstractFetchDataHandler<FetchDataWit
                 pipelineDataCache,
                 streamEventLog,
                 security,
-                pipelineScopeRunnable);
+                pipelineScopeRunnable,
+                lineIndexCache);
         this.security = security;
     }
 
@@ -0,0 +1,128 @@
+/*
+ * Copyright 2018 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package stroom.pipeline;
+
+import stroom.streamstore.fs.FileSystemUtil;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+
+/**
+ * Holds the byte offset of the start of every {@link #INTERVAL}th line in a part of a non segmented stream
+ * so that a page of lines can be read by seeking close to it rather than reading from the start. The index
+ * is built as far as it is needed, so the total number of lines is only known once the index is complete.
+ * Lines are found by looking for newline bytes so an index can only be created for data in an encoding that
+ * represents a newline as a single '\n' byte.
+ */
+public class LineIndex {
+    static final int INTERVAL = 1000;
+
+    private long[] offsets = new long[16];
+    private int offsetCount = 1;
+
+    // How much of the data has been indexed and what was found in it.
+    private long indexedByteCount;
+    private long newLineCount;
+    private boolean trailingContent;
+    private boolean complete;
+
+    /**
+     * Read the supplied stream to the end to create an index of it.
+     */
+    public static LineIndex create(final InputStream inputStream) throws IOException {
+        final LineIndex lineIndex = new LineIndex();
+        lineIndex.extend(inputStream, Long.MAX_VALUE);
+        return lineIndex;
+    }
+
+    /**
+     * Carry on indexing until the nearest indexed line at or before the supplied line number is known or
+     * the end of the data is reached.
+     *
+     * @param inputStream A stream of the data positioned at {@link #getIndexedByteCount()}.
+     */
+    public synchronized void extend(final InputStream inputStream, final long lineNo) throws IOException {
+        final long requiredNewLineCount = (lineNo / INTERVAL) * INTERVAL;
+        final byte[] buffer = new byte[FileSystemUtil.STREAM_BUFFER_SIZE];
+
+        while (!complete && newLineCount < requiredNewLineCount) {
+            final int len = inputStream.read(buffer);
+            if (len == -1) {
+                complete = true;
+            } else if (len > 0) {
+                for (int i = 0; i < len; i++) {
+                    if (buffer[i] == '\n') {
+                        newLineCount++;
+
+                        if (newLineCount % INTERVAL == 0) {
+                            if (offsetCount == offsets.length) {
+                                offsets = Arrays.copyOf(offsets, offsets.length * 2);
+                            }
+                            offsets[offsetCount++] = indexedByteCount + i + 1;
+                        }
+                    }
+                }
+
+                indexedByteCount += len;
+                trailingContent = buffer[len - 1] != '\n';
+            }
+        }
+    }
+
+    /**
+     * @return True if all of the data has been indexed.
+     */
+    public synchronized boolean isComplete() {
+        return complete;
+    }
+
+    public synchronized long getIndexedByteCount() {
+        return indexedByteCount;
+    }
+
+    /**
+     * @return The total number of lines, which is only known once the index is complete.
+     */
+    public synchronized long getLineCount() {
+        if (!complete) {
+            throw new IllegalStateException("The line count is not known until the index is complete");
+        }
+
+        // Count the last line if it isn't terminated.
+        return trailingContent ? newLineCount + 1 : newLineCount;
+    }
+
+    /**
+     * @return The number of the nearest indexed line at or before the supplied line number
+     */
+    public synchronized long getIndexedLineNo(final long lineNo) {
+        return getIndex(lineNo) * (long) INTERVAL;
+    }
+
+    /**
+     * @return The byte offset of the nearest indexed line at or before the supplied line number
+     */
+    public synchronized long getIndexedByteOffset(final long lineNo) {
+        return offsets[getIndex(lineNo)];
+    }
+
+    private int getIndex(final long lineNo) {
+        return (int) Math.max(0, Math.min(lineNo / INTERVAL, offsetCount - 1));
+    }
+}
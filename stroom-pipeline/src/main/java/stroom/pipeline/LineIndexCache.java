@@ -0,0 +1,127 @@
+/*
+ * Copyright 2018 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package stroom.pipeline;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import stroom.entity.shared.Clearable;
+import stroom.util.cache.CacheManager;
+import stroom.util.cache.CacheUtil;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import java.io.IOException;
+import java.util.Objects;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps the line indexes of the non segmented stream parts that have recently been viewed so that
+ * paging through them doesn't have to read each part from the start.
+ */
+@Singleton
+public class LineIndexCache implements Clearable {
+    private static final int MAX_CACHE_ENTRIES = 100;
+
+    private final Cache<Key, LineIndex> cache;
+
+    @Inject
+    @SuppressWarnings("unchecked")
+    public LineIndexCache(final CacheManager cacheManager) {
+        final CacheBuilder cacheBuilder = CacheBuilder.newBuilder()
+                .maximumSize(MAX_CACHE_ENTRIES)
+                .expireAfterAccess(10, TimeUnit.MINUTES);
+        cache = cacheBuilder.build();
+        cacheManager.registerCache("Line Index Cache", cacheBuilder, cache);
+    }
+
+    /**
+     * Get the index for a stream part, creating it with the supplied loader if it isn't cached.
+     */
+    public LineIndex get(final Key key, final Loader loader) throws IOException {
+        try {
+            return cache.get(key, loader::load);
+        } catch (final ExecutionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            throw new IOException(e.getMessage(), e.getCause());
+        } catch (final UncheckedExecutionException e) {
+            throw (RuntimeException) e.getCause();
+        }
+    }
+
+    /**
+     * @return The cached index for a stream part or null if there isn't one.
+     */
+    public LineIndex getIfPresent(final Key key) {
+        return cache.getIfPresent(key);
+    }
+
+    @Override
+    public void clear() {
+        CacheUtil.clear(cache);
+    }
+
+    public interface Loader {
+        LineIndex load() throws IOException;
+    }
+
+    public static class Key {
+        private final long streamId;
+        private final String streamType;
+        private final long streamNo;
+        private final long size;
+        private final int hashCode;
+
+        public Key(final long streamId, final String streamType, final long streamNo, final long size) {
+            this.streamId = streamId;
+            this.streamType = streamType;
+            this.streamNo = streamNo;
+            this.size = size;
+            this.hashCode = Objects.hash(streamId, streamType, streamNo, size);
+        }
+
+        @Override
+        public boolean equals(final Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            final Key key = (Key) o;
+            return streamId == key.streamId &&
+                    streamNo == key.streamNo &&
+                    size == key.size &&
+                    Objects.equals(streamType, key.streamType);
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+
+        @Override
+        public String toString() {
+            return "Key{" +
+                    "streamId=" + streamId +
+                    ", streamType='" + streamType + '\'' +
+                    ", streamNo=" + streamNo +
+                    ", size=" + size +
+                    '}';
+        }
+    }
+}
@@ -21,6 +21,7 @@ import com.google.inject.binder.ScopedBindingBuilder;
 import com.google.inject.multibindings.MapBinder;
 import com.google.inject.multibindings.Multibinder;
 import com.google.inject.name.Names;
+import stroom.entity.shared.Clearable;
 import stroom.explorer.ExplorerActionHandler;
 import stroom.importexport.ImportExportActionHandler;
 import stroom.pipeline.shared.PipelineDoc;
@@ -56,6 +57,9 @@ public class PipelineModule extends AbstractModule {
         taskHandlerBinder.addBinding().to(stroom.pipeline.PipelineStepActionHandler.class);
         taskHandlerBinder.addBinding().to(SavePipelineXmlHandler.class);
 
+        final Multibinder<Clearable> clearableBinder = Multibinder.newSetBinder(binder(), Clearable.class);
+        clearableBinder.addBinding().to(LineIndexCache.class);
+
         final Multibinder<ExplorerActionHandler> explorerActionHandlerBinder = Multibinder.newSetBinder(binder(), ExplorerActionHandler.class);
         explorerActionHandlerBinder.addBinding().to(stroom.pipeline.PipelineStoreImpl.class);
         explorerActionHandlerBinder.addBinding().to(stroom.pipeline.TextConverterStoreImpl.class);
@@ -19,6 +19,7 @@ package stroom.pipeline.errorhandler;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import stroom.guice.PipelineScoped;
+import stroom.pipeline.metrics.PipelineMetricsRecorder;
 import stroom.util.shared.Location;
 import stroom.util.shared.Severity;
 
@@ -27,6 +28,7 @@ public class ErrorReceiverProxy implements ErrorReceiver {
     private static final Logger LOGGER = LoggerFactory.getLogger(ErrorReceiverProxy.class);
 
     private ErrorReceiver errorReceiver;
+    private PipelineMetricsRecorder pipelineMetricsRecorder;
 
     public ErrorReceiverProxy() {
     }
@@ -41,6 +43,10 @@ public class ErrorReceiverProxy implements ErrorReceiver {
             LOGGER.trace(message, e);
         }
 
+        if (pipelineMetricsRecorder != null && severity != null && severity.greaterThanOrEqual(Severity.ERROR)) {
+            pipelineMetricsRecorder.error(elementId);
+        }
+
         errorReceiver.log(severity, location, elementId, message, e);
     }
 
@@ -52,6 +58,10 @@ public class ErrorReceiverProxy implements ErrorReceiver {
         this.errorReceiver = errorReceiver;
     }
 
+    public void setPipelineMetricsRecorder(final PipelineMetricsRecorder pipelineMetricsRecorder) {
+        this.pipelineMetricsRecorder = pipelineMetricsRecorder;
+    }
+
     @Override
     public String toString() {
         return this.errorReceiver.toString();
@@ -148,6 +148,13 @@ public class RecordErrorReceiver implements ErrorReceiver, ErrorStatistics {
         return "";
     }
 
+    /**
+     * Forget all of the errors recorded so far.
+     */
+    public void clear() {
+        statsMap.clear();
+    }
+
     @Override
     public void reset() {
         final StoredErrorStats storedErrorStats = statsMap.get(Severity.FATAL_ERROR);
@@ -37,6 +37,7 @@ public class FactoryModule extends AbstractModule {
         elementBinder.addBinding().to(stroom.pipeline.filter.HttpPostFilter.class);
         elementBinder.addBinding().to(stroom.pipeline.filter.IdEnrichmentFilter.class);
         elementBinder.addBinding().to(stroom.pipeline.filter.RecordCountFilter.class);
+        elementBinder.addBinding().to(stroom.pipeline.filter.RecordMappingFilter.class);
         elementBinder.addBinding().to(stroom.pipeline.filter.RecordOutputFilter.class);
         elementBinder.addBinding().to(stroom.pipeline.filter.SchemaFilterSplit.class);
         elementBinder.addBinding().to(stroom.pipeline.filter.SplitFilter.class);
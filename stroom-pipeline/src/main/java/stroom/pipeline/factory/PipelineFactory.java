@@ -22,11 +22,15 @@ import stroom.docref.DocRef;
 import stroom.guice.PipelineScoped;
 import stroom.pipeline.SupportsCodeInjection;
 import stroom.pipeline.destination.DestinationProvider;
+import stroom.pipeline.errorhandler.ErrorReceiverProxy;
 import stroom.pipeline.errorhandler.TerminatedException;
 import stroom.pipeline.filter.SAXEventRecorder;
 import stroom.pipeline.filter.SAXRecordDetector;
 import stroom.pipeline.filter.SplitFilter;
 import stroom.pipeline.filter.XMLFilter;
+import stroom.pipeline.metrics.ElementMetricsFilter;
+import stroom.pipeline.metrics.PipelineMetrics;
+import stroom.pipeline.metrics.PipelineMetricsRecorder;
 import stroom.pipeline.parser.AbstractParser;
 import stroom.pipeline.reader.InputStreamRecordDetectorElement;
 import stroom.pipeline.reader.ReaderRecordDetectorElement;
@@ -39,6 +43,7 @@ import stroom.pipeline.shared.data.PipelineProperty;
 import stroom.pipeline.shared.data.PipelinePropertyValue;
 import stroom.pipeline.shared.data.PipelineReference;
 import stroom.pipeline.source.SourceElement;
+import stroom.pipeline.state.PipelineHolder;
 import stroom.pipeline.stepping.ElementMonitor;
 import stroom.pipeline.stepping.Recorder;
 import stroom.pipeline.stepping.SteppingController;
@@ -63,14 +68,29 @@ public class PipelineFactory {
     private final ElementRegistryFactory pipelineElementRegistryFactory;
     private final ElementFactory elementFactory;
     private final ProcessorFactory processorFactory;
+    private final PipelineMetrics pipelineMetrics;
+    private final PipelineHolder pipelineHolder;
+    private final ErrorReceiverProxy errorReceiverProxy;
 
-    @Inject
     public PipelineFactory(final ElementRegistryFactory pipelineElementRegistryFactory,
                            final ElementFactory elementFactory,
                            final ProcessorFactory processorFactory) {
+        this(pipelineElementRegistryFactory, elementFactory, processorFactory, null, null, null);
+    }
+
+    @Inject
+    public PipelineFactory(final ElementRegistryFactory pipelineElementRegistryFactory,
+                           final ElementFactory elementFactory,
+                           final ProcessorFactory processorFactory,
+                           final PipelineMetrics pipelineMetrics,
+                           final PipelineHolder pipelineHolder,
+                           final ErrorReceiverProxy errorReceiverProxy) {
         this.pipelineElementRegistryFactory = pipelineElementRegistryFactory;
         this.elementFactory = elementFactory;
         this.processorFactory = processorFactory;
+        this.pipelineMetrics = pipelineMetrics;
+        this.pipelineHolder = pipelineHolder;
+        this.errorReceiverProxy = errorReceiverProxy;
 
         if (processorFactory == null) {
             throw new NullPointerException("processorFactory is null");
@@ -150,8 +170,12 @@ public class PipelineFactory {
             throw new PipelineFactoryException("The pipeline has no source element");
         }
 
+        // Record metrics for each element if required. Metrics are not recorded when stepping.
+        final PipelineMetricsRecorder pipelineMetricsRecorder = createPipelineMetricsRecorder(controller);
+
         // Link the instances.
-        link(elementInstances, elementTypeMap, linkSets, controller, sourceElement, sourceElement.getElementId());
+        link(elementInstances, elementTypeMap, linkSets, controller, pipelineMetricsRecorder, sourceElement,
+                sourceElement.getElementId());
 
         // We need to create a root element that will be a target for the input
         // stream.
@@ -171,7 +195,25 @@ public class PipelineFactory {
             controller.getRecordDetector().setController(controller);
         }
 
-        return new PipelineImpl(processorFactory, elementInstances, root, controller != null);
+        return new PipelineImpl(processorFactory, elementInstances, root, controller != null,
+                pipelineMetricsRecorder);
+    }
+
+    private PipelineMetricsRecorder createPipelineMetricsRecorder(final SteppingController controller) {
+        if (controller != null || pipelineMetrics == null || !pipelineMetrics.isEnabled()) {
+            return null;
+        }
+
+        String pipelineName = null;
+        if (pipelineHolder != null && pipelineHolder.getPipeline() != null) {
+            pipelineName = pipelineHolder.getPipeline().getName();
+        }
+
+        final PipelineMetricsRecorder pipelineMetricsRecorder = pipelineMetrics.createRecorder(pipelineName);
+        if (errorReceiverProxy != null) {
+            errorReceiverProxy.setPipelineMetricsRecorder(pipelineMetricsRecorder);
+        }
+        return pipelineMetricsRecorder;
     }
 
     /**
@@ -301,6 +343,7 @@ public class PipelineFactory {
                       final Map<Element, PipelineElementType> elementTypeMap,
                       final Map<String, Set<String>> linkSets,
                       final SteppingController controller,
+                      final PipelineMetricsRecorder pipelineMetricsRecorder,
                       final Element parentElement,
                       final String parentElementId) {
         // Get the child elements of the supplied 'from' element id that we want
@@ -335,10 +378,18 @@ public class PipelineFactory {
                     fragment = insertRecordDetector(elementType, fragment, true, controller);
                     fragment = insertRecordDetector(elementType, fragment, false, controller);
                 }
+            } else if (pipelineMetricsRecorder != null && childElement instanceof XMLFilter) {
+                // Insert a filter before the element to measure the time spent in it.
+                final ElementMetricsFilter inputFilter = new ElementMetricsFilter(
+                        pipelineMetricsRecorder.getElementMetrics(elementId), true);
+                inputFilter.setElementId(elementId);
+                inputFilter.setTarget((XMLFilter) childElement);
+                fragment = new Fragment(inputFilter, childElement);
             }
 
             // Continue to link the children of this child.
-            link(elementInstances, elementTypeMap, linkSets, controller, fragment.getOut(), elementId);
+            link(elementInstances, elementTypeMap, linkSets, controller, pipelineMetricsRecorder, fragment.getOut(),
+                    elementId);
 
             // Now set the target of the parent element to be the 'wrapped'
             // child to complete the link.
@@ -355,7 +406,18 @@ public class PipelineFactory {
 
                 final HasTargets hasTargets = (HasTargets) parentElement;
                 if (fragment.getIn() instanceof Target) {
-                    final Target target = (Target) fragment.getIn();
+                    Target target = (Target) fragment.getIn();
+
+                    // Insert a filter after the parent element to count its output and exclude the time spent in
+                    // downstream elements from the time recorded for it.
+                    if (pipelineMetricsRecorder != null && target instanceof XMLFilter) {
+                        final ElementMetricsFilter outputFilter = new ElementMetricsFilter(
+                                pipelineMetricsRecorder.getElementMetrics(parentElementId), false);
+                        outputFilter.setElementId(parentElementId);
+                        outputFilter.setTarget(target);
+                        target = outputFilter;
+                    }
+
                     hasTargets.addTarget(target);
                 }
             }
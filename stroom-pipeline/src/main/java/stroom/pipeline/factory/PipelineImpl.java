@@ -16,7 +16,9 @@
 
 package stroom.pipeline.factory;
 
+import org.apache.commons.io.input.CountingInputStream;
 import stroom.pipeline.errorhandler.ProcessException;
+import stroom.pipeline.metrics.PipelineMetricsRecorder;
 import stroom.util.io.StreamUtil;
 
 import java.io.IOException;
@@ -30,16 +32,24 @@ public class PipelineImpl implements Pipeline {
     private final Map<String, Element> elementInstances;
     private final TakesInput rootElement;
     private final boolean stepping;
+    private final PipelineMetricsRecorder pipelineMetricsRecorder;
 
     private boolean externallyStartedProcessing;
     private boolean externallyStartedStream;
 
     public PipelineImpl(final ProcessorFactory processorFactory, final Map<String, Element> elementInstances,
                         final TakesInput rootElement, final boolean stepping) {
+        this(processorFactory, elementInstances, rootElement, stepping, null);
+    }
+
+    public PipelineImpl(final ProcessorFactory processorFactory, final Map<String, Element> elementInstances,
+                        final TakesInput rootElement, final boolean stepping,
+                        final PipelineMetricsRecorder pipelineMetricsRecorder) {
         this.processorFactory = processorFactory;
         this.elementInstances = elementInstances;
         this.rootElement = rootElement;
         this.stepping = stepping;
+        this.pipelineMetricsRecorder = pipelineMetricsRecorder;
     }
 
     @Override
@@ -52,6 +62,11 @@ public class PipelineImpl implements Pipeline {
     public void endProcessing() {
         externallyStartedProcessing = false;
         internalEndProcessing();
+
+        // Make sure metrics for anything done by elements at the end of processing are recorded.
+        if (pipelineMetricsRecorder != null) {
+            pipelineMetricsRecorder.flushElements();
+        }
     }
 
     @Override
@@ -89,6 +104,20 @@ public class PipelineImpl implements Pipeline {
 
     @Override
     public void process(final InputStream inputStream, final String encoding) {
+        if (pipelineMetricsRecorder == null) {
+            doProcess(inputStream, encoding);
+        } else {
+            final long startTime = System.nanoTime();
+            final CountingInputStream countingInputStream = new CountingInputStream(inputStream);
+            try {
+                doProcess(countingInputStream, encoding);
+            } finally {
+                pipelineMetricsRecorder.flush(countingInputStream.getByteCount(), System.nanoTime() - startTime);
+            }
+        }
+    }
+
+    private void doProcess(final InputStream inputStream, final String encoding) {
         try {
             rootElement.setInputStream(inputStream, encoding);
         } catch (final IOException e) {
@@ -0,0 +1,32 @@
+/*
+ * Copyright 2018 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package stroom.pipeline.factory;
+
+/**
+ * Implemented by elements that produce the same output for a record whatever records they have been
+ * given before it. When stepping, records before the requested one are only kept from the elements
+ * after the parser if all of those elements are stateless, otherwise elements such as
+ * {@link stroom.pipeline.filter.IdEnrichmentFilter} would number the records they do see wrongly.
+ */
+public interface Stateless {
+    /**
+     * @return True if the element is currently configured so that each record is processed without
+     * reference to the ones before it.
+     */
+    boolean isStateless();
+}
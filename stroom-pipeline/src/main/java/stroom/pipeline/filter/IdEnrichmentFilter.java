@@ -58,6 +58,7 @@ public class IdEnrichmentFilter extends AbstractXMLFilter {
     // These variables are used in search result output.
     private String streamId;
     private long[] eventIds;
+    private boolean streamIdFromHolder;
 
     @Inject
     public IdEnrichmentFilter(final StreamHolder streamHolder,
@@ -77,6 +78,7 @@ public class IdEnrichmentFilter extends AbstractXMLFilter {
                 final Stream stream = streamHolder.getStream();
                 if (stream != null) {
                     streamId = String.valueOf(stream.getId());
+                    streamIdFromHolder = true;
                 } else {
                     final String msg = "No stream set in stream holder";
                     errorReceiverProxy.log(Severity.WARNING, null, getElementId(), msg, new ProcessException(msg));
@@ -97,6 +99,21 @@ public class IdEnrichmentFilter extends AbstractXMLFilter {
         }
     }
 
+    @Override
+    public void endProcessing() {
+        try {
+            super.endProcessing();
+        } finally {
+            // If we got the stream id from the stream holder then forget it so the next stream processed
+            // by this filter gets its own id.
+            if (streamIdFromHolder) {
+                streamId = null;
+                streamIdFromHolder = false;
+            }
+            count = 0;
+        }
+    }
+
     /**
      * Fired on start element.
      *
@@ -192,5 +209,6 @@ public class IdEnrichmentFilter extends AbstractXMLFilter {
     public void setup(final String streamId, final long[] eventIds) {
         this.streamId = streamId;
         this.eventIds = eventIds;
+        this.streamIdFromHolder = false;
     }
 }
@@ -66,6 +66,7 @@ public class RecordCountFilter extends AbstractXMLFilter implements RecordCounte
     public void startProcessing() {
         try {
             startMs = System.currentTimeMillis();
+            count = 0;
             if (recordCountService != null) {
                 if (countRead) {
                     recordCountService.addRecordReadCounter(this);
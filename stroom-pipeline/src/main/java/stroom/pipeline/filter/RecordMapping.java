@@ -0,0 +1,432 @@
+/*
+ * Copyright 2018 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package stroom.pipeline.filter;
+
+import org.xml.sax.Attributes;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+import org.xml.sax.helpers.AttributesImpl;
+import org.xml.sax.helpers.DefaultHandler;
+import stroom.pipeline.errorhandler.ProcessException;
+import stroom.util.date.DateFormatterCache;
+import stroom.util.xml.SAXParserFactoryFactory;
+
+import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.parsers.SAXParser;
+import javax.xml.parsers.SAXParserFactory;
+import java.io.IOException;
+import java.io.StringReader;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A compiled record mapping definition used by {@link RecordMappingFilter}. A
+ * mapping describes how the values found in each input record are written to
+ * an output record, e.g.
+ * <p>
+ * <pre>
+ * &lt;recordMapping rootElement="Events" recordElement="Event" namespace="event-logging:3"&gt;
+ *     &lt;rootAttribute name="Version" value="3.2.3"/&gt;
+ *     &lt;field source="Date" target="EventTime/TimeCreated" dateFormat="dd/MM/yyyy HH:mm:ss"/&gt;
+ *     &lt;constant target="EventSource/System/Name" value="Example"/&gt;
+ *     &lt;field source="User" target="EventSource/User/Id"/&gt;
+ *     &lt;field source="Action" target="EventDetail/@Action" default="Unknown"&gt;
+ *         &lt;map from="OPEN" to="Open"/&gt;
+ *     &lt;/field&gt;
+ * &lt;/recordMapping&gt;
+ * </pre>
+ * <p>
+ * Sources are the names of data elements within each record (nested data
+ * element names are separated with '/'). Targets are element paths relative to
+ * the output record element and may end with an attribute, e.g. '@Action'.
+ * Output elements are written in the order they first appear in the mapping
+ * and elements that end up with no content are omitted.
+ */
+public class RecordMapping {
+    private static final SAXParserFactory PARSER_FACTORY;
+
+    private static final String ELEMENT_RECORD_MAPPING = "recordMapping";
+    private static final String ELEMENT_ROOT_ATTRIBUTE = "rootAttribute";
+    private static final String ELEMENT_FIELD = "field";
+    private static final String ELEMENT_CONSTANT = "constant";
+    private static final String ELEMENT_MAP = "map";
+
+    static {
+        PARSER_FACTORY = SAXParserFactoryFactory.newInstance();
+        PARSER_FACTORY.setNamespaceAware(true);
+    }
+
+    private final String rootElement;
+    private final String recordElement;
+    private final String namespace;
+    private final String schemaLocation;
+    private final List<String[]> rootAttributes;
+    private final OutputNode recordNode;
+    private final List<Binding> bindings;
+    private final Map<String, Integer> sourceIndex;
+
+    private RecordMapping(final Builder builder) {
+        this.rootElement = builder.rootElement;
+        this.recordElement = builder.recordElement;
+        this.namespace = builder.namespace;
+        this.schemaLocation = builder.schemaLocation;
+        this.rootAttributes = builder.rootAttributes;
+        this.recordNode = builder.recordNode;
+        this.bindings = builder.bindings;
+        this.sourceIndex = builder.sourceIndex;
+        recordNode.complete();
+    }
+
+    /**
+     * Compile the supplied mapping definition.
+     *
+     * @throws ProcessException If the mapping definition is not valid.
+     */
+    public static RecordMapping compile(final String definition) {
+        if (definition == null || definition.trim().isEmpty()) {
+            throw new ProcessException("The record mapping definition is empty");
+        }
+
+        final Builder builder = new Builder();
+        try {
+            final SAXParser parser = PARSER_FACTORY.newSAXParser();
+            parser.parse(new InputSource(new StringReader(definition)), builder);
+        } catch (final ParserConfigurationException | SAXException | IOException e) {
+            throw new ProcessException("Unable to read record mapping definition: " + e.getMessage(), e);
+        }
+
+        if (builder.recordElement == null) {
+            throw new ProcessException("The record mapping definition does not specify a record element");
+        }
+
+        return new RecordMapping(builder);
+    }
+
+    String getRootElement() {
+        return rootElement;
+    }
+
+    String getRecordElement() {
+        return recordElement;
+    }
+
+    String getNamespace() {
+        return namespace;
+    }
+
+    String getSchemaLocation() {
+        return schemaLocation;
+    }
+
+    List<String[]> getRootAttributes() {
+        return rootAttributes;
+    }
+
+    OutputNode getRecordNode() {
+        return recordNode;
+    }
+
+    List<Binding> getBindings() {
+        return bindings;
+    }
+
+    /**
+     * @return The number of distinct source values that need to be captured
+     * from each record.
+     */
+    int getSourceCount() {
+        return sourceIndex.size();
+    }
+
+    /**
+     * @return The slot used to hold values for the supplied source path or -1
+     * if the mapping does not use it.
+     */
+    int getSourceSlot(final String source) {
+        final Integer slot = sourceIndex.get(source);
+        if (slot == null) {
+            return -1;
+        }
+        return slot;
+    }
+
+    /**
+     * How a single output value is produced.
+     */
+    static class Binding {
+        private final int index;
+        private final int sourceSlot;
+        private final String constant;
+        private final String defaultValue;
+        private final Map<String, String> valueMap;
+        private final String dateFormat;
+        private final DateTimeFormatter dateFormatter;
+        private final ZoneId zoneId;
+
+        Binding(final int index, final int sourceSlot, final String constant, final String defaultValue,
+                final Map<String, String> valueMap, final String dateFormat, final String timeZone) {
+            this.index = index;
+            this.sourceSlot = sourceSlot;
+            this.constant = constant;
+            this.defaultValue = defaultValue;
+            this.valueMap = valueMap;
+            this.dateFormat = dateFormat;
+            if (dateFormat != null) {
+                dateFormatter = DateFormatterCache.getFormatter(dateFormat);
+                zoneId = DateFormatterCache.getZoneId(timeZone);
+            } else {
+                dateFormatter = null;
+                zoneId = null;
+            }
+        }
+
+        int getIndex() {
+            return index;
+        }
+
+        int getSourceSlot() {
+            return sourceSlot;
+        }
+
+        String getConstant() {
+            return constant;
+        }
+
+        String getDefaultValue() {
+            return defaultValue;
+        }
+
+        Map<String, String> getValueMap() {
+            return valueMap;
+        }
+
+        String getDateFormat() {
+            return dateFormat;
+        }
+
+        DateTimeFormatter getDateFormatter() {
+            return dateFormatter;
+        }
+
+        ZoneId getZoneId() {
+            return zoneId;
+        }
+    }
+
+    /**
+     * An element in the output record.
+     */
+    static class OutputNode {
+        private final String name;
+        private final List<OutputNode> children = new ArrayList<>();
+        private final List<String> attributeNames = new ArrayList<>();
+        private final List<Binding> attributeBindings = new ArrayList<>();
+        private Binding text;
+        // The indexes of all bindings in this node and its descendants so
+        // that we can quickly tell if a node has any content to output.
+        private int[] allBindings;
+
+        OutputNode(final String name) {
+            this.name = name;
+        }
+
+        String getName() {
+            return name;
+        }
+
+        List<OutputNode> getChildren() {
+            return children;
+        }
+
+        List<String> getAttributeNames() {
+            return attributeNames;
+        }
+
+        List<Binding> getAttributeBindings() {
+            return attributeBindings;
+        }
+
+        Binding getText() {
+            return text;
+        }
+
+        int[] getAllBindings() {
+            return allBindings;
+        }
+
+        OutputNode getOrCreateChild(final String childName) {
+            for (final OutputNode child : children) {
+                if (child.name.equals(childName)) {
+                    return child;
+                }
+            }
+            final OutputNode child = new OutputNode(childName);
+            children.add(child);
+            return child;
+        }
+
+        private List<Integer> complete() {
+            final List<Integer> list = new ArrayList<>();
+            attributeBindings.forEach(binding -> list.add(binding.getIndex()));
+            if (text != null) {
+                list.add(text.getIndex());
+            }
+            children.forEach(child -> list.addAll(child.complete()));
+
+            allBindings = new int[list.size()];
+            for (int i = 0; i < allBindings.length; i++) {
+                allBindings[i] = list.get(i);
+            }
+            return list;
+        }
+    }
+
+    private static class Builder extends DefaultHandler {
+        private final List<String[]> rootAttributes = new ArrayList<>();
+        private final List<Binding> bindings = new ArrayList<>();
+        private final Map<String, Integer> sourceIndex = new HashMap<>();
+        private OutputNode recordNode;
+        private String rootElement;
+        private String recordElement;
+        private String namespace;
+        private String schemaLocation;
+
+        // The field currently being read so that nested map elements can be
+        // added to it.
+        private Attributes fieldAtts;
+        private Map<String, String> valueMap;
+
+        @Override
+        public void startElement(final String uri, final String localName, final String qName,
+                                 final Attributes atts) throws SAXException {
+            if (ELEMENT_RECORD_MAPPING.equals(localName)) {
+                rootElement = atts.getValue("rootElement");
+                recordElement = atts.getValue("recordElement");
+                namespace = atts.getValue("namespace");
+                schemaLocation = atts.getValue("schemaLocation");
+                if (namespace == null) {
+                    namespace = "";
+                }
+                if (recordElement != null) {
+                    recordNode = new OutputNode(recordElement);
+                }
+
+            } else if (recordNode == null) {
+                throw new SAXException("Expected '" + ELEMENT_RECORD_MAPPING + "' element with a 'recordElement' attribute");
+
+            } else if (ELEMENT_ROOT_ATTRIBUTE.equals(localName)) {
+                rootAttributes.add(new String[]{getRequired(localName, atts, "name"), getRequired(localName, atts, "value")});
+
+            } else if (ELEMENT_FIELD.equals(localName)) {
+                getRequired(localName, atts, "source");
+                getRequired(localName, atts, "target");
+                // Copy the attributes as the parser will reuse them.
+                fieldAtts = new AttributesImpl(atts);
+                valueMap = new HashMap<>();
+
+            } else if (ELEMENT_CONSTANT.equals(localName)) {
+                addBinding(getRequired(localName, atts, "target"), -1, getRequired(localName, atts, "value"),
+                        null, null, null, null);
+
+            } else if (ELEMENT_MAP.equals(localName)) {
+                if (fieldAtts == null) {
+                    throw new SAXException("'" + ELEMENT_MAP + "' elements must be within a '" + ELEMENT_FIELD + "' element");
+                }
+                valueMap.put(getRequired(localName, atts, "from"), getRequired(localName, atts, "to"));
+
+            } else {
+                throw new SAXException("Unexpected element '" + localName + "'");
+            }
+        }
+
+        @Override
+        public void endElement(final String uri, final String localName, final String qName) throws SAXException {
+            if (ELEMENT_FIELD.equals(localName)) {
+                final String source = fieldAtts.getValue("source");
+                Integer slot = sourceIndex.get(source);
+                if (slot == null) {
+                    slot = sourceIndex.size();
+                    sourceIndex.put(source, slot);
+                }
+
+                addBinding(fieldAtts.getValue("target"), slot, null, fieldAtts.getValue("default"),
+                        valueMap.isEmpty() ? null : valueMap, fieldAtts.getValue("dateFormat"),
+                        fieldAtts.getValue("timeZone"));
+
+                fieldAtts = null;
+                valueMap = null;
+            }
+        }
+
+        private void addBinding(final String target, final int sourceSlot, final String constant,
+                                final String defaultValue, final Map<String, String> valueMap, final String dateFormat,
+                                final String timeZone) throws SAXException {
+            final Binding binding;
+            try {
+                binding = new Binding(bindings.size(), sourceSlot, constant, defaultValue, valueMap, dateFormat,
+                        timeZone);
+            } catch (final RuntimeException e) {
+                throw new SAXException("Invalid date format '" + dateFormat + "' or time zone '" + timeZone
+                        + "' for target '" + target + "'", e);
+            }
+
+            // Find or create the output node for the target path.
+            OutputNode node = recordNode;
+            final String[] parts = target.split("/");
+            for (int i = 0; i < parts.length; i++) {
+                final String part = parts[i].trim();
+                if (part.isEmpty()) {
+                    throw new SAXException("Invalid target '" + target + "'");
+                }
+
+                if (part.startsWith("@")) {
+                    if (i != parts.length - 1 || part.length() == 1) {
+                        throw new SAXException("Invalid target '" + target + "', attributes must come last");
+                    }
+                    final String attributeName = part.substring(1);
+                    if (node.attributeNames.contains(attributeName)) {
+                        throw new SAXException("Target '" + target + "' is mapped more than once");
+                    }
+                    node.attributeNames.add(attributeName);
+                    node.attributeBindings.add(binding);
+                    bindings.add(binding);
+                    return;
+                }
+
+                node = node.getOrCreateChild(part);
+            }
+
+            if (node == recordNode || node.text != null) {
+                throw new SAXException("Target '" + target + "' is mapped more than once");
+            }
+            node.text = binding;
+            bindings.add(binding);
+        }
+
+        private String getRequired(final String element, final Attributes atts, final String name) throws SAXException {
+            final String value = atts.getValue(name);
+            if (value == null) {
+                throw new SAXException("'" + element + "' elements must have a '" + name + "' attribute");
+            }
+            return value;
+        }
+    }
+}
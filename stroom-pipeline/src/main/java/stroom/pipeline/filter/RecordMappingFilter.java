@@ -0,0 +1,376 @@
+/*
+ * Copyright 2018 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package stroom.pipeline.filter;
+
+import org.xml.sax.Attributes;
+import org.xml.sax.Locator;
+import org.xml.sax.SAXException;
+import org.xml.sax.helpers.AttributesImpl;
+import stroom.docref.DocRef;
+import stroom.pipeline.LocationFactoryProxy;
+import stroom.pipeline.TextConverterStore;
+import stroom.pipeline.errorhandler.ErrorReceiverProxy;
+import stroom.pipeline.errorhandler.LoggedException;
+import stroom.pipeline.errorhandler.ProcessException;
+import stroom.pipeline.factory.ConfigurableElement;
+import stroom.pipeline.factory.PipelineProperty;
+import stroom.pipeline.factory.PipelinePropertyDocRef;
+import stroom.pipeline.factory.Stateless;
+import stroom.pipeline.filter.RecordMapping.Binding;
+import stroom.pipeline.filter.RecordMapping.OutputNode;
+import stroom.pipeline.shared.ElementIcons;
+import stroom.pipeline.shared.TextConverterDoc;
+import stroom.pipeline.shared.data.PipelineElementType;
+import stroom.pipeline.shared.data.PipelineElementType.Category;
+import stroom.pipeline.state.PipelineContext;
+import stroom.util.date.DateUtil;
+import stroom.util.shared.Location;
+import stroom.util.shared.Severity;
+
+import javax.inject.Inject;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A filter that translates flat records, e.g. the output of a data splitter,
+ * into another XML form using a declarative {@link RecordMapping}. This is
+ * intended as a cheap alternative to XSLT for simple translations where each
+ * output value is taken directly from an input value, a constant, a value
+ * lookup or a reformatted date. Records are translated as they stream through
+ * the filter without building a tree of the input.
+ * <p>
+ * Each second level element of the input is treated as a record. Values are
+ * taken from the elements within a record using either the 'name' attribute
+ * of 'data' elements or the element name, and either the 'value' attribute or
+ * the element text.
+ */
+@ConfigurableElement(type = "RecordMappingFilter", category = Category.FILTER, roles = {
+        PipelineElementType.ROLE_TARGET, PipelineElementType.ROLE_HAS_TARGETS,
+        PipelineElementType.VISABILITY_STEPPING, PipelineElementType.ROLE_MUTATOR}, icon = ElementIcons.XSLT)
+public class RecordMappingFilter extends AbstractXMLFilter implements Stateless {
+    private static final String DATA = "data";
+    private static final String NAME = "name";
+    private static final String VALUE = "value";
+    private static final String XSI_PREFIX = "xsi";
+    private static final String XSI_URI = "http://www.w3.org/2001/XMLSchema-instance";
+    private static final String XSI_SCHEMA_LOCATION = "schemaLocation";
+    private static final String CDATA = "CDATA";
+
+    private final ErrorReceiverProxy errorReceiverProxy;
+    private final LocationFactoryProxy locationFactory;
+    private final TextConverterStore textConverterStore;
+    private final PipelineContext pipelineContext;
+
+    private DocRef mappingRef;
+    private RecordMapping mapping;
+    private List<Binding> bindings;
+    private Locator locator;
+
+    private final AttributesImpl outputAtts = new AttributesImpl();
+    private final StringBuilder text = new StringBuilder();
+    private String[] sourceValues;
+    private String[] outputValues;
+    private String[] paths = new String[8];
+    private int depth;
+    private int captureSlot = -1;
+    private int captureDepth;
+
+    @Inject
+    public RecordMappingFilter(final ErrorReceiverProxy errorReceiverProxy,
+                               final LocationFactoryProxy locationFactory,
+                               final TextConverterStore textConverterStore,
+                               final PipelineContext pipelineContext) {
+        this.errorReceiverProxy = errorReceiverProxy;
+        this.locationFactory = locationFactory;
+        this.textConverterStore = textConverterStore;
+        this.pipelineContext = pipelineContext;
+    }
+
+    @Override
+    public void startProcessing() {
+        try {
+            if (mappingRef == null) {
+                throw new ProcessException("No record mapping has been assigned to the record mapping filter");
+            }
+
+            // Load the latest mapping to avoid holding onto a stale one when
+            // the pipeline is cached.
+            final TextConverterDoc doc = textConverterStore.readDocument(mappingRef);
+            if (doc == null) {
+                throw new ProcessException("Record mapping \"" + mappingRef.getName() + "\" appears to have been deleted");
+            }
+
+            setRecordMapping(RecordMapping.compile(doc.getData()));
+        } catch (final RuntimeException e) {
+            errorReceiverProxy.log(Severity.FATAL_ERROR, null, getElementId(), e.getMessage(), e);
+            // If we aren't stepping then throw an exception to terminate early.
+            if (!pipelineContext.isStepping()) {
+                throw new LoggedException(e.getMessage(), e);
+            }
+        } finally {
+            super.startProcessing();
+        }
+    }
+
+    void setRecordMapping(final RecordMapping mapping) {
+        this.mapping = mapping;
+        this.bindings = mapping.getBindings();
+        this.sourceValues = new String[mapping.getSourceCount()];
+        this.outputValues = new String[bindings.size()];
+    }
+
+    @Override
+    public void setDocumentLocator(final Locator locator) {
+        this.locator = locator;
+        super.setDocumentLocator(locator);
+    }
+
+    @Override
+    public boolean isStateless() {
+        return true;
+    }
+
+    @Override
+    public void startDocument() throws SAXException {
+        depth = 0;
+        captureSlot = -1;
+        super.startDocument();
+    }
+
+    @Override
+    public void startElement(final String uri, final String localName, final String qName, final Attributes atts)
+            throws SAXException {
+        if (mapping == null) {
+            super.startElement(uri, localName, qName, atts);
+            return;
+        }
+
+        depth++;
+        if (depth == 1) {
+            startRoot();
+
+        } else if (depth == 2) {
+            Arrays.fill(sourceValues, null);
+
+        } else if (captureSlot == -1) {
+            String name = null;
+            if (DATA.equals(localName)) {
+                name = atts.getValue(NAME);
+            }
+            if (name == null) {
+                name = localName;
+            }
+
+            // Nested values are identified by their path within the record.
+            final String path;
+            if (depth == 3) {
+                path = name;
+            } else {
+                path = paths[depth - 1] + "/" + name;
+            }
+            if (depth >= paths.length) {
+                paths = Arrays.copyOf(paths, paths.length * 2);
+            }
+            paths[depth] = path;
+
+            final int slot = mapping.getSourceSlot(path);
+            // The first value found for a source is the one that is used.
+            if (slot != -1 && sourceValues[slot] == null) {
+                final String value = atts.getValue(VALUE);
+                if (value != null) {
+                    sourceValues[slot] = value;
+                } else {
+                    captureSlot = slot;
+                    captureDepth = depth;
+                    text.setLength(0);
+                }
+            }
+        }
+    }
+
+    @Override
+    public void endElement(final String uri, final String localName, final String qName) throws SAXException {
+        if (mapping == null) {
+            super.endElement(uri, localName, qName);
+            return;
+        }
+
+        if (captureSlot != -1 && depth == captureDepth) {
+            sourceValues[captureSlot] = text.toString();
+            captureSlot = -1;
+        }
+
+        if (depth == 2) {
+            writeRecord();
+        } else if (depth == 1) {
+            endRoot();
+        }
+        depth--;
+    }
+
+    @Override
+    public void characters(final char[] ch, final int start, final int length) throws SAXException {
+        if (mapping == null) {
+            super.characters(ch, start, length);
+        } else if (captureSlot != -1) {
+            text.append(ch, start, length);
+        }
+    }
+
+    @Override
+    public void ignorableWhitespace(final char[] ch, final int start, final int length) throws SAXException {
+        if (mapping == null) {
+            super.ignorableWhitespace(ch, start, length);
+        }
+    }
+
+    @Override
+    public void startPrefixMapping(final String prefix, final String uri) throws SAXException {
+        // Input namespaces are not output as the mapping defines the output
+        // namespace.
+        if (mapping == null) {
+            super.startPrefixMapping(prefix, uri);
+        }
+    }
+
+    @Override
+    public void endPrefixMapping(final String prefix) throws SAXException {
+        if (mapping == null) {
+            super.endPrefixMapping(prefix);
+        }
+    }
+
+    private void startRoot() throws SAXException {
+        final String namespace = mapping.getNamespace();
+        super.startPrefixMapping("", namespace);
+
+        if (mapping.getRootElement() != null) {
+            outputAtts.clear();
+            if (mapping.getSchemaLocation() != null) {
+                super.startPrefixMapping(XSI_PREFIX, XSI_URI);
+                outputAtts.addAttribute(XSI_URI, XSI_SCHEMA_LOCATION, XSI_PREFIX + ":" + XSI_SCHEMA_LOCATION, CDATA,
+                        mapping.getSchemaLocation());
+            }
+            for (final String[] att : mapping.getRootAttributes()) {
+                outputAtts.addAttribute("", att[0], att[0], CDATA, att[1]);
+            }
+            super.startElement(namespace, mapping.getRootElement(), mapping.getRootElement(), outputAtts);
+        }
+    }
+
+    private void endRoot() throws SAXException {
+        if (mapping.getRootElement() != null) {
+            super.endElement(mapping.getNamespace(), mapping.getRootElement(), mapping.getRootElement());
+            if (mapping.getSchemaLocation() != null) {
+                super.endPrefixMapping(XSI_PREFIX);
+            }
+        }
+        super.endPrefixMapping("");
+    }
+
+    private void writeRecord() throws SAXException {
+        for (int i = 0; i < outputValues.length; i++) {
+            outputValues[i] = resolve(bindings.get(i));
+        }
+
+        // The record element is always written even if it has no content.
+        writeNode(mapping.getRecordNode(), true);
+    }
+
+    private String resolve(final Binding binding) {
+        String value = binding.getConstant();
+        if (value == null) {
+            value = sourceValues[binding.getSourceSlot()];
+
+            if (value != null && binding.getValueMap() != null) {
+                final String mapped = binding.getValueMap().get(value);
+                if (mapped != null) {
+                    value = mapped;
+                }
+            }
+
+            if (value != null && !value.isEmpty() && binding.getDateFormatter() != null) {
+                try {
+                    final long ms = DateUtil.parseBest(value, binding.getDateFormatter(), binding.getZoneId())
+                            .toInstant()
+                            .toEpochMilli();
+                    value = DateUtil.createNormalDateTimeString(ms);
+                } catch (final RuntimeException e) {
+                    errorReceiverProxy.log(Severity.WARNING, getLocation(), getElementId(),
+                            "Unable to parse date '" + value + "' with format '" + binding.getDateFormat() + "'", e);
+                    value = null;
+                }
+            }
+
+            if (value == null || value.isEmpty()) {
+                value = binding.getDefaultValue();
+            }
+        }
+        return value;
+    }
+
+    private void writeNode(final OutputNode node, final boolean always) throws SAXException {
+        if (!always && !hasContent(node)) {
+            return;
+        }
+
+        outputAtts.clear();
+        final List<Binding> attributeBindings = node.getAttributeBindings();
+        for (int i = 0; i < attributeBindings.size(); i++) {
+            final String value = outputValues[attributeBindings.get(i).getIndex()];
+            if (value != null) {
+                final String attributeName = node.getAttributeNames().get(i);
+                outputAtts.addAttribute("", attributeName, attributeName, CDATA, value);
+            }
+        }
+
+        final String namespace = mapping.getNamespace();
+        super.startElement(namespace, node.getName(), node.getName(), outputAtts);
+        for (final OutputNode child : node.getChildren()) {
+            writeNode(child, false);
+        }
+        if (node.getText() != null) {
+            final String value = outputValues[node.getText().getIndex()];
+            if (value != null) {
+                super.characters(value.toCharArray(), 0, value.length());
+            }
+        }
+        super.endElement(namespace, node.getName(), node.getName());
+    }
+
+    private boolean hasContent(final OutputNode node) {
+        for (final int index : node.getAllBindings()) {
+            if (outputValues[index] != null) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private Location getLocation() {
+        if (locator == null) {
+            return null;
+        }
+        return locationFactory.create(locator);
+    }
+
+    @PipelineProperty(description = "The text converter containing the record mapping definition that should be used to translate records.")
+    @PipelinePropertyDocRef(types = TextConverterDoc.DOCUMENT_TYPE)
+    public void setMapping(final DocRef mappingRef) {
+        this.mappingRef = mappingRef;
+    }
+}
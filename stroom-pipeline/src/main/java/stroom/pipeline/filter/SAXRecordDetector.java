@@ -16,6 +16,7 @@
 
 package stroom.pipeline.filter;
 
+import org.xml.sax.Attributes;
 import org.xml.sax.Locator;
 import org.xml.sax.SAXException;
 import stroom.pipeline.stepping.RecordDetector;
@@ -26,11 +27,13 @@ public class SAXRecordDetector extends AbstractXMLFilter implements RecordDetect
 
     private long currentStepNo;
     private Locator locator;
+    private boolean skipping;
 
     @Override
     public void startStream() {
         currentStepNo = 0;
         locator = null;
+        skipping = false;
         controller.resetSourceLocation();
         super.startStream();
     }
@@ -44,12 +47,20 @@ public class SAXRecordDetector extends AbstractXMLFilter implements RecordDetect
     @Override
     public void startDocument() throws SAXException {
         currentStepNo++;
-        super.startDocument();
+
+        // Don't send records that the controller doesn't need to see to the rest of the pipeline.
+        skipping = controller.isSkippable(currentStepNo);
+        if (!skipping) {
+            super.startDocument();
+        }
     }
 
     @Override
     public void endDocument() throws SAXException {
-        super.endDocument();
+        if (!skipping) {
+            super.endDocument();
+        }
+        skipping = false;
 
         // Tell the controller that this is the end of a record.
         if (controller.endRecord(locator, currentStepNo)) {
@@ -57,6 +68,63 @@ public class SAXRecordDetector extends AbstractXMLFilter implements RecordDetect
         }
     }
 
+    @Override
+    public void startPrefixMapping(final String prefix, final String uri) throws SAXException {
+        if (!skipping) {
+            super.startPrefixMapping(prefix, uri);
+        }
+    }
+
+    @Override
+    public void endPrefixMapping(final String prefix) throws SAXException {
+        if (!skipping) {
+            super.endPrefixMapping(prefix);
+        }
+    }
+
+    @Override
+    public void startElement(final String uri, final String localName, final String qName, final Attributes atts)
+            throws SAXException {
+        if (!skipping) {
+            super.startElement(uri, localName, qName, atts);
+        }
+    }
+
+    @Override
+    public void endElement(final String uri, final String localName, final String qName) throws SAXException {
+        if (!skipping) {
+            super.endElement(uri, localName, qName);
+        }
+    }
+
+    @Override
+    public void characters(final char[] ch, final int start, final int length) throws SAXException {
+        if (!skipping) {
+            super.characters(ch, start, length);
+        }
+    }
+
+    @Override
+    public void ignorableWhitespace(final char[] ch, final int start, final int length) throws SAXException {
+        if (!skipping) {
+            super.ignorableWhitespace(ch, start, length);
+        }
+    }
+
+    @Override
+    public void processingInstruction(final String target, final String data) throws SAXException {
+        if (!skipping) {
+            super.processingInstruction(target, data);
+        }
+    }
+
+    @Override
+    public void skippedEntity(final String name) throws SAXException {
+        if (!skipping) {
+            super.skippedEntity(name);
+        }
+    }
+
     @Override
     public void setController(final SteppingController controller) {
         this.controller = controller;
@@ -18,6 +18,7 @@ package stroom.pipeline.filter;
 
 import stroom.pipeline.factory.ConfigurableElement;
 import stroom.pipeline.factory.PipelineProperty;
+import stroom.pipeline.factory.Stateless;
 import stroom.pipeline.shared.ElementIcons;
 import stroom.pipeline.shared.data.PipelineElementType;
 import stroom.pipeline.shared.data.PipelineElementType.Category;
@@ -33,7 +34,7 @@ import javax.xml.XMLConstants;
 @ConfigurableElement(type = "SchemaFilter", category = Category.FILTER, roles = {PipelineElementType.ROLE_TARGET,
         PipelineElementType.ROLE_HAS_TARGETS, PipelineElementType.VISABILITY_STEPPING,
         PipelineElementType.ROLE_VALIDATOR}, icon = ElementIcons.XSD)
-public class SchemaFilterSplit extends AbstractXMLFilter {
+public class SchemaFilterSplit extends AbstractXMLFilter implements Stateless {
     private final SchemaFilter schemaFilter;
     private final FindXMLSchemaCriteria schemaConstraint = new FindXMLSchemaCriteria();
     private String schemaLanguage = XMLConstants.W3C_XML_SCHEMA_NS_URI;
@@ -86,6 +87,12 @@ public class SchemaFilterSplit extends AbstractXMLFilter {
         schemaFilter.setElementId(id);
     }
 
+    @Override
+    public boolean isStateless() {
+        // Every top level element is validated on its own.
+        return true;
+    }
+
     @PipelineProperty(description = "The schema language that the schema is written in.", defaultValue = XMLConstants.W3C_XML_SCHEMA_NS_URI)
     public void setSchemaLanguage(final String schemaLanguage) {
         this.schemaLanguage = schemaLanguage;
@@ -41,6 +41,7 @@ import stroom.pipeline.errorhandler.StoredErrorReceiver;
 import stroom.pipeline.factory.ConfigurableElement;
 import stroom.pipeline.factory.PipelineProperty;
 import stroom.pipeline.factory.PipelinePropertyDocRef;
+import stroom.pipeline.factory.Stateless;
 import stroom.pipeline.shared.ElementIcons;
 import stroom.pipeline.shared.XsltDoc;
 import stroom.pipeline.shared.data.PipelineElementType;
@@ -63,6 +64,7 @@ import javax.xml.transform.sax.SAXResult;
 import javax.xml.transform.sax.TransformerHandler;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.regex.Pattern;
 
 /**
  * An XML filter for performing inline XSLT transformation of XML.
@@ -71,10 +73,14 @@ import java.util.List;
         PipelineElementType.ROLE_HAS_TARGETS, PipelineElementType.VISABILITY_SIMPLE,
         PipelineElementType.VISABILITY_STEPPING, PipelineElementType.ROLE_MUTATOR,
         PipelineElementType.ROLE_HAS_CODE}, icon = ElementIcons.XSLT)
-public class XSLTFilter extends AbstractXMLFilter implements SupportsCodeInjection {
+public class XSLTFilter extends AbstractXMLFilter implements SupportsCodeInjection, Stateless {
     private static final Logger LOGGER = LoggerFactory.getLogger(XSLTFilter.class);
 
     private static final int DEFAULT_MAX_ELEMENTS = 1000000;
+    // Values stored with the put() function can be read back when later records are transformed.
+    private static final Pattern PUT_FUNCTION_PATTERN = Pattern.compile(":put\\s*\\(");
+    // We can't see the text of imported or included XSLT so have to assume it might call put().
+    private static final Pattern IMPORT_PATTERN = Pattern.compile("<\\s*(\\w+:)?(import|include)\\b");
 
     private final XSLTPool xsltPool;
     private final ErrorReceiverProxy errorReceiverProxy;
@@ -102,6 +108,7 @@ public class XSLTFilter extends AbstractXMLFilter implements SupportsCodeInjecti
     private boolean passThrough = true;
     private String injectedCode;
     private boolean usePool = true;
+    private boolean stateless = true;
     private List<PipelineReference> pipelineReferences;
 
     private int elementCount;
@@ -129,6 +136,7 @@ public class XSLTFilter extends AbstractXMLFilter implements SupportsCodeInjecti
         try {
             errorListener = new ErrorListenerAdaptor(getElementId(), locationFactory, errorReceiverProxy);
             maxElementCount = getMaxElements();
+            stateless = true;
             XsltDoc xslt = null;
 
             // Load XSLT from a name pattern if one has been specified.
@@ -213,6 +221,8 @@ public class XSLTFilter extends AbstractXMLFilter implements SupportsCodeInjecti
                 // If no XSLT has been provided then don't try and get compiled
                 // XSLT for it.
                 if (xslt.getData() != null && xslt.getData().trim().length() > 0) {
+                    stateless = isStateless(xslt.getData());
+
                     // Get compiled XSLT from the pool.
                     final ErrorReceiver errorReceiver = new ErrorReceiverIdDecorator(getElementId(),
                             errorReceiverProxy);
@@ -260,6 +270,18 @@ public class XSLTFilter extends AbstractXMLFilter implements SupportsCodeInjecti
         }
     }
 
+    @Override
+    public boolean isStateless() {
+        return stateless;
+    }
+
+    /**
+     * @return True if nothing in the XSLT can carry state from one record to the next.
+     */
+    static boolean isStateless(final String xslt) {
+        return !PUT_FUNCTION_PATTERN.matcher(xslt).find() && !IMPORT_PATTERN.matcher(xslt).find();
+    }
+
     @Override
     public void endProcessing() {
         try {
@@ -267,6 +289,7 @@ public class XSLTFilter extends AbstractXMLFilter implements SupportsCodeInjecti
                 xsltPool.returnObject(poolItem, usePool);
                 poolItem = null;
             }
+            xsltExecutable = null;
         } finally {
             super.endProcessing();
         }
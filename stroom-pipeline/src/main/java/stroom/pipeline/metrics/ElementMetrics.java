@@ -0,0 +1,109 @@
+/*
+ * Copyright 2018 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package stroom.pipeline.metrics;
+
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Timer;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Counts the SAX events into and out of a single pipeline element and the time spent in the element itself,
+ * excluding the time spent in any elements downstream of it. The counts are held locally and only added to the
+ * metric registry when the element has finished processing a stream so that the cost of recording each event is kept
+ * to a minimum. An element only processes events on one thread so no synchronisation is needed.
+ */
+public class ElementMetrics {
+    private final Counter eventsInCounter;
+    private final Counter eventsOutCounter;
+    private final Counter errorsCounter;
+    private final Timer timer;
+
+    private long eventsIn;
+    private long eventsOut;
+    private long elapsedNs;
+    private long startNs;
+    private int depth;
+
+    ElementMetrics(final MetricRegistry metricRegistry, final String name) {
+        eventsInCounter = metricRegistry.counter(MetricRegistry.name(name, "eventsIn"));
+        eventsOutCounter = metricRegistry.counter(MetricRegistry.name(name, "eventsOut"));
+        errorsCounter = metricRegistry.counter(MetricRegistry.name(name, "errors"));
+        timer = metricRegistry.timer(MetricRegistry.name(name, "time"));
+    }
+
+    /**
+     * Called when a call is made into the element.
+     */
+    void enter() {
+        if (depth++ == 0) {
+            startNs = System.nanoTime();
+        }
+    }
+
+    /**
+     * Called when a call into the element returns.
+     */
+    void exit() {
+        if (--depth == 0) {
+            elapsedNs += System.nanoTime() - startNs;
+        }
+    }
+
+    /**
+     * Called when the element passes an event to the next element so that time spent downstream is not counted.
+     */
+    void pause() {
+        if (depth > 0) {
+            elapsedNs += System.nanoTime() - startNs;
+        }
+    }
+
+    /**
+     * Called when the next element returns control to this element.
+     */
+    void resume() {
+        if (depth > 0) {
+            startNs = System.nanoTime();
+        }
+    }
+
+    void eventIn() {
+        eventsIn++;
+    }
+
+    void eventOut() {
+        eventsOut++;
+    }
+
+    void error() {
+        errorsCounter.inc();
+    }
+
+    void flush() {
+        eventsInCounter.inc(eventsIn);
+        eventsOutCounter.inc(eventsOut);
+        // Elements that drive processing, e.g. parsers, are not timed.
+        if (elapsedNs > 0) {
+            timer.update(elapsedNs, TimeUnit.NANOSECONDS);
+        }
+        eventsIn = 0;
+        eventsOut = 0;
+        elapsedNs = 0;
+    }
+}
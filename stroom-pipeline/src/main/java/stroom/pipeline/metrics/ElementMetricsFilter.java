@@ -0,0 +1,199 @@
+/*
+ * Copyright 2018 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package stroom.pipeline.metrics;
+
+import org.xml.sax.Attributes;
+import org.xml.sax.SAXException;
+import stroom.pipeline.filter.AbstractXMLFilter;
+
+/**
+ * A filter that is inserted either side of a pipeline element to record metrics for it. An input filter is placed
+ * before the element and measures the time spent in each call into the element. An output filter is placed between
+ * the element and each of its targets and excludes the time spent downstream.
+ */
+public class ElementMetricsFilter extends AbstractXMLFilter {
+    private final ElementMetrics metrics;
+    private final boolean input;
+
+    public ElementMetricsFilter(final ElementMetrics metrics, final boolean input) {
+        this.metrics = metrics;
+        this.input = input;
+    }
+
+    private void before() {
+        if (input) {
+            metrics.enter();
+        } else {
+            metrics.pause();
+        }
+    }
+
+    private void after() {
+        if (input) {
+            metrics.exit();
+        } else {
+            metrics.resume();
+        }
+    }
+
+    @Override
+    public void startProcessing() {
+        before();
+        try {
+            super.startProcessing();
+        } finally {
+            after();
+        }
+    }
+
+    @Override
+    public void endProcessing() {
+        before();
+        try {
+            super.endProcessing();
+        } finally {
+            after();
+        }
+    }
+
+    @Override
+    public void startStream() {
+        before();
+        try {
+            super.startStream();
+        } finally {
+            after();
+        }
+    }
+
+    @Override
+    public void endStream() {
+        before();
+        try {
+            super.endStream();
+        } finally {
+            after();
+        }
+    }
+
+    @Override
+    public void startDocument() throws SAXException {
+        before();
+        try {
+            super.startDocument();
+        } finally {
+            after();
+        }
+    }
+
+    @Override
+    public void endDocument() throws SAXException {
+        before();
+        try {
+            super.endDocument();
+        } finally {
+            after();
+        }
+    }
+
+    @Override
+    public void startPrefixMapping(final String prefix, final String uri) throws SAXException {
+        before();
+        try {
+            super.startPrefixMapping(prefix, uri);
+        } finally {
+            after();
+        }
+    }
+
+    @Override
+    public void endPrefixMapping(final String prefix) throws SAXException {
+        before();
+        try {
+            super.endPrefixMapping(prefix);
+        } finally {
+            after();
+        }
+    }
+
+    @Override
+    public void startElement(final String uri, final String localName, final String qName, final Attributes atts)
+            throws SAXException {
+        if (input) {
+            metrics.eventIn();
+        } else {
+            metrics.eventOut();
+        }
+
+        before();
+        try {
+            super.startElement(uri, localName, qName, atts);
+        } finally {
+            after();
+        }
+    }
+
+    @Override
+    public void endElement(final String uri, final String localName, final String qName) throws SAXException {
+        before();
+        try {
+            super.endElement(uri, localName, qName);
+        } finally {
+            after();
+        }
+    }
+
+    @Override
+    public void characters(final char[] ch, final int start, final int length) throws SAXException {
+        before();
+        try {
+            super.characters(ch, start, length);
+        } finally {
+            after();
+        }
+    }
+
+    @Override
+    public void ignorableWhitespace(final char[] ch, final int start, final int length) throws SAXException {
+        before();
+        try {
+            super.ignorableWhitespace(ch, start, length);
+        } finally {
+            after();
+        }
+    }
+
+    @Override
+    public void processingInstruction(final String target, final String data) throws SAXException {
+        before();
+        try {
+            super.processingInstruction(target, data);
+        } finally {
+            after();
+        }
+    }
+
+    @Override
+    public void skippedEntity(final String name) throws SAXException {
+        before();
+        try {
+            super.skippedEntity(name);
+        } finally {
+            after();
+        }
+    }
+}
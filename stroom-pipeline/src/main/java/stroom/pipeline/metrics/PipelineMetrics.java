@@ -0,0 +1,85 @@
+/*
+ * Copyright 2018 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package stroom.pipeline.metrics;
+
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.SharedMetricRegistries;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import stroom.node.NodeCache;
+import stroom.properties.StroomPropertyService;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+
+/**
+ * Provides access to the metric registry that pipeline elements report to. The application registers its own
+ * registry under {@link #METRIC_REGISTRY_NAME} so that pipeline metrics are reported alongside all other metrics.
+ * Metrics are only collected if 'stroom.pipeline.metrics.enabled' is true, otherwise pipelines are built without any
+ * instrumentation.
+ */
+@Singleton
+public class PipelineMetrics {
+    private static final Logger LOGGER = LoggerFactory.getLogger(PipelineMetrics.class);
+
+    public static final String METRIC_REGISTRY_NAME = "stroom";
+    static final String ENABLED_PROPERTY = "stroom.pipeline.metrics.enabled";
+
+    private static final String UNKNOWN = "unknown";
+
+    private final StroomPropertyService stroomPropertyService;
+    private final NodeCache nodeCache;
+
+    private volatile String nodeName;
+
+    @Inject
+    PipelineMetrics(final StroomPropertyService stroomPropertyService,
+                    final NodeCache nodeCache) {
+        this.stroomPropertyService = stroomPropertyService;
+        this.nodeCache = nodeCache;
+    }
+
+    public boolean isEnabled() {
+        return stroomPropertyService.getBooleanProperty(ENABLED_PROPERTY, false);
+    }
+
+    /**
+     * Create an object to record metrics for a single instance of a pipeline.
+     *
+     * @param pipelineName The name of the pipeline that metrics are being recorded for.
+     */
+    public PipelineMetricsRecorder createRecorder(final String pipelineName) {
+        final String name = MetricRegistry.name("pipeline", getNodeName(), pipelineName != null ? pipelineName : UNKNOWN);
+        return new PipelineMetricsRecorder(getMetricRegistry(), name);
+    }
+
+    public MetricRegistry getMetricRegistry() {
+        return SharedMetricRegistries.getOrCreate(METRIC_REGISTRY_NAME);
+    }
+
+    private String getNodeName() {
+        if (nodeName == null) {
+            try {
+                nodeName = nodeCache.getDefaultNode().getName();
+            } catch (final RuntimeException e) {
+                LOGGER.debug("Unable to get node name", e);
+                return UNKNOWN;
+            }
+        }
+        return nodeName;
+    }
+}
@@ -0,0 +1,81 @@
+/*
+ * Copyright 2018 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package stroom.pipeline.metrics;
+
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Timer;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Records metrics for a single pipeline instance. Each element keeps its own local counts while a stream is being
+ * processed and these are added to the shared metric registry when {@link #flush(long, long)} is called at the end
+ * of each stream.
+ */
+public class PipelineMetricsRecorder {
+    private final MetricRegistry metricRegistry;
+    private final String name;
+    private final Map<String, ElementMetrics> elementMetricsMap = new HashMap<>();
+    private final Counter bytesIn;
+    private final Timer processTime;
+
+    PipelineMetricsRecorder(final MetricRegistry metricRegistry, final String name) {
+        this.metricRegistry = metricRegistry;
+        this.name = name;
+        this.bytesIn = metricRegistry.counter(MetricRegistry.name(name, "bytesIn"));
+        this.processTime = metricRegistry.timer(MetricRegistry.name(name, "processTime"));
+    }
+
+    public ElementMetrics getElementMetrics(final String elementId) {
+        return elementMetricsMap.computeIfAbsent(elementId, k ->
+                new ElementMetrics(metricRegistry, MetricRegistry.name(name, elementId)));
+    }
+
+    /**
+     * Record an error reported by an element. This may be called from any thread.
+     */
+    public void error(final String elementId) {
+        if (elementId != null) {
+            final ElementMetrics elementMetrics = elementMetricsMap.get(elementId);
+            if (elementMetrics != null) {
+                elementMetrics.error();
+            }
+        }
+    }
+
+    /**
+     * Add the metrics recorded while processing a stream to the metric registry.
+     *
+     * @param bytes      The number of bytes read from the input stream.
+     * @param durationNs The total time taken to process the stream.
+     */
+    public void flush(final long bytes, final long durationNs) {
+        bytesIn.inc(bytes);
+        processTime.update(durationNs, TimeUnit.NANOSECONDS);
+        flushElements();
+    }
+
+    /**
+     * Add the metrics recorded by each element so far to the metric registry.
+     */
+    public void flushElements() {
+        elementMetricsMap.values().forEach(ElementMetrics::flush);
+    }
+}
@@ -34,4 +34,8 @@ public class MetaData {
     public MetaMap getMetaMap() {
         return metaMap;
     }
+
+    public void clear() {
+        metaMap.clear();
+    }
 }
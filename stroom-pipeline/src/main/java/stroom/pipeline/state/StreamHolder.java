@@ -72,6 +72,16 @@ public class StreamHolder implements Holder {
         return streamProviders.get(streamType);
     }
 
+    /**
+     * Forget the current stream and its providers. The providers are not closed as the stream closer
+     * is responsible for that.
+     */
+    public void clear() {
+        stream = null;
+        streamNo = 0;
+        streamProviders.clear();
+    }
+
     public long getStreamNo() {
         return streamNo;
     }
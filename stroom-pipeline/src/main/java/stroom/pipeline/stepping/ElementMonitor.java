@@ -40,6 +40,14 @@ public class ElementMonitor {
         return elementId;
     }
 
+    public PipelineElementType getElementType() {
+        return elementType;
+    }
+
+    public Element getElement() {
+        return element;
+    }
+
     public void setInputMonitor(final Recorder inputMonitor) {
         this.inputRecorder = inputMonitor;
     }
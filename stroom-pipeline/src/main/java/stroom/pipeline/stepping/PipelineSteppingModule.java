@@ -18,6 +18,7 @@ package stroom.pipeline.stepping;
 
 import com.google.inject.AbstractModule;
 import com.google.inject.multibindings.Multibinder;
+import stroom.entity.shared.Clearable;
 import stroom.task.TaskHandler;
 
 public class PipelineSteppingModule extends AbstractModule {
@@ -26,5 +27,8 @@ public class PipelineSteppingModule extends AbstractModule {
         final Multibinder<TaskHandler> taskHandlerBinder = Multibinder.newSetBinder(binder(), TaskHandler.class);
         taskHandlerBinder.addBinding().to(stroom.pipeline.stepping.GetPipelineForStreamHandler.class);
         taskHandlerBinder.addBinding().to(stroom.pipeline.stepping.SteppingTaskHandler.class);
+
+        final Multibinder<Clearable> clearableBinder = Multibinder.newSetBinder(binder(), Clearable.class);
+        clearableBinder.addBinding().to(RecordCountCache.class);
     }
 }
\ No newline at end of file
@@ -0,0 +1,110 @@
+/*
+ * Copyright 2018 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package stroom.pipeline.stepping;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import stroom.entity.shared.Clearable;
+import stroom.util.cache.CacheManager;
+import stroom.util.cache.CacheUtil;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Remembers how many records were found in each part of a stream the last time it was stepped
+ * through to the end. Counts are keyed by the configuration of the pipeline elements up to and
+ * including the parser, so changing elements further down the pipeline, e.g. editing an XSLT,
+ * does not lose them. Knowing the count lets stepping to the end of a part skip the downstream
+ * work for all but the records it needs to show.
+ */
+@Singleton
+public class RecordCountCache implements Clearable {
+    private static final int MAX_CACHE_ENTRIES = 10000;
+
+    private final Cache<Key, Long> cache;
+
+    @Inject
+    @SuppressWarnings("unchecked")
+    public RecordCountCache(final CacheManager cacheManager) {
+        final CacheBuilder cacheBuilder = CacheBuilder.newBuilder()
+                .maximumSize(MAX_CACHE_ENTRIES)
+                .expireAfterAccess(1, TimeUnit.HOURS);
+        cache = cacheBuilder.build();
+        cacheManager.registerCache("Stepping Record Count Cache", cacheBuilder, cache);
+    }
+
+    /**
+     * @return The number of records in the stream part or null if it is not known
+     */
+    public Long get(final Key key) {
+        return cache.getIfPresent(key);
+    }
+
+    public void put(final Key key, final long recordCount) {
+        cache.put(key, recordCount);
+    }
+
+    @Override
+    public void clear() {
+        CacheUtil.clear(cache);
+    }
+
+    public static class Key {
+        private final String upstreamKey;
+        private final long streamId;
+        private final String streamType;
+        private final long streamNo;
+        private final int hashCode;
+
+        public Key(final String upstreamKey, final long streamId, final String streamType, final long streamNo) {
+            this.upstreamKey = upstreamKey;
+            this.streamId = streamId;
+            this.streamType = streamType;
+            this.streamNo = streamNo;
+            this.hashCode = Objects.hash(upstreamKey, streamId, streamType, streamNo);
+        }
+
+        @Override
+        public boolean equals(final Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            final Key key = (Key) o;
+            return streamId == key.streamId &&
+                    streamNo == key.streamNo &&
+                    Objects.equals(upstreamKey, key.upstreamKey) &&
+                    Objects.equals(streamType, key.streamType);
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+
+        @Override
+        public String toString() {
+            return "Key{" +
+                    "streamId=" + streamId +
+                    ", streamType='" + streamType + '\'' +
+                    ", streamNo=" + streamNo +
+                    '}';
+        }
+    }
+}
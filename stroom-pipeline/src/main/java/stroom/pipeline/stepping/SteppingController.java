@@ -20,11 +20,15 @@ import org.xml.sax.Locator;
 import org.xml.sax.SAXException;
 import stroom.guice.PipelineScoped;
 import stroom.pipeline.LocationFactoryProxy;
+import stroom.pipeline.destination.DestinationProvider;
 import stroom.pipeline.errorhandler.ErrorReceiver;
 import stroom.pipeline.errorhandler.ErrorReceiverProxy;
 import stroom.pipeline.errorhandler.LoggingErrorReceiver;
+import stroom.pipeline.factory.Element;
+import stroom.pipeline.factory.Stateless;
 import stroom.pipeline.shared.StepLocation;
 import stroom.pipeline.shared.StepType;
+import stroom.pipeline.shared.data.PipelineElementType;
 import stroom.pipeline.state.StreamHolder;
 import stroom.task.TaskContext;
 import stroom.util.shared.Highlight;
@@ -55,6 +59,10 @@ public class SteppingController {
     private Location currentStartLocation;
     private Location currentEndLocation;
 
+    private Long knownRecordCount;
+    private long recordCount;
+    private boolean exitedEarly;
+
     private TaskContext taskContext;
 
     @Inject
@@ -95,6 +103,8 @@ public class SteppingController {
     public void resetSourceLocation() {
         currentStartLocation = locationFactory.create();
         currentEndLocation = locationFactory.create();
+        recordCount = 0;
+        exitedEarly = false;
     }
 
     public void moveSourceLocation(final Locator locator) {
@@ -133,6 +143,89 @@ public class SteppingController {
         return foundLocation != null;
     }
 
+    /**
+     * Set the number of records in the stream part about to be processed if it is known from a
+     * previous pass so that records before the last one can be skipped when stepping to the end.
+     */
+    public void setKnownRecordCount(final Long knownRecordCount) {
+        this.knownRecordCount = knownRecordCount;
+    }
+
+    /**
+     * @return The number of records in the stream part that was last processed or null if
+     * processing stopped before the end of the part was reached.
+     */
+    public Long getCompleteRecordCount() {
+        if (exitedEarly || Thread.currentThread().isInterrupted()) {
+            return null;
+        }
+        return recordCount;
+    }
+
+    /**
+     * Called by the step detector at the start of a record to find out if the record can be kept
+     * from the rest of the pipeline because it can never be the record that is returned. Nothing is
+     * skippable unless every element after the parser is {@link Stateless}. Records before the
+     * requested location are then skippable when stepping forward or refreshing. When stepping
+     * backward, or to the last record, they are only skippable if no filters are applied as filters
+     * have to see every record.
+     */
+    public boolean isSkippable(final long currentRecordNo) {
+        if (request == null || stepLocation == null || !isDownstreamStateless()) {
+            return false;
+        }
+
+        final StepType stepType = request.getStepType();
+        if (StepType.FORWARD.equals(stepType) || StepType.REFRESH.equals(stepType)) {
+            return !isRecordPositionOk(currentRecordNo);
+        }
+
+        if (StepType.BACKWARD.equals(stepType) || StepType.LAST.equals(stepType)) {
+            final long currentStreamNo = streamHolder.getStreamNo() + 1;
+            if (currentStreamNo != stepLocation.getStreamNo() || isFilterApplied()) {
+                return false;
+            }
+
+            if (StepType.BACKWARD.equals(stepType) && stepLocation.getRecordNo() != Long.MAX_VALUE) {
+                return currentRecordNo < stepLocation.getRecordNo() - 1;
+            }
+
+            // We are looking for the last record in the part so we can skip everything before it if we
+            // know how many records there are.
+            return knownRecordCount != null && currentRecordNo < knownRecordCount;
+        }
+
+        return false;
+    }
+
+    /**
+     * @return True if no element after the parser would behave differently for not seeing a record.
+     * Destinations are replaced by recorders when stepping so they never see any records.
+     */
+    private boolean isDownstreamStateless() {
+        for (final ElementMonitor monitor : monitors) {
+            final PipelineElementType elementType = monitor.getElementType();
+            final Element element = monitor.getElement();
+            final boolean upstream = elementType.hasRole(PipelineElementType.ROLE_SOURCE)
+                    || elementType.hasRole(PipelineElementType.ROLE_READER)
+                    || elementType.hasRole(PipelineElementType.ROLE_PARSER);
+            if (!upstream && !(element instanceof DestinationProvider)
+                    && !(element instanceof Stateless && ((Stateless) element).isStateless())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean isFilterApplied() {
+        for (final ElementMonitor monitor : monitors) {
+            if (monitor.isFilterApplied()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     /**
      * Called by the step detector to tell us that we have reached the end of a
      * record.
@@ -142,6 +235,7 @@ public class SteppingController {
     public boolean endRecord(final Locator locator, final long currentRecordNo) throws SAXException {
         // Get the current stream number.
         final long currentStreamNo = streamHolder.getStreamNo() + 1;
+        recordCount = Math.max(recordCount, currentRecordNo);
 
         if (Thread.currentThread().isInterrupted()) {
             return true;
@@ -155,6 +249,12 @@ public class SteppingController {
         // Move source location.
         moveSourceLocation(locator);
 
+        // The rest of the pipeline hasn't seen a skipped record so there is nothing to check or store.
+        if (isSkippable(currentRecordNo)) {
+            clearAllFilters();
+            return false;
+        }
+
         // First we need to check that the record is ok WRT the location of the
         // record, i.e. is it after the last record found if stepping forward
         // etc.
@@ -210,6 +310,7 @@ public class SteppingController {
                 // We want to exit early if we have found a record and are
                 // stepping first, forward or refreshing.
                 if (!StepType.BACKWARD.equals(request.getStepType()) && !StepType.LAST.equals(request.getStepType())) {
+                    exitedEarly = true;
                     return true;
                 }
             }
@@ -220,8 +321,9 @@ public class SteppingController {
 
         // We want to exit early from backward stepping if we have got to the
         // previous record number.
-        return StepType.BACKWARD.equals(request.getStepType()) && stepLocation != null
+        exitedEarly = StepType.BACKWARD.equals(request.getStepType()) && stepLocation != null
                 && currentStreamNo == stepLocation.getStreamNo() && currentRecordNo >= stepLocation.getRecordNo() - 1;
+        return exitedEarly;
 
     }
 
@@ -29,10 +29,13 @@ import stroom.pipeline.EncodingSelection;
 import stroom.pipeline.LocationFactoryProxy;
 import stroom.pipeline.PipelineStore;
 import stroom.pipeline.StreamLocationFactory;
+import stroom.pipeline.TextConverterStore;
 import stroom.pipeline.errorhandler.ErrorReceiverProxy;
 import stroom.pipeline.errorhandler.LoggedException;
 import stroom.pipeline.errorhandler.LoggingErrorReceiver;
 import stroom.pipeline.errorhandler.ProcessException;
+import stroom.pipeline.factory.ElementRegistry;
+import stroom.pipeline.factory.ElementRegistryFactory;
 import stroom.pipeline.factory.Pipeline;
 import stroom.pipeline.factory.PipelineDataCache;
 import stroom.pipeline.factory.PipelineFactory;
@@ -40,8 +43,12 @@ import stroom.pipeline.shared.PipelineDoc;
 import stroom.pipeline.shared.StepLocation;
 import stroom.pipeline.shared.StepType;
 import stroom.pipeline.shared.SteppingResult;
+import stroom.pipeline.shared.TextConverterDoc;
 import stroom.pipeline.shared.data.PipelineData;
+import stroom.pipeline.shared.data.PipelineElement;
 import stroom.pipeline.shared.data.PipelineElementType;
+import stroom.pipeline.shared.data.PipelineLink;
+import stroom.pipeline.shared.data.PipelineProperty;
 import stroom.pipeline.state.CurrentUserHolder;
 import stroom.pipeline.state.FeedHolder;
 import stroom.pipeline.state.MetaDataHolder;
@@ -75,11 +82,20 @@ import javax.xml.parsers.SAXParserFactory;
 import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.InputStreamReader;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.TreeSet;
 
 @TaskHandlerBean(task = SteppingTask.class)
 class SteppingTaskHandler extends AbstractTaskHandler<SteppingTask, SteppingResult> {
@@ -112,6 +128,9 @@ class SteppingTaskHandler extends AbstractTaskHandler<SteppingTask, SteppingResu
     private final PipelineDataCache pipelineDataCache;
     private final PipelineContext pipelineContext;
     private final Security security;
+    private final RecordCountCache recordCountCache;
+    private final TextConverterStore textConverterStore;
+    private final ElementRegistryFactory elementRegistryFactory;
 
     private List<Long> allStreamIdList;
     private List<Long> filteredStreamIdList;
@@ -121,6 +140,7 @@ class SteppingTaskHandler extends AbstractTaskHandler<SteppingTask, SteppingResu
     private Long lastStreamId;
     private Feed lastFeed;
     private Pipeline pipeline;
+    private String upstreamKey;
     private LoggingErrorReceiver loggingErrorReceiver;
     private Set<String> generalErrors;
 
@@ -144,7 +164,10 @@ class SteppingTaskHandler extends AbstractTaskHandler<SteppingTask, SteppingResu
                         final SteppingResponseCache steppingResponseCache,
                         final PipelineDataCache pipelineDataCache,
                         final PipelineContext pipelineContext,
-                        final Security security) {
+                        final Security security,
+                        final RecordCountCache recordCountCache,
+                        final TextConverterStore textConverterStore,
+                        final ElementRegistryFactory elementRegistryFactory) {
         this.streamStore = streamStore;
         this.streamCloser = streamCloser;
         this.feedService = feedService;
@@ -165,6 +188,9 @@ class SteppingTaskHandler extends AbstractTaskHandler<SteppingTask, SteppingResu
         this.pipelineDataCache = pipelineDataCache;
         this.pipelineContext = pipelineContext;
         this.security = security;
+        this.recordCountCache = recordCountCache;
+        this.textConverterStore = textConverterStore;
+        this.elementRegistryFactory = elementRegistryFactory;
     }
 
     @Override
@@ -587,8 +613,22 @@ class SteppingTaskHandler extends AbstractTaskHandler<SteppingTask, SteppingResu
                     // Process the boundary.
                     try {
                         if (inputStream.size() > 0) {
+                            // Every step parses the part from the start as the parsers hold state, e.g. data
+                            // splitter variables, that can't be restored part way through. Skipping only saves
+                            // the work done by the elements after the parser. Tell the controller how many
+                            // records this part has if we have stepped through it before so it can skip straight
+                            // to the end.
+                            final RecordCountCache.Key recordCountKey = new RecordCountCache.Key(upstreamKey,
+                                    stream.getId(), streamType.getName(), streamNo);
+                            controller.setKnownRecordCount(recordCountCache.get(recordCountKey));
                             controller.setStepLocation(currentLocation);
                             pipeline.process(inputStream, encoding);
+
+                            // Remember how many records there are if we got to the end of the part.
+                            final Long recordCount = controller.getCompleteRecordCount();
+                            if (recordCount != null) {
+                                recordCountCache.put(recordCountKey, recordCount);
+                            }
                         }
 
                         // Are we done?
@@ -650,6 +690,7 @@ class SteppingTaskHandler extends AbstractTaskHandler<SteppingTask, SteppingResu
 
             final PipelineData pipelineData = pipelineDataCache.get(pipelineDoc);
             pipeline = pipelineFactory.create(pipelineData, controller);
+            upstreamKey = createUpstreamKey(pipelineDoc, pipelineData, controller.getRequest());
 
             // Don't return a pipeline if we cannot step with it.
             if (pipeline == null || controller.getRecordDetector() == null || controller.getMonitors() == null
@@ -662,6 +703,92 @@ class SteppingTaskHandler extends AbstractTaskHandler<SteppingTask, SteppingResu
         return pipeline;
     }
 
+    /**
+     * Create a key for the configuration of all elements from the source up to and including the
+     * parser. Record boundaries are decided by these elements alone so record counts stored against
+     * this key remain valid when elements further down the pipeline are changed.
+     */
+    private String createUpstreamKey(final PipelineDoc pipelineDoc,
+                                     final PipelineData pipelineData,
+                                     final SteppingTask request) {
+        final ElementRegistry elementRegistry = elementRegistryFactory.get();
+
+        final Map<String, String> elementTypes = new HashMap<>();
+        for (final PipelineElement element : pipelineData.getElements().getAdd()) {
+            elementTypes.put(element.getId(), element.getType());
+        }
+        final Map<String, List<String>> links = new HashMap<>();
+        for (final PipelineLink link : pipelineData.getLinks().getAdd()) {
+            links.computeIfAbsent(link.getFrom(), k -> new ArrayList<>()).add(link.getTo());
+        }
+
+        // Find all elements from the source up to and including any parser.
+        final Set<String> upstreamElements = new TreeSet<>();
+        final Deque<String> queue = new ArrayDeque<>();
+        queue.add("Source");
+        while (!queue.isEmpty()) {
+            final String id = queue.poll();
+            if (upstreamElements.add(id)) {
+                final PipelineElementType elementType = elementRegistry.getElementType(elementTypes.get(id));
+                if (elementType == null || !elementType.hasRole(PipelineElementType.ROLE_PARSER)) {
+                    queue.addAll(links.getOrDefault(id, Collections.emptyList()));
+                }
+            }
+        }
+
+        final StringBuilder sb = new StringBuilder();
+        sb.append(pipelineDoc.getUuid());
+        for (final String id : upstreamElements) {
+            sb.append("\n");
+            sb.append(id);
+            sb.append(":");
+            sb.append(elementTypes.get(id));
+
+            final String code = request.getCode() != null ? request.getCode().get(id) : null;
+            if (code != null) {
+                sb.append("\ncode:");
+                sb.append(code);
+            }
+        }
+
+        final List<PipelineProperty> properties = new ArrayList<>(pipelineData.getProperties().getAdd());
+        Collections.sort(properties);
+        for (final PipelineProperty property : properties) {
+            if (upstreamElements.contains(property.getElement()) && property.getValue() != null) {
+                sb.append("\n");
+                sb.append(property.getElement());
+                sb.append(".");
+                sb.append(property.getName());
+                sb.append("=");
+
+                final DocRef docRef = property.getValue().getEntity();
+                if (docRef != null) {
+                    sb.append(docRef.getUuid());
+
+                    // Include the version of any text converter so that saving a change to it is noticed.
+                    if (TextConverterDoc.DOCUMENT_TYPE.equals(docRef.getType())) {
+                        final TextConverterDoc textConverterDoc = textConverterStore.readDocument(docRef);
+                        if (textConverterDoc != null) {
+                            sb.append(":");
+                            sb.append(textConverterDoc.getVersion());
+                        }
+                    }
+                } else {
+                    sb.append(property.getValue());
+                }
+            }
+        }
+
+        // Keep the key small as it can contain injected code.
+        try {
+            final MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            final byte[] hash = digest.digest(sb.toString().getBytes(StandardCharsets.UTF_8));
+            return new BigInteger(1, hash).toString(16);
+        } catch (final NoSuchAlgorithmException e) {
+            throw new RuntimeException(e.getMessage(), e);
+        }
+    }
+
     private String createStreamInfo(final Feed feed, final Stream stream) {
         final StringBuilder sb = new StringBuilder();
         sb.append("Feed: ");
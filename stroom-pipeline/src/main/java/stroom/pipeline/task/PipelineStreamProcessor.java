@@ -55,6 +55,7 @@ import stroom.pipeline.state.RecordCount;
 import stroom.pipeline.state.SearchIdHolder;
 import stroom.pipeline.state.StreamHolder;
 import stroom.pipeline.state.StreamProcessorHolder;
+import stroom.refdata.RefDataLoaderHolder;
 import stroom.statistics.internal.InternalStatisticEvent;
 import stroom.statistics.internal.InternalStatisticsReceiver;
 import stroom.streamstore.OldFindStreamCriteria;
@@ -89,6 +90,7 @@ import java.io.InputStream;
 import java.io.OutputStream;
 import java.util.Collections;
 import java.util.List;
+import java.util.Objects;
 import java.util.regex.Pattern;
 
 public class PipelineStreamProcessor implements StreamProcessorTaskExecutor {
@@ -119,6 +121,7 @@ public class PipelineStreamProcessor implements StreamProcessorTaskExecutor {
     private final RecordCount recordCount;
     private final StreamCloser streamCloser;
     private final RecordErrorReceiver recordErrorReceiver;
+    private final RefDataLoaderHolder refDataLoaderHolder;
     private final NodeCache nodeCache;
     private final PipelineDataCache pipelineDataCache;
     private final InternalStatisticsReceiver internalStatisticsReceiver;
@@ -128,6 +131,11 @@ public class PipelineStreamProcessor implements StreamProcessorTaskExecutor {
     private StreamTask streamTask;
     private StreamSource streamSource;
 
+    // The pipeline built by an earlier task that can be reused if the pipeline has not changed.
+    private Pipeline pipeline;
+    private PipelineData pipelineData;
+    private String pipelineVersion;
+
     @Inject
     PipelineStreamProcessor(final PipelineFactory pipelineFactory,
                             final StreamStore streamStore,
@@ -148,6 +156,7 @@ public class PipelineStreamProcessor implements StreamProcessorTaskExecutor {
                             final RecordCount recordCount,
                             final StreamCloser streamCloser,
                             final RecordErrorReceiver recordErrorReceiver,
+                            final RefDataLoaderHolder refDataLoaderHolder,
                             final NodeCache nodeCache,
                             final PipelineDataCache pipelineDataCache,
                             final InternalStatisticsReceiver internalStatisticsReceiver) {
@@ -170,6 +179,7 @@ public class PipelineStreamProcessor implements StreamProcessorTaskExecutor {
         this.recordCount = recordCount;
         this.streamCloser = streamCloser;
         this.recordErrorReceiver = recordErrorReceiver;
+        this.refDataLoaderHolder = refDataLoaderHolder;
         this.nodeCache = nodeCache;
         this.pipelineDataCache = pipelineDataCache;
         this.internalStatisticsReceiver = internalStatisticsReceiver;
@@ -184,6 +194,10 @@ public class PipelineStreamProcessor implements StreamProcessorTaskExecutor {
             this.streamTask = streamTask;
             this.streamSource = streamSource;
 
+            // Make sure no state is left over from a previous task as this processor and the
+            // pipeline it builds can be reused.
+            resetTaskState();
+
             // Setup the error handler and receiver.
             errorReceiverProxy.setErrorReceiver(recordErrorReceiver);
 
@@ -256,8 +270,7 @@ public class PipelineStreamProcessor implements StreamProcessorTaskExecutor {
             streamProcessorHolder.setStreamProcessor(streamProcessor, streamTask);
 
             // Process the streams.
-            final PipelineData pipelineData = pipelineDataCache.get(pipelineDoc);
-            final Pipeline pipeline = pipelineFactory.create(pipelineData);
+            final Pipeline pipeline = getPipeline(pipelineDoc);
             processNestedStreams(pipeline, stream, streamSource, feed, stream.getStreamType());
 
             // Create processing finished message.
@@ -291,7 +304,59 @@ public class PipelineStreamProcessor implements StreamProcessorTaskExecutor {
             } catch (final IOException e) {
                 outputError(e);
             }
+
+            // Don't reuse a pipeline that has suffered a fatal error as it may have been left in an
+            // inconsistent state.
+            if (getMarkerCount(Severity.FATAL_ERROR) > 0) {
+                discardPipeline();
+            }
+        }
+    }
+
+    /**
+     * Get a pipeline for the supplied pipeline doc, reusing the one built by a previous task if the
+     * pipeline has not changed since.
+     */
+    private Pipeline getPipeline(final PipelineDoc pipelineDoc) {
+        final PipelineData pipelineData = pipelineDataCache.get(pipelineDoc);
+        if (pipeline == null
+                || this.pipelineData != pipelineData
+                || !Objects.equals(pipelineVersion, pipelineDoc.getVersion())) {
+            discardPipeline();
+
+            pipeline = pipelineFactory.create(pipelineData);
+            this.pipelineData = pipelineData;
+            pipelineVersion = pipelineDoc.getVersion();
+        } else {
+            LOGGER.debug("Reusing pipeline {} {}", pipelineDoc.getUuid(), pipelineVersion);
         }
+        return pipeline;
+    }
+
+    private void discardPipeline() {
+        pipeline = null;
+        pipelineData = null;
+        pipelineVersion = null;
+    }
+
+    /**
+     * Reset all of the pipeline scoped state that is specific to a single task.
+     */
+    private void resetTaskState() {
+        searchIdHolder.setSearchId(null);
+        streamHolder.clear();
+        metaData.clear();
+        recordCount.setRead(0);
+        recordCount.setWritten(0);
+        recordCount.setDuration(0);
+        recordErrorReceiver.clear();
+        streamCloser.setDelete(false);
+        refDataLoaderHolder.clear();
+    }
+
+    @Override
+    public boolean isReusable() {
+        return true;
     }
 
     /**
@@ -51,6 +51,11 @@ public abstract class AbstractAppender extends AbstractDestinationProvider imple
             }
         }
 
+        // Forget the closed output stream so a new one is created if this appender is reused.
+        outputStream = null;
+        segmentOutputStream = null;
+        footer = null;
+
         super.endProcessing();
     }
 
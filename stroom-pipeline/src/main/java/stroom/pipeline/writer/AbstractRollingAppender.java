@@ -67,6 +67,17 @@ public abstract class AbstractRollingAppender extends AbstractDestinationProvide
         destinations.returnDestination((RollingDestination) destination);
     }
 
+    @Override
+    public void endProcessing() {
+        try {
+            super.endProcessing();
+        } finally {
+            // Child classes can derive settings from the stream being processed so make sure they are
+            // validated again if this appender is reused.
+            validatedSettings = false;
+        }
+    }
+
     private void validateSettings() {
         if (!validatedSettings) {
             validatedSettings = true;
@@ -28,6 +28,7 @@ import stroom.pipeline.errorhandler.FatalErrorReceiver;
 import stroom.pipeline.errorhandler.ProcessException;
 import stroom.pipeline.factory.HasTargets;
 import stroom.pipeline.factory.PipelineFactoryException;
+import stroom.pipeline.factory.Stateless;
 import stroom.pipeline.factory.Target;
 import stroom.pipeline.filter.AbstractXMLFilter;
 import stroom.util.io.StreamUtil;
@@ -43,7 +44,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 
-public abstract class AbstractWriter extends AbstractXMLFilter implements Target, HasTargets {
+public abstract class AbstractWriter extends AbstractXMLFilter implements Target, HasTargets, Stateless {
     private static final NullOutputStream NULL_OUTPUT_STREAM = new NullOutputStream();
 
     private final ErrorReceiver errorReceiver;
@@ -174,6 +175,11 @@ public abstract class AbstractWriter extends AbstractXMLFilter implements Target
         }
     }
 
+    @Override
+    public boolean isStateless() {
+        return true;
+    }
+
     @Override
     public void startProcessing() {
         for (final DestinationProvider destinationProvider : destinationProviders) {
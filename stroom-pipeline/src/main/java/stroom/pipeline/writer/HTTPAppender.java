@@ -68,6 +68,17 @@ public class HTTPAppender extends AbstractAppender {
         this.metaDataHolder = metaDataHolder;
     }
 
+    @Override
+    public void endProcessing() {
+        try {
+            super.endProcessing();
+        } finally {
+            zipOutputStream = null;
+            byteCountOutputStream = null;
+            count = 0;
+        }
+    }
+
     @Override
     public Destination borrowDestination() throws IOException {
         nextEntry();
@@ -65,6 +65,17 @@ public class RollingFileAppender extends AbstractRollingAppender {
         this.pathCreator = pathCreator;
     }
 
+    @Override
+    public void endProcessing() {
+        try {
+            super.endProcessing();
+        } finally {
+            // File names can include context variables from the stream being processed so forget the
+            // key derived from them.
+            key = null;
+        }
+    }
+
     @Override
     public RollingDestination createDestination() throws IOException {
         String dir = this.dir;
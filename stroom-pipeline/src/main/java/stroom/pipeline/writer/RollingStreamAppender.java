@@ -81,6 +81,17 @@ public class RollingStreamAppender extends AbstractRollingAppender implements Ro
         this.nodeCache = nodeCache;
     }
 
+    @Override
+    public void endProcessing() {
+        try {
+            super.endProcessing();
+        } finally {
+            // The feed can come from the stream being processed so forget it and the key that uses it.
+            feed = null;
+            key = null;
+        }
+    }
+
     @Override
     public RollingDestination createDestination() throws IOException {
         if (key.getStreamType() == null) {
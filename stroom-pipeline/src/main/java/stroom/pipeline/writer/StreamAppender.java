@@ -84,6 +84,15 @@ public class StreamAppender extends AbstractAppender {
         this.streamCloser = streamCloser;
     }
 
+    @Override
+    public void endProcessing() {
+        try {
+            super.endProcessing();
+        } finally {
+            streamTarget = null;
+        }
+    }
+
     @Override
     protected OutputStream createOutputStream() throws IOException {
         final Stream parentStream = streamHolder.getStream();
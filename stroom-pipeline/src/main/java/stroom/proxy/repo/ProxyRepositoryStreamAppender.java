@@ -57,6 +57,8 @@ public class ProxyRepositoryStreamAppender extends AbstractDestinationProvider i
             }
             stroomZipOutputStream = null;
             outputStream = null;
+            doneOne = false;
+            count = 0;
         } catch (final IOException e) {
             error(e.getMessage(), e);
         } finally {
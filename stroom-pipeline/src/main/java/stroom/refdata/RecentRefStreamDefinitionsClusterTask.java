@@ -0,0 +1,48 @@
+/*
+ * Copyright 2018 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package stroom.refdata;
+
+import stroom.refdata.store.RefStreamDefinition;
+import stroom.task.cluster.ClusterTask;
+import stroom.util.shared.SharedList;
+
+/**
+ * Asks a node for the {@link RefStreamDefinition}s it has completely loaded and used recently.
+ */
+public class RecentRefStreamDefinitionsClusterTask extends ClusterTask<SharedList<RefStreamDefinition>> {
+    private static final long serialVersionUID = 4637916250981034213L;
+
+    private final long accessedSinceEpochMs;
+    private final int maxCount;
+
+    public RecentRefStreamDefinitionsClusterTask(final String userToken,
+                                                 final long accessedSinceEpochMs,
+                                                 final int maxCount) {
+        super(userToken, "RecentRefStreamDefinitionsClusterTask");
+        this.accessedSinceEpochMs = accessedSinceEpochMs;
+        this.maxCount = maxCount;
+    }
+
+    long getAccessedSinceEpochMs() {
+        return accessedSinceEpochMs;
+    }
+
+    int getMaxCount() {
+        return maxCount;
+    }
+}
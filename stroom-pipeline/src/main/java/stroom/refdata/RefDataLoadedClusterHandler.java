@@ -0,0 +1,46 @@
+/*
+ * Copyright 2018 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package stroom.refdata;
+
+import stroom.refdata.store.RefDataStoreProvider;
+import stroom.security.Security;
+import stroom.task.AbstractTaskHandler;
+import stroom.task.TaskHandlerBean;
+import stroom.util.shared.SharedBoolean;
+
+import javax.inject.Inject;
+
+@TaskHandlerBean(task = RefDataLoadedClusterTask.class)
+class RefDataLoadedClusterHandler extends AbstractTaskHandler<RefDataLoadedClusterTask, SharedBoolean> {
+    private final RefDataStoreProvider refDataStoreProvider;
+    private final Security security;
+
+    @Inject
+    RefDataLoadedClusterHandler(final RefDataStoreProvider refDataStoreProvider,
+                                final Security security) {
+        this.refDataStoreProvider = refDataStoreProvider;
+        this.security = security;
+    }
+
+    @Override
+    public SharedBoolean exec(final RefDataLoadedClusterTask task) {
+        // being asked by another node is not a use of the data so must not hold off its purge
+        return security.secureResult(() ->
+                SharedBoolean.wrap(refDataStoreProvider.getOffHeapStore()
+                        .isDataLoadedWithoutAccess(task.getRefStreamDefinition())));
+    }
+}
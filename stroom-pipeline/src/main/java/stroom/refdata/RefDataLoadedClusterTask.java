@@ -0,0 +1,40 @@
+/*
+ * Copyright 2018 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package stroom.refdata;
+
+import stroom.refdata.store.RefStreamDefinition;
+import stroom.task.cluster.ClusterTask;
+import stroom.util.shared.SharedBoolean;
+
+/**
+ * Asks a node whether it has completely loaded the reference data for a {@link RefStreamDefinition}.
+ */
+public class RefDataLoadedClusterTask extends ClusterTask<SharedBoolean> {
+    private static final long serialVersionUID = 6088310749531950517L;
+
+    private final RefStreamDefinition refStreamDefinition;
+
+    public RefDataLoadedClusterTask(final String userToken,
+                                    final RefStreamDefinition refStreamDefinition) {
+        super(userToken, "RefDataLoadedClusterTask");
+        this.refStreamDefinition = refStreamDefinition;
+    }
+
+    RefStreamDefinition getRefStreamDefinition() {
+        return refStreamDefinition;
+    }
+}
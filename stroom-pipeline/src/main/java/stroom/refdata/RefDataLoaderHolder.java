@@ -85,4 +85,16 @@ public class RefDataLoaderHolder {
                     "pipelineReference not found in store {}", pipelineReference), e);
         }
     }
+
+    /**
+     * Forget everything held for the previous pipeline process, e.g. when a pipeline is reused for another
+     * stream. Reference pipelines may have changed since and availability must be re-checked against the
+     * store so that the last access time of the data is kept up to date.
+     */
+    public void clear() {
+        refDataLoader = null;
+        availableRefStreamDefinitions.clear();
+        availableMapDefinitions.clear();
+        pipelineDocRefToVersionCache.clear();
+    }
 }
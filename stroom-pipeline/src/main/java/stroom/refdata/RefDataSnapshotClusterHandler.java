@@ -0,0 +1,47 @@
+/*
+ * Copyright 2018 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package stroom.refdata;
+
+import stroom.refdata.store.RefDataSnapshot;
+import stroom.refdata.store.RefDataStoreProvider;
+import stroom.security.Security;
+import stroom.task.AbstractTaskHandler;
+import stroom.task.TaskHandlerBean;
+
+import javax.inject.Inject;
+
+@TaskHandlerBean(task = RefDataSnapshotClusterTask.class)
+class RefDataSnapshotClusterHandler extends AbstractTaskHandler<RefDataSnapshotClusterTask, RefDataSnapshot> {
+    private final RefDataStoreProvider refDataStoreProvider;
+    private final Security security;
+
+    @Inject
+    RefDataSnapshotClusterHandler(final RefDataStoreProvider refDataStoreProvider,
+                                  final Security security) {
+        this.refDataStoreProvider = refDataStoreProvider;
+        this.security = security;
+    }
+
+    @Override
+    public RefDataSnapshot exec(final RefDataSnapshotClusterTask task) {
+        return security.secureResult(() ->
+                refDataStoreProvider.getOffHeapStore()
+                        .exportSnapshot(task.getRefStreamDefinition())
+                        .orElse(null));
+    }
+}
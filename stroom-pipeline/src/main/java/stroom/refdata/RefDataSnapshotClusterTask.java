@@ -0,0 +1,42 @@
+/*
+ * Copyright 2018 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package stroom.refdata;
+
+import stroom.refdata.store.RefDataSnapshot;
+import stroom.refdata.store.RefStreamDefinition;
+import stroom.task.cluster.ClusterTask;
+
+/**
+ * Asks a node for a {@link RefDataSnapshot} of the reference data it holds for a
+ * {@link RefStreamDefinition}. The result is null if the node has not completely loaded it.
+ */
+public class RefDataSnapshotClusterTask extends ClusterTask<RefDataSnapshot> {
+    private static final long serialVersionUID = -1795837021716203416L;
+
+    private final RefStreamDefinition refStreamDefinition;
+
+    public RefDataSnapshotClusterTask(final String userToken,
+                                      final RefStreamDefinition refStreamDefinition) {
+        super(userToken, "RefDataSnapshotClusterTask");
+        this.refStreamDefinition = refStreamDefinition;
+    }
+
+    RefStreamDefinition getRefStreamDefinition() {
+        return refStreamDefinition;
+    }
+}
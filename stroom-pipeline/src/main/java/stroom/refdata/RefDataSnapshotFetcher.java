@@ -0,0 +1,249 @@
+/*
+ * Copyright 2018 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package stroom.refdata;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import stroom.node.shared.Node;
+import stroom.properties.StroomPropertyService;
+import stroom.refdata.store.RefDataSnapshot;
+import stroom.refdata.store.RefDataStoreProvider;
+import stroom.refdata.store.RefStreamDefinition;
+import stroom.refdata.store.offheapstore.RefDataOffHeapStore;
+import stroom.security.UserTokenUtil;
+import stroom.task.cluster.ClusterCallEntry;
+import stroom.task.cluster.ClusterDispatchAsyncHelper;
+import stroom.task.cluster.DefaultClusterResultCollector;
+import stroom.task.cluster.NodeNotFoundException;
+import stroom.task.cluster.NullClusterStateException;
+import stroom.task.cluster.TargetNodeSetFactory;
+import stroom.task.cluster.TargetNodeSetFactory.TargetType;
+import stroom.util.lifecycle.StroomFrequencySchedule;
+import stroom.util.shared.ModelStringUtil;
+import stroom.util.shared.SharedBoolean;
+import stroom.util.shared.SharedList;
+
+import javax.inject.Inject;
+import javax.inject.Provider;
+import javax.inject.Singleton;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Fetches {@link RefDataSnapshot}s of reference data that other nodes have already loaded and
+ * imports them into the local off heap store, so that each node does not have to run the same
+ * reference loader pipelines over the same streams.
+ */
+@Singleton
+public class RefDataSnapshotFetcher {
+    private static final Logger LOGGER = LoggerFactory.getLogger(RefDataSnapshotFetcher.class);
+
+    static final String ENABLED_PROP_KEY = "stroom.refloader.snapshot.enabled";
+    static final String FETCH_TIMEOUT_PROP_KEY = "stroom.refloader.snapshot.fetchTimeout";
+    static final String WARM_UP_AGE_PROP_KEY = "stroom.refloader.snapshot.warmUpAge";
+    static final String WARM_UP_MAX_COUNT_PROP_KEY = "stroom.refloader.snapshot.warmUpMaxCount";
+
+    private static final String FETCH_TIMEOUT_DEFAULT_VALUE = "30s";
+    private static final String WARM_UP_AGE_DEFAULT_VALUE = "1d";
+    private static final int WARM_UP_MAX_COUNT_DEFAULT_VALUE = 100;
+
+    private final RefDataOffHeapStore refDataStore;
+    private final Provider<ClusterDispatchAsyncHelper> dispatchHelperProvider;
+    private final Provider<TargetNodeSetFactory> targetNodeSetFactoryProvider;
+    private final StroomPropertyService stroomPropertyService;
+
+    private volatile boolean warmUpComplete;
+
+    @Inject
+    RefDataSnapshotFetcher(final RefDataStoreProvider refDataStoreProvider,
+                           final Provider<ClusterDispatchAsyncHelper> dispatchHelperProvider,
+                           final Provider<TargetNodeSetFactory> targetNodeSetFactoryProvider,
+                           final StroomPropertyService stroomPropertyService) {
+        this.refDataStore = refDataStoreProvider.getOffHeapStore();
+        this.dispatchHelperProvider = dispatchHelperProvider;
+        this.targetNodeSetFactoryProvider = targetNodeSetFactoryProvider;
+        this.stroomPropertyService = stroomPropertyService;
+    }
+
+    /**
+     * Tries each of the other active nodes that have loaded refStreamDefinition in turn for a snapshot
+     * of it and imports the first one found. No more than the fetch timeout is spent on this in total.
+     *
+     * @return True if the data for refStreamDefinition is now loaded, false if no other node could
+     * supply it and it must be loaded locally.
+     */
+    public boolean fetchAndImport(final String userToken, final RefStreamDefinition refStreamDefinition) {
+        if (!isEnabled()) {
+            return false;
+        }
+
+        final long deadlineMs = System.currentTimeMillis() + getFetchTimeoutMs();
+        final Set<Node> nodesWithData = getNodesWithData(refStreamDefinition, deadlineMs);
+
+        for (final Node node : getOtherNodes()) {
+            if (!nodesWithData.contains(node)) {
+                LOGGER.debug("Node {} has not loaded {}", node.getName(), refStreamDefinition);
+                continue;
+            }
+
+            final long remainingMs = deadlineMs - System.currentTimeMillis();
+            if (remainingMs <= 0) {
+                LOGGER.debug("Timed out fetching a reference data snapshot for {}", refStreamDefinition);
+                break;
+            }
+
+            try {
+                final ClusterDispatchAsyncHelper dispatchHelper = dispatchHelperProvider.get();
+                final DefaultClusterResultCollector<RefDataSnapshot> collector = dispatchHelper.execAsync(
+                        new RefDataSnapshotClusterTask(userToken, refStreamDefinition),
+                        remainingMs,
+                        TimeUnit.MILLISECONDS,
+                        node);
+                final ClusterCallEntry<RefDataSnapshot> response = collector.getResponse(node);
+
+                if (response == null) {
+                    LOGGER.debug("No response from node {} for {}", node.getName(), refStreamDefinition);
+                } else if (response.getError() != null) {
+                    LOGGER.warn("Error fetching reference data snapshot for {} from node {}: {}",
+                            refStreamDefinition, node.getName(), response.getError().getMessage());
+                } else if (response.getResult() != null) {
+                    LOGGER.debug("Fetched {} from node {}", response.getResult(), node.getName());
+                    refDataStore.importSnapshot(response.getResult());
+                    return true;
+                }
+            } catch (final RuntimeException e) {
+                LOGGER.error("Unable to import reference data snapshot for {} from node {}",
+                        refStreamDefinition, node.getName(), e);
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Once the cluster state is known, fetch snapshots of the reference data that the other nodes have
+     * used recently so this node has it to hand before it is first looked up. This only happens once
+     * after startup.
+     */
+    @StroomFrequencySchedule("1m")
+    public void warmUp() {
+        if (warmUpComplete) {
+            return;
+        }
+        if (!isEnabled()) {
+            warmUpComplete = true;
+            return;
+        }
+        final ClusterDispatchAsyncHelper dispatchHelper = dispatchHelperProvider.get();
+        if (!dispatchHelper.isClusterStateInitialised()) {
+            LOGGER.debug("Cluster state not initialised, deferring reference data warm up");
+            return;
+        }
+        warmUpComplete = true;
+
+        final long accessedSinceEpochMs = System.currentTimeMillis() - getDurationMs(
+                WARM_UP_AGE_PROP_KEY, WARM_UP_AGE_DEFAULT_VALUE);
+        final int maxCount = stroomPropertyService.getIntProperty(
+                WARM_UP_MAX_COUNT_PROP_KEY, WARM_UP_MAX_COUNT_DEFAULT_VALUE);
+        final String userToken = UserTokenUtil.INTERNAL_PROCESSING_USER_TOKEN;
+
+        final DefaultClusterResultCollector<SharedList<RefStreamDefinition>> collector = dispatchHelper.execAsync(
+                new RecentRefStreamDefinitionsClusterTask(userToken, accessedSinceEpochMs, maxCount),
+                TargetType.ACTIVE);
+
+        final Set<RefStreamDefinition> refStreamDefinitions = new LinkedHashSet<>();
+        collector.getResponseMap().values().forEach(response -> {
+            if (response.getError() != null) {
+                LOGGER.warn("Error fetching recent reference data: {}", response.getError().getMessage());
+            } else if (response.getResult() != null) {
+                refStreamDefinitions.addAll(response.getResult());
+            }
+        });
+
+        int importCount = 0;
+        for (final RefStreamDefinition refStreamDefinition : refStreamDefinitions) {
+            if (importCount >= maxCount || Thread.currentThread().isInterrupted()) {
+                break;
+            }
+            if (!refDataStore.isDataLoaded(refStreamDefinition)
+                    && fetchAndImport(userToken, refStreamDefinition)) {
+                importCount++;
+            }
+        }
+        LOGGER.info("Reference data warm up imported {} of {} recently used stream definitions",
+                importCount, refStreamDefinitions.size());
+    }
+
+    /**
+     * @return The nodes that have completely loaded refStreamDefinition. Only this one definition is
+     * asked about so the cost of the call does not grow with the amount of reference data each node holds.
+     */
+    private Set<Node> getNodesWithData(final RefStreamDefinition refStreamDefinition, final long deadlineMs) {
+        final long remainingMs = deadlineMs - System.currentTimeMillis();
+        if (remainingMs <= 0) {
+            return Collections.emptySet();
+        }
+
+        final RefDataLoadedClusterTask task = new RefDataLoadedClusterTask(
+                UserTokenUtil.INTERNAL_PROCESSING_USER_TOKEN, refStreamDefinition);
+        final DefaultClusterResultCollector<SharedBoolean> collector = dispatchHelperProvider.get()
+                .execAsync(task, remainingMs, TimeUnit.MILLISECONDS, TargetType.ACTIVE);
+
+        final Set<Node> nodes = new HashSet<>();
+        collector.getResponseMap().forEach((node, response) -> {
+            if (response.getError() != null) {
+                LOGGER.warn("Error asking node {} about reference data {}: {}",
+                        node.getName(), refStreamDefinition, response.getError().getMessage());
+            } else if (response.getResult() != null && Boolean.TRUE.equals(response.getResult().getBoolean())) {
+                nodes.add(node);
+            }
+        });
+        return nodes;
+    }
+
+    private List<Node> getOtherNodes() {
+        try {
+            final TargetNodeSetFactory targetNodeSetFactory = targetNodeSetFactoryProvider.get();
+            final Node sourceNode = targetNodeSetFactory.getSourceNode();
+            return targetNodeSetFactory.getEnabledActiveTargetNodeSet().stream()
+                    .filter(node -> !node.equals(sourceNode))
+                    .collect(Collectors.toList());
+        } catch (final NullClusterStateException | NodeNotFoundException e) {
+            LOGGER.debug("Unable to get other nodes: {}", e.getMessage());
+            return Collections.emptyList();
+        }
+    }
+
+    private boolean isEnabled() {
+        return stroomPropertyService.getBooleanProperty(ENABLED_PROP_KEY, false);
+    }
+
+    private long getFetchTimeoutMs() {
+        return getDurationMs(FETCH_TIMEOUT_PROP_KEY, FETCH_TIMEOUT_DEFAULT_VALUE);
+    }
+
+    private long getDurationMs(final String propKey, final String defaultValue) {
+        final Long durationMs = ModelStringUtil.parseDurationString(
+                stroomPropertyService.getProperty(propKey, defaultValue));
+        return durationMs != null ? durationMs : ModelStringUtil.parseDurationString(defaultValue);
+    }
+}
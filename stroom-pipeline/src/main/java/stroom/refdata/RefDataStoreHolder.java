@@ -18,22 +18,29 @@
 package stroom.refdata;
 
 import stroom.guice.PipelineScoped;
+import stroom.pipeline.state.StreamHolder;
 import stroom.refdata.store.RefDataStore;
 import stroom.refdata.store.RefDataStoreProvider;
+import stroom.streamstore.shared.Stream;
 
 import javax.inject.Inject;
+import java.util.Objects;
 
 @PipelineScoped
 public class RefDataStoreHolder {
 
     private final RefDataStoreProvider refDataStoreProvider;
     private final RefDataStore offHeapRefDataStore;
+    private final StreamHolder streamHolder;
 
     private RefDataStore onHeapRefDataStore = null;
+    private Stream onHeapRefDataStoreStream = null;
 
     @Inject
-    RefDataStoreHolder(final RefDataStoreProvider refDataStoreProvider) {
+    RefDataStoreHolder(final RefDataStoreProvider refDataStoreProvider,
+                       final StreamHolder streamHolder) {
         this.refDataStoreProvider = refDataStoreProvider;
+        this.streamHolder = streamHolder;
         this.offHeapRefDataStore = refDataStoreProvider.getOffHeapStore();
     }
 
@@ -50,9 +57,13 @@ public class RefDataStoreHolder {
      */
     public RefDataStore getOnHeapRefDataStore() {
 
-        // on demand creation of a RefDataStore for this pipeline scope
-        if (onHeapRefDataStore == null) {
+        // on demand creation of a RefDataStore for this pipeline scope. Context data only relates to
+        // the stream being processed so start a new store if the pipeline has moved on to another stream,
+        // e.g. when a pooled pipeline is reused for the next stream task.
+        final Stream stream = streamHolder.getStream();
+        if (onHeapRefDataStore == null || !Objects.equals(onHeapRefDataStoreStream, stream)) {
             onHeapRefDataStore = refDataStoreProvider.createOnHeapStore();
+            onHeapRefDataStoreStream = stream;
         }
         return onHeapRefDataStore;
     }
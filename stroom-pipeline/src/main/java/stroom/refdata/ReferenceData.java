@@ -74,6 +74,11 @@ public class ReferenceData {
     private final PipelineStore pipelineStore;
     private final Security security;
 
+    // Remembers the results of recent lookups while processing the current stream.
+    private final ReferenceDataMemo memo = new ReferenceDataMemo();
+    private List<PipelineReference> memoPipelineReferences;
+    private Stream memoStream;
+    private long memoStreamNo = -1;
 
     @Inject
     ReferenceData(final EffectiveStreamCache effectiveStreamCache,
@@ -117,6 +122,42 @@ public class ReferenceData {
 
         LOGGER.trace("ensureReferenceDataAvailability({}, {}", pipelineReferences, lookupIdentifier);
 
+        // Real world XSLT often looks up the same few keys many times so see if we have already resolved this one.
+        checkMemo(pipelineReferences);
+        final ReferenceDataMemo.Entry entry = memo.get(lookupIdentifier);
+        if (entry != null) {
+            result.setRefDataValueProxy(entry.getRefDataValueProxy());
+            result.log(Severity.INFO, () -> "Using memoised result of an earlier lookup (" + memo.getStats() + ")");
+            return;
+        }
+
+        resolve(pipelineReferences, lookupIdentifier, result);
+        result.log(Severity.INFO, () -> "Lookup memo (" + memo.getStats() + ")");
+        memo.put(lookupIdentifier, result);
+    }
+
+    /**
+     * The memo is only valid for the stream currently being processed as context data and effective streams may be
+     * different for the next one.
+     */
+    private void checkMemo(final List<PipelineReference> pipelineReferences) {
+        Stream stream = null;
+        long streamNo = -1;
+        if (streamHolder != null) {
+            stream = streamHolder.getStream();
+            streamNo = streamHolder.getStreamNo();
+        }
+        if (pipelineReferences != memoPipelineReferences || stream != memoStream || streamNo != memoStreamNo) {
+            memo.clear();
+            memoPipelineReferences = pipelineReferences;
+            memoStream = stream;
+            memoStreamNo = streamNo;
+        }
+    }
+
+    private void resolve(final List<PipelineReference> pipelineReferences,
+                         final LookupIdentifier lookupIdentifier,
+                         final ReferenceDataResult result) {
         // Do we have a nested token?
         if (lookupIdentifier.isMapNested()) {
             LOGGER.trace("lookupIdentifier is nested {}", lookupIdentifier);
@@ -141,7 +182,7 @@ public class ReferenceData {
                     // use the value from this lookup as the key for the nested map
                     LookupIdentifier nestedIdentifier = lookupIdentifier.getNestedLookupIdentifier(nextKey);
 
-                    ensureReferenceDataAvailability(pipelineReferences, nestedIdentifier, result);
+                    resolve(pipelineReferences, nestedIdentifier, result);
                 } catch (ClassCastException e) {
                     result.log(Severity.ERROR, () -> LambdaLogger.buildMessage("Value is the wrong type, expected: {}, found: {}",
                             StringValue.class.getName(), refDataValue.getClass().getName()));
@@ -382,6 +423,13 @@ public class ReferenceData {
                 final EffectiveStream effectiveStream = streamSet.floor(new EffectiveStream(0, time));
                 // If we have an effective time then use it.
                 if (effectiveStream != null) {
+                    // Any event time in this window from this effective time up to the next one will resolve to the
+                    // same effective stream.
+                    final EffectiveStream nextEffectiveStream = streamSet.higher(effectiveStream);
+                    final long effectiveToMs = nextEffectiveStream != null
+                            ? Math.min(toMs, nextEffectiveStream.getEffectiveMs())
+                            : toMs;
+                    result.narrowEffectiveRange(Math.max(fromMs, effectiveStream.getEffectiveMs()), effectiveToMs);
 
                     final RefStreamDefinition refStreamDefinition = new RefStreamDefinition(
                             pipelineReference.getPipeline(),
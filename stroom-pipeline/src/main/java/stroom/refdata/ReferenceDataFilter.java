@@ -374,11 +374,6 @@ public class ReferenceDataFilter extends AbstractXMLFilter {
                 final MapDefinition mapDefinition = new MapDefinition(refDataLoader.getRefStreamDefinition(), mapName);
 
                 if (key != null) {
-                    // TODO We are holding onto a txn most of the time between put calls. It may be
-                    // better to hold onto the kv pairs locally then put them all in a batch so the txn is only
-                    // used for lmdb CRUD and not xml processing. However this would not work with the current
-                    // approach of a reusable bytebuffer.
-
                     LOGGER.trace("Putting key {} into map {}", key, mapDefinition);
                     boolean didPutSucceed = refDataLoaderHolder.getRefDataLoader()
                             .put(mapDefinition, key, refDataValue);
@@ -80,6 +80,7 @@ class ReferenceDataLoadTaskHandler extends AbstractTaskHandler<ReferenceDataLoad
     private final StreamHolder streamHolder;
     private final RefDataLoaderHolder refDataLoaderHolder;
     private final RefDataStore refDataStore;
+    private final RefDataSnapshotFetcher refDataSnapshotFetcher;
     private final LocationFactoryProxy locationFactory;
     private final StreamCloser streamCloser;
     private final ErrorReceiverProxy errorReceiverProxy;
@@ -100,6 +101,7 @@ class ReferenceDataLoadTaskHandler extends AbstractTaskHandler<ReferenceDataLoad
                                  final StreamHolder streamHolder,
                                  final RefDataLoaderHolder refDataLoaderHolder,
                                  final RefDataStoreProvider refDataStoreProvider,
+                                 final RefDataSnapshotFetcher refDataSnapshotFetcher,
                                  final LocationFactoryProxy locationFactory,
                                  final StreamCloser streamCloser,
                                  final ErrorReceiverProxy errorReceiverProxy,
@@ -113,6 +115,7 @@ class ReferenceDataLoadTaskHandler extends AbstractTaskHandler<ReferenceDataLoad
         this.pipelineHolder = pipelineHolder;
         this.feedHolder = feedHolder;
         this.refDataStore = refDataStoreProvider.getOffHeapStore();
+        this.refDataSnapshotFetcher = refDataSnapshotFetcher;
         this.metaDataHolder = metaDataHolder;
         this.locationFactory = locationFactory;
         this.streamHolder = streamHolder;
@@ -138,6 +141,13 @@ class ReferenceDataLoadTaskHandler extends AbstractTaskHandler<ReferenceDataLoad
             try {
                 final RefStreamDefinition refStreamDefinition = task.getRefStreamDefinition();
 
+                // another node may have already loaded this stream so try to import its copy of
+                // the data before running the pipeline ourselves
+                if (refDataSnapshotFetcher.fetchAndImport(task.getUserToken(), refStreamDefinition)) {
+                    LOGGER.debug("Imported reference data from another node: {}", refStreamDefinition);
+                    return VoidResult.INSTANCE;
+                }
+
                 LOGGER.debug("Loading reference data: {}", refStreamDefinition);
 
                 // Open the stream source.
@@ -0,0 +1,151 @@
+/*
+ * Copyright 2018 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package stroom.refdata;
+
+import stroom.refdata.store.RefDataValueProxy;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * A bounded memo of resolved lookups so that repeated lookups of the same map and key while processing a stream do
+ * not need to resolve the effective stream and check the store each time. Each entry records the range of event
+ * times that resolve to the same effective streams so a lookup is only served from the memo if its event time falls
+ * within the range. The least recently used keys are discarded once the memo is full.
+ * <p>
+ * This class is not thread safe as it is only used by a single pipeline.
+ */
+class ReferenceDataMemo {
+    static final int MAX_KEYS = 1000;
+    // A key is rarely looked up at more than a couple of effective times within a stream.
+    private static final int MAX_ENTRIES_PER_KEY = 4;
+
+    private final Map<MemoKey, List<Entry>> map;
+
+    private long hits;
+    private long misses;
+
+    ReferenceDataMemo() {
+        this(MAX_KEYS);
+    }
+
+    ReferenceDataMemo(final int maxKeys) {
+        map = new LinkedHashMap<MemoKey, List<Entry>>(16, 0.75F, true) {
+            @Override
+            protected boolean removeEldestEntry(final Map.Entry<MemoKey, List<Entry>> eldest) {
+                return size() > maxKeys;
+            }
+        };
+    }
+
+    /**
+     * @return The memoised entry for the lookup or null if there isn't one for the event time of the lookup.
+     */
+    Entry get(final LookupIdentifier lookupIdentifier) {
+        final List<Entry> entries = map.get(new MemoKey(lookupIdentifier));
+        if (entries != null) {
+            final long time = lookupIdentifier.getEventTime();
+            for (final Entry entry : entries) {
+                if (time >= entry.fromMs && time < entry.toMs) {
+                    hits++;
+                    return entry;
+                }
+            }
+        }
+        misses++;
+        return null;
+    }
+
+    /**
+     * Remember the result of a lookup. Results with warnings or errors are not remembered so that the messages are
+     * reported for every lookup.
+     */
+    void put(final LookupIdentifier lookupIdentifier, final ReferenceDataResult result) {
+        if (result.hasWarningsOrErrors()) {
+            return;
+        }
+
+        final List<Entry> entries = map.computeIfAbsent(new MemoKey(lookupIdentifier), k -> new ArrayList<>(1));
+        if (entries.size() >= MAX_ENTRIES_PER_KEY) {
+            entries.remove(0);
+        }
+        entries.add(new Entry(result.getRefDataValueProxy(), result.getEffectiveFromMs(), result.getEffectiveToMs()));
+    }
+
+    void clear() {
+        map.clear();
+    }
+
+    long getHits() {
+        return hits;
+    }
+
+    long getMisses() {
+        return misses;
+    }
+
+    String getStats() {
+        final long total = hits + misses;
+        final long hitPercent = total == 0 ? 0 : (hits * 100) / total;
+        return "hits = " + hits + ", misses = " + misses + ", hit rate = " + hitPercent + "%";
+    }
+
+    static class Entry {
+        private final RefDataValueProxy refDataValueProxy;
+        private final long fromMs;
+        private final long toMs;
+
+        Entry(final RefDataValueProxy refDataValueProxy, final long fromMs, final long toMs) {
+            this.refDataValueProxy = refDataValueProxy;
+            this.fromMs = fromMs;
+            this.toMs = toMs;
+        }
+
+        RefDataValueProxy getRefDataValueProxy() {
+            return refDataValueProxy;
+        }
+    }
+
+    private static class MemoKey {
+        private final String map;
+        private final String key;
+        private final int hashCode;
+
+        MemoKey(final LookupIdentifier lookupIdentifier) {
+            this.map = lookupIdentifier.getMap();
+            this.key = lookupIdentifier.getKey();
+            this.hashCode = Objects.hash(map, key);
+        }
+
+        @Override
+        public boolean equals(final Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            final MemoKey memoKey = (MemoKey) o;
+            return Objects.equals(map, memoKey.map) &&
+                    Objects.equals(key, memoKey.key);
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+    }
+}
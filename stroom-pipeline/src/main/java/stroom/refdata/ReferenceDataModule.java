@@ -40,6 +40,9 @@ public class ReferenceDataModule extends AbstractModule {
         final Multibinder<TaskHandler> taskHandlerBinder = Multibinder.newSetBinder(binder(), TaskHandler.class);
         taskHandlerBinder.addBinding().to(stroom.refdata.ContextDataLoadTaskHandler.class);
         taskHandlerBinder.addBinding().to(stroom.refdata.ReferenceDataLoadTaskHandler.class);
+        taskHandlerBinder.addBinding().to(stroom.refdata.RefDataSnapshotClusterHandler.class);
+        taskHandlerBinder.addBinding().to(stroom.refdata.RefDataLoadedClusterHandler.class);
+        taskHandlerBinder.addBinding().to(stroom.refdata.RecentRefStreamDefinitionsClusterHandler.class);
 
         install(new RefDataStoreModule());
     }
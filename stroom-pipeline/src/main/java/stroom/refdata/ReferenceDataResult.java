@@ -32,6 +32,10 @@ public class ReferenceDataResult implements ErrorReceiver {
 
     private RefDataValueProxy refDataValueProxy;
 
+    // The range of event times that would resolve to the same effective streams as this result.
+    private long effectiveFromMs = Long.MIN_VALUE;
+    private long effectiveToMs = Long.MAX_VALUE;
+
     private List<LazyMessage> messages = new ArrayList<>();
 
     public RefDataValueProxy getRefDataValueProxy() {
@@ -42,6 +46,34 @@ public class ReferenceDataResult implements ErrorReceiver {
         this.refDataValueProxy = refDataValueProxy;
     }
 
+    long getEffectiveFromMs() {
+        return effectiveFromMs;
+    }
+
+    long getEffectiveToMs() {
+        return effectiveToMs;
+    }
+
+    /**
+     * Restrict the range of event times that this result is valid for.
+     *
+     * @param fromMs The inclusive start of the range.
+     * @param toMs   The exclusive end of the range.
+     */
+    void narrowEffectiveRange(final long fromMs, final long toMs) {
+        effectiveFromMs = Math.max(effectiveFromMs, fromMs);
+        effectiveToMs = Math.min(effectiveToMs, toMs);
+    }
+
+    boolean hasWarningsOrErrors() {
+        for (final LazyMessage message : messages) {
+            if (message.getSeverity() != null && message.getSeverity().greaterThanOrEqual(Severity.WARNING)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     public void log(final Severity severity, final Supplier<String> message) {
         if (LOGGER.isDebugEnabled()) {
             LOGGER.debug(message.get());
@@ -0,0 +1,176 @@
+/*
+ * Copyright 2018 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package stroom.refdata.store;
+
+import stroom.docref.SharedObject;
+import stroom.entity.shared.Range;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A compact, serialisable copy of all the maps loaded for a single {@link RefStreamDefinition}
+ * so that one node can ship its fully loaded reference data to another node rather than the
+ * other node re-running the reference loader pipeline. Each distinct value is held once in its
+ * serialised form with the entries referencing it by index.
+ */
+public class RefDataSnapshot implements SharedObject {
+
+    private static final long serialVersionUID = -3617730937434802517L;
+
+    // rough per object overhead used when estimating the size of the snapshot
+    private static final int OBJECT_OVERHEAD_BYTES = 32;
+
+    private final RefStreamDefinition refStreamDefinition;
+    private final long effectiveTimeMs;
+    private final List<Value> values = new ArrayList<>();
+    private final List<Entry> entries = new ArrayList<>();
+    // only needed while the snapshot is being built
+    private transient long approximateSizeBytes;
+
+    public RefDataSnapshot(final RefStreamDefinition refStreamDefinition,
+                           final long effectiveTimeMs) {
+        this.refStreamDefinition = refStreamDefinition;
+        this.effectiveTimeMs = effectiveTimeMs;
+    }
+
+    /**
+     * @return The index of the added value, for use in the entries that reference it
+     */
+    public int addValue(final int typeId, final byte[] bytes) {
+        values.add(new Value(typeId, bytes));
+        approximateSizeBytes += OBJECT_OVERHEAD_BYTES + bytes.length;
+        return values.size() - 1;
+    }
+
+    /**
+     * The entries of a map should all be added with the same mapName instance so that it is only
+     * held, and serialised, once rather than once per entry.
+     */
+    public void addKeyValueEntry(final String mapName, final String key, final int valueIndex) {
+        entries.add(new Entry(mapName, key, null, valueIndex));
+        approximateSizeBytes += (OBJECT_OVERHEAD_BYTES * 2) + (key.length() * 2L);
+    }
+
+    /**
+     * See {@link #addKeyValueEntry(String, String, int)}
+     */
+    public void addRangeValueEntry(final String mapName, final Range<Long> keyRange, final int valueIndex) {
+        entries.add(new Entry(mapName, null, keyRange, valueIndex));
+        approximateSizeBytes += OBJECT_OVERHEAD_BYTES * 4;
+    }
+
+    /**
+     * @return A rough estimate of the heap used by the values and entries added to this snapshot.
+     * Only valid on the node that built the snapshot.
+     */
+    public long getApproximateSizeBytes() {
+        return approximateSizeBytes;
+    }
+
+    public RefStreamDefinition getRefStreamDefinition() {
+        return refStreamDefinition;
+    }
+
+    public long getEffectiveTimeMs() {
+        return effectiveTimeMs;
+    }
+
+    public List<Value> getValues() {
+        return values;
+    }
+
+    public Value getValue(final int valueIndex) {
+        return values.get(valueIndex);
+    }
+
+    public List<Entry> getEntries() {
+        return entries;
+    }
+
+    @Override
+    public String toString() {
+        return "RefDataSnapshot{" +
+                "refStreamDefinition=" + refStreamDefinition +
+                ", effectiveTimeMs=" + effectiveTimeMs +
+                ", values=" + values.size() +
+                ", entries=" + entries.size() +
+                '}';
+    }
+
+    public static class Value implements Serializable {
+
+        private static final long serialVersionUID = 3355254683946150442L;
+
+        private final int typeId;
+        private final byte[] bytes;
+
+        Value(final int typeId, final byte[] bytes) {
+            this.typeId = typeId;
+            this.bytes = bytes;
+        }
+
+        public int getTypeId() {
+            return typeId;
+        }
+
+        public byte[] getBytes() {
+            return bytes;
+        }
+    }
+
+    public static class Entry implements Serializable {
+
+        private static final long serialVersionUID = 1968418047213545113L;
+
+        private final String mapName;
+        private final String key;
+        private final Range<Long> keyRange;
+        private final int valueIndex;
+
+        Entry(final String mapName, final String key, final Range<Long> keyRange, final int valueIndex) {
+            this.mapName = mapName;
+            this.key = key;
+            this.keyRange = keyRange;
+            this.valueIndex = valueIndex;
+        }
+
+        public String getMapName() {
+            return mapName;
+        }
+
+        /**
+         * @return The key of a key/value entry or null if this is a range/value entry
+         */
+        public String getKey() {
+            return key;
+        }
+
+        /**
+         * @return The key range of a range/value entry or null if this is a key/value entry
+         */
+        public Range<Long> getKeyRange() {
+            return keyRange;
+        }
+
+        public int getValueIndex() {
+            return valueIndex;
+        }
+    }
+}
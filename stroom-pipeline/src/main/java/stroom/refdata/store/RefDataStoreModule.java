@@ -22,7 +22,6 @@ import com.google.inject.assistedinject.FactoryModuleBuilder;
 import com.google.inject.multibindings.MapBinder;
 import stroom.properties.StroomPropertyService;
 import stroom.refdata.store.FastInfosetValue;
-import stroom.refdata.store.RefDataStore;
 import stroom.refdata.store.StringValue;
 import stroom.refdata.store.offheapstore.AbstractByteBufferConsumer;
 import stroom.refdata.store.offheapstore.FastInfosetByteBufferConsumer;
@@ -68,8 +67,6 @@ public class RefDataStoreModule extends AbstractModule {
         install(new FactoryModuleBuilder().build(RefDataValueProxyConsumer.Factory.class));
         install(new FactoryModuleBuilder().build(PooledByteBufferOutputStream.Factory.class));
 
-        install(new FactoryModuleBuilder()
-                .implement(RefDataStore.class, RefDataOffHeapStore.class)
-                .build(RefDataOffHeapStore.Factory.class));
+        install(new FactoryModuleBuilder().build(RefDataOffHeapStore.Factory.class));
     }
 }
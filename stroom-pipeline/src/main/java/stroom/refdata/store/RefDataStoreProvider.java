@@ -56,7 +56,7 @@ public class RefDataStoreProvider {
     private static final int MAX_PUTS_BEFORE_COMMIT_DEFAULT = 1000;
 
     private final StroomPropertyService stroomPropertyService;
-    private final RefDataStore offHeapRefDataStore;
+    private final RefDataOffHeapStore offHeapRefDataStore;
     private final GenericRefDataValueSerde genericRefDataValueSerde;
 
     @Inject
@@ -88,7 +88,7 @@ public class RefDataStoreProvider {
                 valueBufferCapacity);
     }
 
-    public RefDataStore getOffHeapStore() {
+    public RefDataOffHeapStore getOffHeapStore() {
         return offHeapRefDataStore;
     }
 
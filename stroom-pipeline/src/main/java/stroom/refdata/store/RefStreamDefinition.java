@@ -19,11 +19,14 @@ package stroom.refdata.store;
 
 
 import stroom.docref.DocRef;
+import stroom.docref.SharedObject;
 import stroom.pipeline.shared.PipelineDoc;
 
 import java.util.Objects;
 
-public class RefStreamDefinition {
+public class RefStreamDefinition implements SharedObject {
+
+    private static final long serialVersionUID = 6283452184624917503L;
 
     private static final int DEFAULT_STREAM_NO = 0;
 
@@ -18,6 +18,7 @@ import stroom.util.logging.LambdaLoggerFactory;
 
 import java.nio.ByteBuffer;
 import java.util.Optional;
+import java.util.function.BiConsumer;
 
 /**
  * This class provides a front door for all interactions with the {@link MapUidForwardDb} and
@@ -115,6 +116,13 @@ public class MapDefinitionUIDStore {
         return mapUidForwardDb.getNextMapDefinition(writeTxn, refStreamDefinition, uidBufferSupplier);
     }
 
+    void forEachMapDefinition(final Txn<ByteBuffer> txn,
+                              final RefStreamDefinition refStreamDefinition,
+                              final BiConsumer<MapDefinition, UID> mapDefinitionConsumer) {
+
+        mapUidForwardDb.forEachMapDefinition(txn, refStreamDefinition, mapDefinitionConsumer);
+    }
+
     void deletePair(final Txn<ByteBuffer> writeTxn,
                     final UID mapUid) {
         LOGGER.trace("deletePair({})", mapUid);
@@ -24,6 +24,7 @@ import org.lmdbjava.Txn;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import stroom.entity.shared.Range;
+import stroom.refdata.store.FastInfosetValue;
 import stroom.refdata.store.MapDefinition;
 import stroom.refdata.store.ProcessingState;
 import stroom.refdata.store.RefDataLoader;
@@ -34,6 +35,8 @@ import stroom.refdata.store.RefStreamDefinition;
 import stroom.refdata.store.offheapstore.databases.KeyValueStoreDb;
 import stroom.refdata.store.offheapstore.databases.ProcessingInfoDb;
 import stroom.refdata.store.offheapstore.databases.RangeStoreDb;
+import stroom.refdata.store.offheapstore.lmdb.AbstractLmdbDb;
+import stroom.refdata.util.ByteBufferUtils;
 import stroom.refdata.util.PooledByteBuffer;
 import stroom.util.logging.LambdaLogger;
 import stroom.util.logging.LambdaLoggerFactory;
@@ -44,8 +47,10 @@ import java.time.Instant;
 import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.NavigableMap;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.TreeMap;
 import java.util.concurrent.locks.Lock;
 import java.util.function.Consumer;
 import java.util.stream.Collectors;
@@ -58,6 +63,15 @@ import java.util.stream.Collectors;
  * If a value of maxPutsBeforeCommit is greater than one then processing should be kept
  * as lightweight as possible to avoid holding on to a write txn for too long.
  * The transaction will be committed when the loader is closed.
+ * <p>
+ * If bulkLoadBatchSize is greater than zero the loader instead holds up to that many entries
+ * on heap, sorted by their serialised key, and writes them in a single transaction using
+ * LMDB append inserts. Each distinct value in a batch is only looked up in the value store once.
+ * The write transaction is then only held while a batch is written, not while the caller is
+ * producing the entries. Bulk loading is only used when overwriting existing entries as otherwise
+ * a put of a key that is already in the store would not be rejected until its batch is written,
+ * long after the put has returned to the caller.
+ * <p>
  * The loader instance is NOT thread safe so must be used by a single thread.
  */
 public class OffHeapRefDataLoader implements RefDataLoader {
@@ -84,6 +98,16 @@ public class OffHeapRefDataLoader implements RefDataLoader {
     private boolean overwriteExisting = false;
     private Instant startTime = Instant.EPOCH;
     private LoaderState currentLoaderState = LoaderState.NEW;
+    private int bulkLoadBatchSize = 0;
+
+    // Entries waiting to be bulk loaded, keyed on a heap copy of the serialised DB key so they
+    // are held in the order LMDB will store them
+    private final NavigableMap<ByteBuffer, BulkLoadValue> bulkLoadKeyValueEntries = new TreeMap<>(
+            ByteBufferUtils::compare);
+    private final NavigableMap<ByteBuffer, BulkLoadValue> bulkLoadRangeValueEntries = new TreeMap<>(
+            ByteBufferUtils::compare);
+    // The distinct values referenced by the entries waiting to be bulk loaded
+    private final Map<RefDataValue, BulkLoadValue> bulkLoadValues = new HashMap<>();
 
     // TODO we could just hit lmdb each time, but there may be serde costs
     private final Map<MapDefinition, UID> mapDefinitionToUIDMap = new HashMap<>();
@@ -160,6 +184,22 @@ public class OffHeapRefDataLoader implements RefDataLoader {
 
         this.overwriteExisting = overwriteExisting;
 
+        if (isBulkLoad() && !overwriteExisting) {
+            // each put must be able to tell the caller if the key already exists in the store
+            LOGGER.debug("Not bulk loading {} as existing entries must not be overwritten", refStreamDefinition);
+            bulkLoadBatchSize = 0;
+        }
+
+        // a previous purge of this stream may have been interrupted leaving some of its data behind
+        // so finish it off before we load it again. We already hold the lock for it.
+        final boolean isPurgeInProgress = processingInfoDb.get(refStreamDefinition)
+                .map(RefDataProcessingInfo::getProcessingState)
+                .filter(ProcessingState.PURGE_IN_PROGRESS::equals)
+                .isPresent();
+        if (isPurgeInProgress) {
+            refDataOffHeapStore.completeInterruptedPurge(refStreamDefinition);
+        }
+
         final RefDataProcessingInfo refDataProcessingInfo = new RefDataProcessingInfo(
                 System.currentTimeMillis(),
                 System.currentTimeMillis(),
@@ -177,6 +217,9 @@ public class OffHeapRefDataLoader implements RefDataLoader {
     public void completeProcessing() {
         LOGGER.trace("Completing processing (put count {})", putsCounter);
         checkCurrentState(LoaderState.INITIALISED);
+        if (isBulkLoad()) {
+            flushBulkLoadEntries();
+        }
         beginTxnIfRequired();
 
         // Set the processing info record to COMPLETE and update the last update time
@@ -199,6 +242,16 @@ public class OffHeapRefDataLoader implements RefDataLoader {
         this.maxPutsBeforeCommit = maxPutsBeforeCommit;
     }
 
+    /**
+     * Set the number of entries to hold on heap before bulk loading them into the store.
+     * Zero disables bulk loading so each put is written to the store as it is made.
+     */
+    void setBulkLoadBatchSize(final int bulkLoadBatchSize) {
+        Preconditions.checkArgument(bulkLoadBatchSize >= 0);
+        checkCurrentState(LoaderState.NEW);
+        this.bulkLoadBatchSize = bulkLoadBatchSize;
+    }
+
     @Override
     public boolean put(final MapDefinition mapDefinition,
                        final String key,
@@ -210,6 +263,15 @@ public class OffHeapRefDataLoader implements RefDataLoader {
         Objects.requireNonNull(refDataValue);
 
         checkCurrentState(LoaderState.INITIALISED);
+
+        if (isBulkLoad()) {
+            final KeyValueStoreKey keyValueStoreKey = new KeyValueStoreKey(
+                    getOrCreateUidForBulkLoad(mapDefinition), key);
+            final ByteBuffer keyValueKeyBuffer = keyValuePooledKeyBuffer.getByteBuffer();
+            keyValueKeyBuffer.clear();
+            keyValueStoreDb.serializeKey(keyValueKeyBuffer, keyValueStoreKey);
+            return bufferBulkLoadEntry(bulkLoadKeyValueEntries, keyValueKeyBuffer, refDataValue);
+        }
         beginTxnIfRequired();
 
         final UID mapUid = getOrCreateUid(mapDefinition);
@@ -289,6 +351,15 @@ public class OffHeapRefDataLoader implements RefDataLoader {
         Objects.requireNonNull(refDataValue);
 
         checkCurrentState(LoaderState.INITIALISED);
+
+        if (isBulkLoad()) {
+            final RangeStoreKey rangeStoreKey = new RangeStoreKey(
+                    getOrCreateUidForBulkLoad(mapDefinition), keyRange);
+            final ByteBuffer rangeValueKeyBuffer = rangeValuePooledKeyBuffer.getByteBuffer();
+            rangeValueKeyBuffer.clear();
+            rangeStoreDb.serializeKey(rangeValueKeyBuffer, rangeStoreKey);
+            return bufferBulkLoadEntry(bulkLoadRangeValueEntries, rangeValueKeyBuffer, refDataValue);
+        }
         beginTxnIfRequired();
 
         final UID mapUid = getOrCreateUid(mapDefinition);
@@ -372,6 +443,177 @@ public class OffHeapRefDataLoader implements RefDataLoader {
                 writeTxn, rangeValueKeyBuffer, valueStoreKeyBuffer, overwriteExisting);
     }
 
+    private boolean isBulkLoad() {
+        return bulkLoadBatchSize > 0;
+    }
+
+    private UID getOrCreateUidForBulkLoad(final MapDefinition mapDefinition) {
+        final UID mapUid = getOrCreateUid(mapDefinition);
+        // a txn is only opened if the UID mappings had to be created so commit it
+        // rather than holding it while the entries are buffered
+        commit();
+        return mapUid;
+    }
+
+    private boolean bufferBulkLoadEntry(final NavigableMap<ByteBuffer, BulkLoadValue> entries,
+                                        final ByteBuffer keyBuffer,
+                                        final RefDataValue refDataValue) {
+        // the key buffer is reused for each put so take a heap copy of it
+        final ByteBuffer keyBufferCopy = ByteBuffer.allocate(keyBuffer.remaining());
+        ByteBufferUtils.copy(keyBuffer, keyBufferCopy);
+
+        // we only bulk load when overwriting so a later put of the same key replaces the buffered one
+        final BulkLoadValue existingBulkLoadValue = entries.put(keyBufferCopy, acquireBulkLoadValue(refDataValue));
+        if (existingBulkLoadValue != null) {
+            releaseBulkLoadValue(existingBulkLoadValue);
+        }
+        putsCounter++;
+
+        if (bulkLoadKeyValueEntries.size() + bulkLoadRangeValueEntries.size() >= bulkLoadBatchSize) {
+            flushBulkLoadEntries();
+            commit();
+        }
+        return true;
+    }
+
+    private BulkLoadValue acquireBulkLoadValue(final RefDataValue refDataValue) {
+        BulkLoadValue bulkLoadValue = bulkLoadValues.get(refDataValue);
+        if (bulkLoadValue == null) {
+            final RefDataValue refDataValueCopy;
+            if (refDataValue instanceof FastInfosetValue) {
+                // the caller will reuse the buffer wrapped by the value so hold a heap copy of it
+                final FastInfosetValue fastInfosetValue = (FastInfosetValue) refDataValue;
+                refDataValueCopy = fastInfosetValue.copy(() -> ByteBuffer.allocate(fastInfosetValue.size()));
+            } else {
+                refDataValueCopy = refDataValue;
+            }
+            bulkLoadValue = new BulkLoadValue(refDataValueCopy);
+            bulkLoadValues.put(refDataValueCopy, bulkLoadValue);
+        }
+        bulkLoadValue.referenceCount++;
+        return bulkLoadValue;
+    }
+
+    private void releaseBulkLoadValue(final BulkLoadValue bulkLoadValue) {
+        bulkLoadValue.referenceCount--;
+        if (bulkLoadValue.referenceCount == 0) {
+            bulkLoadValues.remove(bulkLoadValue.refDataValue);
+        }
+    }
+
+    /**
+     * Writes all the buffered entries to the store in the current write txn, which the caller
+     * must commit.
+     */
+    private void flushBulkLoadEntries() {
+        if (bulkLoadKeyValueEntries.isEmpty() && bulkLoadRangeValueEntries.isEmpty()) {
+            return;
+        }
+        LOGGER.debug("Bulk loading {} key/value entries and {} range/value entries with {} distinct values",
+                bulkLoadKeyValueEntries.size(), bulkLoadRangeValueEntries.size(), bulkLoadValues.size());
+
+        beginTxnIfRequired();
+
+        // get or create each distinct value once, taking all of its references in one go
+        for (final BulkLoadValue bulkLoadValue : bulkLoadValues.values()) {
+            final ByteBuffer valueStoreKeyBuffer = getOrCreateBulkLoadValueKey(bulkLoadValue);
+            bulkLoadValue.valueStoreKeyBuffer = ByteBuffer.allocate(valueStoreKeyBuffer.remaining());
+            ByteBufferUtils.copy(valueStoreKeyBuffer, bulkLoadValue.valueStoreKeyBuffer);
+        }
+
+        appendBulkLoadEntries(keyValueStoreDb, keyValuePooledKeyBuffer, bulkLoadKeyValueEntries);
+        appendBulkLoadEntries(rangeStoreDb, rangeValuePooledKeyBuffer, bulkLoadRangeValueEntries);
+
+        clearBulkLoadEntries();
+    }
+
+    private ByteBuffer getOrCreateBulkLoadValueKey(final BulkLoadValue bulkLoadValue) {
+        if (bulkLoadValue.refDataValue instanceof FastInfosetValue) {
+            // we hold the value on heap but LMDB needs a direct buffer
+            final FastInfosetValue fastInfosetValue = (FastInfosetValue) bulkLoadValue.refDataValue;
+            try (PooledByteBuffer pooledValueBuffer = valueStore.getPooledValueBuffer(fastInfosetValue.size())) {
+                return valueStore.getOrCreateKey(
+                        writeTxn,
+                        valueStorePooledKeyBuffer,
+                        fastInfosetValue.copy(pooledValueBuffer::getByteBuffer),
+                        overwriteExisting,
+                        bulkLoadValue.referenceCount);
+            }
+        } else {
+            return valueStore.getOrCreateKey(
+                    writeTxn,
+                    valueStorePooledKeyBuffer,
+                    bulkLoadValue.refDataValue,
+                    overwriteExisting,
+                    bulkLoadValue.referenceCount);
+        }
+    }
+
+    private void appendBulkLoadEntries(final AbstractLmdbDb<?, ValueStoreKey> lmdbDb,
+                                       final PooledByteBuffer pooledKeyBuffer,
+                                       final NavigableMap<ByteBuffer, BulkLoadValue> entries) {
+
+        final ByteBuffer keyBuffer = pooledKeyBuffer.getByteBuffer();
+        final ByteBuffer valueBuffer = valueStorePooledKeyBuffer.getByteBuffer();
+
+        for (final Map.Entry<ByteBuffer, BulkLoadValue> entry : entries.entrySet()) {
+            keyBuffer.clear();
+            ByteBufferUtils.copy(entry.getKey(), keyBuffer);
+            valueBuffer.clear();
+            ByteBufferUtils.copy(entry.getValue().valueStoreKeyBuffer, valueBuffer);
+
+            // The entries are in DB order so can be appended, unless the DB already holds
+            // greater keys, e.g. from an earlier batch or a map with a higher UID.
+            final boolean didPutSucceed = lmdbDb.append(writeTxn, keyBuffer, valueBuffer)
+                    || putBulkLoadEntry(lmdbDb, keyBuffer, valueBuffer);
+
+            if (didPutSucceed) {
+                successfulPutsCounter++;
+            }
+        }
+        keyBuffer.clear();
+        valueBuffer.clear();
+    }
+
+    /**
+     * Puts an entry that could not be appended. The reference on the value was taken when the batch
+     * was flushed so it is given back if the entry is not changed.
+     */
+    private boolean putBulkLoadEntry(final AbstractLmdbDb<?, ValueStoreKey> lmdbDb,
+                                     final ByteBuffer keyBuffer,
+                                     final ByteBuffer valueStoreKeyBuffer) {
+
+        final Optional<ByteBuffer> optCurrValueStoreKeyBuffer = lmdbDb.getAsBytes(writeTxn, keyBuffer);
+
+        if (!optCurrValueStoreKeyBuffer.isPresent()) {
+            // no existing entry, it just sorts before keys already in the DB
+            return lmdbDb.put(writeTxn, keyBuffer, valueStoreKeyBuffer, false);
+        }
+
+        // bulk loads always overwrite so only the value can stop the entry changing
+        final boolean isSameValue = optCurrValueStoreKeyBuffer.get().equals(valueStoreKeyBuffer);
+        if (!isSameValue) {
+            // value is different so we need to de-reference the old one, copying its key
+            // first as the buffer is owned by LMDB
+            try (PooledByteBuffer currValueStorePooledKeyBuffer = valueStore.getPooledKeyBuffer()) {
+                final ByteBuffer currValueStoreKeyBuffer = currValueStorePooledKeyBuffer.getByteBuffer();
+                ByteBufferUtils.copy(optCurrValueStoreKeyBuffer.get(), currValueStoreKeyBuffer);
+                valueStore.deReferenceOrDeleteValue(writeTxn, currValueStoreKeyBuffer);
+            }
+            return lmdbDb.put(writeTxn, keyBuffer, valueStoreKeyBuffer, true);
+        } else {
+            // the entry already has this value so nothing changes
+            valueStore.deReferenceOrDeleteValue(writeTxn, valueStoreKeyBuffer);
+            return true;
+        }
+    }
+
+    private void clearBulkLoadEntries() {
+        bulkLoadKeyValueEntries.clear();
+        bulkLoadRangeValueEntries.clear();
+        bulkLoadValues.clear();
+    }
+
 
     @Override
     public void close() {
@@ -381,6 +623,11 @@ public class OffHeapRefDataLoader implements RefDataLoader {
             LOGGER.warn(LambdaLogger.buildMessage("Reference data loader for {} was initialised but then closed before being completed",
                     refStreamDefinition));
         }
+        if (!bulkLoadKeyValueEntries.isEmpty() || !bulkLoadRangeValueEntries.isEmpty()) {
+            LOGGER.debug("Discarding {} key/value and {} range/value entries that were not bulk loaded for {}",
+                    bulkLoadKeyValueEntries.size(), bulkLoadRangeValueEntries.size(), refStreamDefinition);
+            clearBulkLoadEntries();
+        }
         if (writeTxn != null) {
             LOGGER.trace("Committing transaction (put count {})", putsCounter);
             writeTxn.commit();
@@ -467,4 +714,18 @@ public class OffHeapRefDataLoader implements RefDataLoader {
                     currentLoaderState, Arrays.toString(validStates)));
         }
     }
+
+    /**
+     * A distinct value held for a bulk load and the number of buffered entries that reference it
+     */
+    private static class BulkLoadValue {
+        private final RefDataValue refDataValue;
+        private int referenceCount = 0;
+        // set when the value has been written to the value store
+        private ByteBuffer valueStoreKeyBuffer;
+
+        private BulkLoadValue(final RefDataValue refDataValue) {
+            this.refDataValue = refDataValue;
+        }
+    }
 }
@@ -26,15 +26,18 @@ import io.vavr.Tuple3;
 import io.vavr.Tuple4;
 import org.apache.commons.io.FileUtils;
 import org.lmdbjava.Env;
+import org.lmdbjava.KeyRange;
 import org.lmdbjava.Txn;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import stroom.properties.StroomPropertyService;
 import stroom.refdata.store.AbstractRefDataStore;
+import stroom.refdata.store.FastInfosetValue;
 import stroom.refdata.store.MapDefinition;
 import stroom.refdata.store.ProcessingState;
 import stroom.refdata.store.RefDataLoader;
 import stroom.refdata.store.RefDataProcessingInfo;
+import stroom.refdata.store.RefDataSnapshot;
 import stroom.refdata.store.RefDataStore;
 import stroom.refdata.store.RefDataValue;
 import stroom.refdata.store.RefStreamDefinition;
@@ -48,6 +51,7 @@ import stroom.refdata.store.offheapstore.databases.RangeStoreDb;
 import stroom.refdata.store.offheapstore.databases.ValueStoreDb;
 import stroom.refdata.store.offheapstore.databases.ValueStoreMetaDb;
 import stroom.refdata.store.offheapstore.serdes.RefDataProcessingInfoSerde;
+import stroom.refdata.store.offheapstore.serdes.RefDataValueSerdeFactory;
 import stroom.refdata.util.ByteBufferPool;
 import stroom.refdata.util.ByteBufferUtils;
 import stroom.refdata.util.PooledByteBuffer;
@@ -66,16 +70,19 @@ import java.nio.file.Path;
 import java.time.Duration;
 import java.time.Instant;
 import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
 import java.util.Comparator;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
-import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.concurrent.locks.Lock;
 import java.util.function.Consumer;
 import java.util.function.Predicate;
+import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 public class RefDataOffHeapStore extends AbstractRefDataStore implements RefDataStore {
@@ -86,6 +93,15 @@ public class RefDataOffHeapStore extends AbstractRefDataStore implements RefData
     public static final String DATA_RETENTION_AGE_PROP_KEY = "stroom.refloader.offheapstore.purgeAge";
     private static final String DATA_RETENTION_AGE_DEFAULT_VALUE = "30d";
 
+    public static final String PURGE_BATCH_SIZE_PROP_KEY = "stroom.refloader.offheapstore.purgeBatchSize";
+    private static final int PURGE_BATCH_SIZE_DEFAULT_VALUE = 1_000;
+
+    public static final String BULK_LOAD_BATCH_SIZE_PROP_KEY = "stroom.refloader.offheapstore.bulkLoadBatchSize";
+    private static final int BULK_LOAD_BATCH_SIZE_DEFAULT_VALUE = 10_000;
+
+    public static final String SNAPSHOT_MAX_SIZE_PROP_KEY = "stroom.refloader.snapshot.maxSize";
+    private static final String SNAPSHOT_MAX_SIZE_DEFAULT_VALUE = "64M";
+
     public static final long PROCESSING_INFO_UPDATE_DELAY_MS = Duration.of(1, ChronoUnit.HOURS).toMillis();
 
     private final Path dbDir;
@@ -105,6 +121,7 @@ public class RefDataOffHeapStore extends AbstractRefDataStore implements RefData
     private final ValueStore valueStore;
     private final MapDefinitionUIDStore mapDefinitionUIDStore;
 
+    private final RefDataValueSerdeFactory refDataValueSerdeFactory;
     private final StroomPropertyService stroomPropertyService;
     private final Map<String, LmdbDb> databaseMap = new HashMap<>();
 
@@ -132,6 +149,7 @@ public class RefDataOffHeapStore extends AbstractRefDataStore implements RefData
             final MapUidForwardDb.Factory mapUidForwardDbFactory,
             final MapUidReverseDb.Factory mapUidReverseDbFactory,
             final ProcessingInfoDb.Factory processingInfoDbFactory,
+            final RefDataValueSerdeFactory refDataValueSerdeFactory,
             final StroomPropertyService stroomPropertyService) {
 
         this.dbDir = dbDir;
@@ -186,6 +204,7 @@ public class RefDataOffHeapStore extends AbstractRefDataStore implements RefData
         this.valueStore = new ValueStore(lmdbEnvironment, valueStoreDb, valueStoreMetaDb);
         this.mapDefinitionUIDStore = new MapDefinitionUIDStore(lmdbEnvironment, mapUidForwardDb, mapUidReverseDb);
 
+        this.refDataValueSerdeFactory = refDataValueSerdeFactory;
         this.stroomPropertyService = stroomPropertyService;
         this.byteBufferPool = byteBufferPool;
 
@@ -228,6 +247,17 @@ public class RefDataOffHeapStore extends AbstractRefDataStore implements RefData
         return result;
     }
 
+    /**
+     * As {@link #isDataLoaded(RefStreamDefinition)} but without updating the last accessed time, for
+     * checks that are not a use of the data.
+     */
+    public boolean isDataLoadedWithoutAccess(final RefStreamDefinition refStreamDefinition) {
+        return processingInfoDb.get(refStreamDefinition)
+                .map(RefDataProcessingInfo::getProcessingState)
+                .filter(Predicate.isEqual(ProcessingState.COMPLETE))
+                .isPresent();
+    }
+
     /**
      * Returns true if this {@link MapDefinition} exists in the store. It makes no guarantees about the state
      * of the data.
@@ -389,7 +419,7 @@ public class RefDataOffHeapStore extends AbstractRefDataStore implements RefData
     protected RefDataLoader loader(final RefStreamDefinition refStreamDefinition,
                                    final long effectiveTimeMs) {
         //TODO should we pass in an ErrorReceivingProxy so we can log errors with it?
-        RefDataLoader refDataLoader = new OffHeapRefDataLoader(
+        OffHeapRefDataLoader refDataLoader = new OffHeapRefDataLoader(
                 this,
                 refStreamDefStripedReentrantLock,
                 keyValueStoreDb,
@@ -402,6 +432,7 @@ public class RefDataOffHeapStore extends AbstractRefDataStore implements RefData
                 effectiveTimeMs);
 
         refDataLoader.setCommitInterval(maxPutsBeforeCommit);
+        refDataLoader.setBulkLoadBatchSize(getBulkLoadBatchSize());
         return refDataLoader;
     }
 
@@ -420,6 +451,169 @@ public class RefDataOffHeapStore extends AbstractRefDataStore implements RefData
         return processingInfoDb.getEntryCount();
     }
 
+    /**
+     * Builds a {@link RefDataSnapshot} of all the maps held for refStreamDefinition so another node can
+     * import it rather than running the reference loader pipeline itself. Returns an empty {@link Optional}
+     * if the data for refStreamDefinition has not been completely loaded, or if the snapshot would be
+     * larger than the snapshot max size. The snapshot is held on the heap of both nodes so anything bigger
+     * is left for the other node to load itself.
+     */
+    public Optional<RefDataSnapshot> exportSnapshot(final RefStreamDefinition refStreamDefinition) {
+        final long maxSizeBytes = getSnapshotMaxSizeBytes();
+
+        Optional<RefDataSnapshot> optSnapshot;
+        try (final Txn<ByteBuffer> readTxn = lmdbEnvironment.txnRead()) {
+            optSnapshot = buildSnapshot(readTxn, refStreamDefinition, maxSizeBytes);
+        } catch (final SnapshotTooLargeException e) {
+            LOGGER.info("Not exporting snapshot for {} as it is larger than {}",
+                    refStreamDefinition, ModelStringUtil.formatIECByteSizeString(maxSizeBytes));
+            optSnapshot = Optional.empty();
+        }
+
+        LOGGER.debug("exportSnapshot({}) - {}", refStreamDefinition, optSnapshot);
+        return optSnapshot;
+    }
+
+    private Optional<RefDataSnapshot> buildSnapshot(final Txn<ByteBuffer> readTxn,
+                                                    final RefStreamDefinition refStreamDefinition,
+                                                    final long maxSizeBytes) {
+        final Optional<RefDataProcessingInfo> optProcessingInfo = processingInfoDb.get(readTxn, refStreamDefinition)
+                .filter(processingInfo -> ProcessingState.COMPLETE.equals(processingInfo.getProcessingState()));
+
+        return optProcessingInfo.map(processingInfo -> {
+            final RefDataSnapshot snapshot = new RefDataSnapshot(
+                    refStreamDefinition, processingInfo.getEffectiveTimeEpochMs());
+
+            // many entries can share a value so only add each value once, keyed on a heap
+            // copy of its value store key
+            final Map<ByteBuffer, Integer> valueIndexMap = new HashMap<>();
+
+            mapDefinitionUIDStore.forEachMapDefinition(readTxn, refStreamDefinition, (mapDefinition, mapUid) -> {
+                final String mapName = mapDefinition.getMapName();
+
+                keyValueStoreDb.forEachMapEntry(readTxn, mapUid, (keyValueStoreKeyBuffer, valueStoreKeyBuffer) -> {
+                    final KeyValueStoreKey keyValueStoreKey = keyValueStoreDb.deserializeKey(keyValueStoreKeyBuffer);
+                    final int valueIndex = addSnapshotValue(readTxn, snapshot, valueIndexMap, valueStoreKeyBuffer);
+                    snapshot.addKeyValueEntry(mapName, keyValueStoreKey.getKey(), valueIndex);
+                    checkSnapshotSize(snapshot, maxSizeBytes);
+                });
+
+                rangeStoreDb.forEachMapEntry(readTxn, mapUid, (txn, rangeStoreKeyBuffer, valueStoreKeyBuffer) -> {
+                    final RangeStoreKey rangeStoreKey = rangeStoreDb.deserializeKey(rangeStoreKeyBuffer);
+                    final int valueIndex = addSnapshotValue(txn, snapshot, valueIndexMap, valueStoreKeyBuffer);
+                    snapshot.addRangeValueEntry(mapName, rangeStoreKey.getKeyRange(), valueIndex);
+                    checkSnapshotSize(snapshot, maxSizeBytes);
+                });
+            });
+            return snapshot;
+        });
+    }
+
+    private void checkSnapshotSize(final RefDataSnapshot snapshot, final long maxSizeBytes) {
+        // stop copying as soon as we know the snapshot won't be used
+        if (snapshot.getApproximateSizeBytes() > maxSizeBytes) {
+            throw new SnapshotTooLargeException();
+        }
+    }
+
+    private int addSnapshotValue(final Txn<ByteBuffer> readTxn,
+                                 final RefDataSnapshot snapshot,
+                                 final Map<ByteBuffer, Integer> valueIndexMap,
+                                 final ByteBuffer valueStoreKeyBuffer) {
+
+        final ByteBuffer valueStoreKeyBufferCopy = ByteBuffer.allocate(valueStoreKeyBuffer.remaining());
+        ByteBufferUtils.copy(valueStoreKeyBuffer, valueStoreKeyBufferCopy);
+
+        return valueIndexMap.computeIfAbsent(valueStoreKeyBufferCopy, key -> {
+            final TypedByteBuffer typedByteBuffer = valueStore.getTypedValueBuffer(readTxn, valueStoreKeyBuffer)
+                    .orElseThrow(() -> new RuntimeException(LambdaLogger.buildMessage(
+                            "No value found for value store key {}, data may be corrupted",
+                            ByteBufferUtils.byteBufferInfo(valueStoreKeyBuffer))));
+
+            final ByteBuffer valueBuffer = typedByteBuffer.getByteBuffer();
+            final byte[] valueBytes = new byte[valueBuffer.remaining()];
+            valueBuffer.duplicate().get(valueBytes);
+            return snapshot.addValue(typedByteBuffer.getTypeId(), valueBytes);
+        });
+    }
+
+    /**
+     * Loads the contents of a {@link RefDataSnapshot} exported by another node, unless the data for its
+     * {@link RefStreamDefinition} is already loaded. The snapshot is loaded using a {@link RefDataLoader}
+     * so it is subject to the same locking as a load by the reference loader pipeline.
+     *
+     * @return True if the snapshot was loaded into the store
+     */
+    public boolean importSnapshot(final RefDataSnapshot snapshot) {
+        final RefStreamDefinition refStreamDefinition = snapshot.getRefStreamDefinition();
+
+        // the values are held on heap and each one is copied into a pooled direct buffer, as LMDB
+        // needs, when it is put. The loader copies anything it needs to hold on to.
+        final List<RefDataValue> refDataValues = snapshot.getValues().stream()
+                .map(value -> refDataValueSerdeFactory.deserialize(
+                        ByteBuffer.wrap(value.getBytes()),
+                        value.getTypeId()))
+                .collect(Collectors.toList());
+        final int maxValueSize = snapshot.getValues().stream()
+                .mapToInt(value -> value.getBytes().length)
+                .max()
+                .orElse(0);
+
+        final boolean wasImported = doWithLoaderUnlessComplete(
+                refStreamDefinition, snapshot.getEffectiveTimeMs(), refDataLoader -> {
+                    try (PooledByteBuffer pooledValueBuffer = valueStore.getPooledValueBuffer(maxValueSize)) {
+                        // the snapshot is the complete data set so replace anything left by a failed load
+                        refDataLoader.initialise(true);
+                        for (final RefDataSnapshot.Entry entry : snapshot.getEntries()) {
+                            final MapDefinition mapDefinition = new MapDefinition(refStreamDefinition, entry.getMapName());
+                            RefDataValue refDataValue = refDataValues.get(entry.getValueIndex());
+                            if (refDataValue instanceof FastInfosetValue) {
+                                refDataValue = ((FastInfosetValue) refDataValue).copy(pooledValueBuffer::getByteBuffer);
+                            }
+                            if (entry.getKey() != null) {
+                                refDataLoader.put(mapDefinition, entry.getKey(), refDataValue);
+                            } else {
+                                refDataLoader.put(mapDefinition, entry.getKeyRange(), refDataValue);
+                            }
+                        }
+                        refDataLoader.completeProcessing();
+                    }
+                });
+
+        if (wasImported) {
+            LOGGER.info("Imported {} entries with {} distinct values from snapshot for {}",
+                    snapshot.getEntries().size(), snapshot.getValues().size(), refStreamDefinition);
+        } else {
+            LOGGER.debug("Data already loaded for {}, snapshot not imported", refStreamDefinition);
+        }
+        return wasImported;
+    }
+
+    /**
+     * @return Up to maxCount {@link RefStreamDefinition}s that are completely loaded and have been accessed
+     * since accessedSinceEpochMs, most recently accessed first.
+     */
+    public List<RefStreamDefinition> getRecentlyAccessedRefStreamDefinitions(final long accessedSinceEpochMs,
+                                                                             final int maxCount) {
+
+        final List<Tuple2<RefStreamDefinition, RefDataProcessingInfo>> recentEntries = new ArrayList<>();
+        LmdbUtils.doWithReadTxn(lmdbEnvironment, readTxn ->
+                processingInfoDb.forEachEntry(readTxn, KeyRange.all(), entry -> {
+                    final RefDataProcessingInfo processingInfo = entry._2();
+                    if (ProcessingState.COMPLETE.equals(processingInfo.getProcessingState())
+                            && processingInfo.getLastAccessedTimeEpochMs() >= accessedSinceEpochMs) {
+                        recentEntries.add(entry);
+                    }
+                }));
+
+        return recentEntries.stream()
+                .sorted(Comparator.comparingLong((Tuple2<RefStreamDefinition, RefDataProcessingInfo> entry) ->
+                        entry._2().getLastAccessedTimeEpochMs()).reversed())
+                .limit(maxCount)
+                .map(Tuple2::_1)
+                .collect(Collectors.toList());
+    }
+
     /**
      * @param nowMs Allows the setting of the current time for testing purposes
      */
@@ -427,114 +621,70 @@ public class RefDataOffHeapStore extends AbstractRefDataStore implements RefData
         final Instant startTime = Instant.now();
         final AtomicReference<Tuple4<Integer, Integer, Integer, Integer>> totalsRef = new AtomicReference<>(Tuple.of(0, 0, 0, 0));
         try (final PooledByteBuffer accessTimeThresholdPooledBuf = getAccessTimeCutOffBuffer(nowMs);
-             final PooledByteBufferPair procInfoPooledBufferPair = processingInfoDb.getPooledBufferPair()) {
+             final PooledByteBufferPair procInfoPooledBufferPair = processingInfoDb.getPooledBufferPair();
+             final PooledByteBuffer startKeyPooledBuffer = processingInfoDb.getPooledKeyBuffer()) {
 
-            final AtomicReference<ByteBuffer> currRefStreamDefBufRef = new AtomicReference<>();
             final ByteBuffer accessTimeThresholdBuf = accessTimeThresholdPooledBuf.getByteBuffer();
 
-            Predicate<ByteBuffer> accessTimePredicate = processingInfoBuffer ->
-                    !RefDataProcessingInfoSerde.wasAccessedAfter(
+            // A refStreamDef is ready for purge if it has not been accessed since the cut off or if
+            // a previous purge of it was interrupted part way through.
+            final Predicate<ByteBuffer> purgePredicate = processingInfoBuffer ->
+                    ProcessingState.PURGE_IN_PROGRESS.equals(
+                            RefDataProcessingInfoSerde.extractProcessingState(processingInfoBuffer))
+                            || !RefDataProcessingInfoSerde.wasAccessedAfter(
                             processingInfoBuffer,
                             accessTimeThresholdBuf);
 
-            final AtomicBoolean wasMatchFound = new AtomicBoolean(false);
+            ByteBuffer startKeyBuffer = null;
+            Optional<RefStreamDefinition> optRefStreamDef;
             do {
+                final ByteBuffer currStartKeyBuffer = startKeyBuffer;
+
                 // with a read txn find the next proc info entry that is ready for purge
-                Optional<RefStreamDefinition> optRefStreamDef = LmdbUtils.getWithReadTxn(lmdbEnvironment, readTxn -> {
+                optRefStreamDef = LmdbUtils.getWithReadTxn(lmdbEnvironment, readTxn -> {
                     // ensure the buffers are cleared as we are using them in a loop
                     procInfoPooledBufferPair.clear();
                     Optional<PooledByteBufferPair> optProcInfoBufferPair = processingInfoDb.getNextEntryAsBytes(
                             readTxn,
-                            currRefStreamDefBufRef.get(),
-                            accessTimePredicate,
+                            currStartKeyBuffer,
+                            purgePredicate,
                             procInfoPooledBufferPair);
 
                     return optProcInfoBufferPair.map(procInfoBufferPair -> {
-                        RefStreamDefinition refStreamDefinition = processingInfoDb.deserializeKey(
-                                procInfoBufferPair.getKeyBuffer());
+                        // take a copy of the key so we can search from here next time
+                        startKeyPooledBuffer.clear();
+                        ByteBufferUtils.copy(procInfoBufferPair.getKeyBuffer(), startKeyPooledBuffer.getByteBuffer());
 
-                        // update the current key buffer so we can search from here next time
-                        currRefStreamDefBufRef.set(procInfoBufferPair.getKeyBuffer());
-                        return refStreamDefinition;
+                        return processingInfoDb.deserializeKey(procInfoBufferPair.getKeyBuffer());
                     });
                 });
 
                 if (optRefStreamDef.isPresent()) {
+                    startKeyBuffer = startKeyPooledBuffer.getByteBuffer();
+                    final RefStreamDefinition refStreamDefinition = optRefStreamDef.get();
 
-                    LOGGER.debug("Found at least one refStreamDef ready for purge, now getting lock");
+                    LOGGER.debug("Found refStreamDef {} ready for purge, now getting lock", refStreamDefinition);
 
                     // now acquire a lock for the this ref stream def so we don't conflict with any load operations
-                    doWithRefStreamDefinitionLock(refStreamDefStripedReentrantLock, optRefStreamDef.get(), () -> {
-                        // start a write txn and re-fetch the next entry for purge (should be the same one as above)
-                        // TODO we currently purge a whole refStreamDef in one txn, may be better to do it in smaller
-                        // chunks
-                        boolean wasFound = LmdbUtils.getWithWriteTxn(lmdbEnvironment, writeTxn -> {
-
-                            final Optional<PooledByteBufferPair> optProcInfoBufferPair =
-                                    processingInfoDb.getNextEntryAsBytes(
-                                            writeTxn,
-                                            currRefStreamDefBufRef.get(),
-                                            accessTimePredicate,
-                                            procInfoPooledBufferPair);
-
-                            if (!optProcInfoBufferPair.isPresent()) {
-                                // no matching ref streams found so break out
-                                LOGGER.debug("No match found");
-                                return false;
-                            } else {
-                                // found a ref stream def that is ready for purge
-                                final ByteBuffer refStreamDefBuffer = optProcInfoBufferPair.get().getKeyBuffer();
-                                final ByteBuffer refDataProcInfoBuffer = optProcInfoBufferPair.get().getValueBuffer();
-
-                                // update this for the next iteration
-                                currRefStreamDefBufRef.set(refStreamDefBuffer);
-
-                                final RefStreamDefinition refStreamDefinition = processingInfoDb.deserializeKey(
-                                        refStreamDefBuffer);
-                                final RefDataProcessingInfo refDataProcessingInfo = processingInfoDb.deserializeValue(
-                                        refDataProcInfoBuffer);
-
-                                LOGGER.info("Purging refStreamDefinition {} {}",
-                                        refStreamDefinition, refDataProcessingInfo);
-
-                                // mark it is purge in progress
-                                processingInfoDb.updateProcessingState(writeTxn,
-                                        refStreamDefBuffer,
-                                        ProcessingState.PURGE_IN_PROGRESS,
-                                        false);
-
-                                // purge the data associated with this ref stream def
-                                final Tuple3<Integer, Integer, Integer> refStreamSummaryInfo = purgeRefStreamData(
-                                        writeTxn, refStreamDefinition);
-
-                                // aggregate the counts
-                                totalsRef.getAndUpdate(totals ->
-                                        totals.map((refStreamDefCnt, mapCnt, delCnt, deRefCnt) ->
-                                                Tuple.of(refStreamDefCnt + 1,
-                                                        mapCnt + refStreamSummaryInfo._1(),
-                                                        delCnt + refStreamSummaryInfo._2(),
-                                                        deRefCnt + refStreamSummaryInfo._3())));
-
-                                //now delete the proc info entry
-                                LOGGER.debug("Deleting processing info entry for {}", refStreamDefinition);
-
-                                boolean didDeleteSucceed = processingInfoDb.delete(writeTxn, refStreamDefBuffer);
-
-                                if (!didDeleteSucceed) {
-                                    throw new RuntimeException("Processing info entry not found so was not deleted");
-                                }
-
-                                LOGGER.info("Completed purge of refStreamDefinition {} {}",
-                                        refStreamDefinition, refDataProcessingInfo);
-                                return true;
-                            }
-                        });
-                        wasMatchFound.set(wasFound);
+                    doWithRefStreamDefinitionLock(refStreamDefStripedReentrantLock, refStreamDefinition, () -> {
+                        // it may have been accessed since we found it so check again now we hold the lock
+                        if (markForPurge(refStreamDefinition, purgePredicate)) {
+
+                            // purge the data associated with this ref stream def
+                            final Tuple3<Integer, Integer, Integer> refStreamSummaryInfo = purgeRefStreamData(
+                                    refStreamDefinition);
+
+                            // aggregate the counts
+                            totalsRef.getAndUpdate(totals ->
+                                    totals.map((refStreamDefCnt, mapCnt, delCnt, deRefCnt) ->
+                                            Tuple.of(refStreamDefCnt + 1,
+                                                    mapCnt + refStreamSummaryInfo._1(),
+                                                    delCnt + refStreamSummaryInfo._2(),
+                                                    deRefCnt + refStreamSummaryInfo._3())));
+                        }
                     });
-                } else {
-                    wasMatchFound.set(false);
                 }
-            } while (wasMatchFound.get());
+            } while (optRefStreamDef.isPresent());
         }
 
         final Tuple4<Integer, Integer, Integer, Integer> totals = totalsRef.get();
@@ -588,69 +738,178 @@ public class RefDataOffHeapStore extends AbstractRefDataStore implements RefData
         // change to ref counter MUST be done in same txn as the thing that is making it change, e.g the KV entry removal
     }
 
-    private Tuple3<Integer, Integer, Integer> purgeRefStreamData(final Txn<ByteBuffer> writeTxn,
-                                                                 final RefStreamDefinition refStreamDefinition) {
+    /**
+     * Completes a purge of refStreamDefinition that was interrupted part way through, e.g. by a
+     * shutdown, so that it can be loaded again. The caller must hold the lock for refStreamDefinition.
+     */
+    void completeInterruptedPurge(final RefStreamDefinition refStreamDefinition) {
+        LOGGER.info("Completing interrupted purge of refStreamDefinition {}", refStreamDefinition);
+        purgeRefStreamData(refStreamDefinition);
+    }
+
+    /**
+     * Sets the processing state to PURGE_IN_PROGRESS if the processing info entry for
+     * refStreamDefinition still matches purgePredicate. This is committed before any data is
+     * purged so that an interrupted purge will be resumed by the next purge or load.
+     *
+     * @return True if the refStreamDefinition is to be purged
+     */
+    private boolean markForPurge(final RefStreamDefinition refStreamDefinition,
+                                 final Predicate<ByteBuffer> purgePredicate) {
+
+        return LmdbUtils.getWithWriteTxn(lmdbEnvironment, writeTxn -> {
+            try (final PooledByteBuffer refStreamDefPooledBuffer = processingInfoDb.getPooledKeyBuffer()) {
+                final ByteBuffer refStreamDefBuffer = refStreamDefPooledBuffer.getByteBuffer();
+                processingInfoDb.serializeKey(refStreamDefBuffer, refStreamDefinition);
+
+                final Optional<ByteBuffer> optProcInfoBuffer = processingInfoDb.getAsBytes(
+                        writeTxn, refStreamDefBuffer);
+
+                if (optProcInfoBuffer.isPresent() && purgePredicate.test(optProcInfoBuffer.get())) {
+                    final RefDataProcessingInfo refDataProcessingInfo = processingInfoDb.deserializeValue(
+                            optProcInfoBuffer.get());
+
+                    LOGGER.info("Purging refStreamDefinition {} {}", refStreamDefinition, refDataProcessingInfo);
+
+                    processingInfoDb.updateProcessingState(writeTxn,
+                            refStreamDefBuffer,
+                            ProcessingState.PURGE_IN_PROGRESS,
+                            false);
+                    return true;
+                } else {
+                    LOGGER.debug("refStreamDefinition {} is no longer ready for purge", refStreamDefinition);
+                    return false;
+                }
+            }
+        });
+    }
+
+    /**
+     * Purges all the data for refStreamDefinition then deletes its processing info entry. The data
+     * is deleted in batches of up to purgeBatchSize entries, each in its own write txn, so other
+     * writers are not blocked for the whole purge. The caller must hold the lock for refStreamDefinition.
+     */
+    private Tuple3<Integer, Integer, Integer> purgeRefStreamData(final RefStreamDefinition refStreamDefinition) {
 
         LOGGER.debug("purgeRefStreamData({})", refStreamDefinition);
 
-        Tuple3<Integer, Integer, Integer> summaryInfo = Tuple.of(0, 0, 0);
-        int cnt = 0;
-        Optional<UID> optMapUid;
+        final int purgeBatchSize = getPurgeBatchSize();
+        final AtomicInteger mapCount = new AtomicInteger();
+        final AtomicLong valueEntryDeleteCount = new AtomicLong();
+        final AtomicLong valueEntryDeReferenceCount = new AtomicLong();
+        int batchCount = 0;
+
         try (PooledByteBuffer pooledUidBuffer = byteBufferPool.getPooledByteBuffer(UID.UID_ARRAY_LENGTH)) {
+            boolean isComplete;
             do {
-                //open a ranged cursor on the map forward table to scan all map defs for that stream def
-                //for each map def get the map uid
-                optMapUid = mapDefinitionUIDStore.getNextMapDefinition(
-                        writeTxn, refStreamDefinition, pooledUidBuffer::getByteBuffer);
-
-                if (optMapUid.isPresent()) {
-                    UID mapUid = optMapUid.get();
-                    LOGGER.debug("Found mapUid {} for refStreamDefinition {}", mapUid, refStreamDefinition);
-                    Tuple2<Integer, Integer> dataPurgeCounts = purgeMapData(writeTxn, optMapUid.get());
-                    cnt++;
-                    summaryInfo = summaryInfo.map((mapCnt, delCnt, deRefCnt) ->
-                            Tuple.of(mapCnt + 1, delCnt + dataPurgeCounts._1(), deRefCnt + dataPurgeCounts._2()));
-                } else {
-                    LOGGER.debug("No more map definitions to purge for refStreamDefinition {}", refStreamDefinition);
-                }
-            } while (optMapUid.isPresent());
+                isComplete = LmdbUtils.getWithWriteTxn(lmdbEnvironment, writeTxn ->
+                        purgeRefStreamDataBatch(
+                                writeTxn,
+                                refStreamDefinition,
+                                purgeBatchSize,
+                                pooledUidBuffer,
+                                mapCount,
+                                valueEntryDeleteCount,
+                                valueEntryDeReferenceCount));
+                batchCount++;
+            } while (!isComplete);
         }
 
-        LOGGER.info("Purged data for {} map(s) for {}", cnt, refStreamDefinition);
-        return summaryInfo;
+        // all the data has gone so now delete the proc info entry
+        LmdbUtils.doWithWriteTxn(lmdbEnvironment, writeTxn -> {
+            LOGGER.debug("Deleting processing info entry for {}", refStreamDefinition);
+
+            boolean didDeleteSucceed = processingInfoDb.delete(writeTxn, refStreamDefinition);
+
+            if (!didDeleteSucceed) {
+                throw new RuntimeException("Processing info entry not found so was not deleted");
+            }
+        });
+
+        LOGGER.info("Purged data for {} map(s) in {} batch(es) for {}", mapCount.get(), batchCount, refStreamDefinition);
+        return Tuple.of(mapCount.get(), valueEntryDeleteCount.intValue(), valueEntryDeReferenceCount.intValue());
     }
 
-    private Tuple2<Integer, Integer> purgeMapData(final Txn<ByteBuffer> writeTxn,
-                                                  final UID mapUid) {
+    /**
+     * Deletes up to maxEntries key/value and range/value entries for refStreamDefinition, along with
+     * the mapDefinition<=>UID pair of each map that has been emptied.
+     *
+     * @return True if there is no more data to purge for refStreamDefinition
+     */
+    private boolean purgeRefStreamDataBatch(final Txn<ByteBuffer> writeTxn,
+                                            final RefStreamDefinition refStreamDefinition,
+                                            final int maxEntries,
+                                            final PooledByteBuffer pooledUidBuffer,
+                                            final AtomicInteger mapCount,
+                                            final AtomicLong valueEntryDeleteCount,
+                                            final AtomicLong valueEntryDeReferenceCount) {
+        int remainingEntries = maxEntries;
+        while (remainingEntries > 0) {
+            //open a ranged cursor on the map forward table to scan all map defs for that stream def
+            //for each map def get the map uid
+            final Optional<UID> optMapUid = mapDefinitionUIDStore.getNextMapDefinition(
+                    writeTxn, refStreamDefinition, pooledUidBuffer::getByteBuffer);
+
+            if (!optMapUid.isPresent()) {
+                LOGGER.debug("No more map definitions to purge for refStreamDefinition {}", refStreamDefinition);
+                return true;
+            }
 
-        LOGGER.debug("purgeMapData(writeTxn, {})", mapUid);
+            final UID mapUid = optMapUid.get();
+            LOGGER.debug("Found mapUid {} for refStreamDefinition {}", mapUid, refStreamDefinition);
 
-        LOGGER.debug("Deleting key/value entries and de-referencing/deleting their values");
-        // loop over all keyValue entries for this mapUid and dereference/delete the associated
-        // valueStore entry
-        AtomicLong valueEntryDeleteCount = new AtomicLong();
-        AtomicLong valueEntryDeReferenceCount = new AtomicLong();
-        keyValueStoreDb.deleteMapEntries(writeTxn, mapUid, (keyValueStoreKeyBuffer, valueStoreKeyBuffer) -> {
+            remainingEntries -= purgeMapData(
+                    writeTxn, mapUid, remainingEntries, valueEntryDeleteCount, valueEntryDeReferenceCount);
 
-            //dereference this value, deleting it if required
-            deReferenceOrDeleteValue(writeTxn, valueStoreKeyBuffer, valueEntryDeleteCount, valueEntryDeReferenceCount);
-        });
-        LAMBDA_LOGGER.debug(() -> LambdaLogger.buildMessage("Deleted {} value entries, de-referenced {} value entries",
-                valueEntryDeleteCount.get(), valueEntryDeReferenceCount.get()));
+            if (remainingEntries > 0) {
+                // deleted fewer entries than we were allowed to so the map must now be empty
+                mapDefinitionUIDStore.deletePair(writeTxn, mapUid);
+                mapCount.incrementAndGet();
+            }
+        }
+        return false;
+    }
 
-        LOGGER.debug("Deleting range/value entries and de-referencing/deleting their values");
-        // loop over all rangeValue entries for this mapUid and dereference/delete the associated
+    /**
+     * @return The number of key/value and range/value entries deleted, no more than maxEntries
+     */
+    private int purgeMapData(final Txn<ByteBuffer> writeTxn,
+                             final UID mapUid,
+                             final int maxEntries,
+                             final AtomicLong valueEntryDeleteCount,
+                             final AtomicLong valueEntryDeReferenceCount) {
+
+        LOGGER.debug("purgeMapData(writeTxn, {}, {})", mapUid, maxEntries);
+
+        LOGGER.debug("Deleting key/value entries and de-referencing/deleting their values");
+        // loop over the keyValue entries for this mapUid and dereference/delete the associated
         // valueStore entry
-        rangeStoreDb.deleteMapEntries(writeTxn, mapUid, (writeTxn2, rangeValueStoreKeyBuffer, valueStoreKeyBuffer) -> {
+        int deleteCount = keyValueStoreDb.deleteMapEntries(
+                writeTxn, mapUid, maxEntries, (keyValueStoreKeyBuffer, valueStoreKeyBuffer) -> {
 
-            //dereference this value, deleting it if required
-            deReferenceOrDeleteValue(writeTxn2, valueStoreKeyBuffer, valueEntryDeleteCount, valueEntryDeReferenceCount);
-        });
-        LOGGER.debug("Deleting range/value entries and de-referencing/deleting their values");
+                    //dereference this value, deleting it if required
+                    deReferenceOrDeleteValue(
+                            writeTxn, valueStoreKeyBuffer, valueEntryDeleteCount, valueEntryDeReferenceCount);
+                });
+
+        if (deleteCount < maxEntries) {
+            LOGGER.debug("Deleting range/value entries and de-referencing/deleting their values");
+            // loop over the rangeValue entries for this mapUid and dereference/delete the associated
+            // valueStore entry
+            deleteCount += rangeStoreDb.deleteMapEntries(
+                    writeTxn, mapUid, maxEntries - deleteCount, (writeTxn2, rangeValueStoreKeyBuffer, valueStoreKeyBuffer) -> {
 
-        mapDefinitionUIDStore.deletePair(writeTxn, mapUid);
+                        //dereference this value, deleting it if required
+                        deReferenceOrDeleteValue(
+                                writeTxn2, valueStoreKeyBuffer, valueEntryDeleteCount, valueEntryDeReferenceCount);
+                    });
+        }
+        final int totalDeleteCount = deleteCount;
+        LAMBDA_LOGGER.debug(() -> LambdaLogger.buildMessage("Deleted {} entries for mapUid {}, " +
+                        "{} value entries deleted, {} value entries de-referenced so far",
+                totalDeleteCount, mapUid, valueEntryDeleteCount.get(), valueEntryDeReferenceCount.get()));
 
-        return Tuple.of(valueEntryDeleteCount.intValue(), valueEntryDeReferenceCount.intValue());
+        return totalDeleteCount;
     }
 
     private void deReferenceOrDeleteValue(final Txn<ByteBuffer> writeTxn,
@@ -753,6 +1012,30 @@ public class RefDataOffHeapStore extends AbstractRefDataStore implements RefData
         return stroomPropertyService.getProperty(DATA_RETENTION_AGE_PROP_KEY, DATA_RETENTION_AGE_DEFAULT_VALUE);
     }
 
+    private int getPurgeBatchSize() {
+        return Math.max(1, stroomPropertyService.getIntProperty(
+                PURGE_BATCH_SIZE_PROP_KEY, PURGE_BATCH_SIZE_DEFAULT_VALUE));
+    }
+
+    private long getSnapshotMaxSizeBytes() {
+        final String maxSize = stroomPropertyService.getProperty(
+                SNAPSHOT_MAX_SIZE_PROP_KEY, SNAPSHOT_MAX_SIZE_DEFAULT_VALUE);
+        Long maxSizeBytes = null;
+        try {
+            maxSizeBytes = ModelStringUtil.parseIECByteSizeString(maxSize);
+        } catch (final NumberFormatException e) {
+            LOGGER.error("Invalid value '{}' for property {}", maxSize, SNAPSHOT_MAX_SIZE_PROP_KEY);
+        }
+        return maxSizeBytes != null
+                ? maxSizeBytes
+                : ModelStringUtil.parseIECByteSizeString(SNAPSHOT_MAX_SIZE_DEFAULT_VALUE);
+    }
+
+    private int getBulkLoadBatchSize() {
+        return Math.max(0, stroomPropertyService.getIntProperty(
+                BULK_LOAD_BATCH_SIZE_PROP_KEY, BULK_LOAD_BATCH_SIZE_DEFAULT_VALUE));
+    }
+
     private PooledByteBuffer getAccessTimeCutOffBuffer(final long nowMs) {
         long purgeAge = ModelStringUtil.parseDurationString(getDataRetentionAgeString());
         long purgeCutOff = nowMs - purgeAge;
@@ -823,11 +1106,20 @@ public class RefDataOffHeapStore extends AbstractRefDataStore implements RefData
 
 
     public interface Factory {
-        RefDataStore create(
+        RefDataOffHeapStore create(
                 final Path dbDir,
                 final long maxSize,
                 @Assisted("maxReaders") final int maxReaders,
                 @Assisted("maxPutsBeforeCommit") final int maxPutsBeforeCommit,
                 @Assisted("valueBufferCapacity") final int valueBufferCapacity);
     }
+
+    /**
+     * Thrown to abandon building a snapshot once it has grown larger than the snapshot max size.
+     */
+    private static class SnapshotTooLargeException extends RuntimeException {
+        SnapshotTooLargeException() {
+            super(null, null, false, false);
+        }
+    }
 }
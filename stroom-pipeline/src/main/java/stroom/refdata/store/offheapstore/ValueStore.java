@@ -68,6 +68,26 @@ public class ValueStore {
                         valueStoreMetaDb.createMetaEntryForValue(txn, keyBuffer, refDataValue));
     }
 
+    /**
+     * As {@link ValueStore#getOrCreateKey(Txn, PooledByteBuffer, RefDataValue, boolean)} but
+     * takes referenceCount references on the value in one go, e.g. when many keys in a bulk
+     * load share the same value.
+     */
+    ByteBuffer getOrCreateKey(final Txn<ByteBuffer> writeTxn,
+                              final PooledByteBuffer valueStorePooledKeyBuffer,
+                              final RefDataValue refDataValue,
+                              final boolean overwriteExisting,
+                              final int referenceCount) {
+        final ByteBuffer valueStoreKeyBuffer = getOrCreateKey(
+                writeTxn, valueStorePooledKeyBuffer, refDataValue, overwriteExisting);
+
+        if (referenceCount > 1) {
+            // getOrCreateKey has already taken one reference
+            valueStoreMetaDb.incrementReferenceCount(writeTxn, valueStoreKeyBuffer, referenceCount - 1);
+        }
+        return valueStoreKeyBuffer;
+    }
+
     public Optional<RefDataValue> get(final Txn<ByteBuffer> txn,
                                       final ValueStoreKey valueStoreKey) {
         try(PooledByteBuffer pooledKeyBuffer = valueStoreDb.getPooledKeyBuffer()) {
@@ -148,4 +168,8 @@ public class ValueStore {
     public PooledByteBuffer getPooledKeyBuffer() {
         return valueStoreDb.getPooledKeyBuffer();
     }
+
+    PooledByteBuffer getPooledValueBuffer(final int minCapacity) {
+        return valueStoreDb.getPooledBuffer(minCapacity);
+    }
 }
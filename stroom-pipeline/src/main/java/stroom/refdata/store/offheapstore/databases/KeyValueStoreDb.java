@@ -65,7 +65,21 @@ public class KeyValueStoreDb extends AbstractLmdbDb<KeyValueStoreKey, ValueStore
     public void deleteMapEntries(final Txn<ByteBuffer> writeTxn,
                                  final UID mapUid,
                                  final BiConsumer<ByteBuffer, ByteBuffer> entryConsumer) {
-        LOGGER.debug("deleteMapEntries(..., {}, ...)", mapUid);
+        deleteMapEntries(writeTxn, mapUid, Integer.MAX_VALUE, entryConsumer);
+    }
+
+    /**
+     * Deletes up to maxEntries entries for mapUid, passing each one to entryConsumer before
+     * it is deleted. Allows a large map to be deleted over several smaller transactions.
+     *
+     * @return The number of entries deleted. If this is less than maxEntries then there are no
+     * more entries for mapUid.
+     */
+    public int deleteMapEntries(final Txn<ByteBuffer> writeTxn,
+                                final UID mapUid,
+                                final int maxEntries,
+                                final BiConsumer<ByteBuffer, ByteBuffer> entryConsumer) {
+        LOGGER.debug("deleteMapEntries(..., {}, {}, ...)", mapUid, maxEntries);
 
         try (PooledByteBuffer startKeyIncPooledBuffer = getPooledKeyBuffer();
              PooledByteBuffer endKeyExcPooledBuffer = getPooledKeyBuffer()) {
@@ -87,9 +101,13 @@ public class KeyValueStoreDb extends AbstractLmdbDb<KeyValueStoreKey, ValueStore
 
             final KeyRange<ByteBuffer> keyRange = KeyRange.atLeast(startKeyIncBuffer);
 
+            int cnt = 0;
             try (CursorIterator<ByteBuffer> cursorIterator = getLmdbDbi().iterate(writeTxn, keyRange)) {
-                int cnt = 0;
                 for (final CursorIterator.KeyVal<ByteBuffer> keyVal : cursorIterator.iterable()) {
+                    if (cnt >= maxEntries) {
+                        LOGGER.trace("Reached maxEntries {}", maxEntries);
+                        break;
+                    }
                     LAMBDA_LOGGER.trace(() -> LambdaLogger.buildMessage("Found entry {} {}",
                             ByteBufferUtils.byteBufferInfo(keyVal.key()),
                             ByteBufferUtils.byteBufferInfo(keyVal.val())));
@@ -111,6 +129,43 @@ public class KeyValueStoreDb extends AbstractLmdbDb<KeyValueStoreKey, ValueStore
                 }
                 LOGGER.debug("Deleted {} {} entries", DB_NAME, cnt);
             }
+            return cnt;
+        }
+    }
+
+    /**
+     * Passes each entry for mapUid to entryConsumer without modifying the store. The consumer
+     * must not hold on to the key/value buffers as they are only valid inside the txn.
+     *
+     * @return The number of entries found for mapUid
+     */
+    public int forEachMapEntry(final Txn<ByteBuffer> txn,
+                               final UID mapUid,
+                               final BiConsumer<ByteBuffer, ByteBuffer> entryConsumer) {
+        LOGGER.debug("forEachMapEntry(..., {}, ...)", mapUid);
+
+        try (PooledByteBuffer startKeyIncPooledBuffer = getPooledKeyBuffer()) {
+
+            // AT_LEAST cursor used for the same reason as in deleteMapEntries
+            final KeyValueStoreKey startKeyInc = new KeyValueStoreKey(mapUid, "");
+            final ByteBuffer startKeyIncBuffer = startKeyIncPooledBuffer.getByteBuffer();
+            keySerde.serializeWithoutKeyPart(startKeyIncBuffer, startKeyInc);
+
+            final KeyRange<ByteBuffer> keyRange = KeyRange.atLeast(startKeyIncBuffer);
+
+            int cnt = 0;
+            try (CursorIterator<ByteBuffer> cursorIterator = getLmdbDbi().iterate(txn, keyRange)) {
+                for (final CursorIterator.KeyVal<ByteBuffer> keyVal : cursorIterator.iterable()) {
+                    if (!ByteBufferUtils.containsPrefix(keyVal.key(), startKeyIncBuffer)) {
+                        // passed out UID so break out
+                        break;
+                    }
+                    entryConsumer.accept(keyVal.key(), keyVal.val());
+                    cnt++;
+                }
+            }
+            LOGGER.debug("Found {} {} entries", DB_NAME, cnt);
+            return cnt;
         }
     }
 
@@ -36,6 +36,7 @@ import stroom.util.logging.LambdaLogger;
 import javax.inject.Inject;
 import java.nio.ByteBuffer;
 import java.util.Optional;
+import java.util.function.BiConsumer;
 import java.util.function.Supplier;
 
 public class MapUidForwardDb extends AbstractLmdbDb<MapDefinition, UID> {
@@ -104,6 +105,35 @@ public class MapUidForwardDb extends AbstractLmdbDb<MapDefinition, UID> {
     }
 
 
+    /**
+     * Passes each {@link MapDefinition} belonging to refStreamDefinition to mapDefinitionConsumer along with
+     * a copy of its UID, so the UID can be used after the cursor has moved on.
+     */
+    public void forEachMapDefinition(final Txn<ByteBuffer> txn,
+                                     final RefStreamDefinition refStreamDefinition,
+                                     final BiConsumer<MapDefinition, UID> mapDefinitionConsumer) {
+
+        MapDefinition mapDefinitionWithNoMapName = new MapDefinition(refStreamDefinition);
+        try (PooledByteBuffer pooledStartKeyIncBuffer = getPooledKeyBuffer()) {
+            ByteBuffer startKeyIncBuffer = pooledStartKeyIncBuffer.getByteBuffer();
+
+            getKeySerde().serialize(startKeyIncBuffer, mapDefinitionWithNoMapName);
+
+            final KeyRange<ByteBuffer> keyRange = KeyRange.atLeast(startKeyIncBuffer);
+
+            try (CursorIterator<ByteBuffer> cursorIterator = getLmdbDbi().iterate(txn, keyRange)) {
+                for (final CursorIterator.KeyVal<ByteBuffer> keyVal : cursorIterator.iterable()) {
+                    if (!ByteBufferUtils.containsPrefix(keyVal.key(), startKeyIncBuffer)) {
+                        break;
+                    }
+                    final MapDefinition mapDefinition = deserializeKey(keyVal.key());
+                    final UID mapUid = UID.wrap(keyVal.val()).clone();
+                    mapDefinitionConsumer.accept(mapDefinition, mapUid);
+                }
+            }
+        }
+    }
+
 
     public interface Factory {
         MapUidForwardDb create(final Env<ByteBuffer> lmdbEnvironment);
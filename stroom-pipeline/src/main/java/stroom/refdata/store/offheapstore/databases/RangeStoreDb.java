@@ -198,6 +198,21 @@ public class RangeStoreDb extends AbstractLmdbDb<RangeStoreKey, ValueStoreKey> {
     public void deleteMapEntries(final Txn<ByteBuffer> writeTxn,
                                  final UID mapUid,
                                  final EntryConsumer entryConsumer) {
+        deleteMapEntries(writeTxn, mapUid, Integer.MAX_VALUE, entryConsumer);
+    }
+
+    /**
+     * Deletes up to maxEntries entries for mapUid, passing each one to entryConsumer before
+     * it is deleted. Allows a large map to be deleted over several smaller transactions.
+     *
+     * @return The number of entries deleted. If this is less than maxEntries then there are no
+     * more entries for mapUid.
+     */
+    public int deleteMapEntries(final Txn<ByteBuffer> writeTxn,
+                                final UID mapUid,
+                                final int maxEntries,
+                                final EntryConsumer entryConsumer) {
+        LOGGER.debug("deleteMapEntries(..., {}, {}, ...)", mapUid, maxEntries);
 
         try (PooledByteBuffer startKeyIncPooledBuffer = getPooledKeyBuffer();
              PooledByteBuffer endKeyExcPooledBuffer = getPooledKeyBuffer()) {
@@ -216,9 +231,13 @@ public class RangeStoreDb extends AbstractLmdbDb<RangeStoreKey, ValueStoreKey> {
             keySerde.serializeWithoutRangePart(startKeyIncBuffer, startKeyInc);
             final KeyRange<ByteBuffer> atLeastKeyRange = KeyRange.atLeast(startKeyIncBuffer);
 
+            int cnt = 0;
             try (CursorIterator<ByteBuffer> cursorIterator = getLmdbDbi().iterate(writeTxn, atLeastKeyRange)) {
-                int cnt = 0;
                 for (final CursorIterator.KeyVal<ByteBuffer> keyVal : cursorIterator.iterable()) {
+                    if (cnt >= maxEntries) {
+                        LOGGER.trace("Reached maxEntries {}", maxEntries);
+                        break;
+                    }
 
                     if (ByteBufferUtils.containsPrefix(keyVal.key(), startKeyIncBuffer)) {
                         // prefixed with our UID
@@ -238,6 +257,43 @@ public class RangeStoreDb extends AbstractLmdbDb<RangeStoreKey, ValueStoreKey> {
                 }
                 LOGGER.debug("Deleted {} {} entries", DB_NAME, cnt);
             }
+            return cnt;
+        }
+    }
+
+    /**
+     * Passes each entry for mapUid to entryConsumer without modifying the store. The consumer
+     * must not hold on to the key/value buffers as they are only valid inside the txn.
+     *
+     * @return The number of entries found for mapUid
+     */
+    public int forEachMapEntry(final Txn<ByteBuffer> txn,
+                               final UID mapUid,
+                               final EntryConsumer entryConsumer) {
+        LOGGER.debug("forEachMapEntry(..., {}, ...)", mapUid);
+
+        try (PooledByteBuffer startKeyIncPooledBuffer = getPooledKeyBuffer()) {
+
+            // AT_LEAST cursor used for the same reason as in deleteMapEntries
+            final Range<Long> dummyRange = Range.of(0L, 1L);
+            final RangeStoreKey startKeyInc = new RangeStoreKey(mapUid, dummyRange);
+            final ByteBuffer startKeyIncBuffer = startKeyIncPooledBuffer.getByteBuffer();
+            keySerde.serializeWithoutRangePart(startKeyIncBuffer, startKeyInc);
+            final KeyRange<ByteBuffer> atLeastKeyRange = KeyRange.atLeast(startKeyIncBuffer);
+
+            int cnt = 0;
+            try (CursorIterator<ByteBuffer> cursorIterator = getLmdbDbi().iterate(txn, atLeastKeyRange)) {
+                for (final CursorIterator.KeyVal<ByteBuffer> keyVal : cursorIterator.iterable()) {
+                    if (!ByteBufferUtils.containsPrefix(keyVal.key(), startKeyIncBuffer)) {
+                        // passed out UID so break out
+                        break;
+                    }
+                    entryConsumer.accept(txn, keyVal.key(), keyVal.val());
+                    cnt++;
+                }
+            }
+            LOGGER.debug("Found {} {} entries", DB_NAME, cnt);
+            return cnt;
         }
     }
 
@@ -17,6 +17,7 @@
 
 package stroom.refdata.store.offheapstore.databases;
 
+import com.google.common.base.Preconditions;
 import com.google.inject.assistedinject.Assisted;
 import org.lmdbjava.Cursor;
 import org.lmdbjava.Env;
@@ -128,6 +129,17 @@ public class ValueStoreMetaDb extends AbstractLmdbDb<ValueStoreKey, ValueStoreMe
         updateReferenceCount(writeTxn, keyBuffer, 1);
     }
 
+    /**
+     * increments the reference count by referenceCountDelta for the key represented by the valueStoreKeyBuf.
+     * Allows a bulk load to take all the references for a value in one update.
+     */
+    public void incrementReferenceCount(final Txn<ByteBuffer> writeTxn,
+                                        final ByteBuffer keyBuffer,
+                                        final int referenceCountDelta) {
+        Preconditions.checkArgument(referenceCountDelta > 0, "referenceCountDelta must be greater than zero");
+        updateReferenceCount(writeTxn, keyBuffer, referenceCountDelta);
+    }
+
     private void updateReferenceCount(final Txn<ByteBuffer> writeTxn,
                                       final ByteBuffer keyBuffer,
                                       final int referenceCountDelta) {
@@ -52,6 +52,17 @@ public class CharBuffer implements Buffer {
         this.length = len;
     }
 
+    /**
+     * Makes this buffer a view onto part of the supplied character array
+     * without copying it. This allows a single buffer object to be reused for
+     * short lived views onto content rather than creating a new one each time.
+     */
+    void wrap(final char[] buffer, final int off, final int len) {
+        this.buffer = buffer;
+        this.offset = off;
+        this.length = len;
+    }
+
     @Override
     public void clear() {
         length = 0;
@@ -23,6 +23,7 @@ import stroom.pipeline.filter.AbstractXMLFilter;
 import stroom.task.TaskContext;
 import stroom.xml.converter.ds3.GroupFactory.MatchOrder;
 import stroom.xml.converter.ds3.NodeFactory.NodeType;
+import stroom.xml.converter.ds3.RegexFactory.Engine;
 
 import java.util.ArrayDeque;
 import java.util.Deque;
@@ -50,6 +51,7 @@ public class ConfigFilter extends AbstractXMLFilter {
     private static final String XML_ATTRIBUTE_PATTERN = "pattern";
     private static final String XML_ATTRIBUTE_DOT_ALL = "dotAll";
     private static final String XML_ATTRIBUTE_CASE_INSENSITIVE = "caseInsensitive";
+    private static final String XML_ATTRIBUTE_ENGINE = "engine";
     private static final String XML_ATTRIBUTE_DELIMITER = "delimiter";
     private static final String XML_ATTRIBUTE_ESCAPE = "escape";
     private static final String XML_ATTRIBUTE_CONTAINER_START = "containerStart";
@@ -108,7 +110,7 @@ public class ConfigFilter extends AbstractXMLFilter {
 
             final NodeFactory parent = parentDeque.peek();
             final NodeFactory node = new RegexFactory(parent, id, getMinMatch(atts), getMaxMatch(atts),
-                    getOnlyMatch(atts), advance, pattern, flags);
+                    getOnlyMatch(atts), advance, pattern, flags, getEngine(atts));
             parentDeque.push(node);
 
         } else if (localName.equals(XML_ELEMENT_ALL)) {
@@ -180,6 +182,22 @@ public class ConfigFilter extends AbstractXMLFilter {
         return val;
     }
 
+    private Engine getEngine(final Attributes atts) throws SAXException {
+        final String string = atts.getValue(XML_ATTRIBUTE_ENGINE);
+        if (string == null || string.isEmpty()) {
+            return Engine.JAVA;
+        }
+
+        for (final Engine engine : Engine.values()) {
+            if (engine.getDisplayValue().equalsIgnoreCase(string)) {
+                return engine;
+            }
+        }
+
+        throw new SAXException("Value for " + XML_ATTRIBUTE_ENGINE + " \"" + string
+                + "\" is not one of java, linear or auto");
+    }
+
     private boolean getReverse(final Attributes atts) throws SAXException {
         return getBool(atts, XML_ATTRIBUTE_REVERSE, false);
     }
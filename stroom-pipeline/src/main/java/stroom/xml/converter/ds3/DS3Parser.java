@@ -76,6 +76,7 @@ public class DS3Parser extends AbstractParser {
     private final int minBuffer;
     private final int maxBuffer;
     private final CharBuffer messageBuffer = new CharBuffer();
+    private final StringCache stringCache = new StringCache();
     private boolean inRecord;
     private DS3Reader reader;
     private ScheduledExecutorService profilingExecutor;
@@ -542,7 +543,8 @@ public class DS3Parser extends AbstractParser {
         if (buf != null) {
             buf = buf.trim();
             if (buf.length() > 0) {
-                return buf.toString();
+                // Names and values often repeat so reuse strings where we can.
+                return stringCache.get(buf);
             }
         }
 
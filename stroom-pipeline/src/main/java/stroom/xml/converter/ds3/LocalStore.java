@@ -19,12 +19,21 @@ package stroom.xml.converter.ds3;
 import org.xml.sax.SAXException;
 
 public class LocalStore implements Store {
+    // Reused to hold the stored value so that we don't create a new buffer
+    // object every time a value is stored.
+    private final CharBuffer view = new CharBuffer(null, 0, 0);
     private Buffer value;
 
     @Override
     public void set(final int index, final Buffer value) throws SAXException {
         if (value == null) {
             this.value = null;
+        } else if (value instanceof CharBuffer) {
+            // Local values are only used while processing the current match
+            // so we can just point our view at the same content.
+            final CharBuffer charBuffer = (CharBuffer) value;
+            view.wrap(charBuffer.buffer, charBuffer.offset, charBuffer.length);
+            this.value = view;
         } else {
             this.value = value.unsafeCopy();
         }
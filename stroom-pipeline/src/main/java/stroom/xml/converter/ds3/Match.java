@@ -80,5 +80,10 @@ public interface Match {
      */
     int end(int group);
 
+    /**
+     * Returns a view of the content captured by the given group. To avoid
+     * creating objects for every match the returned buffer may be reused by
+     * subsequent calls so callers must copy it if they need to keep it.
+     */
     Buffer filter(Buffer buffer, int group);
 }
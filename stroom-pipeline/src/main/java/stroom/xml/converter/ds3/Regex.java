@@ -20,7 +20,10 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import stroom.xml.converter.ds3.NodeFactory.NodeType;
 import stroom.xml.converter.ds3.ref.VarMap;
+import stroom.xml.converter.ds3.regex.LinearMatcher;
+import stroom.xml.converter.ds3.regex.LinearPattern;
 
+import java.util.regex.MatchResult;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -28,7 +31,13 @@ public class Regex extends Expression implements ExecutionProfiler, Match {
     private static final Logger LOGGER = LoggerFactory.getLogger(Regex.class);
 
     private final Pattern pattern;
+    private final LinearPattern linearPattern;
+    // Reused for filtered values as they are only used until the next filter.
+    private final CharBuffer filterView = new CharBuffer(null, 0, 0);
     private Matcher matcher;
+    private LinearMatcher linearMatcher;
+    // Whichever of the two matchers is in use.
+    private MatchResult matchResult;
 
     private long totalExecutionTime = 0;
     private long totalExecutionCount = 0;
@@ -37,25 +46,48 @@ public class Regex extends Expression implements ExecutionProfiler, Match {
     Regex(final VarMap varMap, final RegexFactory factory) {
         super(varMap, factory);
         pattern = factory.getPattern();
+        linearPattern = factory.getLinearPattern();
     }
 
     @Override
     public void setInput(final CharSequence cs) {
         if (LOGGER.isDebugEnabled()) {
             long startTime = System.currentTimeMillis();
-            matcher = pattern.matcher(cs);
+            createMatcher(cs);
             totalExecutionTime += System.currentTimeMillis() - startTime;
+        } else {
+            createMatcher(cs);
+        }
+    }
+
+    private void createMatcher(final CharSequence cs) {
+        if (linearPattern != null) {
+            // Reuse the linear matcher as it holds the thread lists used for matching.
+            if (linearMatcher == null) {
+                linearMatcher = linearPattern.matcher(cs);
+            } else {
+                linearMatcher.reset(cs);
+            }
+            matchResult = linearMatcher;
         } else {
             matcher = pattern.matcher(cs);
+            matchResult = matcher;
         }
     }
 
+    private boolean find() {
+        if (linearMatcher != null) {
+            return linearMatcher.find(0);
+        }
+        return matcher.find(0);
+    }
+
     @Override
     public Match match() {
         if (LOGGER.isDebugEnabled()) {
             totalExecutionCount++;
             execStartTime = System.currentTimeMillis();
-            if (matcher.find(0)) {
+            if (find()) {
                 totalExecutionTime += System.currentTimeMillis() - execStartTime;
                 execStartTime = -1;
                 return this;
@@ -64,7 +96,7 @@ public class Regex extends Expression implements ExecutionProfiler, Match {
                 execStartTime = -1;
             }
         } else {
-            if (matcher.find(0)) {
+            if (find()) {
                 return this;
             }
         }
@@ -79,6 +111,9 @@ public class Regex extends Expression implements ExecutionProfiler, Match {
 
     @Override
     public String getExecutionString() {
+        if (linearPattern != null) {
+            return getNodeType().getName() + "'" + pattern.pattern() + "' (linear)";
+        }
         return getNodeType().getName() + "'" + pattern.pattern() + "'";
     }
 
@@ -99,28 +134,28 @@ public class Regex extends Expression implements ExecutionProfiler, Match {
 
     @Override
     public int start() {
-        return matcher.start();
+        return matchResult.start();
     }
 
     @Override
     public int start(final int group) {
-        return matcher.start(group);
+        return matchResult.start(group);
     }
 
     @Override
     public int end() {
-        return matcher.end();
+        return matchResult.end();
     }
 
     @Override
     public int end(final int group) {
-        return matcher.end(group);
+        return matchResult.end(group);
     }
 
     @Override
     public Buffer filter(final Buffer buffer, final int group) {
-        int start = matcher.start(group);
-        int end = matcher.end(group);
+        int start = matchResult.start(group);
+        int end = matchResult.end(group);
         int len = end - start;
 
         // Sometimes a match gives us -1 as the start and end. This happens if
@@ -133,7 +168,11 @@ public class Regex extends Expression implements ExecutionProfiler, Match {
             len = 0;
         }
 
-        if (start == 0 && len == buffer.length()) {
+        if (buffer instanceof CharBuffer) {
+            final CharBuffer charBuffer = (CharBuffer) buffer;
+            filterView.wrap(charBuffer.buffer, charBuffer.offset + start, len);
+            return filterView;
+        } else if (start == 0 && len == buffer.length()) {
             return buffer.unsafeCopy();
         } else {
             return buffer.subSequence(start, len);
@@ -17,12 +17,16 @@
 package stroom.xml.converter.ds3;
 
 import stroom.xml.converter.ds3.ref.VarMap;
+import stroom.xml.converter.ds3.regex.LinearPattern;
+import stroom.xml.converter.ds3.regex.UnsupportedPatternException;
 
 import java.util.Set;
 import java.util.regex.Pattern;
 
 public class RegexFactory extends ExpressionFactory {
     private final Pattern pattern;
+    private final LinearPattern linearPattern;
+    private final Engine engine;
 
     public RegexFactory(final NodeFactory parent, final String id, final String pattern) {
         this(parent, id, 0, -1, null, -1, pattern, 0);
@@ -30,11 +34,22 @@ public class RegexFactory extends ExpressionFactory {
 
     public RegexFactory(final NodeFactory parent, final String id, final int minMatch, final int maxMatch,
                         final Set<Integer> onlyMatch, final int advance, final String pattern, final int flags) {
+        this(parent, id, minMatch, maxMatch, onlyMatch, advance, pattern, flags, Engine.JAVA);
+    }
+
+    public RegexFactory(final NodeFactory parent, final String id, final int minMatch, final int maxMatch,
+                        final Set<Integer> onlyMatch, final int advance, final String pattern, final int flags,
+                        final Engine engine) {
         super(parent, id, minMatch, maxMatch, onlyMatch, advance);
+        this.engine = engine;
         if (pattern != null) {
+            // Always compile with java.util.regex so that invalid patterns are reported in the same way regardless of
+            // the engine chosen.
             this.pattern = Pattern.compile(pattern, flags);
+            this.linearPattern = compileLinear(pattern, flags, engine);
         } else {
             this.pattern = null;
+            this.linearPattern = null;
         }
 
         final StringBuilder sb = new StringBuilder();
@@ -54,13 +69,46 @@ public class RegexFactory extends ExpressionFactory {
             sb.append(advance);
             sb.append("\"");
         }
+        if (engine != Engine.JAVA) {
+            sb.append(" engine=\"");
+            sb.append(engine.getDisplayValue());
+            sb.append("\"");
+        }
         setAttributes(sb.toString());
     }
 
+    private static LinearPattern compileLinear(final String pattern, final int flags, final Engine engine) {
+        switch (engine) {
+            case LINEAR:
+                // The user has explicitly asked for linear time matching so fail if we can't provide it.
+                return LinearPattern.compile(pattern, flags);
+            case AUTO:
+                try {
+                    return LinearPattern.compile(pattern, flags);
+                } catch (final UnsupportedPatternException e) {
+                    // Fall back to java.util.regex for patterns that need features such as back references.
+                    return null;
+                }
+            default:
+                return null;
+        }
+    }
+
     public Pattern getPattern() {
         return pattern;
     }
 
+    /**
+     * @return The linear time version of the pattern or null if java.util.regex should be used to match it.
+     */
+    public LinearPattern getLinearPattern() {
+        return linearPattern;
+    }
+
+    public Engine getEngine() {
+        return engine;
+    }
+
     @Override
     public Regex newInstance(final VarMap varMap) {
         return new Regex(varMap, this);
@@ -70,4 +118,18 @@ public class RegexFactory extends ExpressionFactory {
     public NodeType getNodeType() {
         return NodeType.REGEX;
     }
+
+    public enum Engine {
+        JAVA("java"), LINEAR("linear"), AUTO("auto");
+
+        private final String displayValue;
+
+        Engine(final String displayValue) {
+            this.displayValue = displayValue;
+        }
+
+        public String getDisplayValue() {
+            return displayValue;
+        }
+    }
 }
@@ -26,7 +26,10 @@ public class Split extends Expression implements Match {
     private CharSequence cs;
     private int[] start = new int[2];
     private int[] end = new int[2];
-    private CharBuffer escapeFiltered;
+    private final CharBuffer filterView = new CharBuffer(null, 0, 0);
+    private final CharBuffer escapeFiltered = new CharBuffer(null, 0, 0);
+    private char[] escapeChars = new char[0];
+    private boolean escapeFilteredValid;
 
     public Split(final VarMap varMap, final SplitFactory factory) {
         super(varMap, factory);
@@ -40,7 +43,7 @@ public class Split extends Expression implements Match {
         start[1] = -1;
         end[0] = -1;
         end[1] = -1;
-        escapeFiltered = null;
+        escapeFilteredValid = false;
     }
 
     @Override
@@ -132,7 +135,7 @@ public class Split extends Expression implements Match {
         start[1] = innerStart;
         end[0] = outerEnd;
         end[1] = innerEnd;
-        escapeFiltered = null;
+        escapeFilteredValid = false;
 
         // If we matched some content then the offset will be greater than the
         // original offset.
@@ -194,7 +197,13 @@ public class Split extends Expression implements Match {
         // delimiter, whitespace and outermost container characters. Group 2 is
         // string minus delimiter and filtered to remove escape characters.
         if (group <= 1 || factory.getEscape() == null) {
-            if (start[group] == 0 && end[group] == buffer.length()) {
+            if (buffer instanceof CharBuffer) {
+                // Reuse a view onto the buffer as the filtered value is only
+                // used until the next filter.
+                final CharBuffer charBuffer = (CharBuffer) buffer;
+                filterView.wrap(charBuffer.buffer, charBuffer.offset + start[group], end[group] - start[group]);
+                return filterView;
+            } else if (start[group] == 0 && end[group] == buffer.length()) {
                 return buffer.unsafeCopy();
             } else {
                 return buffer.subSequence(start[group], end[group] - start[group]);
@@ -202,30 +211,38 @@ public class Split extends Expression implements Match {
 
         } else {
             // Produce escape filtered buffer if we haven't already.
-            if (escapeFiltered == null) {
-                // Produce filtered buffer that removes escape characters.
+            if (!escapeFilteredValid) {
+                // Produce filtered buffer that removes escape characters. The
+                // filtered content can never be longer than the unfiltered
+                // content so we can reuse the same array unless it is too
+                // small.
+                final int maxLength = end[1] - start[1];
+                if (escapeChars.length < maxLength) {
+                    escapeChars = new char[maxLength];
+                }
+
                 boolean escape = false;
                 int pos = start[1];
+                int len = 0;
 
-                final StringBuilder sb = new StringBuilder();
                 for (; pos < end[1]; ) {
                     if (!escape) {
                         if (isSubstring(cs, pos, factory.getEscape())) {
                             escape = true;
                             pos += factory.getEscape().length;
                         } else {
-                            sb.append(cs.charAt(pos));
+                            escapeChars[len++] = cs.charAt(pos);
                             pos++;
                         }
                     } else {
-                        sb.append(cs.charAt(pos));
+                        escapeChars[len++] = cs.charAt(pos);
                         pos++;
                         escape = false;
                     }
                 }
 
-                final char[] chars = sb.toString().toCharArray();
-                escapeFiltered = new CharBuffer(chars, 0, chars.length);
+                escapeFiltered.wrap(escapeChars, 0, len);
+                escapeFilteredValid = true;
             }
 
             return escapeFiltered;
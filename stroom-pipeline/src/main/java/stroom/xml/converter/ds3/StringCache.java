@@ -0,0 +1,85 @@
+/*
+ * Copyright 2018 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package stroom.xml.converter.ds3;
+
+/**
+ * A small fixed size cache of strings created from buffer content. Data
+ * element names and many values (e.g. event types, status codes, user names)
+ * are repeated from record to record so returning a previously created string
+ * with the same content avoids creating a new string for every output
+ * attribute. Each slot holds the last string seen with a hash that maps to it
+ * so the cache never grows.
+ */
+class StringCache {
+    private static final int DEFAULT_SIZE = 1024;
+    private static final int MAX_CACHED_LENGTH = 64;
+
+    private final String[] strings;
+    private final int mask;
+
+    StringCache() {
+        this(DEFAULT_SIZE);
+    }
+
+    /**
+     * @param size The number of slots in the cache. This must be a power of
+     *             two.
+     */
+    StringCache(final int size) {
+        if (size <= 0 || Integer.bitCount(size) != 1) {
+            throw new IllegalArgumentException("Size must be a power of two");
+        }
+        strings = new String[size];
+        mask = size - 1;
+    }
+
+    String get(final CharSequence cs) {
+        final int length = cs.length();
+        if (length > MAX_CACHED_LENGTH) {
+            // Long values are unlikely to repeat so don't bother hashing them.
+            return cs.toString();
+        }
+
+        int h = 0;
+        for (int i = 0; i < length; i++) {
+            h = 31 * h + cs.charAt(i);
+        }
+        final int index = (h ^ (h >>> 16)) & mask;
+
+        final String cached = strings[index];
+        if (cached != null && contentEquals(cached, cs)) {
+            return cached;
+        }
+
+        final String string = cs.toString();
+        strings[index] = string;
+        return string;
+    }
+
+    private boolean contentEquals(final String string, final CharSequence cs) {
+        final int length = cs.length();
+        if (string.length() != length) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (string.charAt(i) != cs.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
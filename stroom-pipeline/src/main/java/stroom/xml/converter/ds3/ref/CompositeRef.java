@@ -19,30 +19,53 @@ package stroom.xml.converter.ds3.ref;
 import stroom.xml.converter.ds3.Buffer;
 import stroom.xml.converter.ds3.CharBuffer;
 
+import java.util.Arrays;
 import java.util.List;
 
 public class CompositeRef implements Ref {
     private final List<Ref> refs;
+    private final Buffer[] parts;
 
     public CompositeRef(final List<Ref> refs) {
         this.refs = refs;
+        this.parts = new Buffer[refs.size()];
     }
 
     @Override
     public Buffer lookup(final int matchCount) {
-        char[] chars = null;
-        for (final Ref ref : refs) {
-            final Buffer part = ref.lookup(matchCount);
+        // Look up all of the parts first so that we can copy them into a
+        // single array of the right size.
+        int length = 0;
+        int count = 0;
+        Buffer last = null;
+        for (int i = 0; i < parts.length; i++) {
+            final Buffer part = refs.get(i).lookup(matchCount);
+            parts[i] = part;
             if (part != null) {
-                final char[] arr = part.toCharArray();
-                if (chars == null) {
-                    chars = arr;
-                } else {
-                    char[] tmp = new char[chars.length + arr.length];
-                    System.arraycopy(chars, 0, tmp, 0, chars.length);
-                    System.arraycopy(arr, 0, tmp, chars.length, arr.length);
-                    chars = tmp;
+                length += part.length();
+                count++;
+                last = part;
+            }
+        }
+
+        if (count == 0) {
+            return null;
+        } else if (count == 1) {
+            // There is only one part so there is no need to copy it.
+            Arrays.fill(parts, null);
+            return last;
+        }
+
+        final char[] chars = new char[length];
+        int pos = 0;
+        for (int i = 0; i < parts.length; i++) {
+            final Buffer part = parts[i];
+            if (part != null) {
+                final int len = part.length();
+                for (int j = 0; j < len; j++) {
+                    chars[pos++] = part.charAt(j);
                 }
+                parts[i] = null;
             }
         }
         return new CharBuffer(chars, 0, chars.length);
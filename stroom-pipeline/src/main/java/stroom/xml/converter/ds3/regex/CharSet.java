@@ -0,0 +1,153 @@
+/*
+ * Copyright 2018 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package stroom.xml.converter.ds3.regex;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A set of characters matched by a character class, a predefined class such as \d or '.'.
+ */
+class CharSet {
+    static final int DIGIT = 1;
+    static final int WORD = 2;
+    static final int SPACE = 3;
+
+    private final List<char[]> ranges = new ArrayList<>();
+    private final List<CharSet> subSets = new ArrayList<>();
+    private final List<Integer> predefined = new ArrayList<>();
+    private boolean negated;
+    private boolean caseInsensitive;
+
+    // A lookup table for ASCII characters that is built once the set is complete.
+    private boolean[] ascii;
+
+    static CharSet predefined(final int kind, final boolean negated) {
+        final CharSet charSet = new CharSet();
+        charSet.predefined.add(kind);
+        charSet.negated = negated;
+        return charSet;
+    }
+
+    static CharSet dot(final boolean dotAll) {
+        final CharSet charSet = new CharSet();
+        if (!dotAll) {
+            charSet.addChar('\n');
+            charSet.addChar('\r');
+            charSet.addChar('\u0085');
+            charSet.addRange('\u2028', '\u2029');
+        }
+        charSet.negated = true;
+        return charSet;
+    }
+
+    void addChar(final char c) {
+        addRange(c, c);
+    }
+
+    void addRange(final char from, final char to) {
+        ranges.add(new char[]{from, to});
+    }
+
+    void addSubSet(final CharSet subSet) {
+        subSets.add(subSet);
+    }
+
+    void setNegated(final boolean negated) {
+        this.negated = negated;
+    }
+
+    void setCaseInsensitive(final boolean caseInsensitive) {
+        this.caseInsensitive = caseInsensitive;
+    }
+
+    CharSet complete() {
+        ascii = new boolean[128];
+        for (char c = 0; c < 128; c++) {
+            ascii[c] = evaluate(c);
+        }
+        return this;
+    }
+
+    boolean matches(final char c) {
+        if (c < 128) {
+            return ascii[c];
+        }
+        return evaluate(c);
+    }
+
+    private boolean evaluate(final char c) {
+        boolean result = contains(c);
+        if (!result && caseInsensitive) {
+            final char other = swapAsciiCase(c);
+            if (other != c) {
+                result = contains(other);
+            }
+        }
+        return negated != result;
+    }
+
+    private boolean contains(final char c) {
+        for (final char[] range : ranges) {
+            if (c >= range[0] && c <= range[1]) {
+                return true;
+            }
+        }
+        for (final int kind : predefined) {
+            if (isPredefined(kind, c)) {
+                return true;
+            }
+        }
+        for (final CharSet subSet : subSets) {
+            if (subSet.evaluate(c)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean isPredefined(final int kind, final char c) {
+        switch (kind) {
+            case DIGIT:
+                return c >= '0' && c <= '9';
+            case WORD:
+                return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9') || c == '_';
+            case SPACE:
+                return c == ' ' || c == '\t' || c == '\n' || c == '\u000B' || c == '\f' || c == '\r';
+            default:
+                return false;
+        }
+    }
+
+    static char swapAsciiCase(final char c) {
+        if (c >= 'a' && c <= 'z') {
+            return (char) (c - 32);
+        }
+        if (c >= 'A' && c <= 'Z') {
+            return (char) (c + 32);
+        }
+        return c;
+    }
+
+    static char toLowerAscii(final char c) {
+        if (c >= 'A' && c <= 'Z') {
+            return (char) (c + 32);
+        }
+        return c;
+    }
+}
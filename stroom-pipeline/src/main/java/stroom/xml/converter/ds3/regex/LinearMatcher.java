@@ -0,0 +1,384 @@
+/*
+ * Copyright 2018 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package stroom.xml.converter.ds3.regex;
+
+import java.util.Arrays;
+import java.util.regex.MatchResult;
+
+/**
+ * Finds matches of a {@link LinearPattern} in a character sequence. Like {@link java.util.regex.Matcher} instances of
+ * this class are not thread safe.
+ */
+public final class LinearMatcher implements MatchResult {
+    private final LinearPattern pattern;
+    private final int[] ops;
+    private final int[] arg1;
+    private final int[] arg2;
+    private final CharSet[] sets;
+    private final int captureCount;
+    private final int[] emptyCaptures;
+
+    private CharSequence input;
+    private ThreadList current;
+    private ThreadList next;
+    private int[] stackPc;
+    private int[][] stackCaptures;
+    private int[] captures;
+
+    LinearMatcher(final LinearPattern pattern, final CharSequence input) {
+        this.pattern = pattern;
+        this.ops = pattern.ops;
+        this.arg1 = pattern.arg1;
+        this.arg2 = pattern.arg2;
+        this.sets = pattern.sets;
+        this.captureCount = (pattern.groupCount() + 1) * 2;
+        this.emptyCaptures = new int[captureCount];
+        Arrays.fill(emptyCaptures, -1);
+        this.input = input;
+
+        current = new ThreadList(ops.length);
+        next = new ThreadList(ops.length);
+        stackPc = new int[ops.length];
+        stackCaptures = new int[ops.length][];
+    }
+
+    public LinearPattern pattern() {
+        return pattern;
+    }
+
+    public LinearMatcher reset(final CharSequence input) {
+        this.input = input;
+        this.captures = null;
+        return this;
+    }
+
+    /**
+     * Resets this matcher and then attempts to find the next match starting at the specified index.
+     */
+    public boolean find(final int from) {
+        final int length = input.length();
+        if (from < 0 || from > length) {
+            throw new IndexOutOfBoundsException("Illegal start index");
+        }
+
+        captures = null;
+        current.clear();
+        next.clear();
+
+        int[] matched = null;
+        for (int pos = from; ; pos++) {
+            if (matched == null && current.size == 0) {
+                // No threads are running so skip straight to the next possible start position.
+                if (pattern.anchored && pos != 0) {
+                    break;
+                }
+                if (pattern.prefix != null) {
+                    pos = indexOf(pattern.prefix, pos, length);
+                    if (pos == -1) {
+                        break;
+                    }
+                }
+            }
+
+            if (matched == null) {
+                // Start a new lowest priority thread at this position.
+                addThread(current, 0, pos, emptyCaptures);
+            }
+            if (current.size == 0) {
+                if (matched != null || pos >= length) {
+                    break;
+                }
+                current.clear();
+                continue;
+            }
+
+            final int c = pos < length ? input.charAt(pos) : -1;
+            for (int i = 0; i < current.size; i++) {
+                final int pc = current.pc[i];
+                final int[] threadCaptures = current.captures[i];
+                switch (ops[pc]) {
+                    case LinearPattern.OP_MATCH:
+                        matched = threadCaptures;
+                        // Lower priority threads can't produce a preferred match so cut them off.
+                        i = current.size;
+                        break;
+                    case LinearPattern.OP_CHAR:
+                        if (c == arg1[pc]) {
+                            addThread(next, pc + 1, pos + 1, threadCaptures);
+                        }
+                        break;
+                    case LinearPattern.OP_CHAR_CI:
+                        if (c != -1 && CharSet.toLowerAscii((char) c) == arg1[pc]) {
+                            addThread(next, pc + 1, pos + 1, threadCaptures);
+                        }
+                        break;
+                    case LinearPattern.OP_SET:
+                        if (c != -1 && sets[pc].matches((char) c)) {
+                            addThread(next, pc + 1, pos + 1, threadCaptures);
+                        }
+                        break;
+                    default:
+                        break;
+                }
+            }
+
+            final ThreadList tmp = current;
+            current = next;
+            next = tmp;
+            next.clear();
+
+            if (pos >= length) {
+                break;
+            }
+        }
+
+        captures = matched;
+        return matched != null;
+    }
+
+    /**
+     * Follow all non consuming instructions from the supplied program counter adding consuming instructions to the
+     * thread list in priority order.
+     */
+    private void addThread(final ThreadList list, final int startPc, final int pos, final int[] startCaptures) {
+        int depth = 0;
+        stackPc[depth] = startPc;
+        stackCaptures[depth] = startCaptures;
+        depth++;
+
+        while (depth > 0) {
+            depth--;
+            int pc = stackPc[depth];
+            int[] threadCaptures = stackCaptures[depth];
+            stackCaptures[depth] = null;
+
+            boolean follow = true;
+            while (follow) {
+                if (!list.mark(pc)) {
+                    break;
+                }
+
+                switch (ops[pc]) {
+                    case LinearPattern.OP_JMP:
+                        pc = arg1[pc];
+                        break;
+                    case LinearPattern.OP_LOOP:
+                        // If the loop has already been entered at this position then the last iteration matched
+                        // nothing so leave the loop rather than iterating again, as java.util.regex does.
+                        if (list.isMarked(arg1[pc])) {
+                            pc = arg2[pc];
+                        } else {
+                            pc = arg1[pc];
+                        }
+                        break;
+                    case LinearPattern.OP_SPLIT:
+                        // Push the lower priority branch so that it is followed after the preferred one.
+                        if (depth == stackPc.length) {
+                            growStack();
+                        }
+                        stackPc[depth] = arg2[pc];
+                        stackCaptures[depth] = threadCaptures;
+                        depth++;
+                        pc = arg1[pc];
+                        break;
+                    case LinearPattern.OP_SAVE:
+                        threadCaptures = Arrays.copyOf(threadCaptures, captureCount);
+                        threadCaptures[arg1[pc]] = pos;
+                        pc++;
+                        break;
+                    case LinearPattern.OP_ASSERT:
+                        if (assertion(arg1[pc], pos)) {
+                            pc++;
+                        } else {
+                            follow = false;
+                        }
+                        break;
+                    default:
+                        list.add(pc, threadCaptures);
+                        follow = false;
+                        break;
+                }
+            }
+        }
+    }
+
+    private void growStack() {
+        stackPc = Arrays.copyOf(stackPc, stackPc.length * 2);
+        stackCaptures = Arrays.copyOf(stackCaptures, stackCaptures.length * 2);
+    }
+
+    private boolean assertion(final int kind, final int pos) {
+        final int length = input.length();
+        switch (kind) {
+            case RegexNode.ASSERT_BEGIN_INPUT:
+                return pos == 0;
+            case RegexNode.ASSERT_END_INPUT:
+                return pos == length;
+            case RegexNode.ASSERT_END_INPUT_OR_TERMINATOR:
+                return isEndOrFinalTerminator(pos, length);
+            case RegexNode.ASSERT_WORD_BOUNDARY:
+                return isWordBoundary(pos, length);
+            case RegexNode.ASSERT_NOT_WORD_BOUNDARY:
+                return !isWordBoundary(pos, length);
+            default:
+                return false;
+        }
+    }
+
+    private boolean isEndOrFinalTerminator(final int pos, final int length) {
+        if (pos == length) {
+            return true;
+        }
+        if (pos == length - 2) {
+            return input.charAt(pos) == '\r' && input.charAt(pos + 1) == '\n';
+        }
+        if (pos == length - 1) {
+            final char c = input.charAt(pos);
+            if (c == '\n') {
+                return pos == 0 || input.charAt(pos - 1) != '\r';
+            }
+            return c == '\r' || c == '\u0085' || c == '\u2028' || c == '\u2029';
+        }
+        return false;
+    }
+
+    private boolean isWordBoundary(final int pos, final int length) {
+        final boolean before = pos > 0 && isWord(input.charAt(pos - 1));
+        final boolean after = pos < length && isWord(input.charAt(pos));
+        return before != after;
+    }
+
+    private boolean isWord(final char c) {
+        return c == '_' || Character.isLetterOrDigit(c);
+    }
+
+    private int indexOf(final String prefix, final int from, final int length) {
+        final char first = prefix.charAt(0);
+        final int max = length - prefix.length();
+        for (int i = from; i <= max; i++) {
+            if (input.charAt(i) == first) {
+                int j = 1;
+                while (j < prefix.length() && input.charAt(i + j) == prefix.charAt(j)) {
+                    j++;
+                }
+                if (j == prefix.length()) {
+                    return i;
+                }
+            }
+        }
+        return -1;
+    }
+
+    private void checkMatch() {
+        if (captures == null) {
+            throw new IllegalStateException("No match available");
+        }
+    }
+
+    private void checkGroup(final int group) {
+        if (group < 0 || group > pattern.groupCount()) {
+            throw new IndexOutOfBoundsException("No group " + group);
+        }
+    }
+
+    @Override
+    public int start() {
+        return start(0);
+    }
+
+    @Override
+    public int start(final int group) {
+        checkMatch();
+        checkGroup(group);
+        return captures[group * 2];
+    }
+
+    @Override
+    public int end() {
+        return end(0);
+    }
+
+    @Override
+    public int end(final int group) {
+        checkMatch();
+        checkGroup(group);
+        return captures[group * 2 + 1];
+    }
+
+    @Override
+    public String group() {
+        return group(0);
+    }
+
+    @Override
+    public String group(final int group) {
+        final int start = start(group);
+        final int end = end(group);
+        if (start == -1 || end == -1) {
+            return null;
+        }
+        return input.subSequence(start, end).toString();
+    }
+
+    @Override
+    public int groupCount() {
+        return pattern.groupCount();
+    }
+
+    /**
+     * An ordered list of threads, i.e. program counters at consuming instructions and the captures made on the way to
+     * them. Each program counter can only be added once per step which is what keeps matching linear.
+     */
+    private static final class ThreadList {
+        private final int[] pc;
+        private final int[][] captures;
+        private final int[] marks;
+        private int generation = 1;
+        private int size;
+
+        ThreadList(final int programSize) {
+            pc = new int[programSize];
+            captures = new int[programSize][];
+            marks = new int[programSize];
+        }
+
+        boolean isMarked(final int programCounter) {
+            return marks[programCounter] == generation;
+        }
+
+        boolean mark(final int programCounter) {
+            if (marks[programCounter] == generation) {
+                return false;
+            }
+            marks[programCounter] = generation;
+            return true;
+        }
+
+        void add(final int programCounter, final int[] threadCaptures) {
+            pc[size] = programCounter;
+            captures[size] = threadCaptures;
+            size++;
+        }
+
+        void clear() {
+            Arrays.fill(captures, 0, size, null);
+            size = 0;
+            generation++;
+        }
+    }
+}
@@ -0,0 +1,337 @@
+/*
+ * Copyright 2018 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package stroom.xml.converter.ds3.regex;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * A compiled regular expression that is matched by simulating all possible paths through the pattern at once (a Pike
+ * VM) rather than by backtracking. Matching time is linear in the length of the input, O(input * pattern), so user
+ * written patterns cannot stall processing with catastrophic backtracking.
+ * <p>
+ * Match semantics are the same as java.util.regex (leftmost, with greedy and lazy quantifier priorities) for the
+ * supported subset of the syntax. Back references, look around, atomic groups, possessive quantifiers, inline flags
+ * and unicode properties are not supported and cause {@link UnsupportedPatternException} to be thrown on compilation.
+ */
+public final class LinearPattern {
+    static final int OP_CHAR = 0;
+    static final int OP_CHAR_CI = 1;
+    static final int OP_SET = 2;
+    static final int OP_MATCH = 3;
+    static final int OP_JMP = 4;
+    static final int OP_SPLIT = 5;
+    static final int OP_SAVE = 6;
+    static final int OP_ASSERT = 7;
+    static final int OP_LOOP = 8;
+
+    private static final int SUPPORTED_FLAGS = Pattern.CASE_INSENSITIVE | Pattern.DOTALL;
+    private static final int MAX_PROGRAM_SIZE = 100000;
+
+    private final String pattern;
+    private final int groupCount;
+
+    // The compiled program. Each instruction is an op code with up to two int arguments and an optional char set.
+    final int[] ops;
+    final int[] arg1;
+    final int[] arg2;
+    final CharSet[] sets;
+
+    // A literal string that every match must begin with, used to skip quickly to possible match positions.
+    final String prefix;
+    // True if every match must start at the beginning of the input.
+    final boolean anchored;
+
+    private LinearPattern(final String pattern, final int groupCount, final Program program, final String prefix,
+                          final boolean anchored) {
+        this.pattern = pattern;
+        this.groupCount = groupCount;
+        this.ops = program.toArray(program.ops);
+        this.arg1 = program.toArray(program.arg1);
+        this.arg2 = program.toArray(program.arg2);
+        this.sets = program.sets.toArray(new CharSet[0]);
+        this.prefix = prefix;
+        this.anchored = anchored;
+    }
+
+    public static LinearPattern compile(final String pattern, final int flags) {
+        if ((flags & ~SUPPORTED_FLAGS) != 0) {
+            throw new UnsupportedPatternException("Unsupported pattern flags " + flags);
+        }
+
+        final boolean caseInsensitive = (flags & Pattern.CASE_INSENSITIVE) != 0;
+        final boolean dotAll = (flags & Pattern.DOTALL) != 0;
+        final LinearPatternParser parser = new LinearPatternParser(pattern, dotAll, caseInsensitive);
+        final RegexNode root = parser.parse();
+
+        final Program program = new Program(pattern, caseInsensitive);
+        program.emit(OP_SAVE, 0, 0, null);
+        program.compile(root);
+        program.emit(OP_SAVE, 1, 0, null);
+        program.emit(OP_MATCH, 0, 0, null);
+
+        String prefix = null;
+        if (!caseInsensitive) {
+            final StringBuilder sb = new StringBuilder();
+            literalPrefix(root, sb);
+            if (sb.length() > 0) {
+                prefix = sb.toString();
+            }
+        }
+
+        return new LinearPattern(pattern, parser.getGroupCount(), program, prefix, isAnchored(root));
+    }
+
+    /**
+     * Test if a pattern can be matched with this engine.
+     */
+    public static boolean isSupported(final String pattern, final int flags) {
+        try {
+            compile(pattern, flags);
+            return true;
+        } catch (final UnsupportedPatternException e) {
+            return false;
+        }
+    }
+
+    public LinearMatcher matcher(final CharSequence input) {
+        return new LinearMatcher(this, input);
+    }
+
+    public String pattern() {
+        return pattern;
+    }
+
+    public int groupCount() {
+        return groupCount;
+    }
+
+    /**
+     * Append the literal characters that any match must start with. Returns true if the whole node is literal so that
+     * the caller can carry on appending from subsequent nodes.
+     */
+    private static boolean literalPrefix(final RegexNode node, final StringBuilder sb) {
+        if (node instanceof RegexNode.Literal) {
+            sb.append(((RegexNode.Literal) node).c);
+            return true;
+        } else if (node instanceof RegexNode.Group) {
+            return literalPrefix(((RegexNode.Group) node).child, sb);
+        } else if (node instanceof RegexNode.Concat) {
+            for (final RegexNode child : ((RegexNode.Concat) node).children) {
+                if (!literalPrefix(child, sb)) {
+                    return false;
+                }
+            }
+            return true;
+        } else if (node instanceof RegexNode.Repeat) {
+            final RegexNode.Repeat repeat = (RegexNode.Repeat) node;
+            if (repeat.min > 0) {
+                literalPrefix(repeat.child, sb);
+            }
+        }
+        return false;
+    }
+
+    private static boolean isAnchored(final RegexNode node) {
+        if (node instanceof RegexNode.Assertion) {
+            return ((RegexNode.Assertion) node).kind == RegexNode.ASSERT_BEGIN_INPUT;
+        } else if (node instanceof RegexNode.Group) {
+            return isAnchored(((RegexNode.Group) node).child);
+        } else if (node instanceof RegexNode.Concat) {
+            final List<RegexNode> children = ((RegexNode.Concat) node).children;
+            return children.size() > 0 && isAnchored(children.get(0));
+        }
+        return false;
+    }
+
+    private static boolean canMatchEmpty(final RegexNode node) {
+        if (node instanceof RegexNode.Assertion) {
+            return true;
+        } else if (node instanceof RegexNode.Group) {
+            return canMatchEmpty(((RegexNode.Group) node).child);
+        } else if (node instanceof RegexNode.Concat) {
+            for (final RegexNode child : ((RegexNode.Concat) node).children) {
+                if (!canMatchEmpty(child)) {
+                    return false;
+                }
+            }
+            return true;
+        } else if (node instanceof RegexNode.Alternation) {
+            for (final RegexNode child : ((RegexNode.Alternation) node).children) {
+                if (canMatchEmpty(child)) {
+                    return true;
+                }
+            }
+            return false;
+        } else if (node instanceof RegexNode.Repeat) {
+            final RegexNode.Repeat repeat = (RegexNode.Repeat) node;
+            return repeat.min == 0 || canMatchEmpty(repeat.child);
+        }
+        return false;
+    }
+
+    @Override
+    public String toString() {
+        return pattern;
+    }
+
+    private static class Program {
+        private final String pattern;
+        private final boolean caseInsensitive;
+        private final List<Integer> ops = new ArrayList<>();
+        private final List<Integer> arg1 = new ArrayList<>();
+        private final List<Integer> arg2 = new ArrayList<>();
+        private final List<CharSet> sets = new ArrayList<>();
+
+        Program(final String pattern, final boolean caseInsensitive) {
+            this.pattern = pattern;
+            this.caseInsensitive = caseInsensitive;
+        }
+
+        int emit(final int op, final int a1, final int a2, final CharSet set) {
+            if (ops.size() >= MAX_PROGRAM_SIZE) {
+                throw new UnsupportedPatternException("Pattern '" + pattern + "' is too large to match in linear time");
+            }
+            ops.add(op);
+            arg1.add(a1);
+            arg2.add(a2);
+            sets.add(set);
+            return ops.size() - 1;
+        }
+
+        int pc() {
+            return ops.size();
+        }
+
+        void patch(final int pc, final int a1, final int a2) {
+            arg1.set(pc, a1);
+            arg2.set(pc, a2);
+        }
+
+        void compile(final RegexNode node) {
+            if (node instanceof RegexNode.Literal) {
+                final char c = ((RegexNode.Literal) node).c;
+                if (caseInsensitive && CharSet.swapAsciiCase(c) != c) {
+                    emit(OP_CHAR_CI, CharSet.toLowerAscii(c), 0, null);
+                } else {
+                    emit(OP_CHAR, c, 0, null);
+                }
+
+            } else if (node instanceof RegexNode.CharClass) {
+                emit(OP_SET, 0, 0, ((RegexNode.CharClass) node).charSet);
+
+            } else if (node instanceof RegexNode.Assertion) {
+                emit(OP_ASSERT, ((RegexNode.Assertion) node).kind, 0, null);
+
+            } else if (node instanceof RegexNode.Concat) {
+                for (final RegexNode child : ((RegexNode.Concat) node).children) {
+                    compile(child);
+                }
+
+            } else if (node instanceof RegexNode.Group) {
+                final RegexNode.Group group = (RegexNode.Group) node;
+                if (group.index > 0) {
+                    emit(OP_SAVE, group.index * 2, 0, null);
+                    compile(group.child);
+                    emit(OP_SAVE, group.index * 2 + 1, 0, null);
+                } else {
+                    compile(group.child);
+                }
+
+            } else if (node instanceof RegexNode.Alternation) {
+                compileAlternation((RegexNode.Alternation) node);
+
+            } else if (node instanceof RegexNode.Repeat) {
+                compileRepeat((RegexNode.Repeat) node);
+            }
+        }
+
+        private void compileAlternation(final RegexNode.Alternation alternation) {
+            final List<Integer> jumps = new ArrayList<>();
+            final List<RegexNode> children = alternation.children;
+            for (int i = 0; i < children.size(); i++) {
+                if (i < children.size() - 1) {
+                    // Prefer this branch, otherwise try the next one.
+                    final int split = emit(OP_SPLIT, 0, 0, null);
+                    compile(children.get(i));
+                    jumps.add(emit(OP_JMP, 0, 0, null));
+                    patch(split, split + 1, pc());
+                } else {
+                    compile(children.get(i));
+                }
+            }
+            final int end = pc();
+            for (final int jump : jumps) {
+                patch(jump, end, 0);
+            }
+        }
+
+        private void compileRepeat(final RegexNode.Repeat repeat) {
+            if (canMatchEmpty(repeat.child)) {
+                // java.util.regex stops repeating on an empty iteration in a way that depends on backtracking order so
+                // matches could differ from those found by a backtracking engine.
+                throw new UnsupportedPatternException("Pattern '" + pattern +
+                        "' repeats an expression that can match an empty string");
+            }
+
+            // Mandatory repetitions.
+            for (int i = 0; i < repeat.min; i++) {
+                compile(repeat.child);
+            }
+
+            if (repeat.max == -1) {
+                // Unbounded loop.
+                final int split = emit(OP_SPLIT, 0, 0, null);
+                compile(repeat.child);
+                final int loop = emit(OP_LOOP, split, 0, null);
+                patch(loop, split, pc());
+                prioritise(split, split + 1, pc(), repeat.greedy);
+
+            } else {
+                // Optional repetitions, each of which is only attempted if the previous one matched.
+                final List<Integer> splits = new ArrayList<>();
+                for (int i = repeat.min; i < repeat.max; i++) {
+                    final int split = emit(OP_SPLIT, 0, 0, null);
+                    splits.add(split);
+                    compile(repeat.child);
+                }
+                final int end = pc();
+                for (final int split : splits) {
+                    prioritise(split, split + 1, end, repeat.greedy);
+                }
+            }
+        }
+
+        private void prioritise(final int split, final int body, final int exit, final boolean greedy) {
+            if (greedy) {
+                patch(split, body, exit);
+            } else {
+                patch(split, exit, body);
+            }
+        }
+
+        int[] toArray(final List<Integer> list) {
+            final int[] array = new int[list.size()];
+            for (int i = 0; i < array.length; i++) {
+                array[i] = list.get(i);
+            }
+            return array;
+        }
+    }
+}
@@ -0,0 +1,399 @@
+/*
+ * Copyright 2018 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package stroom.xml.converter.ds3.regex;
+
+/**
+ * Parses the subset of the java.util.regex syntax that can be matched in linear time. Anything outside of that subset
+ * results in an {@link UnsupportedPatternException} so that callers can fall back to java.util.regex. Patterns are
+ * expected to have already been validated by {@link java.util.regex.Pattern#compile(String, int)}.
+ */
+class LinearPatternParser {
+    private final String pattern;
+    private final boolean dotAll;
+    private final boolean caseInsensitive;
+    private int pos;
+    private int groupCount;
+
+    LinearPatternParser(final String pattern, final boolean dotAll, final boolean caseInsensitive) {
+        this.pattern = pattern;
+        this.dotAll = dotAll;
+        this.caseInsensitive = caseInsensitive;
+    }
+
+    RegexNode parse() {
+        final RegexNode node = parseAlternation();
+        if (pos < pattern.length()) {
+            throw unsupported("unbalanced ')'");
+        }
+        return node;
+    }
+
+    int getGroupCount() {
+        return groupCount;
+    }
+
+    private RegexNode parseAlternation() {
+        final RegexNode first = parseConcat();
+        if (!peek('|')) {
+            return first;
+        }
+
+        final RegexNode.Alternation alternation = new RegexNode.Alternation();
+        alternation.children.add(first);
+        while (peek('|')) {
+            pos++;
+            alternation.children.add(parseConcat());
+        }
+        return alternation;
+    }
+
+    private RegexNode parseConcat() {
+        final RegexNode.Concat concat = new RegexNode.Concat();
+        while (pos < pattern.length() && !peek('|') && !peek(')')) {
+            final char c = pattern.charAt(pos);
+            if (c == '\\' && pos + 1 < pattern.length() && pattern.charAt(pos + 1) == 'Q') {
+                // Quoted literals cannot be quantified as a whole so just add them individually.
+                pos += 2;
+                int end = pattern.indexOf("\\E", pos);
+                if (end == -1) {
+                    end = pattern.length();
+                }
+                for (int i = pos; i < end; i++) {
+                    concat.children.add(new RegexNode.Literal(pattern.charAt(i)));
+                }
+                pos = Math.min(end + 2, pattern.length());
+            } else {
+                concat.children.add(parseQuantifier(parseAtom()));
+            }
+        }
+        return concat;
+    }
+
+    private RegexNode parseQuantifier(final RegexNode atom) {
+        if (pos >= pattern.length()) {
+            return atom;
+        }
+
+        final char c = pattern.charAt(pos);
+        int min;
+        int max;
+        if (c == '*') {
+            min = 0;
+            max = -1;
+            pos++;
+        } else if (c == '+') {
+            min = 1;
+            max = -1;
+            pos++;
+        } else if (c == '?') {
+            min = 0;
+            max = 1;
+            pos++;
+        } else if (c == '{') {
+            pos++;
+            min = parseNumber();
+            if (peek(',')) {
+                pos++;
+                if (peek('}')) {
+                    max = -1;
+                } else {
+                    max = parseNumber();
+                }
+            } else {
+                max = min;
+            }
+            expect('}');
+            if (max != -1 && max < min) {
+                throw unsupported("illegal repetition range");
+            }
+        } else {
+            return atom;
+        }
+
+        if (atom instanceof RegexNode.Assertion) {
+            throw unsupported("quantified assertion");
+        }
+
+        boolean greedy = true;
+        if (peek('?')) {
+            greedy = false;
+            pos++;
+        } else if (peek('+')) {
+            throw unsupported("possessive quantifier");
+        }
+
+        if (pos < pattern.length()) {
+            final char next = pattern.charAt(pos);
+            if (next == '*' || next == '+' || next == '?' || next == '{') {
+                throw unsupported("nested quantifier");
+            }
+        }
+
+        return new RegexNode.Repeat(atom, min, max, greedy);
+    }
+
+    private int parseNumber() {
+        final int start = pos;
+        while (pos < pattern.length() && Character.isDigit(pattern.charAt(pos))) {
+            pos++;
+        }
+        if (start == pos || pos - start > 6) {
+            throw unsupported("illegal repetition");
+        }
+        return Integer.parseInt(pattern.substring(start, pos));
+    }
+
+    private RegexNode parseAtom() {
+        final char c = pattern.charAt(pos++);
+        switch (c) {
+            case '(':
+                return parseGroup();
+            case '[':
+                return new RegexNode.CharClass(parseCharClass().complete());
+            case '.':
+                return new RegexNode.CharClass(CharSet.dot(dotAll).complete());
+            case '^':
+                return new RegexNode.Assertion(RegexNode.ASSERT_BEGIN_INPUT);
+            case '$':
+                return new RegexNode.Assertion(RegexNode.ASSERT_END_INPUT_OR_TERMINATOR);
+            case '\\':
+                return parseEscape();
+            case '*':
+            case '+':
+            case '?':
+            case '{':
+                throw unsupported("dangling meta character '" + c + "'");
+            default:
+                return new RegexNode.Literal(c);
+        }
+    }
+
+    private RegexNode parseGroup() {
+        int index = -1;
+        if (peek('?')) {
+            pos++;
+            if (peek(':')) {
+                pos++;
+            } else if (peek('<') && pos + 1 < pattern.length() && Character.isLetter(pattern.charAt(pos + 1))) {
+                // Named capturing group.
+                final int end = pattern.indexOf('>', pos);
+                if (end == -1) {
+                    throw unsupported("unclosed group name");
+                }
+                pos = end + 1;
+                index = ++groupCount;
+            } else {
+                throw unsupported("look around, atomic groups and inline flags");
+            }
+        } else {
+            index = ++groupCount;
+        }
+
+        final RegexNode child = parseAlternation();
+        expect(')');
+        return new RegexNode.Group(child, index);
+    }
+
+    private RegexNode parseEscape() {
+        if (pos >= pattern.length()) {
+            throw unsupported("trailing escape");
+        }
+
+        final char c = pattern.charAt(pos++);
+        switch (c) {
+            case 'd':
+                return predefined(CharSet.DIGIT, false);
+            case 'D':
+                return predefined(CharSet.DIGIT, true);
+            case 'w':
+                return predefined(CharSet.WORD, false);
+            case 'W':
+                return predefined(CharSet.WORD, true);
+            case 's':
+                return predefined(CharSet.SPACE, false);
+            case 'S':
+                return predefined(CharSet.SPACE, true);
+            case 'b':
+                return new RegexNode.Assertion(RegexNode.ASSERT_WORD_BOUNDARY);
+            case 'B':
+                return new RegexNode.Assertion(RegexNode.ASSERT_NOT_WORD_BOUNDARY);
+            case 'A':
+                return new RegexNode.Assertion(RegexNode.ASSERT_BEGIN_INPUT);
+            case 'z':
+                return new RegexNode.Assertion(RegexNode.ASSERT_END_INPUT);
+            case 'Z':
+                return new RegexNode.Assertion(RegexNode.ASSERT_END_INPUT_OR_TERMINATOR);
+            default:
+                return new RegexNode.Literal(escapedChar(c));
+        }
+    }
+
+    private RegexNode predefined(final int kind, final boolean negated) {
+        return new RegexNode.CharClass(CharSet.predefined(kind, negated).complete());
+    }
+
+    /**
+     * Resolve an escaped character that represents a single literal character.
+     */
+    private char escapedChar(final char c) {
+        switch (c) {
+            case 't':
+                return '\t';
+            case 'n':
+                return '\n';
+            case 'r':
+                return '\r';
+            case 'f':
+                return '\f';
+            case 'a':
+                return '\u0007';
+            case 'e':
+                return '\u001B';
+            case 'x':
+                return (char) parseHex(2);
+            case 'u':
+                return (char) parseHex(4);
+            default:
+                if (Character.isLetterOrDigit(c)) {
+                    // Back references, octal escapes, unicode properties etc.
+                    throw unsupported("escape '\\" + c + "'");
+                }
+                return c;
+        }
+    }
+
+    private int parseHex(final int length) {
+        if (pos + length > pattern.length()) {
+            throw unsupported("illegal hexadecimal escape");
+        }
+        try {
+            final int value = Integer.parseInt(pattern.substring(pos, pos + length), 16);
+            pos += length;
+            return value;
+        } catch (final NumberFormatException e) {
+            throw unsupported("illegal hexadecimal escape");
+        }
+    }
+
+    private CharSet parseCharClass() {
+        final CharSet charSet = new CharSet();
+        charSet.setCaseInsensitive(caseInsensitive);
+        if (peek('^')) {
+            charSet.setNegated(true);
+            pos++;
+        }
+        if (peek(']')) {
+            throw unsupported("empty character class");
+        }
+
+        while (!peek(']')) {
+            if (pos >= pattern.length()) {
+                throw unsupported("unclosed character class");
+            }
+
+            final char c = pattern.charAt(pos++);
+            if (c == '[') {
+                charSet.addSubSet(parseCharClass());
+            } else if (c == '&' && peek('&')) {
+                throw unsupported("character class intersection");
+            } else if (c == '\\') {
+                final CharSet predefined = classEscape();
+                if (predefined != null) {
+                    charSet.addSubSet(predefined);
+                } else {
+                    addCharOrRange(charSet, escapedChar(pattern.charAt(pos++)));
+                }
+            } else {
+                addCharOrRange(charSet, c);
+            }
+        }
+        pos++;
+        return charSet;
+    }
+
+    private CharSet classEscape() {
+        if (pos >= pattern.length()) {
+            throw unsupported("trailing escape");
+        }
+        final char c = pattern.charAt(pos);
+        CharSet charSet = null;
+        switch (c) {
+            case 'd':
+                charSet = CharSet.predefined(CharSet.DIGIT, false);
+                break;
+            case 'D':
+                charSet = CharSet.predefined(CharSet.DIGIT, true);
+                break;
+            case 'w':
+                charSet = CharSet.predefined(CharSet.WORD, false);
+                break;
+            case 'W':
+                charSet = CharSet.predefined(CharSet.WORD, true);
+                break;
+            case 's':
+                charSet = CharSet.predefined(CharSet.SPACE, false);
+                break;
+            case 'S':
+                charSet = CharSet.predefined(CharSet.SPACE, true);
+                break;
+            default:
+                break;
+        }
+        if (charSet != null) {
+            pos++;
+        }
+        return charSet;
+    }
+
+    private void addCharOrRange(final CharSet charSet, final char from) {
+        if (peek('-') && pos + 1 < pattern.length() && pattern.charAt(pos + 1) != ']') {
+            pos++;
+            char to = pattern.charAt(pos++);
+            if (to == '[') {
+                throw unsupported("illegal character range");
+            } else if (to == '\\') {
+                if (classEscape() != null) {
+                    throw unsupported("illegal character range");
+                }
+                to = escapedChar(pattern.charAt(pos++));
+            }
+            if (to < from) {
+                throw unsupported("illegal character range");
+            }
+            charSet.addRange(from, to);
+        } else {
+            charSet.addChar(from);
+        }
+    }
+
+    private boolean peek(final char c) {
+        return pos < pattern.length() && pattern.charAt(pos) == c;
+    }
+
+    private void expect(final char c) {
+        if (!peek(c)) {
+            throw unsupported("expected '" + c + "'");
+        }
+        pos++;
+    }
+
+    private UnsupportedPatternException unsupported(final String reason) {
+        return new UnsupportedPatternException("Pattern '" + pattern + "' cannot be matched in linear time (" +
+                reason + " at index " + pos + ")");
+    }
+}
@@ -0,0 +1,89 @@
+/*
+ * Copyright 2018 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package stroom.xml.converter.ds3.regex;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The parsed structure of a regular expression prior to compilation into a linear matching program.
+ */
+abstract class RegexNode {
+    static final int ASSERT_BEGIN_INPUT = 1;
+    static final int ASSERT_END_INPUT = 2;
+    static final int ASSERT_END_INPUT_OR_TERMINATOR = 3;
+    static final int ASSERT_WORD_BOUNDARY = 4;
+    static final int ASSERT_NOT_WORD_BOUNDARY = 5;
+
+    static class Literal extends RegexNode {
+        final char c;
+
+        Literal(final char c) {
+            this.c = c;
+        }
+    }
+
+    static class CharClass extends RegexNode {
+        final CharSet charSet;
+
+        CharClass(final CharSet charSet) {
+            this.charSet = charSet;
+        }
+    }
+
+    static class Assertion extends RegexNode {
+        final int kind;
+
+        Assertion(final int kind) {
+            this.kind = kind;
+        }
+    }
+
+    static class Concat extends RegexNode {
+        final List<RegexNode> children = new ArrayList<>();
+    }
+
+    static class Alternation extends RegexNode {
+        final List<RegexNode> children = new ArrayList<>();
+    }
+
+    static class Repeat extends RegexNode {
+        final RegexNode child;
+        final int min;
+        final int max;
+        final boolean greedy;
+
+        Repeat(final RegexNode child, final int min, final int max, final boolean greedy) {
+            this.child = child;
+            this.min = min;
+            this.max = max;
+            this.greedy = greedy;
+        }
+    }
+
+    static class Group extends RegexNode {
+        final RegexNode child;
+        // The capturing group index or -1 for non capturing groups.
+        final int index;
+
+        Group(final RegexNode child, final int index) {
+            this.child = child;
+            this.index = index;
+        }
+    }
+}
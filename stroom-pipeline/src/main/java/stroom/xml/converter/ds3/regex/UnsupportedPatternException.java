@@ -0,0 +1,30 @@
+/*
+ * Copyright 2018 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package stroom.xml.converter.ds3.regex;
+
+/**
+ * Thrown when a pattern uses a feature that cannot be matched in linear time, e.g. back references, look around or
+ * possessive quantifiers.
+ */
+public class UnsupportedPatternException extends RuntimeException {
+    private static final long serialVersionUID = 6081475253474418843L;
+
+    public UnsupportedPatternException(final String message) {
+        super(message);
+    }
+}
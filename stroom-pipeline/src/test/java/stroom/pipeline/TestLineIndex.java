@@ -0,0 +1,104 @@
+/*
+ * Copyright 2018 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package stroom.pipeline;
+
+import org.junit.Assert;
+import org.junit.Test;
+import stroom.util.io.StreamUtil;
+import stroom.util.test.StroomUnitTest;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+
+public class TestLineIndex extends StroomUnitTest {
+    @Test
+    public void testEmpty() throws IOException {
+        final LineIndex lineIndex = create("");
+        Assert.assertEquals(0, lineIndex.getLineCount());
+        Assert.assertEquals(0, lineIndex.getIndexedLineNo(10));
+        Assert.assertEquals(0, lineIndex.getIndexedByteOffset(10));
+    }
+
+    @Test
+    public void testLineCount() throws IOException {
+        Assert.assertEquals(1, create("one").getLineCount());
+        Assert.assertEquals(1, create("one\n").getLineCount());
+        Assert.assertEquals(2, create("one\ntwo").getLineCount());
+        Assert.assertEquals(3, create("one\n\nthree\n").getLineCount());
+    }
+
+    @Test
+    public void testOffsets() throws IOException {
+        // Each line is 'line-nnnnn\n' so is 11 bytes long.
+        final StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 2500; i++) {
+            sb.append(String.format("line-%05d\n", i));
+        }
+        final String data = sb.toString();
+        final LineIndex lineIndex = create(data);
+
+        Assert.assertEquals(2500, lineIndex.getLineCount());
+
+        Assert.assertEquals(0, lineIndex.getIndexedLineNo(999));
+        Assert.assertEquals(0, lineIndex.getIndexedByteOffset(999));
+
+        Assert.assertEquals(1000, lineIndex.getIndexedLineNo(1000));
+        Assert.assertEquals(11000, lineIndex.getIndexedByteOffset(1000));
+
+        Assert.assertEquals(2000, lineIndex.getIndexedLineNo(2499));
+        final long offset = lineIndex.getIndexedByteOffset(2499);
+        Assert.assertEquals("line-02000\n", data.substring((int) offset, (int) offset + 11));
+    }
+
+    @Test
+    public void testExtend() throws IOException {
+        final StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 20000; i++) {
+            sb.append(String.format("line-%05d\n", i));
+        }
+        final byte[] bytes = sb.toString().getBytes(StreamUtil.DEFAULT_CHARSET);
+        final LineIndex lineIndex = new LineIndex();
+
+        // Reading stops once line 2000 has been found rather than carrying on to the end.
+        lineIndex.extend(new ByteArrayInputStream(bytes), 2500);
+        Assert.assertFalse(lineIndex.isComplete());
+        Assert.assertTrue(lineIndex.getIndexedByteCount() < bytes.length);
+        Assert.assertEquals(2000, lineIndex.getIndexedLineNo(2500));
+        Assert.assertEquals(22000, lineIndex.getIndexedByteOffset(2500));
+
+        // Carry on from where the last read stopped.
+        final long indexedByteCount = lineIndex.getIndexedByteCount();
+        lineIndex.extend(new ByteArrayInputStream(bytes, (int) indexedByteCount, bytes.length - (int) indexedByteCount),
+                Long.MAX_VALUE);
+        Assert.assertTrue(lineIndex.isComplete());
+        Assert.assertEquals(20000, lineIndex.getLineCount());
+        Assert.assertEquals(19000, lineIndex.getIndexedLineNo(19999));
+        Assert.assertEquals(209000, lineIndex.getIndexedByteOffset(19999));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testLineCountUnknownUntilComplete() throws IOException {
+        final LineIndex lineIndex = new LineIndex();
+        lineIndex.extend(new ByteArrayInputStream(new byte[0]), 0);
+        lineIndex.getLineCount();
+    }
+
+    private LineIndex create(final String data) throws IOException {
+        return LineIndex.create(new ByteArrayInputStream(data.getBytes(StreamUtil.DEFAULT_CHARSET)));
+    }
+}
@@ -0,0 +1,151 @@
+/*
+ * Copyright 2018 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package stroom.pipeline.filter;
+
+import org.xml.sax.ContentHandler;
+import org.xml.sax.InputSource;
+import org.xml.sax.XMLReader;
+import org.xml.sax.helpers.DefaultHandler;
+import stroom.entity.util.TransformerFactoryFactory;
+import stroom.pipeline.LocationFactoryProxy;
+import stroom.pipeline.errorhandler.ErrorReceiverProxy;
+import stroom.pipeline.errorhandler.LoggingErrorReceiver;
+import stroom.pipeline.state.PipelineContext;
+import stroom.util.xml.SAXParserFactoryFactory;
+
+import javax.xml.parsers.SAXParserFactory;
+import javax.xml.transform.sax.SAXResult;
+import javax.xml.transform.sax.SAXTransformerFactory;
+import javax.xml.transform.sax.TransformerHandler;
+import javax.xml.transform.stream.StreamSource;
+import java.io.StringReader;
+
+/**
+ * Compares the throughput of a simple flat translation performed with XSLT
+ * against the same translation performed with {@link RecordMappingFilter}.
+ * This is not run as part of the normal build.
+ */
+public class RecordMappingPerformanceTest {
+    private static final int RECORDS = 200000;
+    private static final int ITERATIONS = 5;
+
+    private static final String MAPPING = "" +
+            "<recordMapping rootElement=\"Events\" recordElement=\"Event\" namespace=\"event-logging:3\">" +
+            "<rootAttribute name=\"Version\" value=\"3.2.3\"/>" +
+            "<field source=\"Time\" target=\"EventTime/TimeCreated\" dateFormat=\"dd/MM/yyyy:HH:mm:ss\"/>" +
+            "<constant target=\"EventSource/System/Name\" value=\"Test\"/>" +
+            "<field source=\"User\" target=\"EventSource/User/Id\"/>" +
+            "<field source=\"File\" target=\"EventDetail/View/Document/Path\"/>" +
+            "<field source=\"Action\" target=\"EventDetail/@Action\" default=\"Unknown\">" +
+            "<map from=\"OPEN\" to=\"Open\"/>" +
+            "</field>" +
+            "</recordMapping>";
+
+    private static final String XSLT = "" +
+            "<xsl:stylesheet version=\"2.0\" xmlns:xsl=\"http://www.w3.org/1999/XSL/Transform\" " +
+            "xmlns:r=\"records:2\" xmlns=\"event-logging:3\" exclude-result-prefixes=\"r\">" +
+            "<xsl:template match=\"r:records\">" +
+            "<Events Version=\"3.2.3\"><xsl:apply-templates/></Events>" +
+            "</xsl:template>" +
+            "<xsl:template match=\"r:record\">" +
+            "<Event>" +
+            "<EventTime><TimeCreated>" +
+            "<xsl:value-of select=\"format-dateTime(xs:dateTime(concat(substring(r:data[@name='Time']/@value, 7, 4), '-', " +
+            "substring(r:data[@name='Time']/@value, 4, 2), '-', substring(r:data[@name='Time']/@value, 1, 2), 'T', " +
+            "substring(r:data[@name='Time']/@value, 12, 8), 'Z')), '[Y0001]-[M01]-[D01]T[H01]:[m01]:[s01].[f001]Z')\" " +
+            "xmlns:xs=\"http://www.w3.org/2001/XMLSchema\"/>" +
+            "</TimeCreated></EventTime>" +
+            "<EventSource><System><Name>Test</Name></System>" +
+            "<User><Id><xsl:value-of select=\"r:data[@name='User']/@value\"/></Id></User></EventSource>" +
+            "<EventDetail>" +
+            "<xsl:attribute name=\"Action\">" +
+            "<xsl:choose>" +
+            "<xsl:when test=\"r:data[@name='Action']/@value = 'OPEN'\">Open</xsl:when>" +
+            "<xsl:otherwise>Unknown</xsl:otherwise>" +
+            "</xsl:choose>" +
+            "</xsl:attribute>" +
+            "<View><Document><Path><xsl:value-of select=\"r:data[@name='File']/@value\"/></Path></Document></View>" +
+            "</EventDetail>" +
+            "</Event>" +
+            "</xsl:template>" +
+            "</xsl:stylesheet>";
+
+    public static void main(final String[] args) throws Exception {
+        new RecordMappingPerformanceTest().test();
+    }
+
+    public void test() throws Exception {
+        final String input = createInput();
+
+        for (int i = 0; i < ITERATIONS; i++) {
+            final long xsltElapsed = process(input, createXsltHandler());
+            final long mappingElapsed = process(input, createRecordMappingFilter());
+
+            System.out.println("XSLT Elapsed Time = " + xsltElapsed + "ms (" +
+                    (RECORDS * 1000L / Math.max(1, xsltElapsed)) + " records/s)");
+            System.out.println("Record Mapping Elapsed Time = " + mappingElapsed + "ms (" +
+                    (RECORDS * 1000L / Math.max(1, mappingElapsed)) + " records/s)");
+        }
+    }
+
+    private long process(final String input, final ContentHandler contentHandler) throws Exception {
+        final SAXParserFactory factory = SAXParserFactoryFactory.newInstance();
+        factory.setNamespaceAware(true);
+        final XMLReader reader = factory.newSAXParser().getXMLReader();
+        reader.setContentHandler(contentHandler);
+
+        final long start = System.currentTimeMillis();
+        reader.parse(new InputSource(new StringReader(input)));
+        return System.currentTimeMillis() - start;
+    }
+
+    private ContentHandler createXsltHandler() throws Exception {
+        final SAXTransformerFactory factory = (SAXTransformerFactory) TransformerFactoryFactory.newInstance();
+        final TransformerHandler handler = factory.newTransformerHandler(new StreamSource(new StringReader(XSLT)));
+        handler.setResult(new SAXResult(new DefaultHandler()));
+        return handler;
+    }
+
+    private ContentHandler createRecordMappingFilter() {
+        final RecordMappingFilter filter = new RecordMappingFilter(new ErrorReceiverProxy(new LoggingErrorReceiver()),
+                new LocationFactoryProxy(), null, new PipelineContext());
+        filter.setRecordMapping(RecordMapping.compile(MAPPING));
+        filter.setContentHandler(new DefaultHandler());
+        return filter;
+    }
+
+    private String createInput() {
+        final StringBuilder sb = new StringBuilder();
+        sb.append("<records xmlns=\"records:2\">");
+        for (int i = 0; i < RECORDS; i++) {
+            sb.append("<record>");
+            sb.append("<data name=\"Time\" value=\"01/01/2009:00:00:0");
+            sb.append(i % 10);
+            sb.append("\"/>");
+            sb.append("<data name=\"Action\" value=\"OPEN\"/>");
+            sb.append("<data name=\"User\" value=\"user");
+            sb.append(i);
+            sb.append("\"/>");
+            sb.append("<data name=\"File\" value=\"D:\\example\\OpenFileEvents");
+            sb.append(i);
+            sb.append(".txt\"/>");
+            sb.append("</record>");
+        }
+        sb.append("</records>");
+        return sb.toString();
+    }
+}
@@ -0,0 +1,167 @@
+/*
+ * Copyright 2018 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package stroom.pipeline.filter;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.xml.sax.Attributes;
+import org.xml.sax.InputSource;
+import org.xml.sax.XMLReader;
+import org.xml.sax.helpers.DefaultHandler;
+import stroom.pipeline.LocationFactoryProxy;
+import stroom.pipeline.errorhandler.ErrorReceiverProxy;
+import stroom.pipeline.errorhandler.ProcessException;
+import stroom.pipeline.errorhandler.StoredErrorReceiver;
+import stroom.pipeline.state.PipelineContext;
+import stroom.util.test.StroomJUnit4ClassRunner;
+import stroom.util.test.StroomUnitTest;
+import stroom.util.xml.SAXParserFactoryFactory;
+
+import javax.xml.parsers.SAXParserFactory;
+import java.io.StringReader;
+
+@RunWith(StroomJUnit4ClassRunner.class)
+public class TestRecordMappingFilter extends StroomUnitTest {
+    private static final String MAPPING = "" +
+            "<recordMapping rootElement=\"Events\" recordElement=\"Event\" namespace=\"event-logging:3\">" +
+            "<rootAttribute name=\"Version\" value=\"3.2.3\"/>" +
+            "<field source=\"Date\" target=\"EventTime/TimeCreated\" dateFormat=\"dd/MM/yyyy HH:mm:ss\"/>" +
+            "<constant target=\"EventSource/System/Name\" value=\"Test\"/>" +
+            "<field source=\"User\" target=\"EventSource/User/Id\"/>" +
+            "<field source=\"Host/Name\" target=\"EventSource/Device/HostName\"/>" +
+            "<field source=\"Action\" target=\"EventDetail/@Action\" default=\"Unknown\">" +
+            "<map from=\"OPEN\" to=\"Open\"/>" +
+            "</field>" +
+            "</recordMapping>";
+
+    private static final String INPUT = "" +
+            "<records xmlns=\"records:2\">" +
+            "<record>" +
+            "<data name=\"Date\" value=\"01/02/2018 10:11:12\"/>" +
+            "<data name=\"User\" value=\"user1\"/>" +
+            "<data name=\"Host\"><data name=\"Name\" value=\"host1\"/></data>" +
+            "<data name=\"Action\" value=\"OPEN\"/>" +
+            "<data name=\"Ignored\" value=\"x\"/>" +
+            "</record>" +
+            "<record>" +
+            "<data name=\"User\">user2</data>" +
+            "<data name=\"User\" value=\"ignored\"/>" +
+            "</record>" +
+            "</records>";
+
+    @Test
+    public void testMapping() throws Exception {
+        final StoredErrorReceiver errors = new StoredErrorReceiver();
+        final String output = process(MAPPING, INPUT, errors);
+
+        Assert.assertEquals("" +
+                "<Events Version=\"3.2.3\">" +
+                "<Event>" +
+                "<EventTime><TimeCreated>2018-02-01T10:11:12.000Z</TimeCreated></EventTime>" +
+                "<EventSource><System><Name>Test</Name></System><User><Id>user1</Id></User>" +
+                "<Device><HostName>host1</HostName></Device></EventSource>" +
+                "<EventDetail Action=\"Open\"></EventDetail>" +
+                "</Event>" +
+                "<Event>" +
+                "<EventSource><System><Name>Test</Name></System><User><Id>user2</Id></User></EventSource>" +
+                "<EventDetail Action=\"Unknown\"></EventDetail>" +
+                "</Event>" +
+                "</Events>", output);
+        Assert.assertEquals(0, errors.getTotalErrors());
+    }
+
+    @Test
+    public void testBadDate() throws Exception {
+        final String mapping = "" +
+                "<recordMapping rootElement=\"Events\" recordElement=\"Event\">" +
+                "<field source=\"Date\" target=\"Time\" dateFormat=\"yyyy-MM-dd\" default=\"none\"/>" +
+                "</recordMapping>";
+        final String input = "<records><record><data name=\"Date\" value=\"bad\"/></record></records>";
+
+        final StoredErrorReceiver errors = new StoredErrorReceiver();
+        final String output = process(mapping, input, errors);
+
+        Assert.assertEquals("<Events><Event><Time>none</Time></Event></Events>", output);
+        Assert.assertEquals(1, errors.getList().size());
+    }
+
+    @Test
+    public void testInvalidMapping() {
+        assertInvalid("<recordMapping rootElement=\"Events\"/>");
+        assertInvalid("<recordMapping recordElement=\"Event\"><field source=\"a\"/></recordMapping>");
+        assertInvalid("<recordMapping recordElement=\"Event\"><unknown/></recordMapping>");
+        assertInvalid("<recordMapping recordElement=\"Event\">" +
+                "<field source=\"a\" target=\"A\"/><field source=\"b\" target=\"A\"/></recordMapping>");
+        assertInvalid("<recordMapping recordElement=\"Event\">" +
+                "<field source=\"a\" target=\"@A/B\"/></recordMapping>");
+    }
+
+    private void assertInvalid(final String mapping) {
+        try {
+            RecordMapping.compile(mapping);
+            Assert.fail("Expected invalid mapping " + mapping);
+        } catch (final ProcessException e) {
+            // Expected.
+        }
+    }
+
+    private String process(final String mapping, final String input, final StoredErrorReceiver errors)
+            throws Exception {
+        final RecordMappingFilter filter = new RecordMappingFilter(new ErrorReceiverProxy(errors),
+                new LocationFactoryProxy(), null, new PipelineContext());
+        filter.setRecordMapping(RecordMapping.compile(mapping));
+
+        final StringBuilder sb = new StringBuilder();
+        filter.setContentHandler(new DefaultHandler() {
+            @Override
+            public void startElement(final String uri, final String localName, final String qName,
+                                     final Attributes atts) {
+                sb.append("<");
+                sb.append(localName);
+                for (int i = 0; i < atts.getLength(); i++) {
+                    sb.append(" ");
+                    sb.append(atts.getLocalName(i));
+                    sb.append("=\"");
+                    sb.append(atts.getValue(i));
+                    sb.append("\"");
+                }
+                sb.append(">");
+            }
+
+            @Override
+            public void endElement(final String uri, final String localName, final String qName) {
+                sb.append("</");
+                sb.append(localName);
+                sb.append(">");
+            }
+
+            @Override
+            public void characters(final char[] ch, final int start, final int length) {
+                sb.append(ch, start, length);
+            }
+        });
+
+        final SAXParserFactory factory = SAXParserFactoryFactory.newInstance();
+        factory.setNamespaceAware(true);
+        final XMLReader reader = factory.newSAXParser().getXMLReader();
+        reader.setContentHandler(filter);
+        reader.parse(new InputSource(new StringReader(input)));
+
+        return sb.toString();
+    }
+}
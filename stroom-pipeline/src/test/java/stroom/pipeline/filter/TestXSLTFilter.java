@@ -0,0 +1,47 @@
+/*
+ * Copyright 2018 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package stroom.pipeline.filter;
+
+import org.junit.Assert;
+import org.junit.Test;
+import stroom.util.test.StroomUnitTest;
+
+public class TestXSLTFilter extends StroomUnitTest {
+    private static final String START = "<xsl:stylesheet xmlns:xsl=\"http://www.w3.org/1999/XSL/Transform\" " +
+            "xmlns:stroom=\"stroom\" version=\"2.0\">";
+    private static final String END = "</xsl:stylesheet>";
+
+    @Test
+    public void testStateless() {
+        Assert.assertTrue(XSLTFilter.isStateless(START +
+                "<xsl:template match=\"/\"><xsl:value-of select=\"stroom:get('key')\"/></xsl:template>" + END));
+    }
+
+    @Test
+    public void testPut() {
+        Assert.assertFalse(XSLTFilter.isStateless(START +
+                "<xsl:template match=\"/\"><xsl:value-of select=\"stroom:put('key', 'value')\"/></xsl:template>" +
+                END));
+    }
+
+    @Test
+    public void testImportOrInclude() {
+        // Imported and included XSLT might call put() so can't be assumed to be stateless.
+        Assert.assertFalse(XSLTFilter.isStateless(START + "<xsl:import href=\"common\"/>" + END));
+        Assert.assertFalse(XSLTFilter.isStateless(START + "<xsl:include href=\"common\"/>" + END));
+    }
+}
@@ -0,0 +1,75 @@
+/*
+ * Copyright 2018 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package stroom.pipeline.metrics;
+
+import com.codahale.metrics.MetricRegistry;
+import org.junit.Assert;
+import org.junit.Test;
+import org.xml.sax.SAXException;
+import org.xml.sax.helpers.AttributesImpl;
+import stroom.pipeline.filter.AbstractXMLFilter;
+import stroom.util.test.StroomUnitTest;
+
+public class TestElementMetricsFilter extends StroomUnitTest {
+    @Test
+    public void testEventCounts() throws SAXException {
+        final MetricRegistry metricRegistry = new MetricRegistry();
+        final PipelineMetricsRecorder recorder = new PipelineMetricsRecorder(metricRegistry, "pipeline.node1.Test");
+
+        // Link two filters together in the same way as the pipeline factory.
+        final AbstractXMLFilter filterA = new AbstractXMLFilter() {
+        };
+        final AbstractXMLFilter filterB = new AbstractXMLFilter() {
+        };
+
+        final ElementMetricsFilter inputA = new ElementMetricsFilter(recorder.getElementMetrics("A"), true);
+        inputA.setTarget(filterA);
+        final ElementMetricsFilter outputA = new ElementMetricsFilter(recorder.getElementMetrics("A"), false);
+        filterA.setTarget(outputA);
+        final ElementMetricsFilter inputB = new ElementMetricsFilter(recorder.getElementMetrics("B"), true);
+        outputA.setTarget(inputB);
+        inputB.setTarget(filterB);
+
+        inputA.startProcessing();
+        inputA.startStream();
+        inputA.startDocument();
+        inputA.startElement("", "records", "records", new AttributesImpl());
+        for (int i = 0; i < 2; i++) {
+            inputA.startElement("", "record", "record", new AttributesImpl());
+            inputA.endElement("", "record", "record");
+        }
+        inputA.endElement("", "records", "records");
+        inputA.endDocument();
+        inputA.endStream();
+        recorder.error("B");
+
+        // Nothing is added to the registry until the stream has been processed.
+        Assert.assertEquals(0, metricRegistry.counter("pipeline.node1.Test.A.eventsIn").getCount());
+
+        recorder.flush(100, 1000);
+        inputA.endProcessing();
+
+        Assert.assertEquals(3, metricRegistry.counter("pipeline.node1.Test.A.eventsIn").getCount());
+        Assert.assertEquals(3, metricRegistry.counter("pipeline.node1.Test.A.eventsOut").getCount());
+        Assert.assertEquals(3, metricRegistry.counter("pipeline.node1.Test.B.eventsIn").getCount());
+        Assert.assertEquals(0, metricRegistry.counter("pipeline.node1.Test.B.eventsOut").getCount());
+        Assert.assertEquals(0, metricRegistry.counter("pipeline.node1.Test.A.errors").getCount());
+        Assert.assertEquals(1, metricRegistry.counter("pipeline.node1.Test.B.errors").getCount());
+        Assert.assertEquals(100, metricRegistry.counter("pipeline.node1.Test.bytesIn").getCount());
+        Assert.assertEquals(1, metricRegistry.timer("pipeline.node1.Test.processTime").getCount());
+    }
+}
@@ -0,0 +1,176 @@
+/*
+ * Copyright 2018 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+
+package stroom.pipeline.stepping;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+import stroom.pipeline.LocationFactoryProxy;
+import stroom.pipeline.destination.DestinationProvider;
+import stroom.pipeline.errorhandler.ErrorReceiverProxy;
+import stroom.pipeline.factory.Element;
+import stroom.pipeline.filter.IdEnrichmentFilter;
+import stroom.pipeline.filter.XSLTFilter;
+import stroom.pipeline.shared.StepLocation;
+import stroom.pipeline.shared.StepType;
+import stroom.pipeline.shared.data.PipelineElementType;
+import stroom.pipeline.shared.data.PipelineElementType.Category;
+import stroom.pipeline.state.StreamHolder;
+import stroom.security.UserTokenUtil;
+import stroom.util.test.StroomUnitTest;
+
+public class TestSteppingController extends StroomUnitTest {
+    private static final long STREAM_ID = 1;
+
+    private final XSLTFilter xsltFilter = Mockito.mock(XSLTFilter.class);
+    private final SteppingTask request = new SteppingTask(UserTokenUtil.INTERNAL_PROCESSING_USER_TOKEN);
+    private SteppingController controller;
+    private SteppingFilter steppingFilter;
+
+    @Before
+    public void setup() {
+        // We are always processing the first part of the stream.
+        final StreamHolder streamHolder = Mockito.mock(StreamHolder.class);
+        Mockito.when(streamHolder.getStreamNo()).thenReturn(0L);
+
+        controller = new SteppingController(streamHolder, new LocationFactoryProxy(), new SteppingResponseCache(),
+                new ErrorReceiverProxy());
+        controller.setRequest(request);
+
+        Mockito.when(xsltFilter.isStateless()).thenReturn(true);
+        steppingFilter = Mockito.mock(SteppingFilter.class);
+
+        addMonitor("parser", PipelineElementType.ROLE_PARSER, Mockito.mock(Element.class));
+        final ElementMonitor xsltMonitor = addMonitor("xslt", PipelineElementType.ROLE_MUTATOR, xsltFilter);
+        xsltMonitor.setSteppingFilter(steppingFilter);
+        addMonitor("appender", PipelineElementType.ROLE_DESTINATION, Mockito.mock(DestinationProvider.class));
+    }
+
+    @Test
+    public void testForward() {
+        step(StepType.FORWARD, 1, 5);
+        Assert.assertTrue(controller.isSkippable(1));
+        Assert.assertTrue(controller.isSkippable(5));
+        Assert.assertFalse(controller.isSkippable(6));
+
+        // Filters are only checked against records after the current one.
+        applyFilter();
+        Assert.assertTrue(controller.isSkippable(5));
+        Assert.assertFalse(controller.isSkippable(6));
+    }
+
+    @Test
+    public void testForwardFromEarlierPart() {
+        // Every record in a later part is after the current location.
+        step(StepType.FORWARD, 0, 5);
+        Assert.assertFalse(controller.isSkippable(1));
+    }
+
+    @Test
+    public void testRefresh() {
+        step(StepType.REFRESH, 1, 5);
+        Assert.assertTrue(controller.isSkippable(4));
+        Assert.assertFalse(controller.isSkippable(5));
+
+        applyFilter();
+        Assert.assertTrue(controller.isSkippable(4));
+        Assert.assertFalse(controller.isSkippable(5));
+    }
+
+    @Test
+    public void testBackward() {
+        step(StepType.BACKWARD, 1, 5);
+        // The record before the current one is the one we are looking for.
+        Assert.assertTrue(controller.isSkippable(3));
+        Assert.assertFalse(controller.isSkippable(4));
+
+        // Filters have to see every record as any earlier record might be the one that matches.
+        applyFilter();
+        Assert.assertFalse(controller.isSkippable(1));
+    }
+
+    @Test
+    public void testBackwardFromLaterPart() {
+        step(StepType.BACKWARD, 2, 5);
+        Assert.assertFalse(controller.isSkippable(1));
+    }
+
+    @Test
+    public void testLast() {
+        step(StepType.LAST, 1, Long.MAX_VALUE);
+        // We don't know where the last record is until we have been through the part once.
+        Assert.assertFalse(controller.isSkippable(1));
+
+        controller.setKnownRecordCount(10L);
+        Assert.assertTrue(controller.isSkippable(9));
+        Assert.assertFalse(controller.isSkippable(10));
+
+        applyFilter();
+        Assert.assertFalse(controller.isSkippable(1));
+    }
+
+    @Test
+    public void testFirst() {
+        step(StepType.FIRST, 1, 0);
+        Assert.assertFalse(controller.isSkippable(1));
+    }
+
+    @Test
+    public void testStatefulElement() {
+        // An id enrichment filter has to count every record to give each the right event id.
+        addMonitor("idEnrichment", PipelineElementType.ROLE_MUTATOR, Mockito.mock(IdEnrichmentFilter.class));
+
+        step(StepType.FORWARD, 1, 5);
+        Assert.assertFalse(controller.isSkippable(1));
+        step(StepType.REFRESH, 1, 5);
+        Assert.assertFalse(controller.isSkippable(1));
+        step(StepType.BACKWARD, 1, 5);
+        Assert.assertFalse(controller.isSkippable(1));
+        step(StepType.LAST, 1, Long.MAX_VALUE);
+        controller.setKnownRecordCount(10L);
+        Assert.assertFalse(controller.isSkippable(1));
+    }
+
+    @Test
+    public void testStatefulXslt() {
+        // XSLT that puts values for later records to get is not stateless.
+        Mockito.when(xsltFilter.isStateless()).thenReturn(false);
+
+        step(StepType.FORWARD, 1, 5);
+        Assert.assertFalse(controller.isSkippable(1));
+    }
+
+    private ElementMonitor addMonitor(final String elementId, final String role, final Element element) {
+        final PipelineElementType elementType = new PipelineElementType(elementId, Category.FILTER,
+                new String[]{role}, null);
+        final ElementMonitor elementMonitor = new ElementMonitor(elementId, elementType, element);
+        controller.registerMonitor(elementMonitor);
+        return elementMonitor;
+    }
+
+    private void applyFilter() {
+        Mockito.when(steppingFilter.isFilterApplied()).thenReturn(true);
+    }
+
+    private void step(final StepType stepType, final long streamNo, final long recordNo) {
+        request.setStepType(stepType);
+        controller.setStepLocation(new StepLocation(STREAM_ID, streamNo, recordNo));
+    }
+}
@@ -0,0 +1,208 @@
+/*
+ * Copyright 2018 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package stroom.refdata;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+import stroom.node.shared.Node;
+import stroom.node.shared.Rack;
+import stroom.properties.MockStroomPropertyService;
+import stroom.refdata.store.RefDataSnapshot;
+import stroom.refdata.store.RefDataStoreProvider;
+import stroom.refdata.store.RefStreamDefinition;
+import stroom.refdata.store.offheapstore.RefDataOffHeapStore;
+import stroom.task.cluster.ClusterDispatchAsyncHelper;
+import stroom.task.cluster.DefaultClusterResultCollector;
+import stroom.task.cluster.TargetNodeSetFactory;
+import stroom.task.cluster.TargetNodeSetFactory.TargetType;
+import stroom.util.shared.SharedBoolean;
+import stroom.util.test.StroomUnitTest;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+public class TestRefDataSnapshotFetcher extends StroomUnitTest {
+    private final Rack rack = Rack.create("rack1");
+    private final Node sourceNode = createNode(1, "node1");
+    private final Node node2 = createNode(2, "node2");
+    private final Node node3 = createNode(3, "node3");
+    private final Node node4 = createNode(4, "node4");
+
+    private final RefDataOffHeapStore refDataStore = Mockito.mock(RefDataOffHeapStore.class);
+    private final ClusterDispatchAsyncHelper dispatchHelper = Mockito.mock(ClusterDispatchAsyncHelper.class);
+    private final TargetNodeSetFactory targetNodeSetFactory = Mockito.mock(TargetNodeSetFactory.class);
+    private final MockStroomPropertyService propertyService = new MockStroomPropertyService();
+
+    private final Map<Node, List<RefStreamDefinition>> loadedByNode = new HashMap<>();
+    private final List<Node> snapshotRequests = new ArrayList<>();
+    private final List<Long> snapshotWaitTimes = new ArrayList<>();
+    private final List<RefStreamDefinition> loadedRequests = new ArrayList<>();
+    private long snapshotResponseDelayMs;
+
+    private RefDataSnapshotFetcher fetcher;
+
+    @Before
+    public void setup() throws Exception {
+        propertyService.setProperty(RefDataSnapshotFetcher.ENABLED_PROP_KEY, "true");
+
+        final RefDataStoreProvider refDataStoreProvider = Mockito.mock(RefDataStoreProvider.class);
+        Mockito.when(refDataStoreProvider.getOffHeapStore()).thenReturn(refDataStore);
+
+        Mockito.when(targetNodeSetFactory.getSourceNode()).thenReturn(sourceNode);
+        Mockito.when(targetNodeSetFactory.getEnabledActiveTargetNodeSet())
+                .thenReturn(new LinkedHashSet<>(Arrays.asList(sourceNode, node2, node3, node4)));
+
+        Mockito.doAnswer(invocation -> {
+            final RefDataLoadedClusterTask task = (RefDataLoadedClusterTask) invocation.getArguments()[0];
+            loadedRequests.add(task.getRefStreamDefinition());
+            final DefaultClusterResultCollector<SharedBoolean> collector =
+                    new DefaultClusterResultCollector<>(task, sourceNode, loadedByNode.keySet());
+            loadedByNode.forEach((node, list) ->
+                    collector.onSuccess(node, new SharedBoolean(list.contains(task.getRefStreamDefinition()))));
+            return collector;
+        }).when(dispatchHelper).execAsync(
+                Mockito.any(RefDataLoadedClusterTask.class),
+                Mockito.anyLong(),
+                Mockito.any(TimeUnit.class),
+                Mockito.eq(TargetType.ACTIVE));
+
+        Mockito.doAnswer(invocation -> {
+            final RefDataSnapshotClusterTask task = (RefDataSnapshotClusterTask) invocation.getArguments()[0];
+            final Node node = (Node) invocation.getArguments()[3];
+            snapshotRequests.add(node);
+            snapshotWaitTimes.add((Long) invocation.getArguments()[1]);
+
+            final DefaultClusterResultCollector<RefDataSnapshot> collector =
+                    new DefaultClusterResultCollector<>(task, sourceNode, Collections.singleton(node));
+            if (snapshotResponseDelayMs > 0) {
+                // imitate a node that doesn't respond in time
+                Thread.sleep(snapshotResponseDelayMs);
+            } else {
+                collector.onSuccess(node, new RefDataSnapshot(task.getRefStreamDefinition(), 0));
+            }
+            return collector;
+        }).when(dispatchHelper).execAsync(
+                Mockito.any(RefDataSnapshotClusterTask.class),
+                Mockito.anyLong(),
+                Mockito.any(TimeUnit.class),
+                Mockito.any(Node.class));
+
+        fetcher = new RefDataSnapshotFetcher(
+                refDataStoreProvider,
+                () -> dispatchHelper,
+                () -> targetNodeSetFactory,
+                propertyService);
+    }
+
+    @Test
+    public void testOnlyAsksNodesThatHaveLoadedTheData() {
+        final RefStreamDefinition refStreamDefinition = createRefStreamDefinition();
+        loadedByNode.put(node2, Collections.singletonList(createRefStreamDefinition()));
+        loadedByNode.put(node3, Collections.singletonList(refStreamDefinition));
+
+        Assert.assertTrue(fetcher.fetchAndImport("user", refStreamDefinition));
+
+        Assert.assertEquals(Collections.singletonList(node3), snapshotRequests);
+        Mockito.verify(refDataStore).importSnapshot(Mockito.any(RefDataSnapshot.class));
+    }
+
+    @Test
+    public void testNoNodeHasLoadedTheData() {
+        loadedByNode.put(node2, Collections.singletonList(createRefStreamDefinition()));
+
+        Assert.assertFalse(fetcher.fetchAndImport("user", createRefStreamDefinition()));
+
+        Assert.assertTrue(snapshotRequests.isEmpty());
+        Mockito.verify(refDataStore, Mockito.never()).importSnapshot(Mockito.any(RefDataSnapshot.class));
+    }
+
+    @Test
+    public void testOnlyAsksAboutRequestedData() {
+        final RefStreamDefinition refStreamDefinition1 = createRefStreamDefinition();
+        final RefStreamDefinition refStreamDefinition2 = createRefStreamDefinition();
+        loadedByNode.put(node2, Arrays.asList(refStreamDefinition1, refStreamDefinition2, createRefStreamDefinition()));
+
+        Assert.assertTrue(fetcher.fetchAndImport("user", refStreamDefinition1));
+        Assert.assertTrue(fetcher.fetchAndImport("user", refStreamDefinition2));
+
+        // the other nodes should not be asked for everything they have loaded
+        Assert.assertEquals(Arrays.asList(refStreamDefinition1, refStreamDefinition2), loadedRequests);
+        Assert.assertEquals(Arrays.asList(node2, node2), snapshotRequests);
+    }
+
+    @Test
+    public void testTotalTimeIsBounded() {
+        propertyService.setProperty(RefDataSnapshotFetcher.FETCH_TIMEOUT_PROP_KEY, "1s");
+        snapshotResponseDelayMs = 600;
+
+        final RefStreamDefinition refStreamDefinition = createRefStreamDefinition();
+        loadedByNode.put(node2, Collections.singletonList(refStreamDefinition));
+        loadedByNode.put(node3, Collections.singletonList(refStreamDefinition));
+        loadedByNode.put(node4, Collections.singletonList(refStreamDefinition));
+
+        Assert.assertFalse(fetcher.fetchAndImport("user", refStreamDefinition));
+
+        // the third node must not be tried as the time has run out
+        Assert.assertEquals(Arrays.asList(node2, node3), snapshotRequests);
+        Assert.assertTrue(snapshotWaitTimes.get(0) <= 1000);
+        Assert.assertTrue(snapshotWaitTimes.get(1) <= 1000 - snapshotResponseDelayMs);
+    }
+
+    @Test
+    public void testDisabled() {
+        propertyService.setProperty(RefDataSnapshotFetcher.ENABLED_PROP_KEY, "false");
+
+        Assert.assertFalse(fetcher.fetchAndImport("user", createRefStreamDefinition()));
+
+        Mockito.verifyZeroInteractions(dispatchHelper);
+    }
+
+    @Test
+    public void testDisabledByDefault() {
+        final RefDataStoreProvider refDataStoreProvider = Mockito.mock(RefDataStoreProvider.class);
+        Mockito.when(refDataStoreProvider.getOffHeapStore()).thenReturn(refDataStore);
+        final RefDataSnapshotFetcher defaultFetcher = new RefDataSnapshotFetcher(
+                refDataStoreProvider,
+                () -> dispatchHelper,
+                () -> targetNodeSetFactory,
+                new MockStroomPropertyService());
+
+        Assert.assertFalse(defaultFetcher.fetchAndImport("user", createRefStreamDefinition()));
+
+        Mockito.verifyZeroInteractions(dispatchHelper);
+    }
+
+    private Node createNode(final long id, final String name) {
+        final Node node = Node.create(rack, name);
+        node.setId(id);
+        return node;
+    }
+
+    private RefStreamDefinition createRefStreamDefinition() {
+        return new RefStreamDefinition(UUID.randomUUID().toString(), UUID.randomUUID().toString(), 1);
+    }
+}
@@ -0,0 +1,86 @@
+/*
+ * Copyright 2018 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package stroom.refdata;
+
+import org.junit.Test;
+import org.mockito.Mockito;
+import stroom.refdata.store.RefDataValueProxy;
+import stroom.util.shared.Severity;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class TestReferenceDataMemo {
+    @Test
+    public void testEffectiveRange() {
+        final ReferenceDataMemo memo = new ReferenceDataMemo();
+        final RefDataValueProxy proxy = Mockito.mock(RefDataValueProxy.class);
+
+        final ReferenceDataResult result = new ReferenceDataResult();
+        result.setRefDataValueProxy(proxy);
+        result.narrowEffectiveRange(1000, 2000);
+        memo.put(LookupIdentifier.of("MAP", "key1", 1500), result);
+
+        assertThat(memo.get(LookupIdentifier.of("MAP", "key1", 1000)).getRefDataValueProxy()).isSameAs(proxy);
+        assertThat(memo.get(LookupIdentifier.of("MAP", "key1", 1999)).getRefDataValueProxy()).isSameAs(proxy);
+
+        // Outside of the effective range.
+        assertThat(memo.get(LookupIdentifier.of("MAP", "key1", 999))).isNull();
+        assertThat(memo.get(LookupIdentifier.of("MAP", "key1", 2000))).isNull();
+
+        // Different key or map.
+        assertThat(memo.get(LookupIdentifier.of("MAP", "key2", 1500))).isNull();
+        assertThat(memo.get(LookupIdentifier.of("MAP2", "key1", 1500))).isNull();
+
+        assertThat(memo.getHits()).isEqualTo(2);
+        assertThat(memo.getMisses()).isEqualTo(4);
+    }
+
+    @Test
+    public void testNotFoundIsRemembered() {
+        final ReferenceDataMemo memo = new ReferenceDataMemo();
+        memo.put(LookupIdentifier.of("MAP", "key1", 1500), new ReferenceDataResult());
+
+        final ReferenceDataMemo.Entry entry = memo.get(LookupIdentifier.of("MAP", "key1", 1500));
+        assertThat(entry).isNotNull();
+        assertThat(entry.getRefDataValueProxy()).isNull();
+    }
+
+    @Test
+    public void testWarningsNotRemembered() {
+        final ReferenceDataMemo memo = new ReferenceDataMemo();
+        final ReferenceDataResult result = new ReferenceDataResult();
+        result.log(Severity.WARNING, () -> "No effective streams can be found");
+        memo.put(LookupIdentifier.of("MAP", "key1", 1500), result);
+
+        assertThat(memo.get(LookupIdentifier.of("MAP", "key1", 1500))).isNull();
+    }
+
+    @Test
+    public void testBounded() {
+        final ReferenceDataMemo memo = new ReferenceDataMemo(2);
+        memo.put(LookupIdentifier.of("MAP", "key1", 1500), new ReferenceDataResult());
+        memo.put(LookupIdentifier.of("MAP", "key2", 1500), new ReferenceDataResult());
+
+        // Use key1 so that key2 is the least recently used.
+        assertThat(memo.get(LookupIdentifier.of("MAP", "key1", 1500))).isNotNull();
+        memo.put(LookupIdentifier.of("MAP", "key3", 1500), new ReferenceDataResult());
+
+        assertThat(memo.get(LookupIdentifier.of("MAP", "key1", 1500))).isNotNull();
+        assertThat(memo.get(LookupIdentifier.of("MAP", "key2", 1500))).isNull();
+        assertThat(memo.get(LookupIdentifier.of("MAP", "key3", 1500))).isNotNull();
+    }
+}
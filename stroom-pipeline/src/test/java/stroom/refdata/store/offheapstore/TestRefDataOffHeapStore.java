@@ -29,6 +29,7 @@ import stroom.refdata.store.MapDefinition;
 import stroom.refdata.store.ProcessingState;
 import stroom.refdata.store.RefDataLoader;
 import stroom.refdata.store.RefDataProcessingInfo;
+import stroom.refdata.store.RefDataSnapshot;
 import stroom.refdata.store.RefDataValue;
 import stroom.refdata.store.RefDataValueProxy;
 import stroom.refdata.store.RefStreamDefinition;
@@ -43,6 +44,11 @@ import stroom.util.ByteSizeUnit;
 import stroom.util.logging.LambdaLogger;
 import stroom.util.logging.LambdaLoggerFactory;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
 import java.nio.charset.StandardCharsets;
 import java.time.Duration;
 import java.time.Instant;
@@ -146,6 +152,60 @@ public class TestRefDataOffHeapStore extends AbstractRefDataOffHeapStoreTest {
         doKeyRangeValueOverwriteTest(false, value1, value2, expectedFinalValue);
     }
 
+    @Test
+    public void testOverwrite_doOverwrite_keyValueStoreAcrossBulkLoadBatches() throws Exception {
+        StringValue value1 = StringValue.of("myValue1");
+        StringValue value2 = StringValue.of("myValue2");
+
+        // overwriting so value changes to value2
+        doKeyValueOverwriteAcrossBatchesTest(true, value1, value2, value2);
+    }
+
+    @Test
+    public void testOverwrite_doNotOverwrite_keyValueStoreAcrossBulkLoadBatches() throws Exception {
+        StringValue value1 = StringValue.of("myValue1");
+        StringValue value2 = StringValue.of("myValue2");
+
+        // no overwriting so value stays as value1 and the second put must be rejected
+        doKeyValueOverwriteAcrossBatchesTest(false, value1, value2, value1);
+    }
+
+    private void doKeyValueOverwriteAcrossBatchesTest(final boolean overwriteExisting,
+                                                      final StringValue value1,
+                                                      final StringValue value2,
+                                                      final StringValue expectedFinalValue) throws Exception {
+        setProperty(RefDataOffHeapStore.BULK_LOAD_BATCH_SIZE_PROP_KEY, "2");
+
+        final RefStreamDefinition refStreamDefinition = buildUniqueRefStreamDefinition();
+        long effectiveTimeMs = System.currentTimeMillis();
+        MapDefinition mapDefinition = new MapDefinition(refStreamDefinition, "map1");
+        String key = "myKey";
+
+        assertThat(refDataStore.getKeyValueEntryCount()).isEqualTo(0);
+
+        AtomicBoolean didPutSucceed = new AtomicBoolean(false);
+        refDataStore.doWithLoaderUnlessComplete(refStreamDefinition, effectiveTimeMs, loader -> {
+            loader.initialise(overwriteExisting);
+
+            didPutSucceed.set(loader.put(mapDefinition, key, value1));
+            assertThat(didPutSucceed).isTrue();
+
+            // fills the first batch so the first put is in the store before the key is put again
+            didPutSucceed.set(loader.put(mapDefinition, "otherKey", value1));
+            assertThat(didPutSucceed).isTrue();
+
+            didPutSucceed.set(loader.put(mapDefinition, key, value2));
+            assertThat(didPutSucceed.get()).isEqualTo(overwriteExisting);
+
+            loader.completeProcessing();
+        });
+        refDataStore.logAllContents();
+
+        assertThat((StringValue) refDataStore.getValue(mapDefinition, key).get()).isEqualTo(expectedFinalValue);
+
+        assertThat(refDataStore.getKeyValueEntryCount()).isEqualTo(2);
+    }
+
     private void doKeyValueOverwriteTest(final boolean overwriteExisting,
                                          final StringValue value1,
                                          final StringValue value2,
@@ -228,6 +288,39 @@ public class TestRefDataOffHeapStore extends AbstractRefDataOffHeapStoreTest {
         bulkLoadAndAssert(overwriteExisting, commitInterval);
     }
 
+    @Test
+    public void loader_noBulkLoad() throws Exception {
+        setProperty(RefDataOffHeapStore.BULK_LOAD_BATCH_SIZE_PROP_KEY, "0");
+        boolean overwriteExisting = false;
+        int commitInterval = 2;
+
+        bulkLoadAndAssert(overwriteExisting, commitInterval);
+    }
+
+    @Test
+    public void loader_smallBulkLoadBatches() throws Exception {
+        // keys in later batches will not always sort after those already in the store
+        setProperty(RefDataOffHeapStore.BULK_LOAD_BATCH_SIZE_PROP_KEY, "3");
+        boolean overwriteExisting = false;
+        int commitInterval = Integer.MAX_VALUE;
+
+        bulkLoadAndAssert(overwriteExisting, commitInterval);
+    }
+
+    @Test
+    public void loader_overwriteWithDuplicateDataSmallBulkLoadBatches() throws Exception {
+        setProperty(RefDataOffHeapStore.BULK_LOAD_BATCH_SIZE_PROP_KEY, "3");
+        int commitInterval = Integer.MAX_VALUE;
+
+        RefStreamDefinition refStreamDefinition = buildUniqueRefStreamDefinition();
+
+        // same refStreamDefinition twice to imitate a re-load
+        List<RefStreamDefinition> refStreamDefinitions = Arrays.asList(
+                refStreamDefinition, refStreamDefinition);
+
+        bulkLoadAndAssert(refStreamDefinitions, true, commitInterval);
+    }
+
     @Test
     public void loader_noOverwriteWithDuplicateData() throws Exception {
         int commitInterval = Integer.MAX_VALUE;
@@ -451,6 +544,32 @@ public class TestRefDataOffHeapStore extends AbstractRefDataOffHeapStoreTest {
     }
 
 
+    @Test
+    public void testPurgeOldData_smallBatches() {
+
+        // each refStreamDef will need many txns to purge
+        setProperty(RefDataOffHeapStore.PURGE_BATCH_SIZE_PROP_KEY, "3");
+
+        List<RefStreamDefinition> refStreamDefinitions = Arrays.asList(
+                buildUniqueRefStreamDefinition(1),
+                buildUniqueRefStreamDefinition(2));
+
+        bulkLoadAndAssert(refStreamDefinitions, false, 1000);
+
+        setProperty(RefDataOffHeapStore.DATA_RETENTION_AGE_PROP_KEY, "0ms");
+
+        assertThat(refDataStore.getProcessingInfoEntryCount()).isEqualTo(2);
+        assertThat(refDataStore.getKeyValueEntryCount()).isGreaterThan(3);
+        assertThat(refDataStore.getKeyRangeValueEntryCount()).isGreaterThan(3);
+
+        refDataStore.purgeOldData();
+
+        assertThat(refDataStore.getProcessingInfoEntryCount()).isEqualTo(0);
+        assertThat(refDataStore.getKeyValueEntryCount()).isEqualTo(0);
+        assertThat(refDataStore.getKeyRangeValueEntryCount()).isEqualTo(0);
+        assertThat(((RefDataOffHeapStore) refDataStore).getEntryCount(ValueStoreDb.DB_NAME)).isEqualTo(0);
+    }
+
     @Test
     public void testPurgeOldData_partial() {
 
@@ -614,6 +733,95 @@ public class TestRefDataOffHeapStore extends AbstractRefDataOffHeapStoreTest {
     }
 
 
+    @Test
+    public void testExportAndImportSnapshot() throws Exception {
+        int mapCount = 2;
+        int entryCount = 5;
+        int totalKeyValueEntryCount = mapCount * entryCount;
+        int totalRangeValueEntryCount = mapCount * entryCount;
+        int totalValueEntryCount = totalKeyValueEntryCount + totalRangeValueEntryCount;
+
+        final RefDataOffHeapStore refDataOffHeapStore = (RefDataOffHeapStore) refDataStore;
+        final RefStreamDefinition refStreamDefinition = loadBulkData(1, mapCount, mapCount, entryCount).get(0);
+
+        final RefDataSnapshot snapshot = refDataOffHeapStore.exportSnapshot(refStreamDefinition).get();
+
+        assertThat(snapshot.getRefStreamDefinition()).isEqualTo(refStreamDefinition);
+        assertThat(snapshot.getEntries()).hasSize(totalKeyValueEntryCount + totalRangeValueEntryCount);
+        assertThat(snapshot.getValues()).hasSize(totalValueEntryCount);
+
+        // the snapshot has to survive being sent to another node
+        final RefDataSnapshot receivedSnapshot = serialiseAndDeserialise(snapshot);
+
+        // remove the data so we can import it again
+        setProperty(RefDataOffHeapStore.DATA_RETENTION_AGE_PROP_KEY, "0ms");
+        refDataStore.purgeOldData();
+        assertThat(refDataStore.getProcessingInfoEntryCount()).isEqualTo(0);
+        assertThat(refDataOffHeapStore.exportSnapshot(refStreamDefinition)).isEmpty();
+
+        assertThat(refDataOffHeapStore.importSnapshot(receivedSnapshot)).isTrue();
+
+        assertThat(refDataStore.isDataLoaded(refStreamDefinition)).isTrue();
+        assertDbCounts(
+                1,
+                mapCount * 2,
+                totalKeyValueEntryCount,
+                totalRangeValueEntryCount,
+                totalValueEntryCount);
+
+        for (int j = 0; j < mapCount; j++) {
+            String kvMapName = buildMapNameWithRefStreamDef(refStreamDefinition, KV_TYPE, j);
+            String rangeMapName = buildMapNameWithRefStreamDef(refStreamDefinition, RANGE_TYPE, j);
+            for (int k = 0; k < entryCount; k++) {
+                String key = buildKey(k);
+                assertThat(refDataStore.getValue(new MapDefinition(refStreamDefinition, kvMapName), key))
+                        .contains(StringValue.of(buildKeyStoreValue(kvMapName, k, key)));
+
+                Range<Long> range = buildRangeKey(k);
+                assertThat(refDataStore.getValue(new MapDefinition(refStreamDefinition, rangeMapName),
+                        Long.toString(range.getFrom() + 1)))
+                        .contains(StringValue.of(buildRangeStoreValue(rangeMapName, k, range)));
+            }
+        }
+
+        // already loaded so nothing to do
+        assertThat(refDataOffHeapStore.importSnapshot(receivedSnapshot)).isFalse();
+    }
+
+    @Test
+    public void testExportSnapshotTooLarge() {
+        final RefDataOffHeapStore refDataOffHeapStore = (RefDataOffHeapStore) refDataStore;
+        final RefStreamDefinition refStreamDefinition = loadBulkData(1, 2, 2, 50).get(0);
+
+        setProperty(RefDataOffHeapStore.SNAPSHOT_MAX_SIZE_PROP_KEY, "1K");
+
+        // too big to hold in memory so the other node has to load it itself
+        assertThat(refDataOffHeapStore.exportSnapshot(refStreamDefinition)).isEmpty();
+
+        setProperty(RefDataOffHeapStore.SNAPSHOT_MAX_SIZE_PROP_KEY, "1M");
+
+        assertThat(refDataOffHeapStore.exportSnapshot(refStreamDefinition)).isPresent();
+    }
+
+    @Test
+    public void testGetRecentlyAccessedRefStreamDefinitions() {
+        final RefDataOffHeapStore refDataOffHeapStore = (RefDataOffHeapStore) refDataStore;
+        List<RefStreamDefinition> refStreamDefs = loadBulkData(3, 1, 1, 1);
+
+        long twoDaysAgoMs = Instant.now().minus(2, ChronoUnit.DAYS).toEpochMilli();
+        long oneHourAgoMs = Instant.now().minus(1, ChronoUnit.HOURS).toEpochMilli();
+        setLastAccessedTime(refStreamDefs.get(0), oneHourAgoMs);
+        setLastAccessedTime(refStreamDefs.get(1), twoDaysAgoMs);
+
+        long oneDayAgoMs = Instant.now().minus(1, ChronoUnit.DAYS).toEpochMilli();
+
+        // most recently accessed first
+        assertThat(refDataOffHeapStore.getRecentlyAccessedRefStreamDefinitions(oneDayAgoMs, 10))
+                .containsExactly(refStreamDefs.get(2), refStreamDefs.get(0));
+        assertThat(refDataOffHeapStore.getRecentlyAccessedRefStreamDefinitions(oneDayAgoMs, 1))
+                .containsExactly(refStreamDefs.get(2));
+    }
+
     /**
      * Make entryCount very big for manual performance testing or profiling
      */
@@ -732,6 +940,18 @@ public class TestRefDataOffHeapStore extends AbstractRefDataOffHeapStoreTest {
         assertDbCounts(0, 0, 0, 0, 0);
     }
 
+    @SuppressWarnings("unchecked")
+    private <T extends Serializable> T serialiseAndDeserialise(final T object) throws Exception {
+        final ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream();
+        try (ObjectOutputStream objectOutputStream = new ObjectOutputStream(byteArrayOutputStream)) {
+            objectOutputStream.writeObject(object);
+        }
+        try (ObjectInputStream objectInputStream = new ObjectInputStream(
+                new ByteArrayInputStream(byteArrayOutputStream.toByteArray()))) {
+            return (T) objectInputStream.readObject();
+        }
+    }
+
     private void assertDbCounts(final int refStreamDefCount,
                                 final int totalMapEntries,
                                 final int totalKeyValueEntryCount,
@@ -56,6 +56,7 @@ public class DS3PerformanceTest {
 
     private final SchemaFilterFactory schemaFilterFactory = new SchemaFilterFactory();
     private DS3ParserFactory ds3ParserFactory;
+    private long allocatedBytes;
 
     public void testCSVWithHeading() throws IOException, SAXException, TransformerConfigurationException {
         process("CSVWithHeading");
@@ -85,6 +86,8 @@ public class DS3PerformanceTest {
 
         System.out.println("DS3 Compilation time " + ds3ParserFactory.getComp());
         System.out.println("DS3 Elapsed Time = " + ds3Elapsed);
+        System.out.println("DS3 Allocated Bytes = " + allocatedBytes);
+        System.out.println("DS3 Allocated Bytes Per Line = " + (allocatedBytes / (INPUT_LINES * ITERATIONS)));
     }
 
     private long process(final Path input, final Path output, final XMLReader parser) throws IOException, SAXException, TransformerConfigurationException {
@@ -93,6 +96,7 @@ public class DS3PerformanceTest {
         threadMXBean.setThreadCpuTimeEnabled(true);
 
         final long cpuTimeStart = threadMXBean.getCurrentThreadCpuTime();
+        final long allocatedBytesStart = getAllocatedBytes(threadMXBean);
 
         // Create output writers.
         final OutputStream os = createWriter(parser, output);
@@ -105,9 +109,19 @@ public class DS3PerformanceTest {
         os.close();
 
         final long cpuTimeEnd = threadMXBean.getCurrentThreadCpuTime();
+        allocatedBytes = getAllocatedBytes(threadMXBean) - allocatedBytesStart;
         return cpuTimeEnd - cpuTimeStart;
     }
 
+    private long getAllocatedBytes(final ThreadMXBean threadMXBean) {
+        // Allocation tracking is only available on HotSpot JVMs.
+        if (threadMXBean instanceof com.sun.management.ThreadMXBean) {
+            final com.sun.management.ThreadMXBean bean = (com.sun.management.ThreadMXBean) threadMXBean;
+            return bean.getThreadAllocatedBytes(Thread.currentThread().getId());
+        }
+        return -1;
+    }
+
     private void createInput(final Path input) throws IOException {
         final Writer writer = Files.newBufferedWriter(input);
         writer.write("Time,Action,User,File\n");
@@ -0,0 +1,117 @@
+/*
+ * Copyright 2018 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package stroom.xml.converter.ds3;
+
+import org.junit.Assert;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import stroom.xml.converter.ds3.RegexFactory.Engine;
+import stroom.xml.converter.ds3.ref.VarMap;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+
+/**
+ * Compares the time taken by each regex engine to match patterns for our common log formats, along with a pattern
+ * that causes catastrophic backtracking in java.util.regex.
+ */
+public class RegexEnginePerformanceTest {
+    private static final Logger LOGGER = LoggerFactory.getLogger(RegexEnginePerformanceTest.class);
+
+    private static final int ITERATIONS = 1000000;
+    private static final int PATHOLOGICAL_ITERATIONS = 10;
+
+    private static final String CSV_PATTERN = "^([^,]*),([^,]*),([^,]*),([^\n]*)\n";
+    private static final String CSV_INPUT = "01/01/2009:00:00:01,OPEN,userone,D:\\TranslationKit\\example\\VerySimple\\OpenFileEvents.txt\n";
+
+    private static final String APACHE_PATTERN = "^(\\S+) (\\S+) (\\S+) \\[([^\\]]+)\\] \"(\\S+) (.*?) (\\S+)\" " +
+            "(\\d{3}) (\\d+|-) \"([^\"]*)\" \"([^\"]*)\"\n?";
+    private static final String APACHE_INPUT = "192.168.1.1 - frank [10/Oct/2000:13:55:36 -0700] " +
+            "\"GET /apache_pb.gif HTTP/1.0\" 200 2326 \"http://www.example.com/start.html\" \"Mozilla/4.08\"\n";
+
+    private static final String SYSLOG_PATTERN = "^(\\w{3}) +(\\d{1,2}) (\\d{2}:\\d{2}:\\d{2}) (\\S+) ([^:\\[]+)(?:\\[(\\d+)\\])?: ([^\n]*)\n";
+    private static final String SYSLOG_INPUT = "Oct 11 22:14:15 mymachine su[1234]: 'su root' failed for lonvick on /dev/pts/8\n";
+
+    private static final String KEY_VALUE_PATTERN = "(\\w+)=(\"[^\"]*\"|\\S*)\\s*";
+    private static final String KEY_VALUE_INPUT = "user=\"john smith\" ip=1.2.3.4 action=login result=success\n";
+
+    // Nested quantifiers that fail to match take exponential time to backtrack through with java.util.regex.
+    private static final String PATHOLOGICAL_PATTERN = "^(\\w+\\s?)+$";
+    private static final String PATHOLOGICAL_INPUT = "aaaaaaaaaaaaaaaaaaaaaaaa!";
+
+    public void testCSV() {
+        process("CSV", CSV_PATTERN, CSV_INPUT, ITERATIONS);
+    }
+
+    public void testApacheLog() {
+        process("Apache log", APACHE_PATTERN, APACHE_INPUT, ITERATIONS);
+    }
+
+    public void testSyslog() {
+        process("Syslog", SYSLOG_PATTERN, SYSLOG_INPUT, ITERATIONS);
+    }
+
+    public void testKeyValue() {
+        process("Key value", KEY_VALUE_PATTERN, KEY_VALUE_INPUT, ITERATIONS);
+    }
+
+    public void testPathologicalBacktracking() {
+        process("Pathological backtracking", PATHOLOGICAL_PATTERN, PATHOLOGICAL_INPUT, PATHOLOGICAL_ITERATIONS);
+    }
+
+    private void process(final String name, final String pattern, final String input, final int iterations) {
+        LOGGER.info("Testing: " + name);
+
+        int expectedMatches = -1;
+        for (final Engine engine : Engine.values()) {
+            final RegexFactory factory = new RegexFactory(null, "regex", 0, -1, null, -1, pattern, 0, engine);
+            final Regex regex = factory.newInstance(new VarMap());
+
+            // Warm up.
+            match(regex, input, Math.max(1, iterations / 10));
+
+            final ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+            threadMXBean.setThreadCpuTimeEnabled(true);
+            final long cpuTimeStart = threadMXBean.getCurrentThreadCpuTime();
+
+            final int matches = match(regex, input, iterations);
+
+            final long elapsed = threadMXBean.getCurrentThreadCpuTime() - cpuTimeStart;
+
+            // All engines must agree on the result.
+            if (expectedMatches == -1) {
+                expectedMatches = matches;
+            }
+            Assert.assertEquals("Engines do not agree for " + name, expectedMatches, matches);
+
+            final String actualEngine = factory.getLinearPattern() != null ? "linear" : "java";
+            System.out.println(name + " " + engine.getDisplayValue() + " (" + actualEngine + ") Elapsed Time = " + elapsed);
+            System.out.println(name + " " + engine.getDisplayValue() + " (" + actualEngine + ") Time Per Match = " + (elapsed / iterations));
+        }
+    }
+
+    private int match(final Regex regex, final String input, final int iterations) {
+        int matches = 0;
+        for (int i = 0; i < iterations; i++) {
+            regex.setInput(input);
+            if (regex.match() != null) {
+                matches++;
+            }
+        }
+        return matches;
+    }
+}
@@ -0,0 +1,63 @@
+/*
+ * Copyright 2018 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package stroom.xml.converter.ds3;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import stroom.util.test.StroomJUnit4ClassRunner;
+import stroom.util.test.StroomUnitTest;
+
+@RunWith(StroomJUnit4ClassRunner.class)
+public class TestStringCache extends StroomUnitTest {
+    @Test
+    public void testReuse() {
+        final StringCache stringCache = new StringCache();
+        final char[] chars = "xxUserIdxxUserIdxx".toCharArray();
+
+        final String first = stringCache.get(new CharBuffer(chars, 2, 6));
+        final String second = stringCache.get(new CharBuffer(chars, 10, 6));
+
+        Assert.assertEquals("UserId", first);
+        Assert.assertSame(first, second);
+    }
+
+    @Test
+    public void testCollision() {
+        // With a single slot every string collides.
+        final StringCache stringCache = new StringCache(1);
+
+        Assert.assertEquals("abc", stringCache.get("abc"));
+        Assert.assertEquals("def", stringCache.get("def"));
+        Assert.assertEquals("abc", stringCache.get("abc"));
+    }
+
+    @Test
+    public void testLongValue() {
+        final StringCache stringCache = new StringCache();
+        final StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 100; i++) {
+            sb.append('a');
+        }
+
+        final String first = stringCache.get(sb);
+        final String second = stringCache.get(sb);
+        Assert.assertEquals(sb.toString(), first);
+        Assert.assertEquals(first, second);
+        Assert.assertNotSame(first, second);
+    }
+}
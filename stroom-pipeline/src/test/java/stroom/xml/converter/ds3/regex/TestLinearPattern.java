@@ -0,0 +1,121 @@
+/*
+ * Copyright 2018 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package stroom.xml.converter.ds3.regex;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import stroom.util.test.StroomJUnit4ClassRunner;
+import stroom.util.test.StroomUnitTest;
+
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+@RunWith(StroomJUnit4ClassRunner.class)
+public class TestLinearPattern extends StroomUnitTest {
+    private static final String APACHE_LOG = "192.168.1.1 - frank [10/Oct/2000:13:55:36 -0700] " +
+            "\"GET /apache_pb.gif HTTP/1.0\" 200 2326 \"http://www.example.com/start.html\" \"Mozilla/4.08\"\n";
+    private static final String APACHE_PATTERN = "^(\\S+) (\\S+) (\\S+) \\[([^\\]]+)\\] \"(\\S+) (.*?) (\\S+)\" " +
+            "(\\d{3}) (\\d+|-) \"([^\"]*)\" \"([^\"]*)\"\n?";
+
+    @Test
+    public void testSameAsJava() {
+        assertSameAsJava(APACHE_PATTERN, 0, APACHE_LOG);
+        assertSameAsJava("([^,]+),?", 0, "a,bb,,ccc\n");
+        assertSameAsJava("\n?([^,\n]*)(,|$)", 0, "\nfirst,second,third");
+        assertSameAsJava("^\n[\\S].+(\n[\\s]+.*)*", 0, "\nDate,Time\n  continued\n  again\nNext");
+        assertSameAsJava("(?<key>\\w+)=(\"[^\"]*\"|\\S*)\\s*", 0, "user=\"john smith\" ip=1.2.3.4 empty= ");
+        assertSameAsJava("(\\d{1,3}\\.){3}\\d{1,3}", 0, "host 10.0.0.254 port 80");
+        assertSameAsJava("a.*?b|c", 0, "xxcaab");
+        assertSameAsJava("ERROR|WARN", Pattern.CASE_INSENSITIVE, "info: warn: error");
+        assertSameAsJava("start.*end", Pattern.DOTALL, "start\nmiddle\nend end");
+        assertSameAsJava("start.*end", 0, "start\nmiddle\nend end");
+        assertSameAsJava("\\bword\\b", 0, "words word");
+        assertSameAsJava("x*", 0, "abc");
+    }
+
+    @Test
+    public void testFromPosition() {
+        final LinearMatcher matcher = LinearPattern.compile("\\d+", 0).matcher("a1b22c333");
+        Assert.assertTrue(matcher.find(0));
+        Assert.assertEquals("1", matcher.group());
+        Assert.assertTrue(matcher.find(matcher.end()));
+        Assert.assertEquals("22", matcher.group());
+        Assert.assertTrue(matcher.find(6));
+        Assert.assertEquals("333", matcher.group());
+        Assert.assertFalse(matcher.find(9));
+    }
+
+    @Test
+    public void testUnmatchedGroup() {
+        final LinearMatcher matcher = LinearPattern.compile("(a)|(b)", 0).matcher("b");
+        Assert.assertTrue(matcher.find(0));
+        Assert.assertEquals(-1, matcher.start(1));
+        Assert.assertEquals(-1, matcher.end(1));
+        Assert.assertEquals(0, matcher.start(2));
+        Assert.assertEquals(1, matcher.end(2));
+    }
+
+    @Test
+    public void testUnsupported() {
+        Assert.assertTrue(LinearPattern.isSupported(APACHE_PATTERN, 0));
+        Assert.assertFalse(LinearPattern.isSupported("(a)\\1", 0));
+        Assert.assertFalse(LinearPattern.isSupported("a(?=b)", 0));
+        Assert.assertFalse(LinearPattern.isSupported("(?<!a)b", 0));
+        Assert.assertFalse(LinearPattern.isSupported("a*+", 0));
+        Assert.assertFalse(LinearPattern.isSupported("(?i)a", 0));
+        Assert.assertFalse(LinearPattern.isSupported("(a*)*", 0));
+        Assert.assertFalse(LinearPattern.isSupported("a", Pattern.MULTILINE));
+    }
+
+    @Test
+    public void testNoCatastrophicBacktracking() {
+        final StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 10000; i++) {
+            sb.append('a');
+        }
+        final String input = sb.toString();
+
+        // This pattern takes exponential time to fail with a backtracking engine.
+        final LinearMatcher matcher = LinearPattern.compile("(a+)+b", 0).matcher(input);
+        final long start = System.currentTimeMillis();
+        Assert.assertFalse(matcher.find(0));
+        Assert.assertTrue(System.currentTimeMillis() - start < 10000);
+    }
+
+    private void assertSameAsJava(final String pattern, final int flags, final String input) {
+        final Matcher expected = Pattern.compile(pattern, flags).matcher(input);
+        final LinearMatcher actual = LinearPattern.compile(pattern, flags).matcher(input);
+        Assert.assertEquals(expected.groupCount(), actual.groupCount());
+
+        int from = 0;
+        while (from <= input.length()) {
+            final boolean found = expected.find(from);
+            Assert.assertEquals(pattern, found, actual.find(from));
+            if (!found) {
+                break;
+            }
+
+            for (int i = 0; i <= expected.groupCount(); i++) {
+                Assert.assertEquals(pattern + " group " + i, expected.start(i), actual.start(i));
+                Assert.assertEquals(pattern + " group " + i, expected.end(i), actual.end(i));
+            }
+
+            from = expected.end() > expected.start() ? expected.end() : expected.end() + 1;
+        }
+    }
+}
@@ -0,0 +1,68 @@
+/*
+ * Copyright 2018 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package stroom.security;
+
+import stroom.security.shared.DocumentPermissionNames;
+import stroom.security.shared.DocumentPermissions;
+import stroom.security.shared.UserRef;
+
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The permissions for a document held as a bit set of user ordinals for each permission. Permissions that are
+ * inferred from a higher permission, e.g. 'Read' from 'Update', are included when the bit sets are built so that a
+ * permission check is a single intersection between the permission bit set and the bit set of the user and the
+ * groups they belong to. Instances are not modified once built so can be shared between threads.
+ */
+class CompiledDocumentPermissions {
+    private final DocumentPermissions documentPermissions;
+    private final Map<String, BitSet> permissionUsers = new HashMap<>();
+
+    CompiledDocumentPermissions(final DocumentPermissions documentPermissions, final UserOrdinals userOrdinals) {
+        this.documentPermissions = documentPermissions;
+
+        if (documentPermissions != null && documentPermissions.getUserPermissions() != null) {
+            for (final Map.Entry<UserRef, Set<String>> entry : documentPermissions.getUserPermissions().entrySet()) {
+                final int ordinal = userOrdinals.get(entry.getKey().getUuid());
+                for (final String permission : entry.getValue()) {
+                    // Add the permission and every lower permission that it infers.
+                    String perm = permission;
+                    while (perm != null) {
+                        permissionUsers.computeIfAbsent(perm, k -> new BitSet()).set(ordinal);
+                        perm = DocumentPermissionNames.getLowerPermission(perm);
+                    }
+                }
+            }
+        }
+    }
+
+    DocumentPermissions getDocumentPermissions() {
+        return documentPermissions;
+    }
+
+    /**
+     * @param users The ordinals of a user and all of the groups they belong to.
+     * @return True if any of the supplied users has the permission or a higher permission that infers it.
+     */
+    boolean hasPermission(final BitSet users, final String permission) {
+        final BitSet bitSet = permissionUsers.get(permission);
+        return bitSet != null && bitSet.intersects(users);
+    }
+}
@@ -41,16 +41,18 @@ class DocumentPermissionsCache implements EntityEvent.Handler, Clearable {
 
     private final Provider<EntityEventBus> eventBusProvider;
 
-    private final LoadingCache<DocRef, DocumentPermissions> cache;
+    private final LoadingCache<DocRef, CompiledDocumentPermissions> cache;
 
     @Inject
     @SuppressWarnings("unchecked")
     DocumentPermissionsCache(final CacheManager cacheManager,
                              final DocumentPermissionService documentPermissionService,
+                             final UserOrdinals userOrdinals,
                              final Provider<EntityEventBus> eventBusProvider) {
         this.eventBusProvider = eventBusProvider;
 
-        final CacheLoader<DocRef, DocumentPermissions> cacheLoader = CacheLoader.from(documentPermissionService::getPermissionsForDocument);
+        final CacheLoader<DocRef, CompiledDocumentPermissions> cacheLoader = CacheLoader.from(docRef ->
+                new CompiledDocumentPermissions(documentPermissionService.getPermissionsForDocument(docRef), userOrdinals));
         final CacheBuilder cacheBuilder = CacheBuilder.newBuilder()
                 .maximumSize(MAX_CACHE_ENTRIES)
                 .expireAfterAccess(30, TimeUnit.MINUTES);
@@ -59,6 +61,10 @@ class DocumentPermissionsCache implements EntityEvent.Handler, Clearable {
     }
 
     DocumentPermissions get(final DocRef key) {
+        return cache.getUnchecked(key).getDocumentPermissions();
+    }
+
+    CompiledDocumentPermissions getCompiled(final DocRef key) {
         return cache.getUnchecked(key);
     }
 
@@ -1,10 +1,15 @@
 package stroom.security;
 
+import com.codahale.metrics.health.HealthCheck;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import org.jose4j.jwa.AlgorithmConstraints;
 import org.jose4j.jwk.PublicJsonWebKey;
 import org.jose4j.jwk.RsaJsonWebKey;
 import org.jose4j.jws.AlgorithmIdentifiers;
 import org.jose4j.jwt.JwtClaims;
+import org.jose4j.jwt.MalformedClaimException;
+import org.jose4j.jwt.NumericDate;
 import org.jose4j.jwt.consumer.InvalidJwtException;
 import org.jose4j.jwt.consumer.JwtConsumer;
 import org.jose4j.jwt.consumer.JwtConsumerBuilder;
@@ -14,33 +19,58 @@ import org.slf4j.LoggerFactory;
 import stroom.auth.service.ApiException;
 import stroom.auth.service.api.ApiKeyApi;
 import stroom.security.SecurityConfig.JwtConfig;
+import stroom.util.HasHealthCheck;
+import stroom.util.cache.CacheManager;
 
 import javax.inject.Inject;
 import javax.inject.Singleton;
 import javax.servlet.ServletRequest;
 import javax.servlet.http.HttpServletRequest;
 import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAccumulator;
 
 @Singleton
-class JWTService {
+public class JWTService implements HasHealthCheck {
     private static final Logger LOGGER = LoggerFactory.getLogger(JWTService.class);
 
     private static final String BEARER = "Bearer ";
     private static final String AUTHORIZATION_HEADER = "Authorization";
 
-    private PublicJsonWebKey jwk;
+    private static final int ALLOWED_CLOCK_SKEW_SECONDS = 30;
+    private static final int MAX_CACHE_ENTRIES = 10000;
+
+    private volatile PublicJsonWebKey jwk;
+    private volatile JwtConsumer jwtConsumer;
     private final String authJwtIssuer;
     private AuthenticationServiceClients authenticationServiceClients;
     private final boolean checkTokenRevocation;
 
+    // Tokens that have already been verified against the current public key.
+    private final Cache<String, JwtClaims> verifiedTokenCache;
+
+    private final AtomicLong cacheHits = new AtomicLong();
+    private final AtomicLong verifications = new AtomicLong();
+    private final AtomicLong verificationNanos = new AtomicLong();
+    private final LongAccumulator maxVerificationNanos = new LongAccumulator(Long::max, 0);
+
     @Inject
+    @SuppressWarnings("unchecked")
     JWTService(final SecurityConfig securityConfig,
                final JwtConfig jwtConfig,
-               final AuthenticationServiceClients authenticationServiceClients) {
+               final AuthenticationServiceClients authenticationServiceClients,
+               final CacheManager cacheManager) {
         this.authJwtIssuer = jwtConfig.getJwtIssuer();
         this.authenticationServiceClients = authenticationServiceClients;
         this.checkTokenRevocation = jwtConfig.isEnableTokenRevocationCheck();
 
+        final CacheBuilder cacheBuilder = CacheBuilder.newBuilder()
+                .maximumSize(MAX_CACHE_ENTRIES)
+                .expireAfterWrite(10, TimeUnit.MINUTES);
+        verifiedTokenCache = cacheBuilder.build();
+        cacheManager.registerCache("Verified Token Cache", cacheBuilder, verifiedTokenCache);
+
         if (securityConfig.isAuthenticationRequired()) {
             fetchNewPublicKeys();
 
@@ -56,13 +86,21 @@ class JWTService {
      * We need this key to verify id tokens.
      * <p>
      * We need to do this if the remote public key changes and verification fails.
+     * <p>
+     * If the key has changed then the consumer used to verify tokens is rebuilt and all tokens that were verified
+     * with the old key are removed from the cache so they have to be verified again.
      */
-    private void fetchNewPublicKeys() {
+    private synchronized void fetchNewPublicKeys() {
         // We need to fetch the public key from the remote authentication service.
         final ApiKeyApi apiKeyApi = authenticationServiceClients.newApiKeyApi();
         try {
             String jwkAsJson = apiKeyApi.getPublicKey();
-            jwk = RsaJsonWebKey.Factory.newPublicJwk(jwkAsJson);
+            final PublicJsonWebKey newJwk = RsaJsonWebKey.Factory.newPublicJwk(jwkAsJson);
+            if (jwk == null || !jwk.getPublicKey().equals(newJwk.getPublicKey())) {
+                jwk = newJwk;
+                jwtConsumer = newJwsConsumer(newJwk);
+                verifiedTokenCache.invalidateAll();
+            }
         } catch (JoseException | ApiException e) {
             LOGGER.error("Unable to fetch the remote authentication service's public key!", e);
         }
@@ -160,22 +198,63 @@ class JWTService {
     }
 
     private JwtClaims toClaims(String token) throws InvalidJwtException {
-        final JwtConsumer jwtConsumer = newJwsConsumer();
-        return jwtConsumer.processToClaims(token);
+        final JwtClaims cachedClaims = verifiedTokenCache.getIfPresent(token);
+        if (cachedClaims != null) {
+            if (!hasExpired(cachedClaims)) {
+                cacheHits.incrementAndGet();
+                return cachedClaims;
+            }
+            verifiedTokenCache.invalidate(token);
+        }
+
+        final long startTime = System.nanoTime();
+        try {
+            final JwtClaims jwtClaims = getJwtConsumer().processToClaims(token);
+            verifiedTokenCache.put(token, jwtClaims);
+            return jwtClaims;
+        } finally {
+            final long elapsed = System.nanoTime() - startTime;
+            verifications.incrementAndGet();
+            verificationNanos.addAndGet(elapsed);
+            maxVerificationNanos.accumulate(elapsed);
+        }
     }
 
-    private JwtConsumer newJwsConsumer() {
+    /**
+     * Cached claims must not outlive the token they came from so check the expiry time with the same clock skew
+     * allowance that the consumer uses.
+     */
+    private boolean hasExpired(final JwtClaims jwtClaims) {
+        try {
+            final NumericDate expirationTime = jwtClaims.getExpirationTime();
+            return expirationTime != null &&
+                    System.currentTimeMillis() > expirationTime.getValueInMillis()
+                            + TimeUnit.SECONDS.toMillis(ALLOWED_CLOCK_SKEW_SECONDS);
+        } catch (final MalformedClaimException e) {
+            return true;
+        }
+    }
+
+    private JwtConsumer getJwtConsumer() {
         // If we don't have a JWK we can't create a consumer to verify anything.
         // Why might we not have one? If the remote authentication service was down when Stroom started
         // then we wouldn't. It might not be up now but we're going to try and fetch it.
-        if (jwk == null) {
+        if (jwtConsumer == null) {
             fetchNewPublicKeys();
         }
 
+        final JwtConsumer consumer = jwtConsumer;
+        if (consumer == null) {
+            throw new RuntimeException("No public key is available to verify tokens");
+        }
+        return consumer;
+    }
+
+    private JwtConsumer newJwsConsumer(final PublicJsonWebKey jwk) {
         JwtConsumerBuilder builder = new JwtConsumerBuilder()
-                .setAllowedClockSkewInSeconds(30) // allow some leeway in validating time based claims to account for clock skew
+                .setAllowedClockSkewInSeconds(ALLOWED_CLOCK_SKEW_SECONDS) // allow some leeway in validating time based claims to account for clock skew
                 .setRequireSubject() // the JWT must have a subject claim
-                .setVerificationKey(this.jwk.getPublicKey()) // verify the signature with the public key
+                .setVerificationKey(jwk.getPublicKey()) // verify the signature with the public key
                 .setRelaxVerificationKeyValidation() // relaxes key length requirement
                 .setJwsAlgorithmConstraints( // only allow the expected signature algorithm(s) in the given context
                         new AlgorithmConstraints(AlgorithmConstraints.ConstraintType.WHITELIST, // which is only RS256 here
@@ -183,4 +262,18 @@ class JWTService {
                 .setExpectedIssuer(authJwtIssuer);
         return builder.build();
     }
+
+    @Override
+    public HealthCheck.Result getHealth() {
+        final long count = verifications.get();
+        final long meanNanos = count == 0 ? 0 : verificationNanos.get() / count;
+        return HealthCheck.Result.builder()
+                .healthy()
+                .withDetail("Verified tokens cached", verifiedTokenCache.size())
+                .withDetail("Cache hits", cacheHits.get())
+                .withDetail("Signature verifications", count)
+                .withDetail("Mean verification time (us)", TimeUnit.NANOSECONDS.toMicros(meanNanos))
+                .withDetail("Max verification time (us)", TimeUnit.NANOSECONDS.toMicros(maxVerificationNanos.get()))
+                .build();
+    }
 }
@@ -29,6 +29,7 @@ import stroom.security.shared.UserRef;
 
 import javax.inject.Inject;
 import javax.persistence.RollbackException;
+import java.util.BitSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
@@ -246,47 +247,11 @@ class SecurityContextImpl implements SecurityContext {
     }
 
     private boolean hasDocumentPermission(final UserRef userRef, final DocRef docRef, final String permission) {
-        // See if the user has an explicit permission.
-        boolean result = hasUserDocumentPermission(userRef, docRef, permission);
-
-        // See if the user belongs to a group that has permission.
-        if (!result) {
-            final List<UserRef> userGroups = userGroupsCache.get(userRef);
-            result = hasUserGroupsDocumentPermission(userGroups, docRef, permission);
-        }
-
-        return result;
-    }
-
-    private boolean hasUserGroupsDocumentPermission(final List<UserRef> userGroups, final DocRef docRef, final String permission) {
-        if (userGroups != null) {
-            for (final UserRef userGroup : userGroups) {
-                final boolean result = hasUserDocumentPermission(userGroup, docRef, permission);
-                if (result) {
-                    return true;
-                }
-            }
-        }
-        return false;
-    }
-
-    private boolean hasUserDocumentPermission(final UserRef userRef, final DocRef docRef, final String permission) {
-        final DocumentPermissions documentPermissions = documentPermissionsCache.get(docRef);
-        if (documentPermissions != null) {
-            final Set<String> permissions = documentPermissions.getPermissionsForUser(userRef);
-            if (permissions != null) {
-                String perm = permission;
-                while (perm != null) {
-                    if (permissions.contains(perm)) {
-                        return true;
-                    }
-
-                    // If the user doesn't explicitly have this permission then see if they have a higher permission that infers this one.
-                    perm = DocumentPermissionNames.getHigherPermission(perm);
-                }
-            }
-        }
-        return false;
+        // The document permissions are compiled into a bit set of users for each permission so we can check the user
+        // and all of the groups they belong to with a single intersection.
+        final CompiledDocumentPermissions documentPermissions = documentPermissionsCache.getCompiled(docRef);
+        final BitSet userAndGroups = userGroupsCache.getUserAndGroupOrdinals(userRef);
+        return documentPermissions.hasPermission(userAndGroups, permission);
     }
 
     @Override
@@ -32,6 +32,7 @@ import stroom.util.cache.CacheUtil;
 import javax.inject.Inject;
 import javax.inject.Provider;
 import javax.inject.Singleton;
+import java.util.BitSet;
 import java.util.List;
 import java.util.concurrent.TimeUnit;
 
@@ -41,15 +42,17 @@ class UserGroupsCache implements EntityEvent.Handler, Clearable {
     private static final int MAX_CACHE_ENTRIES = 1000;
 
     private final Provider<EntityEventBus> eventBusProvider;
-    private final LoadingCache<UserRef, List> cache;
+    private final LoadingCache<UserRef, UserGroups> cache;
 
     @Inject
     @SuppressWarnings("unchecked")
     UserGroupsCache(final CacheManager cacheManager,
                     final UserService userService,
+                    final UserOrdinals userOrdinals,
                     final Provider<EntityEventBus> eventBusProvider) {
         this.eventBusProvider = eventBusProvider;
-        final CacheLoader<UserRef, List> cacheLoader = CacheLoader.from(userService::findGroupsForUser);
+        final CacheLoader<UserRef, UserGroups> cacheLoader = CacheLoader.from(userRef ->
+                new UserGroups(userRef, userService.findGroupsForUser(userRef), userOrdinals));
         final CacheBuilder cacheBuilder = CacheBuilder.newBuilder()
                 .maximumSize(MAX_CACHE_ENTRIES)
                 .expireAfterAccess(30, TimeUnit.MINUTES);
@@ -57,9 +60,15 @@ class UserGroupsCache implements EntityEvent.Handler, Clearable {
         cacheManager.registerCache("User Groups Cache", cacheBuilder, cache);
     }
 
-    @SuppressWarnings("unchecked")
     List<UserRef> get(final UserRef key) {
-        return cache.getUnchecked(key);
+        return cache.getUnchecked(key).groups;
+    }
+
+    /**
+     * @return The ordinals of the user and all of the groups they belong to.
+     */
+    BitSet getUserAndGroupOrdinals(final UserRef key) {
+        return cache.getUnchecked(key).ordinals;
     }
 
     void remove(final UserRef userRef) {
@@ -86,4 +95,17 @@ class UserGroupsCache implements EntityEvent.Handler, Clearable {
             }
         }
     }
-}
\ No newline at end of file
+
+    private static class UserGroups {
+        private final List<UserRef> groups;
+        private final BitSet ordinals = new BitSet();
+
+        UserGroups(final UserRef userRef, final List<UserRef> groups, final UserOrdinals userOrdinals) {
+            this.groups = groups;
+            ordinals.set(userOrdinals.get(userRef.getUuid()));
+            if (groups != null) {
+                groups.forEach(group -> ordinals.set(userOrdinals.get(group.getUuid())));
+            }
+        }
+    }
+}
@@ -0,0 +1,78 @@
+/*
+ * Copyright 2018 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package stroom.security;
+
+import org.junit.Assert;
+import org.junit.Test;
+import stroom.docref.DocRef;
+import stroom.security.shared.DocumentPermissionNames;
+import stroom.security.shared.DocumentPermissions;
+import stroom.security.shared.UserRef;
+import stroom.util.test.StroomUnitTest;
+
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+public class TestCompiledDocumentPermissions extends StroomUnitTest {
+    private final UserOrdinals userOrdinals = new UserOrdinals();
+
+    private final UserRef user1 = new UserRef(User.ENTITY_TYPE, "user1", "user1", false, true);
+    private final UserRef user2 = new UserRef(User.ENTITY_TYPE, "user2", "user2", false, true);
+    private final UserRef group1 = new UserRef(User.ENTITY_TYPE, "group1", "group1", true, true);
+
+    @Test
+    public void testHasPermission() {
+        final Map<UserRef, Set<String>> userPermissions = new HashMap<>();
+        userPermissions.put(user1, Collections.singleton(DocumentPermissionNames.USE));
+        userPermissions.put(group1, Collections.singleton(DocumentPermissionNames.UPDATE));
+        final DocumentPermissions documentPermissions = new DocumentPermissions(new DocRef("Pipeline", "doc1"),
+                DocumentPermissionNames.DOCUMENT_PERMISSIONS, userPermissions);
+        final CompiledDocumentPermissions compiled = new CompiledDocumentPermissions(documentPermissions,
+                userOrdinals);
+
+        final BitSet user1Only = ordinals(user1);
+        Assert.assertTrue(compiled.hasPermission(user1Only, DocumentPermissionNames.USE));
+        Assert.assertFalse(compiled.hasPermission(user1Only, DocumentPermissionNames.READ));
+
+        // Group permissions apply to members and infer lower permissions.
+        final BitSet user2InGroup = ordinals(user2, group1);
+        Assert.assertTrue(compiled.hasPermission(user2InGroup, DocumentPermissionNames.USE));
+        Assert.assertTrue(compiled.hasPermission(user2InGroup, DocumentPermissionNames.READ));
+        Assert.assertTrue(compiled.hasPermission(user2InGroup, DocumentPermissionNames.UPDATE));
+        Assert.assertFalse(compiled.hasPermission(user2InGroup, DocumentPermissionNames.DELETE));
+        Assert.assertFalse(compiled.hasPermission(ordinals(user2), DocumentPermissionNames.USE));
+
+        Assert.assertSame(documentPermissions, compiled.getDocumentPermissions());
+    }
+
+    @Test
+    public void testNoPermissions() {
+        final CompiledDocumentPermissions compiled = new CompiledDocumentPermissions(null, userOrdinals);
+        Assert.assertFalse(compiled.hasPermission(ordinals(user1), DocumentPermissionNames.USE));
+    }
+
+    private BitSet ordinals(final UserRef... userRefs) {
+        final BitSet bitSet = new BitSet();
+        for (final UserRef userRef : userRefs) {
+            bitSet.set(userOrdinals.get(userRef.getUuid()));
+        }
+        return bitSet;
+    }
+}
@@ -0,0 +1,121 @@
+/*
+ * Copyright 2018 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package stroom.security;
+
+import org.jose4j.jwk.RsaJsonWebKey;
+import org.jose4j.jwk.RsaJwkGenerator;
+import org.jose4j.jws.AlgorithmIdentifiers;
+import org.jose4j.jws.JsonWebSignature;
+import org.jose4j.jwt.JwtClaims;
+import org.jose4j.jwt.NumericDate;
+import org.jose4j.lang.JoseException;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import stroom.auth.service.api.ApiKeyApi;
+import stroom.security.SecurityConfig.JwtConfig;
+import stroom.util.cache.CacheManager;
+import stroom.util.test.StroomUnitTest;
+
+import java.util.Map;
+
+public class TestJWTService extends StroomUnitTest {
+    private static final String ISSUER = "stroom";
+
+    private RsaJsonWebKey currentKey;
+    private JWTService jwtService;
+
+    @Before
+    public void setup() throws JoseException {
+        currentKey = RsaJwkGenerator.generateJwk(2048);
+
+        final SecurityConfig securityConfig = new SecurityConfig();
+        securityConfig.setAuthenticationRequired(false);
+        final JwtConfig jwtConfig = new JwtConfig();
+        jwtConfig.setJwtIssuer(ISSUER);
+
+        final AuthenticationServiceClients authenticationServiceClients = new AuthenticationServiceClients(securityConfig) {
+            @Override
+            ApiKeyApi newApiKeyApi() {
+                return new ApiKeyApi() {
+                    @Override
+                    public String getPublicKey() {
+                        return currentKey.toJson();
+                    }
+                };
+            }
+        };
+
+        jwtService = new JWTService(securityConfig, jwtConfig, authenticationServiceClients, new CacheManager());
+    }
+
+    @Test
+    public void testCachedVerification() throws JoseException {
+        final String token = createToken(currentKey, "user1", 10);
+
+        Assert.assertEquals("user1", jwtService.verifyToken(token).map(this::getSubject).orElse(null));
+        Assert.assertEquals("user1", jwtService.verifyToken(token).map(this::getSubject).orElse(null));
+
+        final Map<String, Object> details = jwtService.getHealth().getDetails();
+        Assert.assertEquals(1L, details.get("Signature verifications"));
+        Assert.assertEquals(1L, details.get("Cache hits"));
+    }
+
+    @Test
+    public void testKeyRotation() throws JoseException {
+        final String oldToken = createToken(currentKey, "user1", 10);
+        Assert.assertTrue(jwtService.verifyToken(oldToken).isPresent());
+
+        // The new token will fail verification with the old key so the new key will be fetched.
+        currentKey = RsaJwkGenerator.generateJwk(2048);
+        final String newToken = createToken(currentKey, "user2", 10);
+        Assert.assertEquals("user2", jwtService.verifyToken(newToken).map(this::getSubject).orElse(null));
+
+        // Tokens verified with the old key must not still be accepted from the cache.
+        Assert.assertFalse(jwtService.verifyToken(oldToken).isPresent());
+    }
+
+    @Test
+    public void testExpiredToken() throws JoseException {
+        final String token = createToken(currentKey, "user1", -10);
+        Assert.assertFalse(jwtService.verifyToken(token).isPresent());
+    }
+
+    private String getSubject(final JwtClaims jwtClaims) {
+        try {
+            return jwtClaims.getSubject();
+        } catch (final Exception e) {
+            throw new RuntimeException(e.getMessage(), e);
+        }
+    }
+
+    private String createToken(final RsaJsonWebKey key, final String subject, final int expiryMinutes)
+            throws JoseException {
+        final JwtClaims claims = new JwtClaims();
+        claims.setIssuer(ISSUER);
+        claims.setSubject(subject);
+        final NumericDate expirationTime = NumericDate.now();
+        expirationTime.addSeconds(expiryMinutes * 60L);
+        claims.setExpirationTime(expirationTime);
+
+        final JsonWebSignature jws = new JsonWebSignature();
+        jws.setPayload(claims.toJson());
+        jws.setKey(key.getPrivateKey());
+        jws.setAlgorithmHeaderValue(AlgorithmIdentifiers.RSA_USING_SHA256);
+        return jws.getCompactSerialization();
+    }
+}
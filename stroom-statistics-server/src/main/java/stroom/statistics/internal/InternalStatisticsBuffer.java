@@ -0,0 +1,186 @@
+/*
+ * Copyright 2018 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package stroom.statistics.internal;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A bounded in memory buffer of internal statistic events. Count events with the same key, tags and time bucket are
+ * combined into a single event by summing their counts. Value events are kept as they are because the statistic
+ * stores record the number of values that make up each aggregate so combining them here would change the results.
+ * <p>
+ * Events are removed from the buffer in batches by calling {@link #drain()}. If the buffer is full then
+ * {@link #add(InternalStatisticEvent)} returns false and leaves it up to the caller to decide whether to drop the
+ * event or drain the buffer.
+ */
+class InternalStatisticsBuffer {
+    private final int maxSize;
+    private final long bucketMs;
+
+    private final AtomicLong received = new AtomicLong();
+    private final AtomicLong aggregated = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicLong flushed = new AtomicLong();
+
+    private Map<AggregateKey, InternalStatisticEvent> countMap = new LinkedHashMap<>();
+    private List<InternalStatisticEvent> valueList = new ArrayList<>();
+
+    InternalStatisticsBuffer(final int maxSize, final long bucketMs) {
+        this.maxSize = maxSize;
+        this.bucketMs = Math.max(1, bucketMs);
+    }
+
+    /**
+     * @return False if the buffer is full and the event has not been added.
+     */
+    synchronized boolean add(final InternalStatisticEvent event) {
+        received.incrementAndGet();
+
+        if (InternalStatisticEvent.Type.COUNT.equals(event.getType())) {
+            final long bucketTimeMs = event.getTimeMs() - (event.getTimeMs() % bucketMs);
+            final AggregateKey key = new AggregateKey(event.getKey(), event.getTags(), bucketTimeMs);
+            final InternalStatisticEvent existing = countMap.get(key);
+            if (existing != null) {
+                countMap.put(key, InternalStatisticEvent.createPlusNCountStat(
+                        event.getKey(),
+                        bucketTimeMs,
+                        event.getTags(),
+                        existing.getValueAsLong() + event.getValueAsLong()));
+                aggregated.incrementAndGet();
+                return true;
+            }
+
+            if (isFull()) {
+                return false;
+            }
+            countMap.put(key, InternalStatisticEvent.createPlusNCountStat(
+                    event.getKey(),
+                    bucketTimeMs,
+                    event.getTags(),
+                    event.getValueAsLong()));
+
+        } else {
+            if (isFull()) {
+                return false;
+            }
+            valueList.add(event);
+        }
+        return true;
+    }
+
+    /**
+     * Remove all buffered events so that they can be written.
+     */
+    List<InternalStatisticEvent> drain() {
+        final Map<AggregateKey, InternalStatisticEvent> counts;
+        final List<InternalStatisticEvent> values;
+        synchronized (this) {
+            counts = countMap;
+            values = valueList;
+            countMap = new LinkedHashMap<>();
+            valueList = new ArrayList<>();
+        }
+
+        final List<InternalStatisticEvent> events = new ArrayList<>(counts.size() + values.size());
+        events.addAll(counts.values());
+        events.addAll(values);
+        flushed.addAndGet(events.size());
+        return events;
+    }
+
+    void recordDropped() {
+        dropped.incrementAndGet();
+    }
+
+    synchronized int size() {
+        return countMap.size() + valueList.size();
+    }
+
+    private boolean isFull() {
+        return countMap.size() + valueList.size() >= maxSize;
+    }
+
+    /**
+     * @return The number of events that have been passed to the buffer.
+     */
+    long getReceived() {
+        return received.get();
+    }
+
+    /**
+     * @return The number of events that have been combined with an event already in the buffer.
+     */
+    long getAggregated() {
+        return aggregated.get();
+    }
+
+    /**
+     * @return The number of events that have been dropped because the buffer was full.
+     */
+    long getDropped() {
+        return dropped.get();
+    }
+
+    /**
+     * @return The number of events that have been removed from the buffer to be written.
+     */
+    long getFlushed() {
+        return flushed.get();
+    }
+
+    int getMaxSize() {
+        return maxSize;
+    }
+
+    long getBucketMs() {
+        return bucketMs;
+    }
+
+    private static class AggregateKey {
+        private final String key;
+        private final Map<String, String> tags;
+        private final long timeMs;
+        private final int hashCode;
+
+        AggregateKey(final String key, final Map<String, String> tags, final long timeMs) {
+            this.key = key;
+            this.tags = tags;
+            this.timeMs = timeMs;
+            this.hashCode = Objects.hash(key, tags, timeMs);
+        }
+
+        @Override
+        public boolean equals(final Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            final AggregateKey that = (AggregateKey) o;
+            return timeMs == that.timeMs &&
+                    Objects.equals(key, that.key) &&
+                    Objects.equals(tags, that.tags);
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+    }
+}
@@ -3,7 +3,11 @@ package stroom.statistics.internal;
 import com.google.common.base.Preconditions;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import stroom.properties.StroomPropertyService;
+import stroom.util.lifecycle.StroomFrequencySchedule;
+import stroom.util.lifecycle.StroomShutdown;
 import stroom.util.lifecycle.StroomStartup;
+import stroom.util.shared.ModelStringUtil;
 
 import javax.inject.Inject;
 import javax.inject.Provider;
@@ -19,16 +23,31 @@ public class InternalStatisticsReceiverImpl implements InternalStatisticsReceive
 
     private static final Logger LOGGER = LoggerFactory.getLogger(InternalStatisticsReceiverImpl.class);
 
+    static final String ASYNC_PROPERTY = "stroom.internalstatistics.async";
+    static final String MAX_BUFFERED_EVENTS_PROPERTY = "stroom.internalstatistics.maxBufferedEvents";
+    static final String AGGREGATION_PERIOD_PROPERTY = "stroom.internalstatistics.aggregationPeriod";
+    static final String DROP_WHEN_FULL_PROPERTY = "stroom.internalstatistics.dropWhenFull";
+
+    private static final int DEFAULT_MAX_BUFFERED_EVENTS = 100000;
+    private static final long DEFAULT_AGGREGATION_PERIOD_MS = 1000;
+
     private final Collection<Provider<InternalStatisticsService>> providers;
     private final InternalStatisticDocRefCache internalStatisticDocRefCache;
+    private final StroomPropertyService stroomPropertyService;
 
     private volatile InternalStatisticsReceiver internalStatisticsReceiver = new DoNothingInternalStatisticsReceiver();
+    // Null if events are to be written on the calling thread.
+    private volatile InternalStatisticsBuffer buffer;
+    private volatile boolean dropWhenFull = true;
+    private long lastDropped;
 
     @Inject
     InternalStatisticsReceiverImpl(final Collection<Provider<InternalStatisticsService>> providers,
-                                   final InternalStatisticDocRefCache internalStatisticDocRefCache) {
+                                   final InternalStatisticDocRefCache internalStatisticDocRefCache,
+                                   final StroomPropertyService stroomPropertyService) {
         this.providers = providers;
         this.internalStatisticDocRefCache = internalStatisticDocRefCache;
+        this.stroomPropertyService = stroomPropertyService;
     }
 
     @SuppressWarnings("unused")
@@ -46,16 +65,121 @@ public class InternalStatisticsReceiverImpl implements InternalStatisticsReceive
         });
 
         internalStatisticsReceiver = new MultiServiceInternalStatisticsReceiver(internalStatisticDocRefCache, docRefTypeToServiceMap);
+        updateBuffer();
     }
 
     @Override
     public void putEvent(final InternalStatisticEvent event) {
-        internalStatisticsReceiver.putEvent(event);
+        final InternalStatisticsBuffer buffer = this.buffer;
+        if (buffer == null) {
+            internalStatisticsReceiver.putEvent(event);
+        } else {
+            addToBuffer(buffer, event);
+        }
     }
 
     @Override
     public void putEvents(final List<InternalStatisticEvent> events) {
-        internalStatisticsReceiver.putEvents(events);
+        final InternalStatisticsBuffer buffer = this.buffer;
+        if (buffer == null) {
+            internalStatisticsReceiver.putEvents(events);
+        } else {
+            events.forEach(event -> addToBuffer(buffer, event));
+        }
+    }
+
+    private void addToBuffer(final InternalStatisticsBuffer buffer, final InternalStatisticEvent event) {
+        if (!buffer.add(event)) {
+            if (dropWhenFull) {
+                buffer.recordDropped();
+            } else {
+                // Apply back pressure by making the calling thread write the buffered events.
+                write(buffer);
+                if (!buffer.add(event)) {
+                    buffer.recordDropped();
+                }
+            }
+        }
+    }
+
+    /**
+     * Write all buffered events to the statistics services.
+     */
+    @StroomFrequencySchedule("10s")
+    public void flush() {
+        final InternalStatisticsBuffer buffer = this.buffer;
+        if (buffer != null) {
+            write(buffer);
+            logMetrics(buffer);
+        }
+        updateBuffer();
+    }
+
+    @StroomShutdown
+    public void shutdown() {
+        final InternalStatisticsBuffer buffer = this.buffer;
+        this.buffer = null;
+        if (buffer != null) {
+            write(buffer);
+        }
+    }
+
+    private void write(final InternalStatisticsBuffer buffer) {
+        final List<InternalStatisticEvent> events = buffer.drain();
+        if (events.size() > 0) {
+            LOGGER.debug("Writing {} buffered internal statistic events", events.size());
+            internalStatisticsReceiver.putEvents(events);
+        }
     }
 
+    private synchronized void logMetrics(final InternalStatisticsBuffer buffer) {
+        final long dropped = buffer.getDropped();
+        if (dropped > lastDropped) {
+            LOGGER.warn("Dropped {} internal statistic events as the buffer was full (max {}), consider increasing {}",
+                    dropped - lastDropped, buffer.getMaxSize(), MAX_BUFFERED_EVENTS_PROPERTY);
+        }
+        lastDropped = dropped;
+
+        LOGGER.debug("Internal statistics buffer - received: {}, aggregated: {}, flushed: {}, dropped: {}",
+                buffer.getReceived(), buffer.getAggregated(), buffer.getFlushed(), dropped);
+    }
+
+    /**
+     * Create or replace the buffer if the properties that control it have changed.
+     */
+    private synchronized void updateBuffer() {
+        dropWhenFull = stroomPropertyService.getBooleanProperty(DROP_WHEN_FULL_PROPERTY, true);
+
+        final InternalStatisticsBuffer current = buffer;
+        if (!stroomPropertyService.getBooleanProperty(ASYNC_PROPERTY, true)) {
+            if (current != null) {
+                buffer = null;
+                write(current);
+            }
+            return;
+        }
+
+        final int maxSize = stroomPropertyService.getIntProperty(MAX_BUFFERED_EVENTS_PROPERTY,
+                DEFAULT_MAX_BUFFERED_EVENTS);
+        final long bucketMs = getAggregationPeriodMs();
+        if (current == null || current.getMaxSize() != maxSize || current.getBucketMs() != bucketMs) {
+            buffer = new InternalStatisticsBuffer(maxSize, bucketMs);
+            lastDropped = 0;
+            if (current != null) {
+                write(current);
+            }
+        }
+    }
+
+    private long getAggregationPeriodMs() {
+        final String period = stroomPropertyService.getProperty(AGGREGATION_PERIOD_PROPERTY);
+        if (period != null && !period.isEmpty()) {
+            try {
+                return Math.max(1, ModelStringUtil.parseDurationString(period));
+            } catch (final RuntimeException e) {
+                LOGGER.error("Unable to parse {} value '{}'", AGGREGATION_PERIOD_PROPERTY, period);
+            }
+        }
+        return DEFAULT_AGGREGATION_PERIOD_MS;
+    }
 }
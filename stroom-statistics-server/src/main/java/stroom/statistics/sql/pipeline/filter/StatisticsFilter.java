@@ -126,6 +126,7 @@ public class StatisticsFilter extends AbstractXMLFilter {
         }
 
         // clean out the map of field names to values
+        emptyTagToValueMap.clear();
         for (final String fieldName : statisticStoreEntity.getFieldNames()) {
             emptyTagToValueMap.put(fieldName, null);
         }
@@ -0,0 +1,82 @@
+/*
+ * Copyright 2018 Crown Copyright
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package stroom.statistics.internal;
+
+import com.google.common.collect.ImmutableMap;
+import org.assertj.core.api.Assertions;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.Map;
+
+public class TestInternalStatisticsBuffer {
+    private static final String KEY = "MyKey";
+    private static final Map<String, String> TAGS_1 = ImmutableMap.of("Feed", "FEED1");
+    private static final Map<String, String> TAGS_2 = ImmutableMap.of("Feed", "FEED2");
+
+    @Test
+    public void testCountsAggregated() {
+        final InternalStatisticsBuffer buffer = new InternalStatisticsBuffer(100, 1000);
+
+        buffer.add(InternalStatisticEvent.createPlusOneCountStat(KEY, 10_100L, TAGS_1));
+        buffer.add(InternalStatisticEvent.createPlusNCountStat(KEY, 10_900L, TAGS_1, 5L));
+        // Different bucket.
+        buffer.add(InternalStatisticEvent.createPlusOneCountStat(KEY, 11_000L, TAGS_1));
+        // Different tags.
+        buffer.add(InternalStatisticEvent.createPlusOneCountStat(KEY, 10_200L, TAGS_2));
+
+        final List<InternalStatisticEvent> events = buffer.drain();
+        Assertions.assertThat(events).containsExactly(
+                InternalStatisticEvent.createPlusNCountStat(KEY, 10_000L, TAGS_1, 6L),
+                InternalStatisticEvent.createPlusOneCountStat(KEY, 11_000L, TAGS_1),
+                InternalStatisticEvent.createPlusOneCountStat(KEY, 10_000L, TAGS_2));
+
+        Assertions.assertThat(buffer.getReceived()).isEqualTo(4);
+        Assertions.assertThat(buffer.getAggregated()).isEqualTo(1);
+        Assertions.assertThat(buffer.getFlushed()).isEqualTo(3);
+        Assertions.assertThat(buffer.size()).isZero();
+        Assertions.assertThat(buffer.drain()).isEmpty();
+    }
+
+    @Test
+    public void testValuesNotAggregated() {
+        final InternalStatisticsBuffer buffer = new InternalStatisticsBuffer(100, 1000);
+
+        final InternalStatisticEvent event1 = InternalStatisticEvent.createValueStat(KEY, 10_100L, TAGS_1, 1.5);
+        final InternalStatisticEvent event2 = InternalStatisticEvent.createValueStat(KEY, 10_200L, TAGS_1, 2.5);
+        buffer.add(event1);
+        buffer.add(event2);
+
+        Assertions.assertThat(buffer.drain()).containsExactly(event1, event2);
+    }
+
+    @Test
+    public void testFull() {
+        final InternalStatisticsBuffer buffer = new InternalStatisticsBuffer(2, 1000);
+
+        Assertions.assertThat(buffer.add(InternalStatisticEvent.createPlusOneCountStat(KEY, 10_000L, TAGS_1))).isTrue();
+        Assertions.assertThat(buffer.add(InternalStatisticEvent.createValueStat(KEY, 10_000L, TAGS_1, 1.0))).isTrue();
+        Assertions.assertThat(buffer.add(InternalStatisticEvent.createValueStat(KEY, 10_000L, TAGS_1, 2.0))).isFalse();
+        Assertions.assertThat(buffer.add(InternalStatisticEvent.createPlusOneCountStat(KEY, 10_000L, TAGS_2))).isFalse();
+
+        // Counts for a bucket already in the buffer can still be added when it is full.
+        Assertions.assertThat(buffer.add(InternalStatisticEvent.createPlusOneCountStat(KEY, 10_500L, TAGS_1))).isTrue();
+
+        Assertions.assertThat(buffer.drain()).hasSize(2);
+        Assertions.assertThat(buffer.add(InternalStatisticEvent.createPlusOneCountStat(KEY, 10_000L, TAGS_2))).isTrue();
+    }
+}